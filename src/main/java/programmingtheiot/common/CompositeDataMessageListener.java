@@ -0,0 +1,338 @@
+/**
+ * This class is part of the Programming the Internet of Things
+ * project, and is available via the MIT License, which can be
+ * found in the LICENSE file at the top level of this repository.
+ *
+ * Copyright (c) 2020 by Andrew D. King
+ */
+
+package programmingtheiot.common;
+
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import programmingtheiot.data.ActuatorData;
+import programmingtheiot.data.SensorData;
+import programmingtheiot.data.SystemPerformanceData;
+
+/**
+ * An {@link IDataMessageListener} that delivers each message to a number
+ * of listeners.
+ * <p>
+ * The primary listener (e.g. DeviceDataManager), if set, is called on the
+ * calling thread, as with a single listener. Each additional listener gets
+ * its own thread and bounded queue: once its queue is full, its oldest
+ * message is dropped, so a slow (e.g. analytics or persistence) listener
+ * never blocks the caller or the other listeners.
+ * <p>
+ * All listeners receive the same data instances, so must not modify them.
+ * <p>
+ * This class is thread-safe.
+ *
+ */
+public class CompositeDataMessageListener implements IDataMessageListener
+{
+	// static
+
+	private static final Logger _Logger =
+		Logger.getLogger(CompositeDataMessageListener.class.getName());
+
+
+	// private var's
+
+	private volatile IDataMessageListener primaryListener = null;
+
+	// copy-on-write, so delivery never locks
+	private volatile Delivery[] deliveries = new Delivery[0];
+
+
+	// constructors
+
+	/**
+	 * Default.
+	 *
+	 */
+	public CompositeDataMessageListener()
+	{
+		super();
+	}
+
+	/**
+	 * Constructor.
+	 *
+	 * @param primaryListener The listener called on the calling thread.
+	 */
+	public CompositeDataMessageListener(IDataMessageListener primaryListener)
+	{
+		this();
+
+		this.primaryListener = primaryListener;
+	}
+
+
+	// public methods
+
+	/**
+	 * Adds a listener with its own thread, and a queue of the configured
+	 * size ({@link ConfigConst#LISTENER_QUEUE_SIZE_KEY}).
+	 *
+	 * @param name The listener name, for its thread and metrics.
+	 * @param listener The listener.
+	 */
+	public void addListener(String name, IDataMessageListener listener)
+	{
+		int queueSize =
+			ConfigUtil.getInstance().getInteger(
+				ConfigConst.GATEWAY_DEVICE, ConfigConst.LISTENER_QUEUE_SIZE_KEY, ConfigConst.DEFAULT_LISTENER_QUEUE_SIZE);
+
+		addListener(name, listener, queueSize);
+	}
+
+	/**
+	 * Adds a listener with its own thread and queue.
+	 *
+	 * @param name The listener name, for its thread and metrics.
+	 * @param listener The listener.
+	 * @param queueSize The maximum number of queued messages.
+	 */
+	public synchronized void addListener(String name, IDataMessageListener listener, int queueSize)
+	{
+		if (listener == null) {
+			return;
+		}
+
+		Delivery[] updated = Arrays.copyOf(this.deliveries, this.deliveries.length + 1);
+		updated[updated.length - 1] = new Delivery(name, listener, Math.max(1, queueSize));
+
+		this.deliveries = updated;
+
+		_Logger.info("Added data message listener: " + name + ". Queue size: " + queueSize);
+	}
+
+	/**
+	 * Returns the number of messages dropped for the named listener, as
+	 * its queue was full.
+	 *
+	 * @param name The listener name.
+	 * @return long The count, or 0 if there's no such listener.
+	 */
+	public long getDroppedCount(String name)
+	{
+		Delivery delivery = getDelivery(name);
+
+		return (delivery != null ? delivery.droppedCount.get() : 0L);
+	}
+
+	/**
+	 * Returns the number of messages the named listener has handled. A
+	 * message is counted once the listener's call has returned without
+	 * throwing, so queued messages, the one being handled, and those the
+	 * listener failed on aren't included.
+	 *
+	 * @param name The listener name.
+	 * @return long The count, or 0 if there's no such listener.
+	 */
+	public long getDeliveredCount(String name)
+	{
+		Delivery delivery = getDelivery(name);
+
+		return (delivery != null ? delivery.deliveredCount.get() : 0L);
+	}
+
+	/**
+	 * Returns the number of additional (queued) listeners.
+	 *
+	 * @return int
+	 */
+	public int getListenerCount()
+	{
+		return this.deliveries.length;
+	}
+
+	/**
+	 * Removes the named listener. Messages already queued for it are
+	 * still delivered.
+	 *
+	 * @param name The listener name.
+	 * @return boolean True if removed; false if there's no such listener.
+	 */
+	public synchronized boolean removeListener(String name)
+	{
+		Delivery delivery = getDelivery(name);
+
+		if (delivery == null) {
+			return false;
+		}
+
+		this.deliveries =
+			Arrays.stream(this.deliveries).filter(d -> d != delivery).toArray(Delivery[]::new);
+
+		delivery.executor.shutdown();
+
+		return true;
+	}
+
+	/**
+	 * Sets the listener called on the calling thread.
+	 *
+	 * @param listener The listener; may be null.
+	 */
+	public void setPrimaryListener(IDataMessageListener listener)
+	{
+		this.primaryListener = listener;
+	}
+
+	/**
+	 * Stops the threads of the additional listeners, after delivering
+	 * any queued messages.
+	 *
+	 */
+	public synchronized void shutdown()
+	{
+		for (Delivery delivery : this.deliveries) {
+			delivery.executor.shutdown();
+		}
+
+		this.deliveries = new Delivery[0];
+	}
+
+	@Override
+	public boolean handleActuatorCommandResponse(ResourceNameEnum resourceName, ActuatorData data)
+	{
+		return deliver(listener -> listener.handleActuatorCommandResponse(resourceName, data));
+	}
+
+	@Override
+	public boolean handleIncomingMessage(ResourceNameEnum resourceName, String msg)
+	{
+		return deliver(listener -> listener.handleIncomingMessage(resourceName, msg));
+	}
+
+	@Override
+	public boolean handleSensorMessage(ResourceNameEnum resourceName, SensorData data)
+	{
+		return deliver(listener -> listener.handleSensorMessage(resourceName, data));
+	}
+
+	@Override
+	public boolean handleSystemPerformanceMessage(ResourceNameEnum resourceName, SystemPerformanceData data)
+	{
+		return deliver(listener -> listener.handleSystemPerformanceMessage(resourceName, data));
+	}
+
+	@Override
+	public void setActuatorDataListener(String name, IActuatorDataListener listener)
+	{
+		IDataMessageListener primary = this.primaryListener;
+
+		if (primary != null) {
+			primary.setActuatorDataListener(name, listener);
+		}
+
+		for (Delivery delivery : this.deliveries) {
+			delivery.listener.setActuatorDataListener(name, listener);
+		}
+	}
+
+
+	// private methods
+
+	/**
+	 * Queues the call for each additional listener, then makes it on the
+	 * primary listener.
+	 *
+	 * @param call The listener method call.
+	 * @return boolean The primary listener's result if set; otherwise,
+	 * true if queued for any listener.
+	 */
+	private boolean deliver(Predicate<IDataMessageListener> call)
+	{
+		boolean success = false;
+
+		for (Delivery delivery : this.deliveries) {
+			success |= delivery.submit(call);
+		}
+
+		IDataMessageListener primary = this.primaryListener;
+
+		if (primary != null) {
+			success = call.test(primary);
+		}
+
+		return success;
+	}
+
+	private Delivery getDelivery(String name)
+	{
+		for (Delivery delivery : this.deliveries) {
+			if (delivery.name.equals(name)) {
+				return delivery;
+			}
+		}
+
+		return null;
+	}
+
+
+	/**
+	 * An additional listener, with its own single thread executor and
+	 * bounded queue.
+	 *
+	 */
+	private static final class Delivery
+	{
+		private final String name;
+		private final IDataMessageListener listener;
+		private final ThreadPoolExecutor executor;
+
+		private final AtomicLong deliveredCount = new AtomicLong(0L);
+		private final AtomicLong droppedCount   = new AtomicLong(0L);
+
+		Delivery(String name, IDataMessageListener listener, int queueSize)
+		{
+			this.name     = name;
+			this.listener = listener;
+			this.executor =
+				new ThreadPoolExecutor(
+					1, 1, 0L, TimeUnit.MILLISECONDS,
+					new ArrayBlockingQueue<>(queueSize),
+					ExecutorUtil.getInstance().newThreadFactory("Listener-" + name),
+					new ThreadPoolExecutor.DiscardOldestPolicy() {
+						@Override
+						public void rejectedExecution(Runnable r, ThreadPoolExecutor e)
+						{
+							if (! e.isShutdown()) {
+								droppedCount.incrementAndGet();
+							}
+
+							super.rejectedExecution(r, e);
+						}
+					});
+		}
+
+		boolean submit(Predicate<IDataMessageListener> call)
+		{
+			if (this.executor.isShutdown()) {
+				return false;
+			}
+
+			this.executor.execute(() -> {
+				try {
+					call.test(this.listener);
+					this.deliveredCount.incrementAndGet();
+				} catch (RuntimeException e) {
+					_Logger.log(Level.WARNING, "Data message listener failed: " + this.name, e);
+				}
+			});
+
+			return true;
+		}
+	}
+
+}
@@ -31,7 +31,28 @@ public class ConfigConst
 	public static final int    DEFAULT_MQTT_PORT        = 1883;
 	public static final int    DEFAULT_MQTT_SECURE_PORT = 8883;
 	public static final int    DEFAULT_KEEP_ALIVE       = 60;
+	public static final int    DEFAULT_MAX_INFLIGHT     = 1000;
+	public static final int    DEFAULT_INFLIGHT_WAIT_MILLIS = 5000;
+	public static final int    DEFAULT_RECEIVE_MAXIMUM  = 100;
+	public static final int    DEFAULT_TOPIC_ALIAS_MAXIMUM = 16;
+	public static final long   DEFAULT_MESSAGE_EXPIRY_SECS = 0L;
+	public static final int    DEFAULT_SPOOL_SEGMENT_SIZE  = 1048576;
+	public static final int    DEFAULT_SPOOL_MAX_SIZE      = 67108864;
+	public static final int    DEFAULT_SPOOL_REPLAY_RATE   = 100;
+	public static final String DEFAULT_SPOOL_DIR_NAME      = "mqtt-spool";
+	public static final int    DEFAULT_RECONNECT_BASE_DELAY_MILLIS = 1000;
+	public static final int    DEFAULT_RECONNECT_MAX_DELAY_MILLIS  = 120000;
+	public static final int    DEFAULT_CIRCUIT_BREAKER_THRESHOLD   = 10;
+	public static final int    DEFAULT_CIRCUIT_BREAKER_OPEN_MILLIS = 300000;
+	public static final int    DEFAULT_RECONNECT_THREADS           = 2;
 	public static final int    DEFAULT_POLL_CYCLES      = 5;
+	public static final int    DEFAULT_POLL_MIN_INTERVAL_MILLIS = 250;
+	public static final int    DEFAULT_POLL_MAX_INTERVAL_MILLIS = 60000;
+	public static final float  DEFAULT_POLL_IDLE_DELTA          = 1.0f;
+	public static final int    DEFAULT_POLL_THREADS             = 3;
+	public static final float  DEFAULT_CPU_UTIL_POLL_THRESHOLD  = 80.0f;
+	public static final float  DEFAULT_MEM_UTIL_POLL_THRESHOLD  = 90.0f;
+	public static final float  DEFAULT_DISK_UTIL_POLL_THRESHOLD = 95.0f;
 	public static final int    DEFAULT_TTL              = 60;
 	
 	public static final float  DEFAULT_VAL = 0.0f;
@@ -80,6 +101,35 @@ public class ConfigConst
 	public static final String CPU_UTIL_PROP    = "cpuUtil";
 	public static final String DISK_UTIL_PROP   = "diskUtil";
 	public static final String MEM_UTIL_PROP    = "memUtil";
+	public static final String METRICS_PROP     = "metrics";
+	
+	// additional SystemPerformanceData metrics; the network metrics are
+	// per interface, named e.g. 'netRxBytesPerSec.eth0'
+	public static final String GC_PAUSE_MILLIS_PROP     = "gcPauseMillis";
+	public static final String ALLOC_RATE_PROP          = "allocBytesPerSec";
+	public static final String THREAD_COUNT_PROP        = "threadCount";
+	public static final String OPEN_FILE_DESC_PROP      = "openFileDescriptors";
+	public static final String PROCESS_CPU_UTIL_PROP    = "processCpuUtil";
+	public static final String NET_RX_BYTES_RATE_PROP   = "netRxBytesPerSec";
+	public static final String NET_TX_BYTES_RATE_PROP   = "netTxBytesPerSec";
+	
+	// SystemPerformanceData metrics of the telemetry polling itself
+	public static final String POLL_LAG_MILLIS_PROP      = "pollLagMillis";
+	public static final String POLL_DURATION_MILLIS_PROP = "pollDurationMillis";
+	public static final String POLL_SKIPPED_TICKS_PROP   = "pollSkippedTicks";
+	
+	// aggregated metrics (and sensor readings) are named e.g. 'cpuUtil.p95',
+	// for each statistic
+	public static final String SAMPLE_COUNT_PROP = "sampleCount";
+	public static final String COUNT_STAT        = "count";
+	public static final String MIN_STAT          = "min";
+	public static final String MAX_STAT          = "max";
+	public static final String MEAN_STAT         = "mean";
+	public static final String STDDEV_STAT       = "stddev";
+	public static final String P50_STAT          = "p50";
+	public static final String P95_STAT          = "p95";
+	public static final String P99_STAT          = "p99";
+	public static final String LAST_STAT         = "last";
 	
 	public static final String SENSOR_DATA_LIST_PROP      = "sensorDataList";
 	public static final String SYSTEM_PERF_DATA_LIST_PROP = "systemPerfDataList";
@@ -143,6 +193,12 @@ public class ConfigConst
 	public static final int    CPU_UTIL_TYPE             = 9001;
 	public static final int    DISK_UTIL_TYPE            = 9002;
 	public static final int    MEM_UTIL_TYPE             = 9003;
+	public static final int    GC_PAUSE_TYPE             = 9004;
+	public static final int    ALLOC_RATE_TYPE           = 9005;
+	public static final int    THREAD_COUNT_TYPE         = 9006;
+	public static final int    OPEN_FILE_DESC_TYPE       = 9007;
+	public static final int    NETWORK_IO_TYPE           = 9008;
+	public static final int    PROCESS_CPU_UTIL_TYPE     = 9009;
 	
 	public static final String LED_ACTUATOR_NAME        = "LedActuator";
 	public static final String HUMIDIFIER_ACTUATOR_NAME = "HumidifierActuator";
@@ -178,6 +234,42 @@ public class ConfigConst
 	
 	public static final int DEFAULT_QOS = 0;
 	
+	public static final long DEFAULT_CONFIG_WATCH_DELAY_MILLIS = 500L;
+	
+	public static final int DEFAULT_PIPELINE_QUEUE_SIZE   = 1024;
+	public static final int DEFAULT_PIPELINE_WORKERS      = 1;
+	public static final int DEFAULT_PIPELINE_SAMPLE_RATE  = 10;
+	
+	public static final int DEFAULT_MAX_PLATFORM_THREADS  = 8;
+	public static final int DEFAULT_TASK_QUEUE_SIZE       = 1024;
+	public static final int DEFAULT_LISTENER_QUEUE_SIZE   = 256;
+	
+	public static final int DEFAULT_UPSTREAM_QUEUE_SIZE          = 1024;
+	public static final int DEFAULT_UPSTREAM_BATCH_MAX_COUNT     = 50;
+	public static final int DEFAULT_UPSTREAM_BATCH_MAX_BYTES     = 65536;
+	public static final int DEFAULT_UPSTREAM_BATCH_LINGER_MILLIS = 100;
+	public static final int DEFAULT_UPSTREAM_MAX_RETRIES         = 3;
+	public static final int DEFAULT_UPSTREAM_RETRY_DELAY_MILLIS  = 100;
+	
+	public static final int DEFAULT_SYS_PERF_AGG_WINDOW_MILLIS   = 60000;
+	public static final int DEFAULT_SYS_PERF_AGG_MAX_SAMPLES     = 1024;
+	public static final int DEFAULT_SENSOR_AGG_WINDOW_MILLIS     = 60000;
+	public static final int DEFAULT_SENSOR_AGG_MAX_SENSORS       = 10000;
+	
+	public static final float DEFAULT_DEADBAND_ABSOLUTE           = 0.0f;
+	public static final float DEFAULT_DEADBAND_PERCENT            = 1.0f;
+	public static final int   DEFAULT_DEADBAND_MAX_SILENCE_MILLIS = 60000;
+	public static final int   DEFAULT_DEADBAND_MAX_SENSORS        = 10000;
+
+	// CoAP Content-Format 50 is registered for application/json; the binary
+	// encoding uses a value from the experimental range (65000 - 65535)
+	public static final int    JSON_CONTENT_FORMAT   = 50;
+	public static final String JSON_CONTENT_TYPE     = "application/json";
+	public static final int    BINARY_CONTENT_FORMAT = 65000;
+	public static final String BINARY_CONTENT_TYPE   = "application/vnd.piot.binary";
+
+	public static final String BINARY_PAYLOAD_RESOURCES_KEY = "binaryPayloadResources";
+
 	public static final String TEST_GDA_DATA_PATH_KEY = "testGdaDataPath";
 	public static final String TEST_CDA_DATA_PATH_KEY = "testCdaDataPath";
 
@@ -199,6 +291,66 @@ public class ConfigConst
 	public static final String ENABLE_SYSTEM_PERF_KEY        = "enableSystemPerformance";
 	
 	public static final String ENABLE_RUN_FOREVER_KEY        = "enableRunForever";
+	public static final String ENABLE_CONFIG_WATCH_KEY       = "enableConfigWatch";
+	public static final String ENABLE_DATA_PIPELINE_KEY      = "enableDataPipeline";
+	public static final String USE_VIRTUAL_THREADS_KEY       = "useVirtualThreads";
+	public static final String MAX_PLATFORM_THREADS_KEY      = "maxPlatformThreads";
+	public static final String LISTENER_QUEUE_SIZE_KEY       = "listenerQueueSize";
+	public static final String DISK_UTIL_PATH_KEY            = "diskUtilPath";
+	public static final String ENABLE_EXTENDED_TELEMETRY_KEY = "enableExtendedTelemetry";
+	
+	public static final String PIPELINE_QUEUE_SIZE_KEY        = "pipelineQueueSize";
+	public static final String PIPELINE_TRANSFORM_WORKERS_KEY = "pipelineTransformWorkers";
+	public static final String PIPELINE_FAN_OUT_WORKERS_KEY   = "pipelineFanOutWorkers";
+	public static final String PIPELINE_BACKPRESSURE_KEY      = "pipelineBackpressurePolicy";
+	public static final String PIPELINE_SAMPLE_RATE_KEY       = "pipelineSampleRate";
+	
+	public static final String ENABLE_UPSTREAM_PUB_SUB_KEY    = "enableUpstreamPubSub";
+	public static final String UPSTREAM_QUEUE_SIZE_KEY        = "upstreamQueueSize";
+	public static final String UPSTREAM_MAX_RETRIES_KEY       = "upstreamMaxRetries";
+	public static final String UPSTREAM_RETRY_DELAY_KEY       = "upstreamRetryDelayMillis";
+	
+	public static final String ENABLE_SYS_PERF_AGG_KEY        = "enableSysPerfAggregation";
+	public static final String SYS_PERF_AGG_WINDOW_KEY        = "sysPerfAggWindowMillis";
+	public static final String SYS_PERF_AGG_HOP_KEY           = "sysPerfAggHopMillis";
+	public static final String SYS_PERF_AGG_MAX_SAMPLES_KEY   = "sysPerfAggMaxSamples";
+	public static final String ENABLE_SENSOR_AGG_KEY          = "enableSensorAggregation";
+	public static final String SENSOR_AGG_WINDOW_KEY          = "sensorAggWindowMillis";
+	public static final String SENSOR_AGG_MAX_SENSORS_KEY     = "sensorAggMaxSensors";
+	public static final String ENABLE_DEADBAND_FILTER_KEY     = "enableDeadbandFilter";
+	public static final String DEADBAND_MAX_SENSORS_KEY       = "deadbandMaxSensors";
+	
+	// deadband keys are the sensor name + suffix (e.g.
+	// 'TempSensorDeadbandPercent'), falling back to the 'sensor' prefix
+	public static final String SENSOR_PREFIX                  = "sensor";
+	public static final String DEADBAND_ABSOLUTE_KEY          = "DeadbandAbsolute";
+	public static final String DEADBAND_PERCENT_KEY           = "DeadbandPercent";
+	public static final String DEADBAND_MAX_SILENCE_KEY       = "DeadbandMaxSilenceMillis";
+	
+	// each rule named in the 'rules' key has its own section (e.g.
+	// '[Rule.HumidifierOn]'); its location ID key is 'locationID'
+	public static final String ENABLE_RULES_ENGINE_KEY        = "enableRulesEngine";
+	public static final String RULES_KEY                      = "rules";
+	public static final String RULE_SECTION_PREFIX            = "Rule";
+	public static final String RULE_RESOURCE_KEY              = "resource";
+	public static final String RULE_CONDITION_KEY             = "condition";
+	public static final String RULE_THRESHOLD_KEY             = "threshold";
+	public static final String RULE_HYSTERESIS_KEY            = "hysteresis";
+	public static final String RULE_ACTUATOR_NAME_KEY         = "actuatorName";
+	public static final String RULE_ACTUATOR_TYPE_KEY         = "actuatorType";
+	public static final String RULE_ON_COMMAND_KEY            = "onCommand";
+	public static final String RULE_OFF_COMMAND_KEY           = "offCommand";
+	public static final String RULE_ACTUATOR_VALUE_KEY        = "actuatorValue";
+	
+	// upstream batching keys are the destination prefix + suffix (e.g.
+	// 'cloudBatchMaxCount'), falling back to the 'upstream' prefix
+	public static final String UPSTREAM_PREFIX                = "upstream";
+	public static final String PUB_SUB_PREFIX                 = "pubSub";
+	public static final String CLOUD_PREFIX                   = "cloud";
+	public static final String PERSISTENCE_PREFIX             = "persistence";
+	public static final String BATCH_MAX_COUNT_KEY            = "BatchMaxCount";
+	public static final String BATCH_MAX_BYTES_KEY            = "BatchMaxBytes";
+	public static final String BATCH_LINGER_MILLIS_KEY        = "BatchLingerMillis";
 	
 	public static final String AWS_CLOUD_SVC_NAME     = "AWS";
 	public static final String AZURE_CLOUD_SVC_NAME   = "Azure";
@@ -265,7 +417,31 @@ public class ConfigConst
 	public static final String ENABLE_LOGGING_KEY   = "enableLogging";
 	public static final String USE_WEB_ACCESS_KEY   = "useWebAccess";
 	public static final String POLL_CYCLES_KEY      = "pollCycleSecs";
+	public static final String POLL_INTERVAL_KEY          = "pollIntervalMillis";
+	public static final String POLL_MIN_INTERVAL_KEY      = "pollMinIntervalMillis";
+	public static final String POLL_MAX_INTERVAL_KEY      = "pollMaxIntervalMillis";
+	public static final String POLL_IDLE_DELTA_KEY        = "pollIdleDelta";
+	public static final String POLL_THREADS_KEY           = "pollThreads";
+	public static final String CPU_UTIL_POLL_THRESHOLD_KEY  = "cpuUtilPollThreshold";
+	public static final String MEM_UTIL_POLL_THRESHOLD_KEY  = "memUtilPollThreshold";
+	public static final String DISK_UTIL_POLL_THRESHOLD_KEY = "diskUtilPollThreshold";
 	public static final String KEEP_ALIVE_KEY       = "keepAlive";
+	public static final String MAX_INFLIGHT_KEY     = "maxInflight";
+	public static final String INFLIGHT_WAIT_MILLIS_KEY = "inflightWaitMillis";
+	public static final String RECEIVE_MAXIMUM_KEY  = "receiveMaximum";
+	public static final String TOPIC_ALIAS_MAXIMUM_KEY = "topicAliasMaximum";
+	public static final String DEFAULT_MESSAGE_EXPIRY_KEY = "defaultMessageExpirySecs";
+	public static final String MESSAGE_EXPIRY_RESOURCES_KEY = "messageExpiryResources";
+	public static final String ENABLE_SPOOL_KEY     = "enableSpool";
+	public static final String SPOOL_PATH_KEY       = "spoolPath";
+	public static final String SPOOL_SEGMENT_SIZE_KEY = "spoolSegmentSize";
+	public static final String SPOOL_MAX_SIZE_KEY   = "spoolMaxSize";
+	public static final String SPOOL_REPLAY_RATE_KEY = "spoolReplayRate";
+	public static final String RECONNECT_BASE_DELAY_KEY = "reconnectBaseDelayMillis";
+	public static final String RECONNECT_MAX_DELAY_KEY  = "reconnectMaxDelayMillis";
+	public static final String CIRCUIT_BREAKER_THRESHOLD_KEY = "circuitBreakerThreshold";
+	public static final String CIRCUIT_BREAKER_OPEN_KEY = "circuitBreakerOpenMillis";
+	public static final String USE_MONOTONIC_CLOCK_KEY = "useMonotonicClock";
 	public static final String DEFAULT_QOS_KEY      = "defaultQos";
 	public static final String ENABLE_CON_MSGS_KEY  = "enableConfirmedMsgs";
 	
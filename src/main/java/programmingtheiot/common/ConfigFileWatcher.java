@@ -0,0 +1,178 @@
+/**
+ * This class is part of the Programming the Internet of Things
+ * project, and is available via the MIT License, which can be
+ * found in the LICENSE file at the top level of this repository.
+ *
+ * Copyright (c) 2020 by Andrew D. King
+ */
+
+package programmingtheiot.common;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Watches a single file using a {@link WatchService} on its parent
+ * directory, and invokes a callback once the file has been created or
+ * modified and no further events have arrived for the debounce delay.
+ * The delay avoids reading a file an editor is still writing.
+ *
+ */
+class ConfigFileWatcher implements Runnable
+{
+	// static
+
+	private static final Logger _Logger =
+		Logger.getLogger(ConfigFileWatcher.class.getName());
+
+
+	// private var's
+
+	private final Path     watchFile;
+	private final long     delayMillis;
+	private final Runnable changeHandler;
+
+	private WatchService watchService = null;
+	private Thread       watchThread  = null;
+
+
+	// constructors
+
+	/**
+	 * Constructor.
+	 *
+	 * @param watchFile The file to watch.
+	 * @param delayMillis The quiet period after the last event before
+	 * invoking 'changeHandler'.
+	 * @param changeHandler The callback to invoke on change.
+	 */
+	ConfigFileWatcher(Path watchFile, long delayMillis, Runnable changeHandler)
+	{
+		super();
+
+		this.watchFile     = watchFile.toAbsolutePath().normalize();
+		this.delayMillis   = (delayMillis > 0L ? delayMillis : ConfigConst.DEFAULT_CONFIG_WATCH_DELAY_MILLIS);
+		this.changeHandler = changeHandler;
+	}
+
+
+	// package-private methods
+
+	/**
+	 * Registers the watch and starts the (daemon) watch thread.
+	 *
+	 * @return boolean True on success; false otherwise.
+	 */
+	synchronized boolean start()
+	{
+		if (this.watchThread != null) {
+			return true;
+		}
+
+		try {
+			this.watchService = FileSystems.getDefault().newWatchService();
+
+			this.watchFile.getParent().register(
+				this.watchService,
+				StandardWatchEventKinds.ENTRY_CREATE,
+				StandardWatchEventKinds.ENTRY_MODIFY);
+
+			this.watchThread = new Thread(this, "ConfigFileWatcher");
+			this.watchThread.setDaemon(true);
+			this.watchThread.start();
+
+			_Logger.info("Watching config file for changes: " + this.watchFile);
+
+			return true;
+		} catch (IOException | RuntimeException e) {
+			_Logger.log(Level.WARNING, "Failed to watch config file: " + this.watchFile, e);
+
+			closeWatchService();
+
+			return false;
+		}
+	}
+
+	/**
+	 * Stops the watch thread.
+	 *
+	 */
+	synchronized void stop()
+	{
+		if (this.watchThread != null) {
+			this.watchThread.interrupt();
+			this.watchThread = null;
+		}
+
+		closeWatchService();
+	}
+
+
+	// public methods
+
+	@Override
+	public void run()
+	{
+		WatchService svc = this.watchService;
+		boolean isPending = false;
+
+		try {
+			while (! Thread.currentThread().isInterrupted()) {
+				// block until the first event; then only wait out the debounce delay
+				WatchKey key = (isPending ? svc.poll(this.delayMillis, TimeUnit.MILLISECONDS) : svc.take());
+
+				if (key == null) {
+					isPending = false;
+
+					try {
+						this.changeHandler.run();
+					} catch (RuntimeException e) {
+						_Logger.log(Level.WARNING, "Failed to handle config file change.", e);
+					}
+
+					continue;
+				}
+
+				for (WatchEvent<?> event : key.pollEvents()) {
+					Object ctx = event.context();
+
+					if (ctx instanceof Path && this.watchFile.getFileName().equals(ctx)) {
+						isPending = true;
+					}
+				}
+
+				key.reset();
+			}
+		} catch (InterruptedException | ClosedWatchServiceException e) {
+			// stopped
+		}
+
+		_Logger.fine("Stopped watching config file: " + this.watchFile);
+	}
+
+
+	// private methods
+
+	private void closeWatchService()
+	{
+		if (this.watchService != null) {
+			try {
+				this.watchService.close();
+			} catch (IOException e) {
+				_Logger.fine("Failed to close watch service: " + e.getMessage());
+			}
+
+			this.watchService = null;
+		}
+	}
+
+}
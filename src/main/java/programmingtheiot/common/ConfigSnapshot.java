@@ -0,0 +1,226 @@
+/**
+ * This class is part of the Programming the Internet of Things
+ * project, and is available via the MIT License, which can be
+ * found in the LICENSE file at the top level of this repository.
+ *
+ * Copyright (c) 2020 by Andrew D. King
+ */
+
+package programmingtheiot.common;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+
+import org.apache.commons.configuration2.INIConfiguration;
+import org.apache.commons.configuration2.SubnodeConfiguration;
+import org.apache.commons.configuration2.convert.PropertyConverter;
+import org.apache.commons.configuration2.ex.ConversionException;
+
+/**
+ * An immutable copy of all section / key / value mappings from a loaded
+ * {@link INIConfiguration}. Lookups are plain hash map reads, so a
+ * snapshot can be shared across threads without locking.
+ * <p>
+ * Type conversions use the same rules as the Apache Commons
+ * configuration getters (e.g. 'yes' / 'on' are true, '0x10' is 16).
+ */
+final class ConfigSnapshot
+{
+	// static
+
+	static final ConfigSnapshot EMPTY = new ConfigSnapshot(Collections.emptyMap());
+
+
+	// private var's
+
+	private final Map<String, Map<String, String>> sections;
+
+
+	// constructors
+
+	/**
+	 * Constructor.
+	 *
+	 * @param sections The section / key / value mappings. Not copied.
+	 */
+	private ConfigSnapshot(Map<String, Map<String, String>> sections)
+	{
+		super();
+
+		this.sections = sections;
+	}
+
+
+	// package-private methods
+
+	/**
+	 * Creates a new snapshot from the given configuration. Sections without
+	 * a name (e.g. global properties) are ignored.
+	 *
+	 * @param config The loaded configuration.
+	 * @return ConfigSnapshot
+	 */
+	static ConfigSnapshot create(INIConfiguration config)
+	{
+		Map<String, Map<String, String>> sections = new HashMap<>();
+
+		for (String section : config.getSections()) {
+			if (section == null) {
+				continue;
+			}
+
+			SubnodeConfiguration subNodeConfig = config.getSection(section);
+			Map<String, String> props = new HashMap<>();
+			Iterator<String> keys = subNodeConfig.getKeys();
+
+			while (keys.hasNext()) {
+				String key = keys.next();
+				String val = subNodeConfig.getString(key);
+
+				if (val != null) {
+					props.put(key, val);
+				}
+			}
+
+			sections.put(section, Collections.unmodifiableMap(props));
+		}
+
+		return new ConfigSnapshot(Collections.unmodifiableMap(sections));
+	}
+
+	String getString(String section, String propName)
+	{
+		Map<String, String> props = this.sections.get(section);
+
+		return (props != null ? props.get(propName) : null);
+	}
+
+	String getString(String section, String propName, String defaultVal)
+	{
+		String val = getString(section, propName);
+
+		return (val != null ? val : defaultVal);
+	}
+
+	boolean getBoolean(String section, String propName, boolean defaultVal)
+	{
+		String val = getString(section, propName);
+
+		return (val != null ? toBoolean(propName, val) : defaultVal);
+	}
+
+	int getInteger(String section, String propName)
+	{
+		return toInteger(propName, getRequired(section, propName));
+	}
+
+	int getInteger(String section, String propName, int defaultVal)
+	{
+		String val = getString(section, propName);
+
+		return (val != null ? toInteger(propName, val) : defaultVal);
+	}
+
+	float getFloat(String section, String propName)
+	{
+		return toFloat(propName, getRequired(section, propName));
+	}
+
+	float getFloat(String section, String propName, float defaultVal)
+	{
+		String val = getString(section, propName);
+
+		return (val != null ? toFloat(propName, val) : defaultVal);
+	}
+
+	boolean hasProperty(String section, String propName)
+	{
+		return (getString(section, propName) != null);
+	}
+
+	boolean hasSection(String section)
+	{
+		return this.sections.containsKey(section);
+	}
+
+	/**
+	 * Returns the names of all sections that differ between this
+	 * snapshot and 'other', including those that exist in only one.
+	 *
+	 * @param other The snapshot to compare with.
+	 * @return Set The changed section names; empty if none.
+	 */
+	Set<String> getChangedSections(ConfigSnapshot other)
+	{
+		Set<String> changedSections = new HashSet<>();
+
+		for (Map.Entry<String, Map<String, String>> entry : this.sections.entrySet()) {
+			if (! Objects.equals(entry.getValue(), other.sections.get(entry.getKey()))) {
+				changedSections.add(entry.getKey());
+			}
+		}
+
+		for (String section : other.sections.keySet()) {
+			if (! this.sections.containsKey(section)) {
+				changedSections.add(section);
+			}
+		}
+
+		return changedSections;
+	}
+
+
+	// private methods
+
+	private String getRequired(String section, String propName)
+	{
+		String val = getString(section, propName);
+
+		if (val == null) {
+			throw new NoSuchElementException("Key '" + propName + "' does not map to an existing object!");
+		}
+
+		return val;
+	}
+
+	private static boolean toBoolean(String propName, String val)
+	{
+		try {
+			return PropertyConverter.toBoolean(val);
+		} catch (ConversionException e) {
+			throw createConversionException(propName, val, Boolean.class, e);
+		}
+	}
+
+	private static int toInteger(String propName, String val)
+	{
+		try {
+			return PropertyConverter.toInteger(val);
+		} catch (ConversionException e) {
+			throw createConversionException(propName, val, Integer.class, e);
+		}
+	}
+
+	private static float toFloat(String propName, String val)
+	{
+		try {
+			return PropertyConverter.toFloat(val);
+		} catch (ConversionException e) {
+			throw createConversionException(propName, val, Float.class, e);
+		}
+	}
+
+	private static ConversionException createConversionException(
+		String propName, String val, Class<?> type, ConversionException cause)
+	{
+		return new ConversionException(
+			"Key '" + propName + "' cannot be converted to " + type + ". Value is: '" + val + "'.", cause);
+	}
+
+}
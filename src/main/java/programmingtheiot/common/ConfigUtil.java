@@ -13,7 +13,11 @@ import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.FileReader;
 import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
 import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -23,6 +27,16 @@ import org.apache.commons.configuration2.ex.ConfigurationException;
 /**
  * A simple utility wrapper around the Apache Commons
  * configuration infrastructure.
+ * <p>
+ * The configuration file is parsed by Apache Commons, then copied into
+ * an immutable snapshot that's published via a volatile reference. All
+ * getters read the current snapshot without locking; only (re)loading
+ * is synchronized.
+ * <p>
+ * The configuration can be re-loaded while running, either explicitly via
+ * {@link #reloadConfig()} or on file change once {@link #startConfigWatcher()}
+ * is called. Registered {@link IConfigChangeListener} instances are notified
+ * of any changed sections after the new snapshot is in effect.
  * 
  */
 public class ConfigUtil
@@ -49,8 +63,16 @@ public class ConfigUtil
 	
 	private INIConfiguration sectionProperties = null;
 	
+	// immutable snapshots, replaced on each (re)load and read without locking
+	private volatile ConfigSnapshot snapshot = ConfigSnapshot.EMPTY;
+	private volatile DeviceContext deviceContext = new DeviceContext(null, false);
+	
+	private List<IConfigChangeListener> changeListeners = new CopyOnWriteArrayList<>();
+	private ConfigFileWatcher configFileWatcher = null;
+	
 	private boolean isLoaded = false;
 	private String  configFileName = ConfigConst.DEFAULT_CONFIG_FILE_NAME;
+	private File    loadedConfigFile = null;
 	
 	
 	// constructors
@@ -81,6 +103,33 @@ public class ConfigUtil
 	
 	// public methods
 	
+	/**
+	 * Adds a listener to be notified after each config reload that
+	 * changes at least one section.
+	 * 
+	 * @param listener The listener to add. Ignored if null or already added.
+	 * @return boolean True if added; false otherwise.
+	 */
+	public boolean addConfigChangeListener(IConfigChangeListener listener)
+	{
+		if (listener != null && ! this.changeListeners.contains(listener)) {
+			return this.changeListeners.add(listener);
+		}
+		
+		return false;
+	}
+	
+	/**
+	 * Removes a previously added config change listener.
+	 * 
+	 * @param listener The listener to remove.
+	 * @return boolean True if removed; false otherwise.
+	 */
+	public boolean removeConfigChangeListener(IConfigChangeListener listener)
+	{
+		return this.changeListeners.remove(listener);
+	}
+	
 	/**
 	 * Creates the cloud service configuration section name from
 	 * the given parameters.
@@ -100,178 +149,238 @@ public class ConfigUtil
 		}
 	}
 	
+	/**
+	 * Returns the {@link DeviceContext} created from the most recently
+	 * loaded configuration. This does not lock, and is intended for
+	 * use on hot paths such as IoT data creation.
+	 * 
+	 * @return DeviceContext
+	 */
+	public DeviceContext getDeviceContext()
+	{
+		return this.deviceContext;
+	}
+	
 	/**
 	 * Returns the requested property from the given section.
 	 * 
-	 * @param section The section from which to retrieve 'propName'. If it
-	 * doesn't exist, it will be created.
+	 * @param section The section from which to retrieve 'propName'.
 	 * @param propName The name of the property to retrieve.
 	 * @return String The value for 'propName'. If no mapping exists,
 	 * a {@link ConversionException will be thrown}.
 	 * @Exception ConversionException Thrown if 'propName' does not map to a String.
 	 */
-	public synchronized String getProperty(String section, String propName)
+	public String getProperty(String section, String propName)
 	{
-		SubnodeConfiguration subNodeConfig = sectionProperties.getSection(section);
-		
-		return subNodeConfig.getString(propName);
+		return this.snapshot.getString(section, propName);
 	}
 	
 	/**
 	 * Returns the requested property from the given section.
 	 * 
-	 * @param section The section from which to retrieve 'propName'. If it
-	 * doesn't exist, it will be created.
+	 * @param section The section from which to retrieve 'propName'.
 	 * @param propName The name of the property to retrieve.
 	 * @param defaultVal The default value if the property doesn't exist.
 	 * @return String The value for 'propName'. If no mapping exists,
 	 * a {@link ConversionException will be thrown}.
 	 * @Exception ConversionException Thrown if 'propName' does not map to a String.
 	 */
-	public synchronized String getProperty(String section, String propName, String defaultVal)
+	public String getProperty(String section, String propName, String defaultVal)
 	{
-		SubnodeConfiguration subNodeConfig = sectionProperties.getSection(section);
-		
-		return subNodeConfig.getString(propName, defaultVal);
+		return this.snapshot.getString(section, propName, defaultVal);
 	}
 	
 	/**
 	 * Returns the requested property from the given section.
 	 * 
-	 * @param section The section from which to retrieve the value for 'propName'. If it
-	 * doesn't exist, it will be created.
+	 * @param section The section from which to retrieve the value for 'propName'.
 	 * @param propName The name of the property to retrieve.
 	 * @return boolean The value for 'propName'. If no mapping exists,
 	 * a {@link ConversionException will be thrown}.
 	 * @Exception ConversionException Thrown if 'propName' does not map to a boolean.
 	 */
-	public synchronized boolean getBoolean(String section, String propName)
+	public boolean getBoolean(String section, String propName)
 	{
-		SubnodeConfiguration subNodeConfig = sectionProperties.getSection(section);
-		
-		return subNodeConfig.getBoolean(propName, false);
+		return this.snapshot.getBoolean(section, propName, false);
 	}
 	
 	/**
 	 * Returns the requested property from the given section.
 	 * 
-	 * @param section The section from which to retrieve 'propName'. If it
-	 * doesn't exist, it will be created.
+	 * @param section The section from which to retrieve 'propName'.
 	 * @param propName The name of the property to retrieve.
 	 * @return int The value for 'propName'. If no mapping exists,
 	 * a {@link ConversionException will be thrown}.
 	 * @Exception ConversionException Thrown if 'propName' does not map to a int.
 	 */
-	public synchronized int getInteger(String section, String propName)
+	public int getInteger(String section, String propName)
 	{
-		SubnodeConfiguration subNodeConfig = sectionProperties.getSection(section);
-		
-		return subNodeConfig.getInt(propName);
+		return this.snapshot.getInteger(section, propName);
 	}
 	
 	/**
 	 * Returns the requested property from the given section.
 	 * 
-	 * @param section The section from which to retrieve 'propName'. If it
-	 * doesn't exist, it will be created.
+	 * @param section The section from which to retrieve 'propName'.
 	 * @param propName The name of the property to retrieve.
 	 * @param defaultVal The default value if the property doesn't exist.
 	 * @return int The value for 'propName'. If no mapping exists,
 	 * a {@link ConversionException will be thrown}.
 	 * @Exception ConversionException Thrown if 'propName' does not map to a int.
 	 */
-	public synchronized int getInteger(String section, String propName, int defaultVal)
+	public int getInteger(String section, String propName, int defaultVal)
 	{
-		SubnodeConfiguration subNodeConfig = sectionProperties.getSection(section);
-		
-		return subNodeConfig.getInt(propName, defaultVal);
+		return this.snapshot.getInteger(section, propName, defaultVal);
 	}
 	
 	/**
 	 * Returns the requested property from the given section.
 	 * 
-	 * @param section The section from which to retrieve 'propName'. If it
-	 * doesn't exist, it will be created.
+	 * @param section The section from which to retrieve 'propName'.
 	 * @param propName The name of the property to retrieve.
 	 * @return float The value for 'propName'. If no mapping exists,
 	 * a {@link ConversionException will be thrown}.
 	 * @Exception ConversionException Thrown if 'propName' does not map to a float.
 	 */
-	public synchronized float getFloat(String section, String propName)
+	public float getFloat(String section, String propName)
 	{
-		SubnodeConfiguration subNodeConfig = sectionProperties.getSection(section);
-		
-		return subNodeConfig.getFloat(propName);
+		return this.snapshot.getFloat(section, propName);
 	}
 	
 	/**
 	 * Returns the requested property from the given section.
 	 * 
-	 * @param section The section from which to retrieve 'propName'. If it
-	 * doesn't exist, it will be created.
+	 * @param section The section from which to retrieve 'propName'.
 	 * @param propName The name of the property to retrieve.
 	 * @param defaultVal The default value if the property doesn't exist.
 	 * @return float The value for 'propName'. If no mapping exists,
 	 * a {@link ConversionException will be thrown}.
 	 * @Exception ConversionException Thrown if 'propName' does not map to a float.
 	 */
-	public synchronized float getFloat(String section, String propName, float defaultVal)
+	public float getFloat(String section, String propName, float defaultVal)
 	{
-		SubnodeConfiguration subNodeConfig = sectionProperties.getSection(section);
-		
-		return subNodeConfig.getFloat(propName, defaultVal);
+		return this.snapshot.getFloat(section, propName, defaultVal);
 	}
 	
 	/**
 	 * Returns true if the requested property exists in the given section.
 	 * 
-	 * @param section The section from which to retrieve 'propName'. If it
-	 * doesn't exist, it will be created.
+	 * @param section The section from which to retrieve 'propName'.
 	 * @param propName The name of the property to retrieve.
 	 * @return boolean True if the property exists; false otherwise.
 	 * @Exception ConversionException Thrown if 'propName' does not map to a String.
 	 */
-	public synchronized boolean hasProperty(String section, String propName)
+	public boolean hasProperty(String section, String propName)
 	{
-		SubnodeConfiguration subNodeConfig = sectionProperties.getSection(section);
-		
-		return (subNodeConfig.getProperty(propName) != null);
+		return this.snapshot.hasProperty(section, propName);
 	}
 	
 	/**
-	 * Returns true if the requested section exists and / or contains
-	 * any properties within the loaded configuration.
-	 * <p>
-	 * NOTE: The underlying configuration handler will create 'section' if
-	 * it doesn't already exist; hence, it can make for large configurations
-	 * if this method is called with a different non-existent section name
-	 * often, even if they remain empty (which is the default case).
+	 * Returns true if the requested section exists within the loaded
+	 * configuration.
 	 * 
-	 * @param section The section from which to retrieve 'propName'. If it
-	 * doesn't exist, it will be created as an empty section.
-	 * @return boolean True on success; false otherwise.
-	 * @Exception ConversionException Thrown if 'section' does not map to a String.
+	 * @param section The section name to check.
+	 * @return boolean True if the section exists; false otherwise.
 	 */
-	public synchronized boolean hasSection(String section)
+	public boolean hasSection(String section)
 	{
-		SubnodeConfiguration subNodeConfig = sectionProperties.getSection(section);
-		
-		return (subNodeConfig != null);// && subNodeConfig.isEmpty());
+		return this.snapshot.hasSection(section);
 	}
 	
 	/**
-	 * Returns the flag indicating if either of the most recently called
-	 * {@link #loadConfig()} or {@link #loadConfig(String)} methods was
-	 * successful or failed.
+	 * Returns the flag indicating if a configuration has been loaded
+	 * successfully; a failed {@link #reloadConfig()} leaves the current
+	 * configuration, and this flag, in place.
 	 * 
-	 * @return true True if the most recent load invocation was successful;
-	 * false otherwise.
+	 * @return true True if a configuration is loaded; false otherwise.
 	 */
 	public boolean isConfigDataLoaded()
 	{
 		return isLoaded;
 	}
 	
+	/**
+	 * Re-loads the configuration file and, if successful, atomically replaces
+	 * the current snapshot. If the file can't be read or parsed, the current
+	 * configuration remains in effect.
+	 * <p>
+	 * Registered {@link IConfigChangeListener} instances are notified on the
+	 * calling thread if any section changed.
+	 * 
+	 * @return boolean True if the configuration was re-loaded; false otherwise.
+	 */
+	public boolean reloadConfig()
+	{
+		ConfigSnapshot prevSnapshot = null;
+		ConfigSnapshot curSnapshot  = null;
+		boolean success = false;
+		
+		synchronized (this) {
+			// the file in effect, with no fall back to the default if it's (briefly) missing
+			String cfgFileName =
+				(this.loadedConfigFile != null ? this.loadedConfigFile.getPath() : this.configFileName);
+			
+			prevSnapshot = this.snapshot;
+			success      = loadConfig(cfgFileName, false);
+			curSnapshot  = this.snapshot;
+		}
+		
+		if (success && prevSnapshot != curSnapshot) {
+			Set<String> changedSections = prevSnapshot.getChangedSections(curSnapshot);
+			
+			if (! changedSections.isEmpty()) {
+				_Logger.info("Config re-loaded. Changed sections: " + changedSections);
+				
+				notifyConfigChangeListeners(Collections.unmodifiableSet(changedSections));
+			} else {
+				_Logger.fine("Config re-loaded. No changes.");
+			}
+		}
+		
+		return success;
+	}
+	
+	/**
+	 * Starts watching the most recently loaded configuration file for
+	 * changes, calling {@link #reloadConfig()} on each.
+	 * 
+	 * @return boolean True if the watcher is running; false otherwise.
+	 */
+	public synchronized boolean startConfigWatcher()
+	{
+		if (this.configFileWatcher != null) {
+			return true;
+		}
+		
+		if (this.loadedConfigFile == null) {
+			_Logger.warning("No config file loaded. Ignoring config watch request.");
+			
+			return false;
+		}
+		
+		ConfigFileWatcher watcher =
+			new ConfigFileWatcher(
+				this.loadedConfigFile.toPath(), ConfigConst.DEFAULT_CONFIG_WATCH_DELAY_MILLIS, this::reloadConfig);
+		
+		if (watcher.start()) {
+			this.configFileWatcher = watcher;
+		}
+		
+		return (this.configFileWatcher != null);
+	}
+	
+	/**
+	 * Stops watching the configuration file for changes.
+	 * 
+	 */
+	public synchronized void stopConfigWatcher()
+	{
+		if (this.configFileWatcher != null) {
+			this.configFileWatcher.stop();
+			this.configFileWatcher = null;
+		}
+	}
+	
 	/**
 	 * Attempts to load a separate configuration 'credential' file comprised
 	 * of simple key = value pairs. The assumption with this call is that
@@ -298,9 +407,9 @@ public class ConfigUtil
 		
 		if (hasSection(section)) {
 			String credFileName = getProperty(section, ConfigConst.CRED_FILE_KEY);
-			File   credFile     = new File(credFileName);
+			File   credFile     = (credFileName != null ? new File(credFileName) : null);
 			
-			if (credFile.exists()) {
+			if (credFile != null && credFile.exists()) {
 				FileInputStream fis = null;
 				
 				try {
@@ -342,6 +451,38 @@ public class ConfigUtil
 		sectionProperties = new INIConfiguration();
 	}
 	
+	/**
+	 * Creates a new {@link DeviceContext} from the current snapshot
+	 * and publishes it for {@link #getDeviceContext()}.
+	 * 
+	 */
+	private void initDeviceContext()
+	{
+		this.deviceContext =
+			new DeviceContext(
+				this.snapshot.getString(ConfigConst.GATEWAY_DEVICE, ConfigConst.DEVICE_LOCATION_ID_KEY),
+				this.snapshot.getBoolean(ConfigConst.GATEWAY_DEVICE, ConfigConst.USE_MONOTONIC_CLOCK_KEY, false));
+		
+		_Logger.fine("Device context: " + this.deviceContext);
+	}
+	
+	/**
+	 * Notifies each config change listener, isolating failures so one
+	 * listener can't prevent the others from being notified.
+	 * 
+	 * @param changedSections The changed section names.
+	 */
+	private void notifyConfigChangeListeners(Set<String> changedSections)
+	{
+		for (IConfigChangeListener listener : this.changeListeners) {
+			try {
+				listener.handleConfigChange(changedSections);
+			} catch (Exception e) {
+				_Logger.log(Level.WARNING, "Config change listener failed: " + listener, e);
+			}
+		}
+	}
+	
 	/**
 	 * Attempts to load the configuration file set by the constructor
 	 * (likely set a lookup to the system properties).
@@ -350,24 +491,26 @@ public class ConfigUtil
 	 */
 	private synchronized boolean loadConfig()
 	{
-		return loadConfig(this.configFileName);
+		return loadConfig(this.configFileName, true);
 	}
 	
 	/**
-	 * Attempts to load the given configuration file. If the load
-	 * fails, the default configuration file as specified
-	 * by {@link ConfigConst#DEFAULT_CONFIG_FILE_NAME} will be used.
+	 * Attempts to load the given configuration file. If it doesn't
+	 * exist and 'useDefault' is true, the default configuration file as
+	 * specified by {@link ConfigConst#DEFAULT_CONFIG_FILE_NAME} will be used.
 	 * 
 	 * @param configFileName The configuration file name.
+	 * @param useDefault Whether to fall back to the default configuration file.
 	 * @return boolean True on success; false otherwise.
 	 */
-	private synchronized boolean loadConfig(String configFileName)
+	private synchronized boolean loadConfig(String configFileName, boolean useDefault)
 	{
 		File cfgFile = new File(configFileName);
+		boolean success = false;
 		
 		// ensure config file exists
 		
-		if (! cfgFile.exists()) {
+		if (! cfgFile.exists() && useDefault) {
 			_Logger.log(
 				Level.WARNING,
 				"System properties config file '" + cfgFile.getAbsolutePath() + "' doesn't exist. Using default.",
@@ -381,12 +524,20 @@ public class ConfigUtil
 				// init the backing properties, or clear out the existing one
 				initBackingProperties();
 				
-				FileReader fReader = new FileReader(new File(cfgFile.getAbsoluteFile().toString()));
+				// close the reader, as the file may be re-loaded many times while running
+				try (FileReader fReader = new FileReader(new File(cfgFile.getAbsoluteFile().toString()))) {
+					sectionProperties.read(fReader);
+				}
 				
-				sectionProperties.read(fReader);
 				// sectionProperties.setFileName(cfgFile.getAbsoluteFile().toString());
 				// sectionProperties.load();
 				isLoaded = true;
+				success  = true;
+				
+				this.snapshot = ConfigSnapshot.create(sectionProperties);
+				this.loadedConfigFile = cfgFile.getAbsoluteFile();
+				
+				initDeviceContext();
 			} catch (ConfigurationException e) {
 				_Logger.log(
 					Level.SEVERE,
@@ -412,18 +563,18 @@ public class ConfigUtil
 		} else {
 			_Logger.log(
 				Level.WARNING,
-				"Default config file {0} doesn't exist. Config not set.",
+				"Config file {0} doesn't exist. Config not set.",
 				cfgFile.getAbsolutePath());
 		}
 		
-		if (! isLoaded) {
+		if (! success) {
 			_Logger.log(
 				Level.WARNING,
-				"System properties config file {0} doesn't exist. Using default.",
+				"Failed to load config file {0}. Current config (if any) remains in effect.",
 				cfgFile.getAbsolutePath());
 		}
 		
-		return isLoaded;
+		return success;
 	}
 	
 }
@@ -0,0 +1,306 @@
+/**
+ * This class is part of the Programming the Internet of Things
+ * project, and is available via the MIT License, which can be
+ * found in the LICENSE file at the top level of this repository.
+ *
+ * Copyright (c) 2020 by Andrew D. King
+ */
+
+package programmingtheiot.common;
+
+import java.util.Arrays;
+import java.util.function.Function;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import programmingtheiot.data.ActuatorData;
+import programmingtheiot.data.SensorData;
+import programmingtheiot.data.SystemPerformanceData;
+
+/**
+ * A registry of typed data handlers per {@link ResourceNameEnum}.
+ * <p>
+ * Any number of handlers may be registered for a resource, each for a
+ * payload type; {@link #dispatch(ResourceNameEnum, Object)} passes the
+ * data to every handler of the resource whose type it's an instance of,
+ * in registration order, and
+ * {@link #dispatchPayload(ResourceNameEnum, Function)} does the same for a raw
+ * payload, decoding it once for each distinct type registered. New data types are supported by registering a
+ * handler for them - there's no fixed method per type to add, as there
+ * is with {@link IDataMessageListener}, which can still be registered
+ * as a whole using {@link #addListener(IDataMessageListener)}.
+ * <p>
+ * Handlers are held in a table of arrays indexed by resource ordinal,
+ * which is replaced (copy-on-write) when handlers are added or removed,
+ * so dispatch is a single array lookup, and never locks. Registration
+ * is expected to be rare, and mostly at startup.
+ * <p>
+ * This class is thread-safe.
+ *
+ */
+public class DataHandlerRegistry
+{
+	// static
+
+	private static final Logger _Logger =
+		Logger.getLogger(DataHandlerRegistry.class.getName());
+
+	private static final HandlerEntry[] NO_HANDLERS = new HandlerEntry[0];
+
+
+	// private var's
+
+	private volatile HandlerEntry[][] handlerTable = null;
+
+
+	// constructors
+
+	/**
+	 * Default.
+	 *
+	 */
+	public DataHandlerRegistry()
+	{
+		super();
+
+		HandlerEntry[][] table = new HandlerEntry[ResourceNameEnum.values().length][];
+		Arrays.fill(table, NO_HANDLERS);
+
+		this.handlerTable = table;
+	}
+
+
+	// public methods
+
+	/**
+	 * Registers a handler for a resource and payload type.
+	 *
+	 * @param <T> The payload type.
+	 * @param resource The resource.
+	 * @param type The payload type; the handler receives instances of it
+	 * (including subclasses).
+	 * @param handler The handler.
+	 */
+	public <T> void addHandler(ResourceNameEnum resource, Class<T> type, IDataHandler<? super T> handler)
+	{
+		addEntry(resource, new HandlerEntry(type, handler, handler));
+	}
+
+	/**
+	 * Registers a handler for a payload type on every resource.
+	 *
+	 * @param <T> The payload type.
+	 * @param type The payload type.
+	 * @param handler The handler.
+	 */
+	public <T> void addHandler(Class<T> type, IDataHandler<? super T> handler)
+	{
+		for (ResourceNameEnum resource : ResourceNameEnum.values()) {
+			addHandler(resource, type, handler);
+		}
+	}
+
+	/**
+	 * Registers the methods of a data message listener as handlers:
+	 * actuator command responses, sensor messages and system performance
+	 * messages for the corresponding CDA resources, and String messages
+	 * for all other resources. Use {@link #removeHandlers(Object)} with the
+	 * listener to remove them again.
+	 *
+	 * @param listener The listener.
+	 */
+	public void addListener(IDataMessageListener listener)
+	{
+		for (ResourceNameEnum resource : ResourceNameEnum.values()) {
+			switch (resource) {
+				case CDA_ACTUATOR_RESPONSE_RESOURCE:
+					addEntry(resource, new HandlerEntry(
+						ActuatorData.class, (IDataHandler<ActuatorData>) listener::handleActuatorCommandResponse, listener));
+					break;
+
+				case CDA_SENSOR_MSG_RESOURCE:
+					addEntry(resource, new HandlerEntry(
+						SensorData.class, (IDataHandler<SensorData>) listener::handleSensorMessage, listener));
+					break;
+
+				case CDA_SYSTEM_PERF_MSG_RESOURCE:
+					addEntry(resource, new HandlerEntry(
+						SystemPerformanceData.class, (IDataHandler<SystemPerformanceData>) listener::handleSystemPerformanceMessage, listener));
+					break;
+
+				default:
+					addEntry(resource, new HandlerEntry(
+						String.class, (IDataHandler<String>) listener::handleIncomingMessage, listener));
+			}
+		}
+	}
+
+	/**
+	 * Passes the data to each handler registered for the resource whose
+	 * payload type it's an instance of. A handler that throws doesn't
+	 * prevent the remaining handlers from being called.
+	 *
+	 * @param resource The resource.
+	 * @param data The data.
+	 * @return boolean True if any handler returned true; false otherwise.
+	 */
+	public boolean dispatch(ResourceNameEnum resource, Object data)
+	{
+		HandlerEntry[] entries = this.handlerTable[resource.ordinal()];
+		boolean success = false;
+
+		for (HandlerEntry entry : entries) {
+			success |= invokeHandler(resource, entry, data);
+		}
+
+		return success;
+	}
+
+	/**
+	 * Decodes a payload to each distinct payload type registered for the
+	 * resource, and passes each decoded instance to the handlers of that
+	 * type, in registration order. The decoder is called at most once per
+	 * type, and not at all if there are no handlers. A type the decoder
+	 * returns null for is skipped, without affecting the other types.
+	 *
+	 * @param resource The resource.
+	 * @param decoder Decodes the payload to the given type; returns null
+	 * if the payload can't be decoded to it.
+	 * @return boolean True if any handler returned true; false otherwise.
+	 */
+	public boolean dispatchPayload(ResourceNameEnum resource, Function<Class<?>, ?> decoder)
+	{
+		HandlerEntry[] entries = this.handlerTable[resource.ordinal()];
+
+		// the handlers of a resource use few distinct types, so a linear
+		// scan of the ones decoded so far beats hashing
+		Class<?>[] types = new Class<?>[entries.length];
+		Object[] decoded = new Object[entries.length];
+		int typeCount = 0;
+		boolean success = false;
+
+		for (HandlerEntry entry : entries) {
+			int i = 0;
+
+			while (i < typeCount && types[i] != entry.type) {
+				i++;
+			}
+
+			if (i == typeCount) {
+				types[i] = entry.type;
+				decoded[i] = decoder.apply(entry.type);
+				typeCount++;
+
+				if (decoded[i] == null) {
+					_Logger.fine("Can't decode payload for resource " + resource + " to: " + entry.type.getName());
+				}
+			}
+
+			success |= invokeHandler(resource, entry, decoded[i]);
+		}
+
+		return success;
+	}
+
+	/**
+	 * Returns the number of handlers registered for the resource.
+	 *
+	 * @param resource The resource.
+	 * @return int
+	 */
+	public int getHandlerCount(ResourceNameEnum resource)
+	{
+		return this.handlerTable[resource.ordinal()].length;
+	}
+
+	/**
+	 * Returns the distinct payload types of the handlers registered for
+	 * the resource, in the order they were first registered.
+	 *
+	 * @param resource The resource.
+	 * @return Class[] The payload types; empty if there are no handlers.
+	 */
+	public Class<?>[] getPayloadTypes(ResourceNameEnum resource)
+	{
+		return Arrays.stream(this.handlerTable[resource.ordinal()])
+			.map(entry -> entry.type).distinct().toArray(Class<?>[]::new);
+	}
+
+	/**
+	 * Removes all handlers registered by the given owner: a handler, or a
+	 * listener registered using {@link #addListener(IDataMessageListener)}.
+	 *
+	 * @param owner The handler or listener.
+	 * @return boolean True if any handlers were removed; false otherwise.
+	 */
+	public synchronized boolean removeHandlers(Object owner)
+	{
+		HandlerEntry[][] table = this.handlerTable.clone();
+		boolean isRemoved = false;
+
+		for (int i = 0; i < table.length; i++) {
+			HandlerEntry[] entries =
+				Arrays.stream(table[i]).filter(entry -> entry.owner != owner).toArray(HandlerEntry[]::new);
+
+			if (entries.length != table[i].length) {
+				table[i] = (entries.length > 0 ? entries : NO_HANDLERS);
+				isRemoved = true;
+			}
+		}
+
+		this.handlerTable = table;
+
+		return isRemoved;
+	}
+
+
+	// private methods
+
+	private boolean invokeHandler(ResourceNameEnum resource, HandlerEntry entry, Object data)
+	{
+		if (entry.type.isInstance(data)) {
+			try {
+				return entry.handler.handleData(resource, data);
+			} catch (RuntimeException e) {
+				_Logger.log(Level.WARNING, "Data handler failed for resource: " + resource, e);
+			}
+		}
+
+		return false;
+	}
+
+	private synchronized void addEntry(ResourceNameEnum resource, HandlerEntry entry)
+	{
+		HandlerEntry[][] table = this.handlerTable.clone();
+		HandlerEntry[] entries = table[resource.ordinal()];
+
+		entries = Arrays.copyOf(entries, entries.length + 1);
+		entries[entries.length - 1] = entry;
+
+		table[resource.ordinal()] = entries;
+
+		this.handlerTable = table;
+	}
+
+
+	/**
+	 * A registered handler, its payload type, and its owner.
+	 *
+	 */
+	private static final class HandlerEntry
+	{
+		private final Class<?> type;
+		private final IDataHandler<Object> handler;
+		private final Object owner;
+
+		@SuppressWarnings("unchecked")
+		HandlerEntry(Class<?> type, IDataHandler<?> handler, Object owner)
+		{
+			// safe: handlers are only passed instances of 'type'
+			this.type    = type;
+			this.handler = (IDataHandler<Object>) handler;
+			this.owner   = owner;
+		}
+	}
+
+}
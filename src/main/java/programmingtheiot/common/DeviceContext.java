@@ -0,0 +1,97 @@
+/**
+ * This class is part of the Programming the Internet of Things
+ * project, and is available via the MIT License, which can be
+ * found in the LICENSE file at the top level of this repository.
+ *
+ * Copyright (c) 2020 by Andrew D. King
+ */
+
+package programmingtheiot.common;
+
+/**
+ * An immutable snapshot of the {@link ConfigConst#GATEWAY_DEVICE} properties
+ * needed on every IoT data instance creation (e.g. the location ID).
+ * <p>
+ * An instance is created by {@link ConfigUtil} each time the configuration
+ * is loaded, and retrieved via {@link ConfigUtil#getDeviceContext()} without
+ * locking. Callers should not cache the reference if they want to see
+ * the result of a configuration reload.
+ */
+public final class DeviceContext
+{
+	// private var's
+
+	private final String  locationID;
+	private final boolean useMonotonicClock;
+
+
+	// constructors
+
+	/**
+	 * Constructor.
+	 *
+	 * @param locationID The device location ID. If null or empty,
+	 * {@link ConfigConst#NOT_SET} will be used.
+	 * @param useMonotonicClock True if IoT data timestamps are to be taken
+	 * from {@link MonotonicClock}; false for the system clock.
+	 */
+	public DeviceContext(String locationID, boolean useMonotonicClock)
+	{
+		super();
+
+		this.locationID =
+			(locationID != null && locationID.trim().length() > 0 ? locationID : ConfigConst.NOT_SET);
+		this.useMonotonicClock = useMonotonicClock;
+	}
+
+
+	// public methods
+
+	/**
+	 * Returns the current time in milliseconds since the Epoch, using the
+	 * configured clock source.
+	 *
+	 * @return long
+	 */
+	public long currentTimeMillis()
+	{
+		return (this.useMonotonicClock ? MonotonicClock.getInstance().currentTimeMillis() : System.currentTimeMillis());
+	}
+
+	/**
+	 * Returns the device location ID.
+	 *
+	 * @return String
+	 */
+	public String getLocationID()
+	{
+		return this.locationID;
+	}
+
+	/**
+	 * Returns true if IoT data timestamps are taken from {@link MonotonicClock}.
+	 *
+	 * @return boolean
+	 */
+	public boolean isMonotonicClockEnabled()
+	{
+		return this.useMonotonicClock;
+	}
+
+	/**
+	 * Returns a string representation of this instance.
+	 *
+	 * @return String
+	 */
+	@Override
+	public String toString()
+	{
+		StringBuilder sb = new StringBuilder();
+
+		sb.append(ConfigConst.LOCATION_ID_PROP).append('=').append(this.locationID).append(',');
+		sb.append(ConfigConst.USE_MONOTONIC_CLOCK_KEY).append('=').append(this.useMonotonicClock);
+
+		return sb.toString();
+	}
+
+}
@@ -0,0 +1,214 @@
+/**
+ * This class is part of the Programming the Internet of Things
+ * project, and is available via the MIT License, which can be
+ * found in the LICENSE file at the top level of this repository.
+ *
+ * Copyright (c) 2020 by Andrew D. King
+ */
+
+package programmingtheiot.common;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Creates the threads and executors used for per-message handling and
+ * blocking I/O, in one of two execution modes:
+ * <p>
+ * - Platform (default): daemon platform threads, and bounded thread pools
+ * that run tasks on the submitting thread once saturated.
+ * <p>
+ * - Virtual: if {@link ConfigConst#USE_VIRTUAL_THREADS_KEY} is enabled and
+ * the JVM supports virtual threads (Java 21+), a new virtual thread per
+ * task, so thousands of concurrent slow (blocking) calls don't require a
+ * large pool. The project targets Java 11, so virtual threads are created
+ * reflectively; on older JVMs the platform mode is used instead.
+ * <p>
+ * This class is thread-safe.
+ */
+public class ExecutorUtil
+{
+	// static
+
+	private static final Logger _Logger =
+		Logger.getLogger(ExecutorUtil.class.getName());
+
+	private static final ExecutorUtil _Instance = new ExecutorUtil();
+
+	/**
+	 * Returns the Singleton instance of this class.
+	 *
+	 * @return ExecutorUtil
+	 */
+	public static final ExecutorUtil getInstance()
+	{
+		return _Instance;
+	}
+
+
+	// private var's
+
+	private final boolean isVirtualThreadSupported;
+	private final boolean useVirtualThreads;
+	private final int     maxPlatformThreads;
+
+	private Method ofVirtualMethod      = null;
+	private Method builderNameMethod    = null;
+	private Method builderFactoryMethod = null;
+
+
+	// constructors
+
+	/**
+	 * Default (private).
+	 *
+	 */
+	private ExecutorUtil()
+	{
+		super();
+
+		this.isVirtualThreadSupported = initVirtualThreadSupport();
+
+		boolean enableVirtual =
+			ConfigUtil.getInstance().getBoolean(ConfigConst.GATEWAY_DEVICE, ConfigConst.USE_VIRTUAL_THREADS_KEY);
+
+		if (enableVirtual && ! this.isVirtualThreadSupported) {
+			_Logger.warning(
+				"Virtual threads requested, but not supported by this JVM (" +
+				System.getProperty("java.version") + "). Using platform threads.");
+		}
+
+		this.useVirtualThreads  = (enableVirtual && this.isVirtualThreadSupported);
+		this.maxPlatformThreads =
+			Math.max(1, ConfigUtil.getInstance().getInteger(
+				ConfigConst.GATEWAY_DEVICE, ConfigConst.MAX_PLATFORM_THREADS_KEY, ConfigConst.DEFAULT_MAX_PLATFORM_THREADS));
+
+		_Logger.info("Execution mode: " + (this.useVirtualThreads ? "virtual threads" : "platform threads"));
+	}
+
+
+	// public methods
+
+	/**
+	 * Returns true if new threads and task executors use virtual threads.
+	 *
+	 * @return boolean
+	 */
+	public boolean isVirtualThreadModeEnabled()
+	{
+		return this.useVirtualThreads;
+	}
+
+	/**
+	 * Returns true if this JVM supports virtual threads.
+	 *
+	 * @return boolean
+	 */
+	public boolean isVirtualThreadSupported()
+	{
+		return this.isVirtualThreadSupported;
+	}
+
+	/**
+	 * Creates a task executor for per-message handling or blocking I/O.
+	 * <p>
+	 * In virtual mode, each task runs on its own virtual thread. In platform
+	 * mode, tasks run on a pool of up to the configured maximum number of
+	 * platform threads with a bounded queue; once both are full, the
+	 * submitting thread runs the task itself, which slows the producer
+	 * down rather than dropping the task.
+	 *
+	 * @param name The name prefix for the executor's threads.
+	 * @return ExecutorService
+	 */
+	public ExecutorService newTaskExecutor(String name)
+	{
+		ThreadFactory factory = newThreadFactory(name);
+
+		if (this.useVirtualThreads) {
+			try {
+				Method m = java.util.concurrent.Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class);
+
+				return (ExecutorService) m.invoke(null, factory);
+			} catch (ReflectiveOperationException e) {
+				_Logger.log(Level.WARNING, "Failed to create virtual thread executor. Using platform threads.", e);
+			}
+		}
+
+		ThreadPoolExecutor executor =
+			new ThreadPoolExecutor(
+				this.maxPlatformThreads, this.maxPlatformThreads, 60L, TimeUnit.SECONDS,
+				new ArrayBlockingQueue<>(ConfigConst.DEFAULT_TASK_QUEUE_SIZE),
+				factory,
+				new ThreadPoolExecutor.CallerRunsPolicy());
+
+		executor.allowCoreThreadTimeOut(true);
+
+		return executor;
+	}
+
+	/**
+	 * Creates a thread factory for long running workers (e.g. pipeline
+	 * stages), producing virtual threads in virtual mode and daemon
+	 * platform threads otherwise.
+	 *
+	 * @param name The name prefix for created threads.
+	 * @return ThreadFactory
+	 */
+	public ThreadFactory newThreadFactory(String name)
+	{
+		if (this.useVirtualThreads) {
+			try {
+				Object builder = this.ofVirtualMethod.invoke(null);
+				builder = this.builderNameMethod.invoke(builder, name + "-", 1L);
+
+				return (ThreadFactory) this.builderFactoryMethod.invoke(builder);
+			} catch (ReflectiveOperationException e) {
+				_Logger.log(Level.WARNING, "Failed to create virtual thread factory. Using platform threads.", e);
+			}
+		}
+
+		AtomicInteger threadCount = new AtomicInteger(0);
+
+		return (Runnable r) -> {
+			Thread t = new Thread(r, name + "-" + threadCount.incrementAndGet());
+			t.setDaemon(true);
+
+			return t;
+		};
+	}
+
+
+	// private methods
+
+	/**
+	 * Looks up the Java 21 Thread.ofVirtual() builder API.
+	 *
+	 * @return boolean True if available; false otherwise.
+	 */
+	private boolean initVirtualThreadSupport()
+	{
+		try {
+			Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+
+			this.ofVirtualMethod      = Thread.class.getMethod("ofVirtual");
+			this.builderNameMethod    = builderClass.getMethod("name", String.class, long.class);
+			this.builderFactoryMethod = builderClass.getMethod("factory");
+
+			// preview-only on Java 19 / 20: fails unless enabled
+			this.ofVirtualMethod.invoke(null);
+
+			return true;
+		} catch (ReflectiveOperationException | LinkageError | UnsupportedOperationException e) {
+			return false;
+		}
+	}
+
+}
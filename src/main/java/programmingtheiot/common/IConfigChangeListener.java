@@ -0,0 +1,32 @@
+/**
+ * This class is part of the Programming the Internet of Things
+ * project, and is available via the MIT License, which can be
+ * found in the LICENSE file at the top level of this repository.
+ *
+ * Copyright (c) 2020 by Andrew D. King
+ */
+
+package programmingtheiot.common;
+
+import java.util.Set;
+
+/**
+ * A simple callback interface for handling configuration changes
+ * once {@link ConfigUtil} has re-loaded the configuration file.
+ *
+ */
+public interface IConfigChangeListener
+{
+	/**
+	 * Callback signature for configuration change notifications. This is
+	 * invoked after the new configuration is in effect, so any ConfigUtil
+	 * getter called from within this method will return the new values.
+	 * <p>
+	 * Implementations should return quickly, as listeners are notified
+	 * sequentially on the thread that triggered the reload.
+	 *
+	 * @param changedSections The names of all sections that were added,
+	 * removed, or have at least one added, removed or changed property.
+	 */
+	public void handleConfigChange(Set<String> changedSections);
+}
@@ -0,0 +1,30 @@
+/**
+ * This class is part of the Programming the Internet of Things
+ * project, and is available via the MIT License, which can be
+ * found in the LICENSE file at the top level of this repository.
+ *
+ * Copyright (c) 2020 by Andrew D. King
+ */
+
+package programmingtheiot.common;
+
+/**
+ * A typed callback interface for handling data messages for a
+ * resource, registered with a {@link DataHandlerRegistry}.
+ *
+ * @param <T> The payload type handled.
+ */
+@FunctionalInterface
+public interface IDataHandler<T>
+{
+	/**
+	 * Callback signature for data message passing using the given parameters.
+	 *
+	 * @param resourceName The enum representing the String resource name.
+	 * @param data The data - this will usually be the decoded payload
+	 * from a connection using either MQTT or CoAP.
+	 * @return True on success; false otherwise.
+	 */
+	public boolean handleData(ResourceNameEnum resourceName, T data);
+
+}
@@ -0,0 +1,82 @@
+/**
+ * This class is part of the Programming the Internet of Things
+ * project, and is available via the MIT License, which can be
+ * found in the LICENSE file at the top level of this repository.
+ *
+ * Copyright (c) 2020 by Andrew D. King
+ */
+
+package programmingtheiot.common;
+
+/**
+ * A wall clock derived from the JVM's monotonic nanosecond clock
+ * ({@link System#nanoTime()}), anchored to the system clock once on
+ * creation. Timestamps taken from this clock never go backwards, even
+ * if the system clock is stepped (e.g. by NTP), and are consistently
+ * spaced relative to each other.
+ * <p>
+ * This class is thread-safe.
+ */
+public class MonotonicClock
+{
+	// static
+
+	private static final MonotonicClock _Instance = new MonotonicClock();
+
+	/**
+	 * Returns the Singleton instance of this class.
+	 *
+	 * @return MonotonicClock
+	 */
+	public static final MonotonicClock getInstance()
+	{
+		return _Instance;
+	}
+
+
+	// private var's
+
+	private final long baseEpochNanos;
+	private final long baseNanoTime;
+
+
+	// constructors
+
+	/**
+	 * Default (private).
+	 *
+	 */
+	private MonotonicClock()
+	{
+		super();
+
+		this.baseEpochNanos = System.currentTimeMillis() * 1000000L;
+		this.baseNanoTime   = System.nanoTime();
+	}
+
+
+	// public methods
+
+	/**
+	 * Returns the current time in milliseconds since the Epoch.
+	 *
+	 * @return long
+	 */
+	public long currentTimeMillis()
+	{
+		return currentTimeNanos() / 1000000L;
+	}
+
+	/**
+	 * Returns the current time in nanoseconds since the Epoch. While the
+	 * resolution is nanoseconds, the accuracy is bound by the system clock
+	 * reading taken when this clock was created.
+	 *
+	 * @return long
+	 */
+	public long currentTimeNanos()
+	{
+		return this.baseEpochNanos + (System.nanoTime() - this.baseNanoTime);
+	}
+
+}
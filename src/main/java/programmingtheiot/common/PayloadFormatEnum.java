@@ -0,0 +1,107 @@
+/**
+ * This class is part of the Programming the Internet of Things
+ * project, and is available via the MIT License, which can be
+ * found in the LICENSE file at the top level of this repository.
+ *
+ * Copyright (c) 2020 by Andrew D. King
+ */
+
+package programmingtheiot.common;
+
+/**
+ * A convenience class to provide type consistency around the payload
+ * encodings supported for data messages, and their protocol specific
+ * identifiers: the CoAP Content-Format option value and the MQTT v5
+ * content type property.
+ *
+ */
+public enum PayloadFormatEnum
+{
+	// static
+
+	JSON(ConfigConst.JSON_CONTENT_FORMAT, ConfigConst.JSON_CONTENT_TYPE),
+	BINARY(ConfigConst.BINARY_CONTENT_FORMAT, ConfigConst.BINARY_CONTENT_TYPE);
+
+	/**
+	 * Convenience method for looking up an enum type based on
+	 * the CoAP Content-Format option value. If the lookup fails,
+	 * {@link #JSON} will be returned, as it's the default encoding.
+	 *
+	 * @param contentFormat The CoAP Content-Format option value.
+	 * @return PayloadFormatEnum The enum instance.
+	 */
+	public static PayloadFormatEnum getEnumFromContentFormat(int contentFormat)
+	{
+		for (PayloadFormatEnum pf : values()) {
+			if (pf.contentFormat == contentFormat) {
+				return pf;
+			}
+		}
+
+		return JSON;
+	}
+
+	/**
+	 * Convenience method for looking up an enum type based on
+	 * the MQTT v5 content type property. If the lookup fails,
+	 * {@link #JSON} will be returned, as it's the default encoding.
+	 *
+	 * @param contentType The MQTT v5 content type String.
+	 * @return PayloadFormatEnum The enum instance.
+	 */
+	public static PayloadFormatEnum getEnumFromContentType(String contentType)
+	{
+		if (contentType != null) {
+			for (PayloadFormatEnum pf : values()) {
+				if (pf.contentType.equalsIgnoreCase(contentType)) {
+					return pf;
+				}
+			}
+		}
+
+		return JSON;
+	}
+
+
+	// private var's
+
+	private int    contentFormat = ConfigConst.JSON_CONTENT_FORMAT;
+	private String contentType   = ConfigConst.JSON_CONTENT_TYPE;
+
+
+	// constructor
+
+	/**
+	 * Constructor.
+	 *
+	 * @param contentFormat
+	 * @param contentType
+	 */
+	private PayloadFormatEnum(int contentFormat, String contentType)
+	{
+		this.contentFormat = contentFormat;
+		this.contentType   = contentType;
+	}
+
+
+	// public methods
+
+	/**
+	 *
+	 * @return int The CoAP Content-Format option value.
+	 */
+	public int getContentFormat()
+	{
+		return this.contentFormat;
+	}
+
+	/**
+	 *
+	 * @return String The MQTT v5 content type property (a MIME type).
+	 */
+	public String getContentType()
+	{
+		return this.contentType;
+	}
+
+}
@@ -8,7 +8,8 @@
 
 package programmingtheiot.common;
 
-import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 
@@ -48,17 +49,25 @@ public enum ResourceNameEnum
 		ConfigConst.PRODUCT_NAME, ConfigConst.GATEWAY_DEVICE, ConfigConst.MGMT_STATUS_MSG, false, false),
 	GDA_MGMT_STATUS_CMD_RESOURCE(
 		ConfigConst.PRODUCT_NAME, ConfigConst.GATEWAY_DEVICE, ConfigConst.MGMT_STATUS_CMD, false, false),
+	GDA_SENSOR_MSG_RESOURCE(
+		ConfigConst.PRODUCT_NAME, ConfigConst.GATEWAY_DEVICE, ConfigConst.SENSOR_MSG, false, false),
 	GDA_REGISTRATION_REQUEST_RESOURCE(
 		ConfigConst.PRODUCT_NAME, ConfigConst.GATEWAY_DEVICE, ConfigConst.RESOURCE_REGISTRATION_REQUEST, false, false),
 	GDA_SYSTEM_PERF_MSG_RESOURCE(
 		ConfigConst.PRODUCT_NAME, ConfigConst.GATEWAY_DEVICE, ConfigConst.SYSTEM_PERF_MSG, false, false);
 	
 	private static final HashMap<String, ResourceNameEnum> _ResourceNameLookupMap = new HashMap<>();
+	private static final TopicRouter<ResourceNameEnum> _ResourceRouter;
 	
 	static {
+		TopicRouter.Builder<ResourceNameEnum> routerBuilder = TopicRouter.builder();
+		
 		for (ResourceNameEnum rn : ResourceNameEnum.values()) {
 			_ResourceNameLookupMap.put(rn.getResourceName(), rn);
+			routerBuilder.add(rn, rn);
 		}
+		
+		_ResourceRouter = routerBuilder.build();
 	}
 	
 	/**
@@ -84,6 +93,32 @@ public enum ResourceNameEnum
 		return null;
 	}
 	
+	/**
+	 * Looks up the enum type for a topic (e.g. from an incoming MQTT
+	 * message), using a precomputed routing table: a single hash lookup
+	 * of the whole topic, with no per-call splitting or allocation. If
+	 * the lookup fails, null will be returned.
+	 * 
+	 * @param topic The topic.
+	 * @return ResourceNameEnum The enum instance, or null if not found.
+	 */
+	public static ResourceNameEnum getEnumFromTopic(String topic)
+	{
+		return _ResourceRouter.route(topic);
+	}
+	
+	/**
+	 * Looks up the enum type for a topic that's already split into levels,
+	 * such as a CoAP URI path. If the lookup fails, null will be returned.
+	 * 
+	 * @param pathSegments The topic levels / URI path segments.
+	 * @return ResourceNameEnum The enum instance, or null if not found.
+	 */
+	public static ResourceNameEnum getEnumFromPath(List<String> pathSegments)
+	{
+		return _ResourceRouter.route(pathSegments);
+	}
+	
 	
 	// private var's
 	
@@ -93,6 +128,7 @@ public enum ResourceNameEnum
 	private String resourceType = "";
 	private boolean isLocalToGDA = false;
 	private boolean isObservable = false;
+	private List<String> resourceNameChain = null;
 	
 	
 	// constructor
@@ -114,6 +150,8 @@ public enum ResourceNameEnum
 		this.resourceType = resourceType;
 		this.isLocalToGDA = isLocalToGda;
 		this.isObservable = isObservable;
+		this.resourceNameChain =
+			Collections.unmodifiableList(Arrays.asList(productName, deviceName, resourceType));
 	}
 	
 	
@@ -157,20 +195,12 @@ public enum ResourceNameEnum
 	
 	/**
 	 * 
-	 * @return List<String> The ordered list of Strings representing this
-	 * resource name split by '/'.
+	 * @return List<String> The ordered, unmodifiable list of Strings
+	 * representing this resource name split by '/'.
 	 */
 	public List<String> getResourceNameChain()
 	{
-		String[] names = this.resourceName.split("/");
-		
-		List<String> nameList = new ArrayList<>(names.length);
-		
-		for (String name : names) {
-			nameList.add(name);
-		}
-		
-		return nameList;
+		return this.resourceNameChain;
 	}
 	
 	/**
@@ -0,0 +1,389 @@
+/**
+ * This class is part of the Programming the Internet of Things
+ * project, and is available via the MIT License, which can be
+ * found in the LICENSE file at the top level of this repository.
+ *
+ * Copyright (c) 2020 by Andrew D. King
+ */
+
+package programmingtheiot.common;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An immutable routing table that maps MQTT topics (or CoAP URI paths) to
+ * values, such as a {@link ResourceNameEnum} or a handler, using a trie of
+ * topic levels built once by {@link Builder}.
+ * <p>
+ * Topic filters may use the MQTT wildcards: '+' matches exactly one level,
+ * and '#' (last level only) matches any number of levels, including none
+ * (so 'a/#' matches 'a'). If several filters match, a literal level is
+ * preferred over '+', which is preferred over '#'.
+ * <p>
+ * Filters without wildcards are looked up in a hash map first (as fast as
+ * a plain HashMap lookup); if there's no exact match and any wildcard
+ * filters exist, the trie is walked over the topic string in place, with
+ * no splitting and no allocation. Instances are thread-safe.
+ *
+ * @param <T> The type of value routed to.
+ */
+public final class TopicRouter<T>
+{
+	// static
+
+	public static final char   LEVEL_SEPARATOR       = '/';
+	public static final String SINGLE_LEVEL_WILDCARD = "+";
+	public static final String MULTI_LEVEL_WILDCARD  = "#";
+
+
+	// private var's
+
+	private final Node<T> root;
+	private final Map<String, T> exactRoutes;
+	private final boolean hasWildcards;
+	private final int size;
+
+
+	// constructors
+
+	private TopicRouter(Node<T> root, Map<String, T> exactRoutes, boolean hasWildcards, int size)
+	{
+		super();
+
+		this.root         = root;
+		this.exactRoutes  = exactRoutes;
+		this.hasWildcards = hasWildcards;
+		this.size         = size;
+	}
+
+
+	// public methods
+
+	/**
+	 * Returns a new, empty builder.
+	 *
+	 * @param <T> The type of value routed to.
+	 * @return Builder
+	 */
+	public static <T> Builder<T> builder()
+	{
+		return new Builder<>();
+	}
+
+	/**
+	 * Returns the value of the best matching filter for the topic.
+	 *
+	 * @param topic The topic (e.g. 'PIOT/ConstrainedDevice/SensorMsg').
+	 * @return T The value, or null if no filter matches.
+	 */
+	public T route(String topic)
+	{
+		if (topic == null) {
+			return null;
+		}
+
+		T value = this.exactRoutes.get(topic);
+
+		if (value != null || ! this.hasWildcards) {
+			return value;
+		}
+
+		return match(this.root, topic, 0);
+	}
+
+	/**
+	 * Returns the value of the best matching filter for a topic that's
+	 * already split into levels, such as a CoAP URI path.
+	 *
+	 * @param pathSegments The topic levels / URI path segments.
+	 * @return T The value, or null if no filter matches.
+	 */
+	public T route(List<String> pathSegments)
+	{
+		if (pathSegments == null) {
+			return null;
+		}
+
+		return match(this.root, pathSegments, 0);
+	}
+
+	/**
+	 * Returns the number of filters in the table.
+	 *
+	 * @return int
+	 */
+	public int size()
+	{
+		return this.size;
+	}
+
+
+	// private methods
+
+	private static <T> T match(Node<T> node, String topic, int start)
+	{
+		int length = topic.length();
+
+		if (start > length) {
+			// all levels consumed; 'a/#' also matches 'a'
+			return (node.value != null ? node.value : node.multiLevelValue);
+		}
+
+		int end = topic.indexOf(LEVEL_SEPARATOR, start);
+
+		if (end < 0) {
+			end = length;
+		}
+
+		int levelLength = end - start;
+		String[] keys = node.keys;
+
+		for (int i = 0; i < keys.length; i++) {
+			String key = keys[i];
+
+			if (key.length() == levelLength && topic.regionMatches(start, key, 0, levelLength)) {
+				T value = match(node.children[i], topic, end + 1);
+
+				if (value != null) {
+					return value;
+				}
+
+				break;
+			}
+		}
+
+		if (node.singleLevelChild != null) {
+			T value = match(node.singleLevelChild, topic, end + 1);
+
+			if (value != null) {
+				return value;
+			}
+		}
+
+		return node.multiLevelValue;
+	}
+
+	private static <T> T match(Node<T> node, List<String> levels, int index)
+	{
+		if (index >= levels.size()) {
+			return (node.value != null ? node.value : node.multiLevelValue);
+		}
+
+		String level = levels.get(index);
+		String[] keys = node.keys;
+
+		for (int i = 0; i < keys.length; i++) {
+			if (keys[i].equals(level)) {
+				T value = match(node.children[i], levels, index + 1);
+
+				if (value != null) {
+					return value;
+				}
+
+				break;
+			}
+		}
+
+		if (node.singleLevelChild != null) {
+			T value = match(node.singleLevelChild, levels, index + 1);
+
+			if (value != null) {
+				return value;
+			}
+		}
+
+		return node.multiLevelValue;
+	}
+
+
+	/**
+	 * Collects topic filters, then builds an immutable {@link TopicRouter}.
+	 * Not thread-safe.
+	 *
+	 * @param <T> The type of value routed to.
+	 */
+	public static final class Builder<T>
+	{
+		private final BuilderNode<T> root = new BuilderNode<>();
+		private final Map<String, T> exactRoutes = new HashMap<>();
+		private boolean hasWildcards = false;
+		private int size = 0;
+
+		private Builder()
+		{
+			super();
+		}
+
+		/**
+		 * Adds a resource's topic.
+		 *
+		 * @param resource The resource.
+		 * @param value The value to route to.
+		 * @return Builder This builder.
+		 */
+		public Builder<T> add(ResourceNameEnum resource, T value)
+		{
+			return add(resource.getResourceNameChain(), value);
+		}
+
+		/**
+		 * Adds a topic filter, which may contain '+' and '#' wildcards.
+		 *
+		 * @param topicFilter The topic filter (e.g. 'PIOT/+/SensorMsg').
+		 * @param value The value to route to.
+		 * @return Builder This builder.
+		 * @throws IllegalArgumentException If the filter is invalid, or
+		 * already added.
+		 */
+		public Builder<T> add(String topicFilter, T value)
+		{
+			if (topicFilter == null) {
+				throw new IllegalArgumentException("Topic filter is null.");
+			}
+
+			List<String> levels = new ArrayList<>();
+			int start = 0;
+
+			for (int end; (end = topicFilter.indexOf(LEVEL_SEPARATOR, start)) >= 0; start = end + 1) {
+				levels.add(topicFilter.substring(start, end));
+			}
+
+			levels.add(topicFilter.substring(start));
+
+			return add(levels, value);
+		}
+
+		/**
+		 * Adds a topic filter that's already split into levels.
+		 *
+		 * @param levels The topic filter levels.
+		 * @param value The value to route to.
+		 * @return Builder This builder.
+		 * @throws IllegalArgumentException If the filter is invalid, or
+		 * already added.
+		 */
+		public Builder<T> add(List<String> levels, T value)
+		{
+			if (value == null) {
+				throw new IllegalArgumentException("Value is null.");
+			}
+
+			BuilderNode<T> node = this.root;
+
+			for (int i = 0; i < levels.size(); i++) {
+				String level = levels.get(i);
+
+				if (MULTI_LEVEL_WILDCARD.equals(level)) {
+					if (i != levels.size() - 1) {
+						throw new IllegalArgumentException("'#' must be the last level: " + levels);
+					}
+
+					if (node.multiLevelValue != null) {
+						throw new IllegalArgumentException("Topic filter already added: " + levels);
+					}
+
+					node.multiLevelValue = value;
+					this.hasWildcards = true;
+					this.size++;
+
+					return this;
+				}
+
+				if (! SINGLE_LEVEL_WILDCARD.equals(level) &&
+					(level.indexOf('+') >= 0 || level.indexOf('#') >= 0)) {
+					throw new IllegalArgumentException("Wildcards must occupy a whole level: " + levels);
+				}
+
+				if (SINGLE_LEVEL_WILDCARD.equals(level)) {
+					this.hasWildcards = true;
+				}
+
+				node = node.children.computeIfAbsent(level, key -> new BuilderNode<>());
+			}
+
+			if (node.value != null) {
+				throw new IllegalArgumentException("Topic filter already added: " + levels);
+			}
+
+			node.value = value;
+			this.size++;
+
+			if (! levels.contains(SINGLE_LEVEL_WILDCARD)) {
+				this.exactRoutes.put(String.join(String.valueOf(LEVEL_SEPARATOR), levels), value);
+			}
+
+			return this;
+		}
+
+		/**
+		 * Builds the routing table.
+		 *
+		 * @return TopicRouter
+		 */
+		public TopicRouter<T> build()
+		{
+			return new TopicRouter<>(this.root.freeze(), new HashMap<>(this.exactRoutes), this.hasWildcards, this.size);
+		}
+	}
+
+	/**
+	 * Mutable trie node, used while building.
+	 *
+	 */
+	private static final class BuilderNode<T>
+	{
+		private final Map<String, BuilderNode<T>> children = new LinkedHashMap<>();
+		private T value = null;
+		private T multiLevelValue = null;
+
+		Node<T> freeze()
+		{
+			BuilderNode<T> singleLevel = this.children.get(SINGLE_LEVEL_WILDCARD);
+
+			int literalCount = this.children.size() - (singleLevel != null ? 1 : 0);
+			String[] keys = new String[literalCount];
+
+			@SuppressWarnings("unchecked")
+			Node<T>[] frozen = (Node<T>[]) new Node<?>[literalCount];
+
+			int i = 0;
+
+			for (Map.Entry<String, BuilderNode<T>> entry : this.children.entrySet()) {
+				if (entry.getValue() != singleLevel) {
+					keys[i]   = entry.getKey();
+					frozen[i] = entry.getValue().freeze();
+					i++;
+				}
+			}
+
+			return new Node<>(keys, frozen, (singleLevel != null ? singleLevel.freeze() : null), this.value, this.multiLevelValue);
+		}
+	}
+
+	/**
+	 * Immutable trie node: one per topic level.
+	 *
+	 */
+	private static final class Node<T>
+	{
+		private final String[]  keys;
+		private final Node<T>[] children;
+		private final Node<T>   singleLevelChild;
+		private final T         value;
+		private final T         multiLevelValue;
+
+		Node(String[] keys, Node<T>[] children, Node<T> singleLevelChild, T value, T multiLevelValue)
+		{
+			this.keys             = keys;
+			this.children         = children;
+			this.singleLevelChild = singleLevelChild;
+			this.value            = value;
+			this.multiLevelValue  = multiLevelValue;
+		}
+	}
+
+}
@@ -0,0 +1,69 @@
+/**
+ * This class is part of the Programming the Internet of Things project.
+ *
+ * It is provided as a simple shell to guide the student and assist with
+ * implementation for the Programming the Internet of Things exercises,
+ * and designed to be modified by the student as needed.
+ */
+
+package programmingtheiot.data;
+
+import java.io.IOException;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+import programmingtheiot.common.ConfigConst;
+
+/**
+ * Streaming Gson adapter for {@link ActuatorData}.
+ *
+ */
+class ActuatorDataTypeAdapter extends BaseIotDataTypeAdapter<ActuatorData>
+{
+	// protected methods
+
+	@Override
+	protected ActuatorData createData()
+	{
+		return new ActuatorData();
+	}
+
+	@Override
+	protected void writeDataFields(JsonWriter out, ActuatorData data) throws IOException
+	{
+		out.name(ConfigConst.COMMAND_PROP).value(data.getCommand());
+		out.name(ConfigConst.VALUE_PROP).value(data.getValue());
+		out.name(ConfigConst.IS_RESPONSE_PROP).value(data.isResponseFlagEnabled());
+		writeString(out, ConfigConst.STATE_DATA_PROP, data.getStateData());
+	}
+
+	@Override
+	protected boolean readDataField(String propName, JsonReader in, ActuatorData data) throws IOException
+	{
+		switch (propName) {
+			case ConfigConst.COMMAND_PROP:
+				data.setCommand(in.nextInt());
+				return true;
+
+			case ConfigConst.VALUE_PROP:
+				data.setValue((float) in.nextDouble());
+				return true;
+
+			case ConfigConst.IS_RESPONSE_PROP:
+				if (in.nextBoolean()) {
+					data.setAsResponse();
+				}
+
+				return true;
+
+			case ConfigConst.STATE_DATA_PROP:
+				data.setStateData(in.nextString());
+				return true;
+
+			default:
+				return false;
+		}
+	}
+
+}
@@ -8,12 +8,15 @@
 
 package programmingtheiot.data;
 
+import java.io.IOException;
+import java.io.ObjectOutputStream;
 import java.io.Serializable;
 import java.time.Instant;
 import java.time.format.DateTimeFormatter;
 
 import programmingtheiot.common.ConfigConst;
 import programmingtheiot.common.ConfigUtil;
+import programmingtheiot.common.DeviceContext;
 
 /**
  * Base class for common properties and helper methods for all
@@ -35,7 +38,7 @@ public abstract class BaseIotData implements Serializable
 	// private var's
 	
     private String  name       = ConfigConst.NOT_SET;
-	private String  timeStamp  = "";
+	private String  timeStamp  = null;
     private int     statusCode = ConfigConst.DEFAULT_STATUS;
     private int     typeID     = ConfigConst.DEFAULT_TYPE_ID;
     
@@ -60,11 +63,8 @@ public abstract class BaseIotData implements Serializable
 	{
 		super();
 		
-		String locID =
-			ConfigUtil.getInstance().getProperty(
-				ConfigConst.GATEWAY_DEVICE, ConfigConst.DEVICE_LOCATION_ID_KEY);
-		
-		this.setLocationID(locID);
+		// lock-free snapshot of the GatewayDevice config (see ConfigUtil)
+		this.setLocationID(ConfigUtil.getInstance().getDeviceContext().getLocationID());
 		
 		updateTimeStamp();
 	}
@@ -136,6 +136,9 @@ public abstract class BaseIotData implements Serializable
 	 * Returns the timestamp as a formatted String, based on the millis since the Epoch,
 	 * which is set via the {@see #updateTimeStamp()} method.
 	 * <p>
+	 * The String is only formatted on first access (or serialization), as most
+	 * instances are only ever compared or stored by {@see #getTimeStampMillis()}.
+	 * <p>
 	 * The timestamp is represented as a String in ISO 8601 format, as follows:
 	 * <p>
 	 * e.g. 2020-12-27T10:13:30Z
@@ -144,7 +147,15 @@ public abstract class BaseIotData implements Serializable
 	 */
 	public String getTimeStamp()
 	{
-		return this.timeStamp;
+		String ts = this.timeStamp;
+		
+		// benign race: concurrent callers format the same value
+		if (ts == null) {
+			ts = DateTimeFormatter.ISO_INSTANT.format(Instant.ofEpochMilli(this.timeStampMillis));
+			this.timeStamp = ts;
+		}
+		
+		return ts;
 	}
 	
 	/**
@@ -281,7 +292,7 @@ public abstract class BaseIotData implements Serializable
 		
 		sb.append(ConfigConst.NAME_PROP).append('=').append(this.name).append(',');
 		sb.append(ConfigConst.TYPE_ID_PROP).append('=').append(this.typeID).append(',');
-		sb.append(ConfigConst.TIMESTAMP_PROP).append('=').append(this.timeStamp).append(',');
+		sb.append(ConfigConst.TIMESTAMP_PROP).append('=').append(this.getTimeStamp()).append(',');
 		sb.append(ConfigConst.STATUS_CODE_PROP).append('=').append(this.statusCode).append(',');
 		sb.append(ConfigConst.HAS_ERROR_PROP).append('=').append(this.hasError()).append(',');
 		sb.append(ConfigConst.LOCATION_ID_PROP).append('=').append(this.locationID).append(',');
@@ -324,8 +335,36 @@ public abstract class BaseIotData implements Serializable
 	}
 	
 	
+	// package-private methods
+
+	/**
+	 * Sets the ISO 8601 formatted timestamp String as-is. This is intended
+	 * for use by the codecs within this package when decoding a payload,
+	 * and performs no validation. If null, the String will be derived
+	 * from the timestamp millis on first access.
+	 *
+	 * @param timeStamp The formatted timestamp.
+	 */
+	void setTimeStamp(String timeStamp)
+	{
+		this.timeStamp = timeStamp;
+	}
+
+	/**
+	 * Sets the timestamp in milliseconds since the Epoch as-is. This is
+	 * intended for use by the codecs within this package when decoding
+	 * a payload, and performs no validation.
+	 *
+	 * @param millis The timestamp in milliseconds since the Epoch.
+	 */
+	void setTimeStampMillis(long millis)
+	{
+		this.timeStampMillis = millis;
+	}
+
+
 	// protected methods
-	
+
 	/**
 	 * Template method to handle data update for the sub-class.
 	 * 
@@ -336,19 +375,35 @@ public abstract class BaseIotData implements Serializable
 	
 	/**
 	 * Stores the latest timestamp in milliseconds (since the Epoch) within
-	 * {@see #timeStampMillis}, then sets the internal time stamp string
-	 * {@see #timeStamp} to represent a new Date based on {@see #timeStampMillis}
-	 * in ISO 8601 format using {@see DateTimeFormatter.ISO_INSTANT}, as follows:
+	 * {@see #timeStampMillis} using the clock source configured in
+	 * {@see DeviceContext}, and clears the internal time stamp string
+	 * {@see #timeStamp}. It will be derived from {@see #timeStampMillis}
+	 * in ISO 8601 format using {@see DateTimeFormatter.ISO_INSTANT} on first
+	 * access, as follows:
 	 * <p>
-	 * e.g. 2020-12-27T10:13:30Z
+	 * e.g. 2020-12-27T10:13:30.123Z
 	 * 
 	 */
 	protected final void updateTimeStamp()
 	{
-		Instant instant = Instant.now();
+		this.timeStampMillis = ConfigUtil.getInstance().getDeviceContext().currentTimeMillis();
+		this.timeStamp = null;
+	}
+	
+	
+	// private methods
+	
+	/**
+	 * Ensures the formatted timestamp is written when serialized.
+	 * 
+	 * @param out
+	 * @throws IOException
+	 */
+	private void writeObject(ObjectOutputStream out) throws IOException
+	{
+		getTimeStamp();
 		
-		this.timeStampMillis = instant.toEpochMilli();
-		this.timeStamp       = DateTimeFormatter.ISO_INSTANT.format(instant);
+		out.defaultWriteObject();
 	}
 	
 }
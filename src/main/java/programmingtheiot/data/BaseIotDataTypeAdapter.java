@@ -0,0 +1,187 @@
+/**
+ * This class is part of the Programming the Internet of Things project.
+ *
+ * It is provided as a simple shell to guide the student and assist with
+ * implementation for the Programming the Internet of Things exercises,
+ * and designed to be modified by the student as needed.
+ */
+
+package programmingtheiot.data;
+
+import java.io.IOException;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import programmingtheiot.common.ConfigConst;
+
+/**
+ * Base class for the hand-written streaming Gson adapters used by
+ * {@link DataUtil}. It writes and reads the properties common to all
+ * {@link BaseIotData} sub-classes, and delegates the sub-class specific
+ * properties to {@link #writeDataFields(JsonWriter, BaseIotData)} and
+ * {@link #readDataField(String, JsonReader, BaseIotData)}.
+ * <p>
+ * The property names and ordering match the output of Gson's reflective
+ * adapter (sub-class properties first), so JSON produced by either the
+ * CDA or earlier versions of the GDA remains compatible.
+ *
+ * @param <T> The BaseIotData sub-class handled by this adapter.
+ */
+abstract class BaseIotDataTypeAdapter<T extends BaseIotData> extends TypeAdapter<T>
+{
+	// static
+
+	static final String TIMESTAMP_MILLIS_PROP = "timeStampMillis";
+
+
+	// public methods
+
+	@Override
+	public void write(JsonWriter out, T data) throws IOException
+	{
+		if (data == null) {
+			out.nullValue();
+			return;
+		}
+
+		out.beginObject();
+
+		writeDataFields(out, data);
+
+		writeString(out, ConfigConst.NAME_PROP, data.getName());
+		writeString(out, ConfigConst.TIMESTAMP_PROP, data.getTimeStamp());
+		out.name(ConfigConst.STATUS_CODE_PROP).value(data.getStatusCode());
+		out.name(ConfigConst.TYPE_ID_PROP).value(data.getTypeID());
+		writeString(out, ConfigConst.LOCATION_ID_PROP, data.getLocationID());
+		out.name(ConfigConst.LATITUDE_PROP).value(data.getLatitude());
+		out.name(ConfigConst.LONGITUDE_PROP).value(data.getLongitude());
+		out.name(ConfigConst.ELEVATION_PROP).value(data.getElevation());
+		out.name(TIMESTAMP_MILLIS_PROP).value(data.getTimeStampMillis());
+
+		out.endObject();
+	}
+
+	@Override
+	public T read(JsonReader in) throws IOException
+	{
+		if (in.peek() == JsonToken.NULL) {
+			in.nextNull();
+			return null;
+		}
+
+		T data = createData();
+
+		in.beginObject();
+
+		while (in.hasNext()) {
+			String propName = in.nextName();
+
+			if (in.peek() == JsonToken.NULL) {
+				in.nextNull();
+			} else if (! readBaseField(propName, in, data) && ! readDataField(propName, in, data)) {
+				in.skipValue();
+			}
+		}
+
+		in.endObject();
+
+		return data;
+	}
+
+
+	// protected methods
+
+	/**
+	 * Creates a new, empty instance of the data type to populate on read.
+	 *
+	 * @return T
+	 */
+	protected abstract T createData();
+
+	/**
+	 * Writes the sub-class specific properties of 'data'.
+	 *
+	 * @param out The JSON writer.
+	 * @param data The non-null data instance.
+	 * @throws IOException
+	 */
+	protected abstract void writeDataFields(JsonWriter out, T data) throws IOException;
+
+	/**
+	 * Reads the sub-class specific property named 'propName' into 'data'.
+	 *
+	 * @param propName The property name just read.
+	 * @param in The JSON reader, positioned at the (non-null) property value.
+	 * @param data The data instance to populate.
+	 * @return boolean True if the property was consumed; false otherwise.
+	 * @throws IOException
+	 */
+	protected abstract boolean readDataField(String propName, JsonReader in, T data) throws IOException;
+
+	/**
+	 * Writes 'val' under 'propName' unless it's null, which mirrors the
+	 * default (non-null serializing) Gson behavior.
+	 *
+	 * @param out The JSON writer.
+	 * @param propName The property name.
+	 * @param val The value to write.
+	 * @throws IOException
+	 */
+	protected static void writeString(JsonWriter out, String propName, String val) throws IOException
+	{
+		if (val != null) {
+			out.name(propName).value(val);
+		}
+	}
+
+
+	// private methods
+
+	private boolean readBaseField(String propName, JsonReader in, T data) throws IOException
+	{
+		switch (propName) {
+			case ConfigConst.NAME_PROP:
+				data.setName(in.nextString());
+				return true;
+
+			case ConfigConst.TIMESTAMP_PROP:
+				data.setTimeStamp(in.nextString());
+				return true;
+
+			case ConfigConst.STATUS_CODE_PROP:
+				data.setStatusCode(in.nextInt());
+				return true;
+
+			case ConfigConst.TYPE_ID_PROP:
+				data.setTypeID(in.nextInt());
+				return true;
+
+			case ConfigConst.LOCATION_ID_PROP:
+				data.setLocationID(in.nextString());
+				return true;
+
+			case ConfigConst.LATITUDE_PROP:
+				data.setLatitude((float) in.nextDouble());
+				return true;
+
+			case ConfigConst.LONGITUDE_PROP:
+				data.setLongitude((float) in.nextDouble());
+				return true;
+
+			case ConfigConst.ELEVATION_PROP:
+				data.setElevation((float) in.nextDouble());
+				return true;
+
+			case TIMESTAMP_MILLIS_PROP:
+				data.setTimeStampMillis(in.nextLong());
+				return true;
+
+			default:
+				return false;
+		}
+	}
+
+}
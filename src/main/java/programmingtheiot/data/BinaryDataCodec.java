@@ -0,0 +1,471 @@
+/**
+ * This class is part of the Programming the Internet of Things project.
+ *
+ * It is provided as a simple shell to guide the student and assist with
+ * implementation for the Programming the Internet of Things exercises,
+ * and designed to be modified by the student as needed.
+ */
+
+package programmingtheiot.data;
+
+import java.nio.BufferOverflowException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compact binary codec for {@link BaseIotData} sub-classes.
+ * <p>
+ * Each message starts with a version byte and a type tag, followed by
+ * the common properties and then the sub-class properties, in a fixed
+ * order, so no property names are sent. Integers use (zig-zag) varint
+ * encoding, floats are sent as 4 byte IEEE 754 values, and Strings as a
+ * varint length followed by their UTF-8 bytes. The latitude, longitude
+ * and elevation are only sent if non-zero, as flagged in a bit mask.
+ * The ISO 8601 timestamp String is not sent; it's derived from the
+ * timestamp millis on decode.
+ * <p>
+ * Version 2 added the additional {@link SystemPerformanceData} metrics,
+ * sent as a varint count followed by name / value pairs. Version 1
+ * payloads are still decoded.
+ * <p>
+ * All encode / decode operations work directly on a {@link ByteBuffer}
+ * (in big-endian order), and Strings are encoded without creating any
+ * intermediate byte arrays.
+ *
+ */
+class BinaryDataCodec
+{
+	// static
+
+	static final byte VERSION     = 2;
+	static final byte MIN_VERSION = 1;
+
+	static final byte ACTUATOR_DATA_TAG  = 1;
+	static final byte SENSOR_DATA_TAG    = 2;
+	static final byte SYS_PERF_DATA_TAG  = 3;
+	static final byte SYS_STATE_DATA_TAG = 4;
+
+	private static final int LATITUDE_FLAG  = 0x01;
+	private static final int LONGITUDE_FLAG = 0x02;
+	private static final int ELEVATION_FLAG = 0x04;
+	private static final int RESPONSE_FLAG  = 0x08;
+
+	private static final int DEFAULT_BUFFER_SIZE = 512;
+
+
+	// private var's
+
+	private final ThreadLocal<ByteBuffer> encodeBuffer =
+		ThreadLocal.withInitial(() -> ByteBuffer.allocate(DEFAULT_BUFFER_SIZE));
+
+
+	// constructors
+
+	/**
+	 * Default.
+	 *
+	 */
+	BinaryDataCodec()
+	{
+		super();
+	}
+
+
+	// package-private methods
+
+	/**
+	 * Encodes 'data' into a new byte array. The work is done in a re-usable
+	 * (per thread) buffer, which grows as needed.
+	 *
+	 * @param data The data instance to encode.
+	 * @return byte[] The encoded bytes, or null if 'data' is null or not supported.
+	 */
+	byte[] encode(BaseIotData data)
+	{
+		if (data == null) {
+			return null;
+		}
+
+		ByteBuffer buffer = this.encodeBuffer.get();
+
+		while (true) {
+			buffer.clear();
+
+			try {
+				if (! encode(data, buffer)) {
+					return null;
+				}
+
+				buffer.flip();
+
+				byte[] bytes = new byte[buffer.remaining()];
+				buffer.get(bytes);
+
+				return bytes;
+			} catch (BufferOverflowException e) {
+				buffer = ByteBuffer.allocate(buffer.capacity() * 2);
+				this.encodeBuffer.set(buffer);
+			}
+		}
+	}
+
+	/**
+	 * Encodes 'data' into 'buffer', starting at its current position.
+	 *
+	 * @param data The data instance to encode.
+	 * @param buffer The target buffer.
+	 * @return boolean True if 'data' is a supported type and was written; false otherwise.
+	 * @throws BufferOverflowException If 'buffer' doesn't have enough room.
+	 */
+	boolean encode(BaseIotData data, ByteBuffer buffer)
+	{
+		byte tag = getTypeTag(data);
+
+		if (tag == 0) {
+			return false;
+		}
+
+		buffer.put(VERSION);
+		buffer.put(tag);
+
+		writeData(tag, data, buffer);
+
+		return true;
+	}
+
+	/**
+	 * Decodes the next message from 'buffer', starting at its current position.
+	 *
+	 * @param buffer The source buffer.
+	 * @return BaseIotData The decoded instance.
+	 * @throws IllegalArgumentException If the message version or type is not supported,
+	 * or the message is truncated.
+	 */
+	BaseIotData decode(ByteBuffer buffer)
+	{
+		try {
+			byte version = readVersion(buffer);
+			byte tag = buffer.get();
+
+			BaseIotData data = null;
+
+			switch (tag) {
+				case ACTUATOR_DATA_TAG:  data = new ActuatorData(); break;
+				case SENSOR_DATA_TAG:    data = new SensorData(); break;
+				case SYS_PERF_DATA_TAG:  data = new SystemPerformanceData(); break;
+				case SYS_STATE_DATA_TAG: data = new SystemStateData(); break;
+
+				default:
+					throw new IllegalArgumentException("Unsupported binary payload type: " + tag);
+			}
+
+			readData(version, tag, data, buffer);
+
+			return data;
+		} catch (BufferUnderflowException e) {
+			throw new IllegalArgumentException("Truncated binary payload.", e);
+		}
+	}
+
+
+	// private methods
+
+	private byte getTypeTag(BaseIotData data)
+	{
+		if (data instanceof SensorData) {
+			return SENSOR_DATA_TAG;
+		} else if (data instanceof ActuatorData) {
+			return ACTUATOR_DATA_TAG;
+		} else if (data instanceof SystemPerformanceData) {
+			return SYS_PERF_DATA_TAG;
+		} else if (data instanceof SystemStateData) {
+			return SYS_STATE_DATA_TAG;
+		}
+
+		return 0;
+	}
+
+	private byte readVersion(ByteBuffer buffer)
+	{
+		byte version = buffer.get();
+
+		if (version < MIN_VERSION || version > VERSION) {
+			throw new IllegalArgumentException("Unsupported binary payload version: " + version);
+		}
+
+		return version;
+	}
+
+	private void writeData(byte tag, BaseIotData data, ByteBuffer buffer)
+	{
+		int flags = 0;
+
+		if (data.getLatitude() != 0.0f)  flags |= LATITUDE_FLAG;
+		if (data.getLongitude() != 0.0f) flags |= LONGITUDE_FLAG;
+		if (data.getElevation() != 0.0f) flags |= ELEVATION_FLAG;
+
+		if (tag == ACTUATOR_DATA_TAG && ((ActuatorData) data).isResponseFlagEnabled()) {
+			flags |= RESPONSE_FLAG;
+		}
+
+		buffer.put((byte) flags);
+
+		writeString(data.getName(), buffer);
+		writeVarLong(data.getTimeStampMillis(), buffer);
+		writeVarLong(zigZag(data.getStatusCode()), buffer);
+		writeVarLong(zigZag(data.getTypeID()), buffer);
+		writeString(data.getLocationID(), buffer);
+
+		if ((flags & LATITUDE_FLAG) != 0)  buffer.putFloat(data.getLatitude());
+		if ((flags & LONGITUDE_FLAG) != 0) buffer.putFloat(data.getLongitude());
+		if ((flags & ELEVATION_FLAG) != 0) buffer.putFloat(data.getElevation());
+
+		switch (tag) {
+			case ACTUATOR_DATA_TAG:
+				ActuatorData aData = (ActuatorData) data;
+				writeVarLong(zigZag(aData.getCommand()), buffer);
+				buffer.putFloat(aData.getValue());
+				writeString(aData.getStateData(), buffer);
+				break;
+
+			case SENSOR_DATA_TAG:
+				buffer.putFloat(((SensorData) data).getValue());
+				break;
+
+			case SYS_PERF_DATA_TAG:
+				SystemPerformanceData spData = (SystemPerformanceData) data;
+				buffer.putFloat(spData.getCpuUtilization());
+				buffer.putFloat(spData.getDiskUtilization());
+				buffer.putFloat(spData.getMemoryUtilization());
+
+				Map<String, Float> metrics = spData.getMetrics();
+				writeVarLong(metrics.size(), buffer);
+
+				for (Map.Entry<String, Float> metric : metrics.entrySet()) {
+					writeString(metric.getKey(), buffer);
+					buffer.putFloat(metric.getValue());
+				}
+
+				break;
+
+			case SYS_STATE_DATA_TAG:
+				SystemStateData ssData = (SystemStateData) data;
+				writeVarLong(zigZag(ssData.getCommand()), buffer);
+
+				List<SystemPerformanceData> spDataList = ssData.getSystemPerformanceDataList();
+				writeVarLong(spDataList.size(), buffer);
+
+				for (int i = 0; i < spDataList.size(); i++) {
+					writeData(SYS_PERF_DATA_TAG, spDataList.get(i), buffer);
+				}
+
+				List<SensorData> sDataList = ssData.getSensorDataList();
+				writeVarLong(sDataList.size(), buffer);
+
+				for (int i = 0; i < sDataList.size(); i++) {
+					writeData(SENSOR_DATA_TAG, sDataList.get(i), buffer);
+				}
+
+				break;
+		}
+	}
+
+	private void readData(byte version, byte tag, BaseIotData data, ByteBuffer buffer)
+	{
+		int flags = buffer.get();
+
+		data.setName(readString(buffer));
+
+		long millis = readVarLong(buffer);
+		data.setTimeStampMillis(millis);
+		data.setTimeStamp(null);
+
+		data.setStatusCode(unZigZag(readVarLong(buffer)));
+		data.setTypeID(unZigZag(readVarLong(buffer)));
+		data.setLocationID(readString(buffer));
+
+		data.setLatitude((flags & LATITUDE_FLAG) != 0 ? buffer.getFloat() : 0.0f);
+		data.setLongitude((flags & LONGITUDE_FLAG) != 0 ? buffer.getFloat() : 0.0f);
+		data.setElevation((flags & ELEVATION_FLAG) != 0 ? buffer.getFloat() : 0.0f);
+
+		switch (tag) {
+			case ACTUATOR_DATA_TAG:
+				ActuatorData aData = (ActuatorData) data;
+				aData.setCommand(unZigZag(readVarLong(buffer)));
+				aData.setValue(buffer.getFloat());
+				aData.setStateData(readString(buffer));
+
+				if ((flags & RESPONSE_FLAG) != 0) {
+					aData.setAsResponse();
+				}
+
+				break;
+
+			case SENSOR_DATA_TAG:
+				((SensorData) data).setValue(buffer.getFloat());
+				break;
+
+			case SYS_PERF_DATA_TAG:
+				SystemPerformanceData spData = (SystemPerformanceData) data;
+				spData.setCpuUtilization(buffer.getFloat());
+				spData.setDiskUtilization(buffer.getFloat());
+				spData.setMemoryUtilization(buffer.getFloat());
+				spData.clearMetrics();
+
+				if (version >= 2) {
+					int metricCount = (int) readVarLong(buffer);
+
+					for (int i = 0; i < metricCount; i++) {
+						spData.setMetric(readString(buffer), buffer.getFloat());
+					}
+				}
+
+				break;
+
+			case SYS_STATE_DATA_TAG:
+				SystemStateData ssData = (SystemStateData) data;
+				ssData.setCommand(unZigZag(readVarLong(buffer)));
+
+				int spDataCount = (int) readVarLong(buffer);
+
+				for (int i = 0; i < spDataCount; i++) {
+					SystemPerformanceData entry = new SystemPerformanceData();
+					readData(version, SYS_PERF_DATA_TAG, entry, buffer);
+					ssData.addSystemPerformanceData(entry);
+				}
+
+				int sDataCount = (int) readVarLong(buffer);
+
+				for (int i = 0; i < sDataCount; i++) {
+					SensorData entry = new SensorData();
+					readData(version, SENSOR_DATA_TAG, entry, buffer);
+					ssData.addSensorData(entry);
+				}
+
+				break;
+		}
+	}
+
+	private static long zigZag(int val)
+	{
+		return ((val << 1) ^ (val >> 31)) & 0xFFFFFFFFL;
+	}
+
+	private static int unZigZag(long val)
+	{
+		int n = (int) val;
+
+		return (n >>> 1) ^ -(n & 1);
+	}
+
+	private static void writeVarLong(long val, ByteBuffer buffer)
+	{
+		while ((val & ~0x7FL) != 0L) {
+			buffer.put((byte) ((val & 0x7F) | 0x80));
+			val >>>= 7;
+		}
+
+		buffer.put((byte) val);
+	}
+
+	private static long readVarLong(ByteBuffer buffer)
+	{
+		long val = 0L;
+
+		for (int shift = 0; shift < 64; shift += 7) {
+			byte b = buffer.get();
+			val |= (long) (b & 0x7F) << shift;
+
+			if ((b & 0x80) == 0) {
+				return val;
+			}
+		}
+
+		throw new IllegalArgumentException("Malformed varint in binary payload.");
+	}
+
+	/**
+	 * Writes 's' as a varint UTF-8 byte length followed by the UTF-8 bytes.
+	 * A null String is written as a zero length String.
+	 *
+	 */
+	private static void writeString(String s, ByteBuffer buffer)
+	{
+		if (s == null || s.isEmpty()) {
+			buffer.put((byte) 0);
+			return;
+		}
+
+		int len = s.length();
+		int utfLen = 0;
+
+		for (int i = 0; i < len; i++) {
+			char c = s.charAt(i);
+
+			if (c < 0x80) {
+				utfLen += 1;
+			} else if (c < 0x800) {
+				utfLen += 2;
+			} else if (Character.isHighSurrogate(c) && i + 1 < len && Character.isLowSurrogate(s.charAt(i + 1))) {
+				utfLen += 4;
+				i++;
+			} else {
+				utfLen += 3;
+			}
+		}
+
+		writeVarLong(utfLen, buffer);
+
+		for (int i = 0; i < len; i++) {
+			char c = s.charAt(i);
+
+			if (c < 0x80) {
+				buffer.put((byte) c);
+			} else if (c < 0x800) {
+				buffer.put((byte) (0xC0 | (c >> 6)));
+				buffer.put((byte) (0x80 | (c & 0x3F)));
+			} else if (Character.isHighSurrogate(c) && i + 1 < len && Character.isLowSurrogate(s.charAt(i + 1))) {
+				int cp = Character.toCodePoint(c, s.charAt(++i));
+				buffer.put((byte) (0xF0 | (cp >> 18)));
+				buffer.put((byte) (0x80 | ((cp >> 12) & 0x3F)));
+				buffer.put((byte) (0x80 | ((cp >> 6) & 0x3F)));
+				buffer.put((byte) (0x80 | (cp & 0x3F)));
+			} else {
+				// unpaired surrogates are written as-is (CESU-8 style)
+				buffer.put((byte) (0xE0 | (c >> 12)));
+				buffer.put((byte) (0x80 | ((c >> 6) & 0x3F)));
+				buffer.put((byte) (0x80 | (c & 0x3F)));
+			}
+		}
+	}
+
+	private static String readString(ByteBuffer buffer)
+	{
+		int utfLen = (int) readVarLong(buffer);
+
+		if (utfLen == 0) {
+			return "";
+		}
+
+		if (utfLen < 0 || utfLen > buffer.remaining()) {
+			throw new BufferUnderflowException();
+		}
+
+		String s = null;
+
+		if (buffer.hasArray()) {
+			s = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), utfLen, StandardCharsets.UTF_8);
+			buffer.position(buffer.position() + utfLen);
+		} else {
+			byte[] bytes = new byte[utfLen];
+			buffer.get(bytes);
+			s = new String(bytes, StandardCharsets.UTF_8);
+		}
+
+		return s;
+	}
+
+}
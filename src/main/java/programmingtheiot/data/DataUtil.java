@@ -8,22 +8,49 @@
 
 package programmingtheiot.data;
 
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.FileSystems;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Set;
+import java.util.logging.Logger;
 
 import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParseException;
+
+import programmingtheiot.common.ConfigConst;
+import programmingtheiot.common.ConfigUtil;
+import programmingtheiot.common.IConfigChangeListener;
+import programmingtheiot.common.PayloadFormatEnum;
+import programmingtheiot.common.ResourceNameEnum;
 
 /**
  * This class, DataUtil, serves as a utility for converting data objects to and from JSON format. 
  * The class includes methods for converting ActuatorData, SensorData, SystemPerformanceData, 
  * and SystemStateData instances using the Google Gson library.
+ * <p>
+ * A single {@link Gson} instance is created on construction and shared by all callers, as
+ * Gson is thread-safe and caches the type adapters it has already resolved. Each data type
+ * is bound to a hand-written streaming adapter, which avoids reflective field access on the
+ * hot path while producing the same JSON as Gson's default reflective adapter.
+ * <p>
+ * A compact binary encoding is also supported (see {@link PayloadFormatEnum#BINARY}).
+ * The encoding used for a given resource is set via the comma-delimited list of resource
+ * types (e.g. 'SensorMsg, SystemPerfMsg') in the {@link ConfigConst#BINARY_PAYLOAD_RESOURCES_KEY}
+ * property of the {@link ConfigConst#GATEWAY_DEVICE} section; all others use JSON. The
+ * list is re-read whenever that section changes on a config re-load.
  */
-public class DataUtil
+public class DataUtil implements IConfigChangeListener
 {
 	// static
 	
+	private static final Logger _Logger =
+		Logger.getLogger(DataUtil.class.getName());
+	
 	private static final DataUtil _Instance = new DataUtil();
 
 	/**
@@ -39,6 +66,11 @@ public class DataUtil
 	
 	// private var's
 	
+	private Gson gson = null;
+	private BinaryDataCodec binaryCodec = null;
+	// replaced as a whole on config change, and read without locking
+	private volatile Set<ResourceNameEnum> binaryResources = EnumSet.noneOf(ResourceNameEnum.class);
+	
 	
 	// constructors
 	
@@ -49,10 +81,44 @@ public class DataUtil
 	private DataUtil()
 	{
 		super();
+		
+		SensorDataTypeAdapter sensorDataAdapter = new SensorDataTypeAdapter();
+		SystemPerformanceDataTypeAdapter sysPerfDataAdapter = new SystemPerformanceDataTypeAdapter();
+		
+		this.gson =
+			new GsonBuilder()
+				.registerTypeAdapter(ActuatorData.class, new ActuatorDataTypeAdapter())
+				.registerTypeAdapter(SensorData.class, sensorDataAdapter)
+				.registerTypeAdapter(SystemPerformanceData.class, sysPerfDataAdapter)
+				.registerTypeAdapter(
+					SystemStateData.class,
+					new SystemStateDataTypeAdapter(sensorDataAdapter, sysPerfDataAdapter))
+				.create();
+		
+		this.binaryCodec = new BinaryDataCodec();
+		this.binaryResources = loadBinaryResources();
+		
+		ConfigUtil.getInstance().addConfigChangeListener(this);
 	}
 	
 	
 	// public methods
+	
+	/**
+	 * Re-loads the resources using the binary payload format if the
+	 * {@link ConfigConst#GATEWAY_DEVICE} section changed.
+	 * 
+	 * @param changedSections The changed config section names.
+	 */
+	@Override
+	public void handleConfigChange(Set<String> changedSections)
+	{
+		if (changedSections.contains(ConfigConst.GATEWAY_DEVICE)) {
+			this.binaryResources = loadBinaryResources();
+			
+			_Logger.info("Binary payload resources: " + this.binaryResources);
+		}
+	}
 		
 	/**
 	 * Converts ActuatorData to JSON format.
@@ -65,8 +131,7 @@ public class DataUtil
 		String jsonData = null;
 		
 		if (actuatorData != null) {
-			Gson gson = new Gson();
-			jsonData = gson.toJson(actuatorData);
+			jsonData = this.gson.toJson(actuatorData, ActuatorData.class);
 		}
 		
 		return jsonData;
@@ -83,8 +148,7 @@ public class DataUtil
 		ActuatorData data = null;
 		
 		if (jsonData != null && jsonData.trim().length() > 0) {
-			Gson gson = new Gson();
-			data = gson.fromJson(jsonData, ActuatorData.class);
+			data = this.gson.fromJson(jsonData, ActuatorData.class);
 		}
 		
 		return data;
@@ -101,8 +165,7 @@ public class DataUtil
 		String jsonData = null;
 		
 		if (sensorData != null) {
-			Gson gson = new Gson();
-			jsonData = gson.toJson(sensorData);
+			jsonData = this.gson.toJson(sensorData, SensorData.class);
 		}
 		
 		return jsonData;
@@ -119,8 +182,7 @@ public class DataUtil
 		SensorData data = null;
 		
 		if (jsonData != null && jsonData.trim().length() > 0) {
-			Gson gson = new Gson();
-			data = gson.fromJson(jsonData, SensorData.class);
+			data = this.gson.fromJson(jsonData, SensorData.class);
 		}
 		
 		return data;
@@ -137,8 +199,7 @@ public class DataUtil
 		String jsonData = null;
 		
 		if (sysPerfData != null) {
-			Gson gson = new Gson();
-			jsonData = gson.toJson(sysPerfData);
+			jsonData = this.gson.toJson(sysPerfData, SystemPerformanceData.class);
 		}
 		
 		return jsonData;
@@ -155,8 +216,7 @@ public class DataUtil
 		SystemPerformanceData data = null;
 		
 		if (jsonData != null && jsonData.trim().length() > 0) {
-			Gson gson = new Gson();
-			data = gson.fromJson(jsonData, SystemPerformanceData.class);
+			data = this.gson.fromJson(jsonData, SystemPerformanceData.class);
 		}
 		
 		return data;
@@ -173,8 +233,7 @@ public class DataUtil
 		String jsonData = null;
 		
 		if (sysStateData != null) {
-			Gson gson = new Gson();
-			jsonData = gson.toJson(sysStateData);
+			jsonData = this.gson.toJson(sysStateData, SystemStateData.class);
 		}
 		
 		return jsonData;
@@ -191,10 +250,198 @@ public class DataUtil
 		SystemStateData data = null;
 		
 		if (jsonData != null && jsonData.trim().length() > 0) {
-			Gson gson = new Gson();
-			data = gson.fromJson(jsonData, SystemStateData.class);
+			data = this.gson.fromJson(jsonData, SystemStateData.class);
 		}
 		
 		return data;
-	}		
+	}
+	
+	/**
+	 * Returns the payload encoding configured for the given resource.
+	 * 
+	 * @param resource The resource (topic) the payload is sent to or received from.
+	 * @return PayloadFormatEnum The payload format. Defaults to JSON.
+	 */
+	public PayloadFormatEnum getPayloadFormat(ResourceNameEnum resource)
+	{
+		if (resource != null && this.binaryResources.contains(resource)) {
+			return PayloadFormatEnum.BINARY;
+		}
+		
+		return PayloadFormatEnum.JSON;
+	}
+	
+	/**
+	 * Encodes the given data instance using the payload format configured
+	 * for 'resource' (see {@link #getPayloadFormat(ResourceNameEnum)}).
+	 * JSON payloads are returned as UTF-8 bytes.
+	 * 
+	 * @param resource The resource (topic) the payload is destined for.
+	 * @param data The data instance to encode.
+	 * @return byte[] The encoded payload, or null if 'data' is null.
+	 */
+	public byte[] dataToPayload(ResourceNameEnum resource, BaseIotData data)
+	{
+		return dataToPayload(getPayloadFormat(resource), data);
+	}
+	
+	/**
+	 * Encodes the given data instance using the given payload format.
+	 * JSON payloads are returned as UTF-8 bytes.
+	 * 
+	 * @param format The payload format to use.
+	 * @param data The data instance to encode.
+	 * @return byte[] The encoded payload, or null if 'data' is null.
+	 */
+	public byte[] dataToPayload(PayloadFormatEnum format, BaseIotData data)
+	{
+		if (data == null) {
+			return null;
+		}
+		
+		if (format == PayloadFormatEnum.BINARY) {
+			return this.binaryCodec.encode(data);
+		}
+		
+		return dataToJson(data).getBytes(StandardCharsets.UTF_8);
+	}
+	
+	/**
+	 * Encodes the given data instance as JSON, using the adapter
+	 * registered for its runtime type.
+	 * 
+	 * @param data The data instance to encode.
+	 * @return String The JSON, or null if 'data' is null.
+	 */
+	public String dataToJson(BaseIotData data)
+	{
+		return (data != null ? this.gson.toJson(data, data.getClass()) : null);
+	}
+	
+	/**
+	 * Decodes the given payload using the given payload format, which would
+	 * usually be negotiated through the CoAP Content-Format option or the
+	 * MQTT v5 content type property (see {@link PayloadFormatEnum}).
+	 * 
+	 * @param format The payload format of 'payload'.
+	 * @param payload The encoded payload.
+	 * @param type The expected data type.
+	 * @return T The decoded instance, or null if 'payload' is empty, malformed
+	 * (e.g. truncated, or not valid JSON) or of a different type.
+	 */
+	public <T extends BaseIotData> T payloadToData(PayloadFormatEnum format, byte[] payload, Class<T> type)
+	{
+		if (payload == null || payload.length == 0) {
+			return null;
+		}
+		
+		try {
+			if (format == PayloadFormatEnum.BINARY) {
+				BaseIotData data = this.binaryCodec.decode(ByteBuffer.wrap(payload));
+				
+				return (type.isInstance(data) ? type.cast(data) : null);
+			}
+			
+			return this.gson.fromJson(new String(payload, StandardCharsets.UTF_8), type);
+		} catch (JsonParseException | IllegalArgumentException e) {
+			// e.g. a truncated binary payload, or malformed JSON
+			_Logger.warning("Failed to decode " + format + " payload to " + type.getSimpleName() + ": " + e.getMessage());
+			
+			return null;
+		}
+	}
+	
+	/**
+	 * Decodes the given payload to the given type, which may be a
+	 * {@link BaseIotData} subclass (see
+	 * {@link #payloadToData(PayloadFormatEnum, byte[], Class)}), String
+	 * (UTF-8), or byte[] (passed through as-is).
+	 * 
+	 * @param format The payload format of 'payload'.
+	 * @param payload The encoded payload.
+	 * @param type The expected type.
+	 * @return Object The decoded instance, or null if 'payload' is empty,
+	 * malformed, or can't be decoded to 'type'.
+	 */
+	public Object payloadToObject(PayloadFormatEnum format, byte[] payload, Class<?> type)
+	{
+		if (payload == null || type == null) {
+			return null;
+		}
+		
+		if (type == byte[].class) {
+			return payload;
+		}
+		
+		if (type == String.class) {
+			return new String(payload, StandardCharsets.UTF_8);
+		}
+		
+		if (BaseIotData.class.isAssignableFrom(type)) {
+			return payloadToData(format, payload, type.asSubclass(BaseIotData.class));
+		}
+		
+		return null;
+	}
+	
+	/**
+	 * Converts SensorData to the compact binary format.
+	 *
+	 * @param sensorData The SensorData instance to convert.
+	 * @return byte[] The binary representation of the SensorData.
+	 */
+	public byte[] sensorDataToBinary(SensorData sensorData)
+	{
+		return this.binaryCodec.encode(sensorData);
+	}
+	
+	/**
+	 * Converts binary data to SensorData.
+	 *
+	 * @param binaryData The binary representation of SensorData.
+	 * @return SensorData The SensorData instance.
+	 */
+	public SensorData binaryToSensorData(byte[] binaryData)
+	{
+		return payloadToData(PayloadFormatEnum.BINARY, binaryData, SensorData.class);
+	}
+	
+	
+	// private methods
+
+	/**
+	 * Loads the set of resources configured to use the binary payload format.
+	 * 
+	 * @return Set The resources; never modified once returned.
+	 */
+	private Set<ResourceNameEnum> loadBinaryResources()
+	{
+		EnumSet<ResourceNameEnum> resources = EnumSet.noneOf(ResourceNameEnum.class);
+		
+		String resourceTypes =
+			ConfigUtil.getInstance().getProperty(
+				ConfigConst.GATEWAY_DEVICE, ConfigConst.BINARY_PAYLOAD_RESOURCES_KEY, "");
+		
+		for (String resourceType : resourceTypes.split(",")) {
+			resourceType = resourceType.trim();
+			
+			if (resourceType.length() > 0) {
+				boolean isFound = false;
+				
+				for (ResourceNameEnum resource : ResourceNameEnum.values()) {
+					if (resource.getResourceType().equals(resourceType) || resource.getResourceName().equals(resourceType)) {
+						resources.add(resource);
+						isFound = true;
+					}
+				}
+				
+				if (! isFound) {
+					_Logger.warning("Unknown resource for binary payload format. Ignoring: " + resourceType);
+				}
+			}
+		}
+		
+		return resources;
+	}
+	
 }
@@ -0,0 +1,49 @@
+/**
+ * This class is part of the Programming the Internet of Things project.
+ *
+ * It is provided as a simple shell to guide the student and assist with
+ * implementation for the Programming the Internet of Things exercises,
+ * and designed to be modified by the student as needed.
+ */
+
+package programmingtheiot.data;
+
+import java.io.IOException;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+import programmingtheiot.common.ConfigConst;
+
+/**
+ * Streaming Gson adapter for {@link SensorData}.
+ *
+ */
+class SensorDataTypeAdapter extends BaseIotDataTypeAdapter<SensorData>
+{
+	// protected methods
+
+	@Override
+	protected SensorData createData()
+	{
+		return new SensorData();
+	}
+
+	@Override
+	protected void writeDataFields(JsonWriter out, SensorData data) throws IOException
+	{
+		out.name(ConfigConst.VALUE_PROP).value(data.getValue());
+	}
+
+	@Override
+	protected boolean readDataField(String propName, JsonReader in, SensorData data) throws IOException
+	{
+		if (ConfigConst.VALUE_PROP.equals(propName)) {
+			data.setValue((float) in.nextDouble());
+			return true;
+		}
+
+		return false;
+	}
+
+}
@@ -9,12 +9,17 @@
 package programmingtheiot.data;
 
 import java.io.Serializable;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 import programmingtheiot.common.ConfigConst;
 
 /**
  * This class represents system performance data and extends the BaseIotData class.
- * It includes attributes for CPU utilization, disk utilization, and memory utilization.
+ * It includes attributes for CPU utilization, disk utilization, and memory utilization,
+ * plus any number of additional named metrics (e.g. GC pause time or thread count - see
+ * the ConfigConst '*_PROP' metric names), kept in the order they were first set.
  * It implements the Serializable interface to allow for object serialization.
  */
 public class SystemPerformanceData extends BaseIotData implements Serializable
@@ -27,6 +32,8 @@ public class SystemPerformanceData extends BaseIotData implements Serializable
 	private float diskUtil = ConfigConst.DEFAULT_VAL;
 	private float memUtil  = ConfigConst.DEFAULT_VAL;
 	
+	private Map<String, Float> metrics = new LinkedHashMap<>();
+	
     
 	// constructors
 	/**
@@ -69,6 +76,45 @@ public class SystemPerformanceData extends BaseIotData implements Serializable
 		return this.memUtil;
 	}
 	
+	/**
+	 * Getter method to retrieve an additional metric.
+	 * @param name The metric name.
+	 * @return float The metric value, or ConfigConst.DEFAULT_VAL if not set.
+	 */
+	public float getMetric(String name)
+	{
+		Float val = this.metrics.get(name);
+		
+		return (val != null ? val : ConfigConst.DEFAULT_VAL);
+	}
+	
+	/**
+	 * Getter method to retrieve all additional metrics.
+	 * @return Map An unmodifiable view of the metrics, by name.
+	 */
+	public Map<String, Float> getMetrics()
+	{
+		return Collections.unmodifiableMap(this.metrics);
+	}
+	
+	/**
+	 * Checks whether an additional metric is set.
+	 * @param name The metric name.
+	 * @return boolean True if set; false otherwise.
+	 */
+	public boolean hasMetric(String name)
+	{
+		return this.metrics.containsKey(name);
+	}
+	
+	/**
+	 * Removes all additional metrics.
+	 */
+	public void clearMetrics()
+	{
+		this.metrics.clear();
+	}
+	
 	/**
 	 * Setter method to set the CPU utilization value.
 	 * @param val The value to set for CPU utilization.
@@ -87,6 +133,18 @@ public class SystemPerformanceData extends BaseIotData implements Serializable
 		this.diskUtil = val;
 	}
 
+	/**
+	 * Setter method to set an additional metric value.
+	 * @param name The metric name; ignored if null or empty.
+	 * @param val The value to set for the metric.
+	 */
+	public void setMetric(String name, float val)
+	{
+		if (name != null && ! name.isEmpty()) {
+			this.metrics.put(name, val);
+		}
+	}
+	
 	/**
 	 * Setter method to set the memory utilization value.
 	 * @param val The value to set for memory utilization.
@@ -111,6 +169,10 @@ public class SystemPerformanceData extends BaseIotData implements Serializable
 		sb.append(ConfigConst.DISK_UTIL_PROP).append('=').append(this.getDiskUtilization()).append(',');
 		sb.append(ConfigConst.MEM_UTIL_PROP).append('=').append(this.getMemoryUtilization());
 		
+		for (Map.Entry<String, Float> metric : this.metrics.entrySet()) {
+			sb.append(',').append(metric.getKey()).append('=').append(metric.getValue());
+		}
+		
 		return sb.toString();
 	}
 	
@@ -133,6 +195,9 @@ public class SystemPerformanceData extends BaseIotData implements Serializable
 			this.setCpuUtilization(sData.getCpuUtilization());
 			this.setDiskUtilization(sData.getDiskUtilization());
 			this.setMemoryUtilization(sData.getMemoryUtilization());
+			
+			this.metrics.clear();
+			this.metrics.putAll(sData.metrics);
 		}
 	}
 	
@@ -0,0 +1,83 @@
+/**
+ * This class is part of the Programming the Internet of Things project.
+ *
+ * It is provided as a simple shell to guide the student and assist with
+ * implementation for the Programming the Internet of Things exercises,
+ * and designed to be modified by the student as needed.
+ */
+
+package programmingtheiot.data;
+
+import java.io.IOException;
+import java.util.Map;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+import programmingtheiot.common.ConfigConst;
+
+/**
+ * Streaming Gson adapter for {@link SystemPerformanceData}. The additional
+ * metrics are written as a nested 'metrics' object, as reflective Gson does.
+ *
+ */
+class SystemPerformanceDataTypeAdapter extends BaseIotDataTypeAdapter<SystemPerformanceData>
+{
+	// protected methods
+
+	@Override
+	protected SystemPerformanceData createData()
+	{
+		return new SystemPerformanceData();
+	}
+
+	@Override
+	protected void writeDataFields(JsonWriter out, SystemPerformanceData data) throws IOException
+	{
+		out.name(ConfigConst.CPU_UTIL_PROP).value(data.getCpuUtilization());
+		out.name(ConfigConst.DISK_UTIL_PROP).value(data.getDiskUtilization());
+		out.name(ConfigConst.MEM_UTIL_PROP).value(data.getMemoryUtilization());
+
+		out.name(ConfigConst.METRICS_PROP).beginObject();
+
+		for (Map.Entry<String, Float> metric : data.getMetrics().entrySet()) {
+			out.name(metric.getKey()).value(metric.getValue().floatValue());
+		}
+
+		out.endObject();
+	}
+
+	@Override
+	protected boolean readDataField(String propName, JsonReader in, SystemPerformanceData data) throws IOException
+	{
+		switch (propName) {
+			case ConfigConst.CPU_UTIL_PROP:
+				data.setCpuUtilization((float) in.nextDouble());
+				return true;
+
+			case ConfigConst.DISK_UTIL_PROP:
+				data.setDiskUtilization((float) in.nextDouble());
+				return true;
+
+			case ConfigConst.MEM_UTIL_PROP:
+				data.setMemoryUtilization((float) in.nextDouble());
+				return true;
+
+			case ConfigConst.METRICS_PROP:
+				data.clearMetrics();
+
+				in.beginObject();
+
+				while (in.hasNext()) {
+					data.setMetric(in.nextName(), (float) in.nextDouble());
+				}
+
+				in.endObject();
+				return true;
+
+			default:
+				return false;
+		}
+	}
+
+}
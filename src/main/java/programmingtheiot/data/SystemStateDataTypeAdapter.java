@@ -0,0 +1,120 @@
+/**
+ * This class is part of the Programming the Internet of Things project.
+ *
+ * It is provided as a simple shell to guide the student and assist with
+ * implementation for the Programming the Internet of Things exercises,
+ * and designed to be modified by the student as needed.
+ */
+
+package programmingtheiot.data;
+
+import java.io.IOException;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+import programmingtheiot.common.ConfigConst;
+
+/**
+ * Streaming Gson adapter for {@link SystemStateData}. The contained
+ * sensor and system performance lists are handled by the given
+ * element adapters.
+ *
+ */
+class SystemStateDataTypeAdapter extends BaseIotDataTypeAdapter<SystemStateData>
+{
+	// static
+
+	// matches the SystemStateData field name written by Gson's reflective adapter
+	static final String SYS_PERF_DATA_LIST_PROP = "sysPerfDataList";
+
+
+	// private var's
+
+	private SensorDataTypeAdapter sensorDataAdapter = null;
+	private SystemPerformanceDataTypeAdapter sysPerfDataAdapter = null;
+
+
+	// constructors
+
+	/**
+	 * Constructor.
+	 *
+	 * @param sensorDataAdapter The adapter for the sensor data list entries.
+	 * @param sysPerfDataAdapter The adapter for the system performance data list entries.
+	 */
+	SystemStateDataTypeAdapter(
+		SensorDataTypeAdapter sensorDataAdapter, SystemPerformanceDataTypeAdapter sysPerfDataAdapter)
+	{
+		super();
+
+		this.sensorDataAdapter  = sensorDataAdapter;
+		this.sysPerfDataAdapter = sysPerfDataAdapter;
+	}
+
+
+	// protected methods
+
+	@Override
+	protected SystemStateData createData()
+	{
+		return new SystemStateData();
+	}
+
+	@Override
+	protected void writeDataFields(JsonWriter out, SystemStateData data) throws IOException
+	{
+		out.name(ConfigConst.COMMAND_PROP).value(data.getCommand());
+
+		out.name(SYS_PERF_DATA_LIST_PROP).beginArray();
+
+		for (SystemPerformanceData sysPerfData : data.getSystemPerformanceDataList()) {
+			this.sysPerfDataAdapter.write(out, sysPerfData);
+		}
+
+		out.endArray();
+
+		out.name(ConfigConst.SENSOR_DATA_LIST_PROP).beginArray();
+
+		for (SensorData sensorData : data.getSensorDataList()) {
+			this.sensorDataAdapter.write(out, sensorData);
+		}
+
+		out.endArray();
+	}
+
+	@Override
+	protected boolean readDataField(String propName, JsonReader in, SystemStateData data) throws IOException
+	{
+		switch (propName) {
+			case ConfigConst.COMMAND_PROP:
+				data.setCommand(in.nextInt());
+				return true;
+
+			case SYS_PERF_DATA_LIST_PROP:
+			case ConfigConst.SYSTEM_PERF_DATA_LIST_PROP:
+				in.beginArray();
+
+				while (in.hasNext()) {
+					data.addSystemPerformanceData(this.sysPerfDataAdapter.read(in));
+				}
+
+				in.endArray();
+				return true;
+
+			case ConfigConst.SENSOR_DATA_LIST_PROP:
+				in.beginArray();
+
+				while (in.hasNext()) {
+					data.addSensorData(this.sensorDataAdapter.read(in));
+				}
+
+				in.endArray();
+				return true;
+
+			default:
+				return false;
+		}
+	}
+
+}
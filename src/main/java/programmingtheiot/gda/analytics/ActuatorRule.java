@@ -0,0 +1,247 @@
+/**
+ * This class is part of the Programming the Internet of Things project.
+ *
+ * It is provided as a simple shell to guide the student and assist with
+ * implementation for the Programming the Internet of Things exercises,
+ * and designed to be modified by the student as needed.
+ */
+
+package programmingtheiot.gda.analytics;
+
+import programmingtheiot.common.ConfigConst;
+
+/**
+ * A rule of the {@link RulesEngine}: when the values of a sensor or
+ * system performance metric (by name, and optionally location ID) meet its
+ * condition, the actuator is sent the 'on' command; once they no longer
+ * do, past the hysteresis, the 'off' command.
+ * <p>
+ * Instances are immutable; the 'with' methods return a modified copy.
+ */
+public class ActuatorRule
+{
+	// private var's
+
+	private final String ruleName;
+	private final String resourceName;
+	private final String locationID;
+	private final RuleConditionEnum condition;
+	private final float  threshold;
+	private final float  hysteresis;
+	private final String actuatorName;
+	private final int    actuatorTypeID;
+	private final int    onCommand;
+	private final int    offCommand;
+	private final float  actuatorValue;
+
+
+	// constructors
+
+	/**
+	 * Constructor, for a rule matching the named values at any location,
+	 * sending {@link ConfigConst#ON_COMMAND} and {@link ConfigConst#OFF_COMMAND}.
+	 *
+	 * @param ruleName The rule name.
+	 * @param resourceName The name of the sensor or metric checked (e.g. 'TempSensor' or 'cpuUtil').
+	 * @param condition The condition.
+	 * @param threshold The threshold (per second, for a rate condition).
+	 * @param hysteresis How far past the threshold the value must be back to clear; 0 for none.
+	 * @param actuatorName The name of the actuator commanded.
+	 * @param actuatorTypeID The type ID of the actuator commanded.
+	 */
+	public ActuatorRule(
+		String ruleName, String resourceName, RuleConditionEnum condition, float threshold, float hysteresis,
+		String actuatorName, int actuatorTypeID)
+	{
+		this(
+			ruleName, resourceName, null, condition, threshold, hysteresis, actuatorName, actuatorTypeID,
+			ConfigConst.ON_COMMAND, ConfigConst.OFF_COMMAND, ConfigConst.DEFAULT_VAL);
+	}
+
+	private ActuatorRule(
+		String ruleName, String resourceName, String locationID, RuleConditionEnum condition,
+		float threshold, float hysteresis, String actuatorName, int actuatorTypeID,
+		int onCommand, int offCommand, float actuatorValue)
+	{
+		if (resourceName == null || condition == null || actuatorName == null) {
+			throw new IllegalArgumentException("Resource name, condition and actuator name must be set.");
+		}
+
+		if (Float.isNaN(threshold) || Float.isNaN(hysteresis) || hysteresis < 0.0f) {
+			throw new IllegalArgumentException("Threshold must be set and hysteresis must not be negative.");
+		}
+
+		this.ruleName       = (ruleName != null ? ruleName : resourceName);
+		this.resourceName   = resourceName;
+		this.locationID     = locationID;
+		this.condition      = condition;
+		this.threshold      = threshold;
+		this.hysteresis     = hysteresis;
+		this.actuatorName   = actuatorName;
+		this.actuatorTypeID = actuatorTypeID;
+		this.onCommand      = onCommand;
+		this.offCommand     = offCommand;
+		this.actuatorValue  = actuatorValue;
+	}
+
+
+	// public methods
+
+	public int getActuatorTypeID()
+	{
+		return this.actuatorTypeID;
+	}
+
+	public String getActuatorName()
+	{
+		return this.actuatorName;
+	}
+
+	public float getActuatorValue()
+	{
+		return this.actuatorValue;
+	}
+
+	public RuleConditionEnum getCondition()
+	{
+		return this.condition;
+	}
+
+	public float getHysteresis()
+	{
+		return this.hysteresis;
+	}
+
+	/**
+	 * Returns the location ID matched.
+	 *
+	 * @return String The location ID, or null if any.
+	 */
+	public String getLocationID()
+	{
+		return this.locationID;
+	}
+
+	public int getOffCommand()
+	{
+		return this.offCommand;
+	}
+
+	public int getOnCommand()
+	{
+		return this.onCommand;
+	}
+
+	public String getResourceName()
+	{
+		return this.resourceName;
+	}
+
+	public String getRuleName()
+	{
+		return this.ruleName;
+	}
+
+	public float getThreshold()
+	{
+		return this.threshold;
+	}
+
+	/**
+	 * Returns true if the given value (or rate of change) meets the condition.
+	 *
+	 * @param value The value, or rate of change per second.
+	 * @return boolean
+	 */
+	public boolean isActivatedBy(float value)
+	{
+		switch (this.condition) {
+			case ABOVE:
+			case RATE_ABOVE:
+				return (value >= this.threshold);
+
+			default:
+				return (value <= this.threshold);
+		}
+	}
+
+	/**
+	 * Returns true if the given value (or rate of change) is back past the
+	 * threshold by more than the hysteresis.
+	 *
+	 * @param value The value, or rate of change per second.
+	 * @return boolean
+	 */
+	public boolean isClearedBy(float value)
+	{
+		switch (this.condition) {
+			case ABOVE:
+			case RATE_ABOVE:
+				return (value < this.threshold - this.hysteresis);
+
+			default:
+				return (value > this.threshold + this.hysteresis);
+		}
+	}
+
+	/**
+	 * Returns true if the rule applies to values from the given location.
+	 *
+	 * @param locationID The location ID of the value.
+	 * @return boolean
+	 */
+	public boolean matchesLocation(String locationID)
+	{
+		return (this.locationID == null || this.locationID.equals(locationID));
+	}
+
+	/**
+	 * Returns a copy of this rule sending the given commands.
+	 *
+	 * @param onCommand The command sent when the condition is met.
+	 * @param offCommand The command sent when the condition clears.
+	 * @return ActuatorRule
+	 */
+	public ActuatorRule withCommands(int onCommand, int offCommand)
+	{
+		return new ActuatorRule(
+			this.ruleName, this.resourceName, this.locationID, this.condition, this.threshold, this.hysteresis,
+			this.actuatorName, this.actuatorTypeID, onCommand, offCommand, this.actuatorValue);
+	}
+
+	/**
+	 * Returns a copy of this rule sending the given value with its commands
+	 * (e.g. a target temperature).
+	 *
+	 * @param actuatorValue The value.
+	 * @return ActuatorRule
+	 */
+	public ActuatorRule withActuatorValue(float actuatorValue)
+	{
+		return new ActuatorRule(
+			this.ruleName, this.resourceName, this.locationID, this.condition, this.threshold, this.hysteresis,
+			this.actuatorName, this.actuatorTypeID, this.onCommand, this.offCommand, actuatorValue);
+	}
+
+	/**
+	 * Returns a copy of this rule matching only values from the given location.
+	 *
+	 * @param locationID The location ID, or null for any.
+	 * @return ActuatorRule
+	 */
+	public ActuatorRule withLocationID(String locationID)
+	{
+		return new ActuatorRule(
+			this.ruleName, this.resourceName, locationID, this.condition, this.threshold, this.hysteresis,
+			this.actuatorName, this.actuatorTypeID, this.onCommand, this.offCommand, this.actuatorValue);
+	}
+
+	@Override
+	public String toString()
+	{
+		return "ActuatorRule[" + this.ruleName + ": " + this.resourceName +
+			(this.locationID != null ? "@" + this.locationID : "") + " " + this.condition + " " + this.threshold +
+			" (hysteresis " + this.hysteresis + ") -> " + this.actuatorName + "]";
+	}
+
+}
@@ -0,0 +1,431 @@
+/**
+ * This class is part of the Programming the Internet of Things project.
+ *
+ * It is provided as a simple shell to guide the student and assist with
+ * implementation for the Programming the Internet of Things exercises,
+ * and designed to be modified by the student as needed.
+ */
+
+package programmingtheiot.gda.analytics;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+import programmingtheiot.common.ConfigConst;
+import programmingtheiot.common.ConfigUtil;
+import programmingtheiot.data.SensorData;
+
+/**
+ * Filters sensor readings by change of value: a reading of a sensor (by
+ * name and location ID) is passed only if its value changed enough since
+ * the last reading passed, so long runs of (nearly) the same value aren't
+ * all transmitted.
+ * <p>
+ * A reading is passed if:
+ * <ul>
+ * <li>it's the sensor's first, or has its error flag set;</li>
+ * <li>its value differs from the last passed by at least the absolute
+ * deadband, or by at least the percent deadband of the last passed value;
+ * if neither deadband is set (0), by any amount;</li>
+ * <li>the max silence has passed since the last reading passed (a
+ * heartbeat, so a steady sensor is still known to be alive).</li>
+ * </ul>
+ * Changes are compared with the last value passed, not the last read, so
+ * a slow drift is passed once it adds up to the deadband.
+ * <p>
+ * The deadbands and max silence are per sensor name: the configured
+ * '&lt;name&gt;DeadbandAbsolute' (etc.) keys, falling back to the
+ * 'sensorDeadbandAbsolute' (etc.) keys, are looked up once per sensor.
+ * <p>
+ * The last reading passed is kept for up to the maximum number of sensors;
+ * readings of other sensors are all passed. Once that many are kept, the
+ * sensors whose max silence has passed (whose next reading is passed
+ * anyway) are dropped, at most once per second of reading time.
+ * <p>
+ * This class is thread-safe; checking a reading of a known sensor doesn't
+ * allocate.
+ */
+public class DeadbandFilter
+{
+	// static
+
+	private static final Logger _Logger =
+		Logger.getLogger(DeadbandFilter.class.getName());
+
+	private static final long SWEEP_INTERVAL_MILLIS = 1000L;
+
+
+	// private var's
+
+	private final Deadband defaultDeadband;
+	private final int maxSensors;
+	private final boolean useConfig;
+
+	// by name
+	private final Map<String, Deadband> deadbands = new ConcurrentHashMap<>();
+
+	// by location ID, then name
+	private final Map<String, Map<String, SensorState>> states = new ConcurrentHashMap<>();
+	private final AtomicInteger sensorCount = new AtomicInteger(0);
+	private final AtomicLong nextSweepMillis = new AtomicLong(Long.MIN_VALUE);
+
+	private final AtomicLong passedCount = new AtomicLong(0L);
+	private final AtomicLong suppressedCount = new AtomicLong(0L);
+
+
+	// constructors
+
+	/**
+	 * Constructor, using the configured deadbands and max silence, per
+	 * sensor name, and the configured maximum number of sensors.
+	 *
+	 */
+	public DeadbandFilter()
+	{
+		this(
+			getConfiguredFloat(ConfigConst.SENSOR_PREFIX, ConfigConst.DEADBAND_ABSOLUTE_KEY, ConfigConst.DEFAULT_DEADBAND_ABSOLUTE),
+			getConfiguredFloat(ConfigConst.SENSOR_PREFIX, ConfigConst.DEADBAND_PERCENT_KEY, ConfigConst.DEFAULT_DEADBAND_PERCENT),
+			ConfigUtil.getInstance().getInteger(
+				ConfigConst.GATEWAY_DEVICE, ConfigConst.SENSOR_PREFIX + ConfigConst.DEADBAND_MAX_SILENCE_KEY,
+				ConfigConst.DEFAULT_DEADBAND_MAX_SILENCE_MILLIS),
+			ConfigUtil.getInstance().getInteger(
+				ConfigConst.GATEWAY_DEVICE, ConfigConst.DEADBAND_MAX_SENSORS_KEY, ConfigConst.DEFAULT_DEADBAND_MAX_SENSORS),
+			true);
+	}
+
+	/**
+	 * Constructor, using the same deadbands and max silence for all sensors,
+	 * unless set per sensor name (see {@link #setThresholds(String, float, float, long)}).
+	 *
+	 * @param absolute The absolute deadband; 0 for none.
+	 * @param percent The percent deadband; 0 for none.
+	 * @param maxSilenceMillis The max silence; 0 for no heartbeat.
+	 */
+	public DeadbandFilter(float absolute, float percent, long maxSilenceMillis)
+	{
+		this(absolute, percent, maxSilenceMillis, ConfigConst.DEFAULT_DEADBAND_MAX_SENSORS);
+	}
+
+	/**
+	 * Constructor, using the same deadbands and max silence for all sensors,
+	 * unless set per sensor name (see {@link #setThresholds(String, float, float, long)}).
+	 *
+	 * @param absolute The absolute deadband; 0 for none.
+	 * @param percent The percent deadband; 0 for none.
+	 * @param maxSilenceMillis The max silence; 0 for no heartbeat.
+	 * @param maxSensors The maximum number of sensors filtered.
+	 */
+	public DeadbandFilter(float absolute, float percent, long maxSilenceMillis, int maxSensors)
+	{
+		this(absolute, percent, maxSilenceMillis, maxSensors, false);
+	}
+
+	private DeadbandFilter(float absolute, float percent, long maxSilenceMillis, int maxSensors, boolean useConfig)
+	{
+		if (maxSensors <= 0) {
+			throw new IllegalArgumentException("Maximum sensors must be positive.");
+		}
+
+		this.defaultDeadband = new Deadband(absolute, percent, maxSilenceMillis);
+		this.maxSensors      = maxSensors;
+		this.useConfig       = useConfig;
+	}
+
+
+	// public methods
+
+	/**
+	 * Checks whether a reading is to be passed on, timed by its timestamp.
+	 *
+	 * @param data The reading.
+	 * @return boolean True if passed; false if suppressed.
+	 */
+	public boolean accept(SensorData data)
+	{
+		return (data != null && accept(data, data.getTimeStampMillis()));
+	}
+
+	/**
+	 * Checks whether a reading is to be passed on, timed as given.
+	 *
+	 * @param data The reading.
+	 * @param timeMillis The time of the reading, in milliseconds since the Epoch.
+	 * @return boolean True if passed; false if suppressed.
+	 */
+	public boolean accept(SensorData data, long timeMillis)
+	{
+		if (data == null) {
+			return false;
+		}
+
+		SensorState state = getState(data, timeMillis);
+		boolean isPassed = true;
+
+		// too many sensors if null
+		if (state != null) {
+			synchronized (state) {
+				isPassed = state.accept(data.getValue(), timeMillis, data.hasError());
+			}
+		}
+
+		if (isPassed) {
+			this.passedCount.incrementAndGet();
+		} else {
+			this.suppressedCount.incrementAndGet();
+		}
+
+		return isPassed;
+	}
+
+	/**
+	 * Returns the number of readings passed on.
+	 *
+	 * @return long
+	 */
+	public long getPassedCount()
+	{
+		return this.passedCount.get();
+	}
+
+	/**
+	 * Returns the number of sensors whose last reading passed is kept.
+	 *
+	 * @return int
+	 */
+	public int getSensorCount()
+	{
+		return this.sensorCount.get();
+	}
+
+	/**
+	 * Returns the number of readings suppressed.
+	 *
+	 * @return long
+	 */
+	public long getSuppressedCount()
+	{
+		return this.suppressedCount.get();
+	}
+
+	/**
+	 * Sets the deadbands and max silence of sensors with the given name,
+	 * for sensors not yet seen.
+	 *
+	 * @param name The sensor name.
+	 * @param absolute The absolute deadband; 0 for none.
+	 * @param percent The percent deadband; 0 for none.
+	 * @param maxSilenceMillis The max silence; 0 for no heartbeat.
+	 */
+	public void setThresholds(String name, float absolute, float percent, long maxSilenceMillis)
+	{
+		this.deadbands.put(name, new Deadband(absolute, percent, maxSilenceMillis));
+	}
+
+
+	// private methods
+
+	private static float getConfiguredFloat(String prefix, String key, float defaultVal)
+	{
+		return ConfigUtil.getInstance().getFloat(ConfigConst.GATEWAY_DEVICE, prefix + key, defaultVal);
+	}
+
+	/**
+	 * Returns the state of the reading's sensor, adding one if there are
+	 * fewer than the maximum number of sensors.
+	 *
+	 * @return SensorState The state, or null if there are too many sensors.
+	 */
+	private SensorState getState(SensorData data, long timeMillis)
+	{
+		String locationID = (data.getLocationID() != null ? data.getLocationID() : ConfigConst.NOT_SET);
+		String name = (data.getName() != null ? data.getName() : ConfigConst.NOT_SET);
+
+		Map<String, SensorState> byName = this.states.get(locationID);
+
+		if (byName == null) {
+			byName = this.states.computeIfAbsent(locationID, key -> new ConcurrentHashMap<>());
+		}
+
+		SensorState state = byName.get(name);
+
+		if (state != null) {
+			return state;
+		}
+
+		if (this.sensorCount.incrementAndGet() > this.maxSensors) {
+			this.sensorCount.decrementAndGet();
+
+			// makes room for the next reading, if other sensors went quiet
+			sweepIfDue(timeMillis);
+
+			_Logger.fine("Too many sensors to filter. Not filtering: " + name + " at " + locationID);
+
+			return null;
+		}
+
+		state = new SensorState(getDeadband(name));
+
+		SensorState existing = byName.putIfAbsent(name, state);
+
+		if (existing != null) {
+			this.sensorCount.decrementAndGet();
+
+			return existing;
+		}
+
+		return state;
+	}
+
+	/**
+	 * Returns the deadbands and max silence of sensors with the given name:
+	 * as set, else as configured, else the defaults.
+	 *
+	 */
+	private Deadband getDeadband(String name)
+	{
+		Deadband deadband = this.deadbands.get(name);
+
+		if (deadband != null) {
+			return deadband;
+		}
+
+		if (! this.useConfig) {
+			return this.defaultDeadband;
+		}
+
+		ConfigUtil configUtil = ConfigUtil.getInstance();
+
+		return new Deadband(
+			getConfiguredFloat(name, ConfigConst.DEADBAND_ABSOLUTE_KEY, this.defaultDeadband.absolute),
+			getConfiguredFloat(name, ConfigConst.DEADBAND_PERCENT_KEY, this.defaultDeadband.percent),
+			configUtil.getInteger(
+				ConfigConst.GATEWAY_DEVICE, name + ConfigConst.DEADBAND_MAX_SILENCE_KEY, (int) this.defaultDeadband.maxSilenceMillis));
+	}
+
+	/**
+	 * Once per sweep interval, drops the sensors whose max silence has
+	 * passed since their last reading passed.
+	 *
+	 */
+	private void sweepIfDue(long timeMillis)
+	{
+		long sweepMillis = this.nextSweepMillis.get();
+
+		if (timeMillis < sweepMillis || ! this.nextSweepMillis.compareAndSet(sweepMillis, timeMillis + SWEEP_INTERVAL_MILLIS)) {
+			return;
+		}
+
+		int count = 0;
+
+		for (Map<String, SensorState> byName : this.states.values()) {
+			Iterator<SensorState> iter = byName.values().iterator();
+
+			while (iter.hasNext()) {
+				SensorState state = iter.next();
+
+				synchronized (state) {
+					if (state.isSilent(timeMillis)) {
+						iter.remove();
+						this.sensorCount.decrementAndGet();
+						count++;
+					}
+				}
+			}
+		}
+
+		_Logger.fine("Dropped silent sensors: " + count + ". Remaining: " + this.sensorCount.get());
+	}
+
+
+	/**
+	 * The deadbands and max silence of a sensor.
+	 *
+	 */
+	private static final class Deadband
+	{
+		private final float absolute;
+		private final float percent;
+		private final long  maxSilenceMillis;
+
+		Deadband(float absolute, float percent, long maxSilenceMillis)
+		{
+			this.absolute         = Math.max(0.0f, absolute);
+			this.percent          = Math.max(0.0f, percent);
+			this.maxSilenceMillis = Math.max(0L, maxSilenceMillis);
+		}
+	}
+
+
+	/**
+	 * The deadbands of a sensor, and its last reading passed on. Guarded
+	 * by its own lock.
+	 *
+	 */
+	private static final class SensorState
+	{
+		private final float absolute;
+		private final float percent;
+		private final long  maxSilenceMillis;
+
+		private boolean hasPassed = false;
+		private float lastValue = Float.NaN;
+		private long  lastTimeMillis = 0L;
+
+		SensorState(Deadband deadband)
+		{
+			this.absolute         = deadband.absolute;
+			this.percent          = deadband.percent;
+			this.maxSilenceMillis = deadband.maxSilenceMillis;
+		}
+
+		boolean accept(float value, long timeMillis, boolean hasError)
+		{
+			boolean isPassed =
+				! this.hasPassed || hasError || isChanged(value) ||
+				(this.maxSilenceMillis > 0L && timeMillis - this.lastTimeMillis >= this.maxSilenceMillis);
+
+			if (isPassed) {
+				this.hasPassed      = true;
+				this.lastValue      = value;
+				this.lastTimeMillis = timeMillis;
+			}
+
+			return isPassed;
+		}
+
+		/**
+		 * Returns true if the max silence has passed since the last
+		 * reading passed, so the next reading is passed anyway.
+		 *
+		 */
+		boolean isSilent(long timeMillis)
+		{
+			return (this.hasPassed && this.maxSilenceMillis > 0L && timeMillis - this.lastTimeMillis >= this.maxSilenceMillis);
+		}
+
+		private boolean isChanged(float value)
+		{
+			// including to or from NaN
+			if (Float.compare(value, this.lastValue) == 0) {
+				return false;
+			}
+
+			float delta = Math.abs(value - this.lastValue);
+
+			if (Float.isNaN(delta) || (this.absolute == 0.0f && this.percent == 0.0f)) {
+				return true;
+			}
+
+			if (this.absolute > 0.0f && delta >= this.absolute) {
+				return true;
+			}
+
+			return (this.percent > 0.0f && delta * 100.0f >= this.percent * Math.abs(this.lastValue));
+		}
+	}
+
+}
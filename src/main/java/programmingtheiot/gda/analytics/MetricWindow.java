@@ -0,0 +1,166 @@
+/**
+ * This class is part of the Programming the Internet of Things project.
+ *
+ * It is provided as a simple shell to guide the student and assist with
+ * implementation for the Programming the Internet of Things exercises,
+ * and designed to be modified by the student as needed.
+ */
+
+package programmingtheiot.gda.analytics;
+
+import java.util.Arrays;
+
+/**
+ * Holds the most recent samples of a metric, with their timestamps, in
+ * primitive ring buffers of fixed capacity, and computes the statistics
+ * of the samples within a time window (see {@link WindowStats}).
+ * <p>
+ * When full, each sample replaces the oldest. Neither adding samples nor
+ * computing statistics allocates.
+ * <p>
+ * This class is not thread-safe.
+ */
+public class MetricWindow
+{
+	// static
+
+	private static final double P95_RANK = 0.95d;
+
+
+	// private var's
+
+	private final long[]  timesMillis;
+	private final float[] values;
+	private final float[] sorted;
+
+	// index of the oldest sample
+	private int head = 0;
+	private int size = 0;
+
+
+	// constructors
+
+	/**
+	 * Constructor.
+	 *
+	 * @param capacity The maximum number of samples held.
+	 */
+	public MetricWindow(int capacity)
+	{
+		if (capacity <= 0) {
+			throw new IllegalArgumentException("Capacity must be positive.");
+		}
+
+		this.timesMillis = new long[capacity];
+		this.values      = new float[capacity];
+		this.sorted      = new float[capacity];
+	}
+
+
+	// public methods
+
+	/**
+	 * Adds a sample. Samples are expected in timestamp order.
+	 *
+	 * @param timeMillis The time of the sample.
+	 * @param value The value.
+	 */
+	public void add(long timeMillis, float value)
+	{
+		int index = (this.head + this.size) % this.values.length;
+
+		this.timesMillis[index] = timeMillis;
+		this.values[index]      = value;
+
+		if (this.size < this.values.length) {
+			this.size++;
+		} else {
+			this.head = (this.head + 1) % this.values.length;
+		}
+	}
+
+	/**
+	 * Computes the statistics of the samples timed within
+	 * [fromMillis, toMillis).
+	 *
+	 * @param fromMillis The start of the window (inclusive).
+	 * @param toMillis The end of the window (exclusive).
+	 * @param stats The statistics to set; all NaN if there are no samples.
+	 * @return int The number of samples.
+	 */
+	public int computeStats(long fromMillis, long toMillis, WindowStats stats)
+	{
+		int count = 0;
+		float min = Float.NaN;
+		float max = Float.NaN;
+		float last = Float.NaN;
+		double sum = 0.0d;
+
+		for (int i = 0; i < this.size; i++) {
+			int index = (this.head + i) % this.values.length;
+			long timeMillis = this.timesMillis[index];
+
+			if (timeMillis < fromMillis || timeMillis >= toMillis) {
+				continue;
+			}
+
+			float value = this.values[index];
+
+			if (count == 0 || value < min) {
+				min = value;
+			}
+
+			if (count == 0 || value > max) {
+				max = value;
+			}
+
+			last = value;
+			sum += value;
+
+			this.sorted[count++] = value;
+		}
+
+		if (count == 0) {
+			stats.reset();
+
+			return 0;
+		}
+
+		Arrays.sort(this.sorted, 0, count);
+
+		int p95Index = (int) Math.ceil(P95_RANK * count) - 1;
+
+		stats.set(count, min, max, (float) (sum / count), this.sorted[p95Index], last);
+
+		return count;
+	}
+
+	/**
+	 * Removes the samples timed before the given time.
+	 *
+	 * @param timeMillis The time.
+	 */
+	public void evictBefore(long timeMillis)
+	{
+		while (this.size > 0 && this.timesMillis[this.head] < timeMillis) {
+			this.head = (this.head + 1) % this.values.length;
+			this.size--;
+		}
+	}
+
+	public int getCapacity()
+	{
+		return this.values.length;
+	}
+
+	/**
+	 * Returns the number of samples held.
+	 *
+	 * @return int
+	 */
+	public int size()
+	{
+		return this.size;
+	}
+
+}
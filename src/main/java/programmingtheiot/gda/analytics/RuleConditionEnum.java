@@ -0,0 +1,77 @@
+/**
+ * This class is part of the Programming the Internet of Things
+ * project, and is available via the MIT License, which can be
+ * found in the LICENSE file at the top level of this repository.
+ *
+ * Copyright (c) 2020 by Andrew D. King
+ */
+
+package programmingtheiot.gda.analytics;
+
+/**
+ * The conditions an {@link ActuatorRule} can check a value against. Each
+ * condition becomes active when its threshold is reached, and clears only
+ * once the value is back past the threshold by more than the hysteresis.
+ *
+ */
+public enum RuleConditionEnum
+{
+	/**
+	 * Active at or above the threshold; clears below the threshold minus
+	 * the hysteresis.
+	 */
+	ABOVE,
+
+	/**
+	 * Active at or below the threshold; clears above the threshold plus
+	 * the hysteresis.
+	 */
+	BELOW,
+
+	/**
+	 * Active while the value rises at least the threshold per second
+	 * (since the previous value); clears below the threshold minus the
+	 * hysteresis.
+	 */
+	RATE_ABOVE,
+
+	/**
+	 * Active while the value's rate of change per second is at or below
+	 * the threshold (e.g. -2.0 for a fall of 2 per second); clears above
+	 * the threshold plus the hysteresis.
+	 */
+	RATE_BELOW;
+
+	/**
+	 * Returns true if this condition checks the value's rate of change,
+	 * rather than the value itself.
+	 *
+	 * @return boolean
+	 */
+	public boolean isRate()
+	{
+		return (this == RATE_ABOVE || this == RATE_BELOW);
+	}
+
+	/**
+	 * Convenience method for looking up an enum type based on its name,
+	 * ignoring case. If the lookup fails, 'defaultCondition' is returned.
+	 *
+	 * @param name The condition name (e.g. from the config file).
+	 * @param defaultCondition The condition to return if 'name' is invalid.
+	 * @return RuleConditionEnum The enum instance.
+	 */
+	public static RuleConditionEnum getEnumFromName(String name, RuleConditionEnum defaultCondition)
+	{
+		if (name != null) {
+			for (RuleConditionEnum condition : values()) {
+				if (condition.name().equalsIgnoreCase(name.trim())) {
+					return condition;
+				}
+			}
+		}
+
+		return defaultCondition;
+	}
+
+}
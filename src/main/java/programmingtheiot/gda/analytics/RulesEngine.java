@@ -0,0 +1,514 @@
+/**
+ * This class is part of the Programming the Internet of Things project.
+ *
+ * It is provided as a simple shell to guide the student and assist with
+ * implementation for the Programming the Internet of Things exercises,
+ * and designed to be modified by the student as needed.
+ */
+
+package programmingtheiot.gda.analytics;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.logging.Logger;
+
+import programmingtheiot.common.ConfigConst;
+import programmingtheiot.common.ConfigUtil;
+import programmingtheiot.data.ActuatorData;
+import programmingtheiot.data.SensorData;
+import programmingtheiot.data.SystemPerformanceData;
+import programmingtheiot.data.SystemStateData;
+
+/**
+ * Evaluates sensor readings and system performance metrics against a set
+ * of {@link ActuatorRule}'s, and passes the resulting actuator commands to
+ * a handler, so actuators are commanded locally, without a round trip to
+ * the cloud.
+ * <p>
+ * The rules are compiled into a table by sensor / metric name, so a value
+ * is only checked against the rules for its name (a single lookup if there
+ * are none). Each rule keeps its state per location ID: whether its
+ * condition is active, and the last value (for rate conditions). Commands
+ * are only sent when the condition becomes active ('on') or clears ('off'),
+ * not for each value, and the hysteresis keeps a value hovering around the
+ * threshold from toggling the actuator.
+ * <p>
+ * Rules are configured as a comma-delimited list of rule names (the
+ * {@link ConfigConst#RULES_KEY} key), each with its own
+ * '[Rule.&lt;name&gt;]' section.
+ * <p>
+ * This class is thread-safe. The handler is called on the thread evaluating
+ * the value, without holding a lock, so it shouldn't block; evaluating a
+ * value that doesn't change a rule's state doesn't allocate.
+ */
+public class RulesEngine
+{
+	// static
+
+	private static final Logger _Logger =
+		Logger.getLogger(RulesEngine.class.getName());
+
+
+	// private var's
+
+	// by sensor / metric name; not modified after construction
+	private final Map<String, ActuatorRule[]> ruleTable;
+	private final int ruleCount;
+	private final Consumer<ActuatorData> commandHandler;
+
+	// by location ID, then sensor / metric name; same order as the rule table
+	private final Map<String, Map<String, RuleState[]>> states = new ConcurrentHashMap<>();
+
+	private final AtomicLong commandCount = new AtomicLong(0L);
+
+
+	// constructors
+
+	/**
+	 * Constructor, using the configured rules.
+	 *
+	 * @param commandHandler The handler for each actuator command.
+	 */
+	public RulesEngine(Consumer<ActuatorData> commandHandler)
+	{
+		this(loadRules(), commandHandler);
+	}
+
+	/**
+	 * Constructor.
+	 *
+	 * @param rules The rules.
+	 * @param commandHandler The handler for each actuator command.
+	 */
+	public RulesEngine(List<ActuatorRule> rules, Consumer<ActuatorData> commandHandler)
+	{
+		Map<String, ActuatorRule[]> table = new HashMap<>();
+
+		for (ActuatorRule rule : rules) {
+			ActuatorRule[] entry = table.get(rule.getResourceName());
+
+			if (entry == null) {
+				entry = new ActuatorRule[] { rule };
+			} else {
+				entry = Arrays.copyOf(entry, entry.length + 1);
+				entry[entry.length - 1] = rule;
+			}
+
+			table.put(rule.getResourceName(), entry);
+		}
+
+		this.ruleTable      = Collections.unmodifiableMap(table);
+		this.ruleCount      = rules.size();
+		this.commandHandler = commandHandler;
+
+		_Logger.info("Rules engine has " + this.ruleCount + " rule(s) for " + table.size() + " resource(s).");
+	}
+
+
+	// public methods
+
+	/**
+	 * Evaluates a sensor reading, timed by its timestamp. Readings with
+	 * their error flag set are ignored.
+	 *
+	 * @param data The reading.
+	 * @return int The number of actuator commands sent.
+	 */
+	public int evaluate(SensorData data)
+	{
+		if (data == null || data.hasError()) {
+			return 0;
+		}
+
+		return evaluate(data.getName(), data.getLocationID(), data.getValue(), data.getTimeStampMillis());
+	}
+
+	/**
+	 * Evaluates the CPU, memory and disk utilization ('cpuUtil', 'memUtil'
+	 * and 'diskUtil') and other metrics of system performance data, timed
+	 * by its timestamp. Data with its error flag set is ignored.
+	 *
+	 * @param data The system performance data.
+	 * @return int The number of actuator commands sent.
+	 */
+	public int evaluate(SystemPerformanceData data)
+	{
+		if (data == null || data.hasError()) {
+			return 0;
+		}
+
+		String locationID = data.getLocationID();
+		long   timeMillis = data.getTimeStampMillis();
+
+		int commands =
+			evaluate(ConfigConst.CPU_UTIL_PROP, locationID, data.getCpuUtilization(), timeMillis) +
+			evaluate(ConfigConst.MEM_UTIL_PROP, locationID, data.getMemoryUtilization(), timeMillis) +
+			evaluate(ConfigConst.DISK_UTIL_PROP, locationID, data.getDiskUtilization(), timeMillis);
+
+		for (Map.Entry<String, Float> metric : data.getMetrics().entrySet()) {
+			if (metric.getValue() != null) {
+				commands += evaluate(metric.getKey(), locationID, metric.getValue(), timeMillis);
+			}
+		}
+
+		return commands;
+	}
+
+	/**
+	 * Evaluates the sensor readings and system performance data contained
+	 * in system state data.
+	 *
+	 * @param data The system state data.
+	 * @return int The number of actuator commands sent.
+	 */
+	public int evaluate(SystemStateData data)
+	{
+		if (data == null) {
+			return 0;
+		}
+
+		int commands = 0;
+
+		for (SensorData sensorData : data.getSensorDataList()) {
+			commands += evaluate(sensorData);
+		}
+
+		for (SystemPerformanceData sysPerfData : data.getSystemPerformanceDataList()) {
+			commands += evaluate(sysPerfData);
+		}
+
+		return commands;
+	}
+
+	/**
+	 * Evaluates a value against the rules for its name, passing any
+	 * resulting actuator commands to the handler before returning. Values
+	 * of a sensor / metric are expected in time order; for rate conditions,
+	 * a value not timed after the previous one is ignored.
+	 *
+	 * @param name The sensor / metric name.
+	 * @param locationID The location ID of the value; commands are sent to the same location.
+	 * @param value The value. NaN is ignored.
+	 * @param timeMillis The time of the value, in milliseconds since the Epoch.
+	 * @return int The number of actuator commands sent.
+	 */
+	public int evaluate(String name, String locationID, float value, long timeMillis)
+	{
+		ActuatorRule[] rules = (name != null ? this.ruleTable.get(name) : null);
+
+		if (rules == null || Float.isNaN(value)) {
+			return 0;
+		}
+
+		RuleState[] ruleStates = getStates(name, locationID, rules.length);
+		int commands = 0;
+
+		for (int i = 0; i < rules.length; i++) {
+			ActuatorRule rule = rules[i];
+
+			if (! rule.matchesLocation(locationID)) {
+				continue;
+			}
+
+			int command;
+
+			synchronized (ruleStates[i]) {
+				command = ruleStates[i].evaluate(rule, value, timeMillis);
+			}
+
+			if (command != RuleState.NO_CHANGE) {
+				sendCommand(rule, locationID, command);
+				commands++;
+			}
+		}
+
+		return commands;
+	}
+
+	/**
+	 * Handles an actuator's response to a command: if its error flag is set,
+	 * the state of the rules commanding that actuator is reverted, so the
+	 * command is sent again on the next value that still meets (or clears)
+	 * the condition.
+	 *
+	 * @param data The actuator response.
+	 * @return boolean True if the state of any rule was reverted.
+	 */
+	public boolean handleActuatorResponse(ActuatorData data)
+	{
+		if (data == null || ! data.hasError()) {
+			return false;
+		}
+
+		String locationID = (data.getLocationID() != null ? data.getLocationID() : ConfigConst.NOT_SET);
+		Map<String, RuleState[]> byName = this.states.get(locationID);
+
+		if (byName == null) {
+			return false;
+		}
+
+		boolean isReverted = false;
+
+		for (Map.Entry<String, ActuatorRule[]> entry : this.ruleTable.entrySet()) {
+			ActuatorRule[] rules = entry.getValue();
+			RuleState[] ruleStates = byName.get(entry.getKey());
+
+			if (ruleStates == null) {
+				continue;
+			}
+
+			for (int i = 0; i < rules.length; i++) {
+				if (rules[i].getActuatorName().equals(data.getName())) {
+					synchronized (ruleStates[i]) {
+						isReverted |= ruleStates[i].revert(rules[i], data.getCommand());
+					}
+				}
+			}
+		}
+
+		if (isReverted) {
+			_Logger.warning("Actuator command failed. Will resend: " + data.getName() + " at " + locationID);
+		}
+
+		return isReverted;
+	}
+
+	/**
+	 * Returns the number of actuator commands sent.
+	 *
+	 * @return long
+	 */
+	public long getCommandCount()
+	{
+		return this.commandCount.get();
+	}
+
+	/**
+	 * Returns the number of rules.
+	 *
+	 * @return int
+	 */
+	public int getRuleCount()
+	{
+		return this.ruleCount;
+	}
+
+	/**
+	 * Returns true if there are rules for values of the given sensor / metric name.
+	 *
+	 * @param name The sensor / metric name.
+	 * @return boolean
+	 */
+	public boolean hasRules(String name)
+	{
+		return (name != null && this.ruleTable.containsKey(name));
+	}
+
+
+	// private methods
+
+	/**
+	 * Loads the rules named in the {@link ConfigConst#RULES_KEY} key, each
+	 * from its own section. Invalid rules are ignored.
+	 *
+	 */
+	private static List<ActuatorRule> loadRules()
+	{
+		ConfigUtil configUtil = ConfigUtil.getInstance();
+		List<ActuatorRule> rules = new ArrayList<>();
+
+		String ruleNames = configUtil.getProperty(ConfigConst.GATEWAY_DEVICE, ConfigConst.RULES_KEY, "");
+
+		for (String ruleName : ruleNames.split(",")) {
+			ruleName = ruleName.trim();
+
+			if (ruleName.length() == 0) {
+				continue;
+			}
+
+			String section = ConfigConst.RULE_SECTION_PREFIX + "." + ruleName;
+
+			if (! configUtil.hasSection(section)) {
+				_Logger.warning("No config section for rule. Ignoring: " + section);
+
+				continue;
+			}
+
+			try {
+				rules.add(loadRule(configUtil, section, ruleName));
+			} catch (RuntimeException e) {
+				// a missing or invalid property
+				_Logger.warning("Invalid rule. Ignoring: " + ruleName + ". " + e.getMessage());
+			}
+		}
+
+		return rules;
+	}
+
+	private static ActuatorRule loadRule(ConfigUtil configUtil, String section, String ruleName)
+	{
+		ActuatorRule rule =
+			new ActuatorRule(
+				ruleName,
+				configUtil.getProperty(section, ConfigConst.RULE_RESOURCE_KEY),
+				RuleConditionEnum.getEnumFromName(configUtil.getProperty(section, ConfigConst.RULE_CONDITION_KEY), null),
+				configUtil.getFloat(section, ConfigConst.RULE_THRESHOLD_KEY),
+				configUtil.getFloat(section, ConfigConst.RULE_HYSTERESIS_KEY, 0.0f),
+				configUtil.getProperty(section, ConfigConst.RULE_ACTUATOR_NAME_KEY),
+				configUtil.getInteger(section, ConfigConst.RULE_ACTUATOR_TYPE_KEY, ConfigConst.DEFAULT_ACTUATOR_TYPE));
+
+		return rule
+			.withLocationID(configUtil.getProperty(section, ConfigConst.LOCATION_ID_PROP))
+			.withCommands(
+				configUtil.getInteger(section, ConfigConst.RULE_ON_COMMAND_KEY, ConfigConst.ON_COMMAND),
+				configUtil.getInteger(section, ConfigConst.RULE_OFF_COMMAND_KEY, ConfigConst.OFF_COMMAND))
+			.withActuatorValue(configUtil.getFloat(section, ConfigConst.RULE_ACTUATOR_VALUE_KEY, ConfigConst.DEFAULT_VAL));
+	}
+
+	/**
+	 * Returns the rule states for the named values at the given location,
+	 * adding them if this is the first value.
+	 *
+	 */
+	private RuleState[] getStates(String name, String locationID, int ruleCount)
+	{
+		if (locationID == null) {
+			locationID = ConfigConst.NOT_SET;
+		}
+
+		Map<String, RuleState[]> byName = this.states.get(locationID);
+
+		if (byName == null) {
+			byName = this.states.computeIfAbsent(locationID, key -> new ConcurrentHashMap<>());
+		}
+
+		RuleState[] ruleStates = byName.get(name);
+
+		if (ruleStates == null) {
+			ruleStates = new RuleState[ruleCount];
+
+			for (int i = 0; i < ruleCount; i++) {
+				ruleStates[i] = new RuleState();
+			}
+
+			RuleState[] existing = byName.putIfAbsent(name, ruleStates);
+
+			if (existing != null) {
+				ruleStates = existing;
+			}
+		}
+
+		return ruleStates;
+	}
+
+	private void sendCommand(ActuatorRule rule, String locationID, int command)
+	{
+		ActuatorData data = new ActuatorData();
+		data.setTypeID(rule.getActuatorTypeID());
+		data.setName(rule.getActuatorName());
+		data.setCommand(command);
+		data.setValue(rule.getActuatorValue());
+		data.setStateData(rule.getRuleName());
+
+		if (locationID != null) {
+			data.setLocationID(locationID);
+		}
+
+		this.commandCount.incrementAndGet();
+
+		_Logger.fine("Rule " + rule.getRuleName() + " sending command " + command + " to " + rule.getActuatorName());
+
+		if (this.commandHandler != null) {
+			this.commandHandler.accept(data);
+		}
+	}
+
+
+	/**
+	 * The state of a rule at a location. Guarded by its own lock.
+	 *
+	 */
+	private static final class RuleState
+	{
+		private static final int NO_CHANGE = Integer.MIN_VALUE;
+
+		private boolean isActive = false;
+		private boolean hasLastValue = false;
+		private float lastValue = Float.NaN;
+		private long  lastTimeMillis = 0L;
+
+		/**
+		 * Checks a value against the rule, updating the state.
+		 *
+		 * @return int The command to send, or NO_CHANGE if none.
+		 */
+		int evaluate(ActuatorRule rule, float value, long timeMillis)
+		{
+			float checked = value;
+
+			if (rule.getCondition().isRate()) {
+				boolean hadLastValue = this.hasLastValue;
+				long deltaMillis = timeMillis - this.lastTimeMillis;
+				float previous = this.lastValue;
+
+				if (hadLastValue && deltaMillis <= 0L) {
+					return NO_CHANGE;
+				}
+
+				this.hasLastValue   = true;
+				this.lastValue      = value;
+				this.lastTimeMillis = timeMillis;
+
+				if (! hadLastValue) {
+					return NO_CHANGE;
+				}
+
+				checked = (value - previous) * 1000.0f / deltaMillis;
+			}
+
+			if (! this.isActive && rule.isActivatedBy(checked)) {
+				this.isActive = true;
+
+				return rule.getOnCommand();
+			}
+
+			if (this.isActive && rule.isClearedBy(checked)) {
+				this.isActive = false;
+
+				return rule.getOffCommand();
+			}
+
+			return NO_CHANGE;
+		}
+
+		/**
+		 * Reverts the state changed by sending the given (failed) command.
+		 *
+		 * @return boolean True if reverted.
+		 */
+		boolean revert(ActuatorRule rule, int command)
+		{
+			if (this.isActive && command == rule.getOnCommand()) {
+				this.isActive = false;
+
+				return true;
+			}
+
+			if (! this.isActive && command == rule.getOffCommand()) {
+				this.isActive = true;
+
+				return true;
+			}
+
+			return false;
+		}
+	}
+
+}
@@ -0,0 +1,135 @@
+/**
+ * This class is part of the Programming the Internet of Things project.
+ *
+ * It is provided as a simple shell to guide the student and assist with
+ * implementation for the Programming the Internet of Things exercises,
+ * and designed to be modified by the student as needed.
+ */
+
+package programmingtheiot.gda.analytics;
+
+/**
+ * The statistics of a stream of values, updated incrementally as each is
+ * added: count, min, max, mean and standard deviation (using Welford's
+ * algorithm, which is numerically stable), and quantiles estimated with a
+ * {@link ValueHistogram}.
+ * <p>
+ * Adding a value doesn't allocate. This class is not thread-safe.
+ */
+public class RunningStats
+{
+	// private var's
+
+	private final ValueHistogram histogram = new ValueHistogram();
+
+	private long   count = 0L;
+	private float  min   = Float.NaN;
+	private float  max   = Float.NaN;
+	private double mean  = 0.0d;
+	private double m2    = 0.0d;
+
+
+	// public methods
+
+	/**
+	 * Adds a value. NaN is ignored.
+	 *
+	 * @param value The value.
+	 */
+	public void add(float value)
+	{
+		if (Float.isNaN(value)) {
+			return;
+		}
+
+		if (this.count == 0L || value < this.min) {
+			this.min = value;
+		}
+
+		if (this.count == 0L || value > this.max) {
+			this.max = value;
+		}
+
+		this.count++;
+
+		double delta = value - this.mean;
+		this.mean += delta / this.count;
+		this.m2   += delta * (value - this.mean);
+
+		this.histogram.add(value);
+	}
+
+	public long getCount()
+	{
+		return this.count;
+	}
+
+	public float getMin()
+	{
+		return this.min;
+	}
+
+	public float getMax()
+	{
+		return this.max;
+	}
+
+	/**
+	 * Returns the mean.
+	 *
+	 * @return float The mean, or NaN if there are no values.
+	 */
+	public float getMean()
+	{
+		return (this.count > 0L ? (float) this.mean : Float.NaN);
+	}
+
+	/**
+	 * Returns an estimate of the value at the given quantile, limited to
+	 * the min and max.
+	 *
+	 * @param quantile The quantile, from 0.0 to 1.0 (e.g. 0.95 for p95).
+	 * @return float The value, or NaN if there are no values.
+	 */
+	public float getQuantile(double quantile)
+	{
+		if (this.count == 0L) {
+			return Float.NaN;
+		}
+
+		return Math.min(this.max, Math.max(this.min, this.histogram.getValueAtQuantile(quantile)));
+	}
+
+	/**
+	 * Returns the (sample) standard deviation.
+	 *
+	 * @return float The standard deviation, or 0 if there are fewer than two values.
+	 */
+	public float getStdDev()
+	{
+		return (this.count > 1L ? (float) Math.sqrt(this.m2 / (this.count - 1L)) : 0.0f);
+	}
+
+	/**
+	 * Removes all values.
+	 *
+	 */
+	public void reset()
+	{
+		this.histogram.reset();
+
+		this.count = 0L;
+		this.min   = Float.NaN;
+		this.max   = Float.NaN;
+		this.mean  = 0.0d;
+		this.m2    = 0.0d;
+	}
+
+	@Override
+	public String toString()
+	{
+		return "RunningStats[count=" + this.count + ",min=" + this.min + ",max=" + this.max +
+			",mean=" + getMean() + ",stdDev=" + getStdDev() + "]";
+	}
+
+}
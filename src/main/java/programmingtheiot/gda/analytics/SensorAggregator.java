@@ -0,0 +1,436 @@
+/**
+ * This class is part of the Programming the Internet of Things project.
+ *
+ * It is provided as a simple shell to guide the student and assist with
+ * implementation for the Programming the Internet of Things exercises,
+ * and designed to be modified by the student as needed.
+ */
+
+package programmingtheiot.gda.analytics;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.logging.Logger;
+
+import programmingtheiot.common.ConfigConst;
+import programmingtheiot.common.ConfigUtil;
+import programmingtheiot.data.SensorData;
+import programmingtheiot.data.SystemStateData;
+
+/**
+ * Aggregates sensor readings per sensor (by name and location ID) over
+ * tumbling windows, and passes the statistics of each sensor's window to
+ * a handler, instead of each reading.
+ * <p>
+ * The statistics are updated incrementally as each reading is added (see
+ * {@link RunningStats}), so the readings aren't kept, and adding one
+ * doesn't allocate. Each window's result is a {@link SystemStateData},
+ * named and located as the sensor, with a {@link SensorData} per statistic,
+ * named e.g. 'TempSensor.p95': count, mean, min, max, stddev, p50, p95
+ * and p99.
+ * <p>
+ * Windows are aligned to multiples of the window length since the Epoch,
+ * and are closed by the first reading timed (see
+ * {@link SensorData#getTimeStampMillis()}) at or after their end, of that
+ * sensor or of any other, so no timer is needed. A sensor without
+ * readings for a whole window is dropped. Readings of more than the
+ * maximum number of sensors are not aggregated.
+ * <p>
+ * This class is thread-safe; readings of different sensors are aggregated
+ * concurrently, and the handler is called without holding a lock.
+ */
+public class SensorAggregator
+{
+	// static
+
+	private static final Logger _Logger =
+		Logger.getLogger(SensorAggregator.class.getName());
+
+	private static final long NOT_SET = Long.MIN_VALUE;
+
+
+	// private var's
+
+	private final long windowMillis;
+	private final int  maxSensors;
+	private final Consumer<SystemStateData> resultHandler;
+
+	// by location ID, then name
+	private final Map<String, Map<String, SensorWindow>> windows = new ConcurrentHashMap<>();
+	private final AtomicInteger sensorCount = new AtomicInteger(0);
+	private final AtomicLong nextSweepMillis = new AtomicLong(NOT_SET);
+	private final AtomicLong resultCount = new AtomicLong(0L);
+
+
+	// constructors
+
+	/**
+	 * Constructor, using the configured window length and maximum number
+	 * of sensors.
+	 *
+	 * @param resultHandler The handler for each sensor's window results.
+	 */
+	public SensorAggregator(Consumer<SystemStateData> resultHandler)
+	{
+		this(
+			ConfigUtil.getInstance().getInteger(
+				ConfigConst.GATEWAY_DEVICE, ConfigConst.SENSOR_AGG_WINDOW_KEY, ConfigConst.DEFAULT_SENSOR_AGG_WINDOW_MILLIS),
+			ConfigUtil.getInstance().getInteger(
+				ConfigConst.GATEWAY_DEVICE, ConfigConst.SENSOR_AGG_MAX_SENSORS_KEY, ConfigConst.DEFAULT_SENSOR_AGG_MAX_SENSORS),
+			resultHandler);
+	}
+
+	/**
+	 * Constructor.
+	 *
+	 * @param windowMillis The window length.
+	 * @param maxSensors The maximum number of sensors aggregated.
+	 * @param resultHandler The handler for each sensor's window results.
+	 */
+	public SensorAggregator(long windowMillis, int maxSensors, Consumer<SystemStateData> resultHandler)
+	{
+		if (windowMillis <= 0L || maxSensors <= 0) {
+			throw new IllegalArgumentException("Window length and maximum sensors must be positive.");
+		}
+
+		this.windowMillis  = windowMillis;
+		this.maxSensors    = maxSensors;
+		this.resultHandler = resultHandler;
+	}
+
+
+	// public methods
+
+	/**
+	 * Adds a reading, timed by its timestamp.
+	 *
+	 * @param data The reading.
+	 * @return boolean True if aggregated; false if there are already the
+	 * maximum number of other sensors.
+	 */
+	public boolean addSample(SensorData data)
+	{
+		return (data != null && addSample(data, data.getTimeStampMillis()));
+	}
+
+	/**
+	 * Adds a reading, timed as given. Readings of a sensor are expected in
+	 * time order. If the reading is timed at or after the end of the
+	 * current window of its sensor (or of any other), that window's results
+	 * are passed to the handler first.
+	 *
+	 * @param data The reading.
+	 * @param timeMillis The time of the reading, in milliseconds since the Epoch.
+	 * @return boolean True if aggregated; false if there are already the
+	 * maximum number of other sensors.
+	 */
+	public boolean addSample(SensorData data, long timeMillis)
+	{
+		if (data == null) {
+			return false;
+		}
+
+		SystemStateData result = null;
+
+		while (true) {
+			SensorWindow window = getWindow(data);
+
+			if (window == null) {
+				return false;
+			}
+
+			synchronized (window) {
+				// dropped as idle by a sweep after it was looked up
+				if (window.isRemoved) {
+					continue;
+				}
+
+				result = window.add(timeMillis, data.getValue());
+			}
+
+			break;
+		}
+
+		handleResult(result);
+		sweepIfDue(timeMillis);
+
+		return true;
+	}
+
+	/**
+	 * Passes the results of the current window of each sensor to the
+	 * handler, and removes all sensors.
+	 *
+	 */
+	public void flush()
+	{
+		List<SystemStateData> results = new ArrayList<>();
+
+		for (Map<String, SensorWindow> byName : this.windows.values()) {
+			Iterator<SensorWindow> iter = byName.values().iterator();
+
+			while (iter.hasNext()) {
+				SensorWindow window = iter.next();
+
+				synchronized (window) {
+					addResult(results, window.close());
+
+					window.isRemoved = true;
+					iter.remove();
+					this.sensorCount.decrementAndGet();
+				}
+			}
+		}
+
+		this.nextSweepMillis.set(NOT_SET);
+
+		for (SystemStateData result : results) {
+			handleResult(result);
+		}
+	}
+
+	/**
+	 * Returns the number of results passed to the handler.
+	 *
+	 * @return long
+	 */
+	public long getResultCount()
+	{
+		return this.resultCount.get();
+	}
+
+	/**
+	 * Returns the number of sensors being aggregated.
+	 *
+	 * @return int
+	 */
+	public int getSensorCount()
+	{
+		return this.sensorCount.get();
+	}
+
+	/**
+	 * Returns the length of each window.
+	 *
+	 * @return long
+	 */
+	public long getWindowMillis()
+	{
+		return this.windowMillis;
+	}
+
+
+	// private methods
+
+	private void addResult(List<SystemStateData> results, SystemStateData result)
+	{
+		if (result != null) {
+			results.add(result);
+		}
+	}
+
+	/**
+	 * Returns the end of the window the given time is in.
+	 *
+	 */
+	private long getWindowEnd(long timeMillis)
+	{
+		return (Math.floorDiv(timeMillis, this.windowMillis) + 1L) * this.windowMillis;
+	}
+
+	/**
+	 * Returns the window of the reading's sensor, adding one if there are
+	 * fewer than the maximum number of sensors.
+	 *
+	 * @return SensorWindow The window, or null if there are too many sensors.
+	 */
+	private SensorWindow getWindow(SensorData data)
+	{
+		String locationID = (data.getLocationID() != null ? data.getLocationID() : ConfigConst.NOT_SET);
+		String name = (data.getName() != null ? data.getName() : ConfigConst.NOT_SET);
+
+		Map<String, SensorWindow> byName = this.windows.get(locationID);
+
+		if (byName == null) {
+			byName = this.windows.computeIfAbsent(locationID, key -> new ConcurrentHashMap<>());
+		}
+
+		SensorWindow window = byName.get(name);
+
+		if (window != null) {
+			return window;
+		}
+
+		if (this.sensorCount.incrementAndGet() > this.maxSensors) {
+			this.sensorCount.decrementAndGet();
+
+			_Logger.fine("Too many sensors to aggregate. Not aggregating: " + name + " at " + locationID);
+
+			return null;
+		}
+
+		window = new SensorWindow(name, locationID, data.getTypeID());
+
+		SensorWindow existing = byName.putIfAbsent(name, window);
+
+		if (existing != null) {
+			this.sensorCount.decrementAndGet();
+
+			return existing;
+		}
+
+		return window;
+	}
+
+	private void handleResult(SystemStateData result)
+	{
+		if (result != null) {
+			this.resultCount.incrementAndGet();
+
+			if (this.resultHandler != null) {
+				this.resultHandler.accept(result);
+			}
+		}
+	}
+
+	/**
+	 * Once per window, closes the windows of all sensors that ended, so
+	 * the results of sensors without new readings aren't held back, and
+	 * drops the sensors without readings since the previous sweep.
+	 *
+	 */
+	private void sweepIfDue(long timeMillis)
+	{
+		long sweepMillis = this.nextSweepMillis.get();
+
+		if (sweepMillis == NOT_SET) {
+			this.nextSweepMillis.compareAndSet(NOT_SET, getWindowEnd(timeMillis));
+
+			return;
+		}
+
+		if (timeMillis < sweepMillis || ! this.nextSweepMillis.compareAndSet(sweepMillis, getWindowEnd(timeMillis))) {
+			return;
+		}
+
+		List<SystemStateData> results = new ArrayList<>();
+
+		for (Map<String, SensorWindow> byName : this.windows.values()) {
+			Iterator<SensorWindow> iter = byName.values().iterator();
+
+			while (iter.hasNext()) {
+				SensorWindow window = iter.next();
+
+				synchronized (window) {
+					if (window.windowEndMillis == NOT_SET) {
+						window.isRemoved = true;
+						iter.remove();
+						this.sensorCount.decrementAndGet();
+					} else if (timeMillis >= window.windowEndMillis) {
+						addResult(results, window.close());
+					}
+				}
+			}
+		}
+
+		for (SystemStateData result : results) {
+			handleResult(result);
+		}
+	}
+
+
+	/**
+	 * The statistics of a sensor's current window. Guarded by its own lock.
+	 *
+	 */
+	private final class SensorWindow
+	{
+		private final String name;
+		private final String locationID;
+		private final int typeID;
+		private final RunningStats stats = new RunningStats();
+
+		// not set when closed without a new window
+		private long windowEndMillis = NOT_SET;
+		private boolean isRemoved = false;
+
+		SensorWindow(String name, String locationID, int typeID)
+		{
+			this.name       = name;
+			this.locationID = locationID;
+			this.typeID     = typeID;
+		}
+
+		/**
+		 * Adds a value, closing the current window first if the value is
+		 * timed at or after its end.
+		 *
+		 * @return SystemStateData The closed window's results, or null if none.
+		 */
+		SystemStateData add(long timeMillis, float value)
+		{
+			SystemStateData result = null;
+
+			if (this.windowEndMillis != NOT_SET && timeMillis >= this.windowEndMillis) {
+				result = close();
+			}
+
+			if (this.windowEndMillis == NOT_SET) {
+				this.windowEndMillis = getWindowEnd(timeMillis);
+			}
+
+			this.stats.add(value);
+
+			return result;
+		}
+
+		/**
+		 * Closes the current window.
+		 *
+		 * @return SystemStateData The window's results, or null if it has no values.
+		 */
+		SystemStateData close()
+		{
+			this.windowEndMillis = NOT_SET;
+
+			if (this.stats.getCount() == 0L) {
+				return null;
+			}
+
+			SystemStateData result = new SystemStateData();
+			result.setName(this.name);
+			result.setLocationID(this.locationID);
+
+			result.addSensorData(createStat(ConfigConst.COUNT_STAT, this.stats.getCount()));
+			result.addSensorData(createStat(ConfigConst.MEAN_STAT, this.stats.getMean()));
+			result.addSensorData(createStat(ConfigConst.MIN_STAT, this.stats.getMin()));
+			result.addSensorData(createStat(ConfigConst.MAX_STAT, this.stats.getMax()));
+			result.addSensorData(createStat(ConfigConst.STDDEV_STAT, this.stats.getStdDev()));
+			result.addSensorData(createStat(ConfigConst.P50_STAT, this.stats.getQuantile(0.5d)));
+			result.addSensorData(createStat(ConfigConst.P95_STAT, this.stats.getQuantile(0.95d)));
+			result.addSensorData(createStat(ConfigConst.P99_STAT, this.stats.getQuantile(0.99d)));
+
+			this.stats.reset();
+
+			return result;
+		}
+
+		private SensorData createStat(String stat, float value)
+		{
+			SensorData data = new SensorData();
+			data.setTypeID(this.typeID);
+			data.setName(this.name + "." + stat);
+			data.setLocationID(this.locationID);
+			data.setValue(value);
+
+			return data;
+		}
+	}
+
+}
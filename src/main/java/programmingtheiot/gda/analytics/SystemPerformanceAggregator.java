@@ -0,0 +1,368 @@
+/**
+ * This class is part of the Programming the Internet of Things project.
+ *
+ * It is provided as a simple shell to guide the student and assist with
+ * implementation for the Programming the Internet of Things exercises,
+ * and designed to be modified by the student as needed.
+ */
+
+package programmingtheiot.gda.analytics;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import programmingtheiot.common.ConfigConst;
+import programmingtheiot.common.ConfigUtil;
+import programmingtheiot.data.SystemPerformanceData;
+
+/**
+ * Aggregates system performance data samples over rolling windows, per
+ * location ID (i.e. per device: the GDA and each CDA), and passes a
+ * summary of each location's window to a handler, instead of each sample.
+ * <p>
+ * Each metric (including CPU, memory and disk utilization) is held in a
+ * {@link MetricWindow}. Every hop, a summary is built of the location's
+ * samples timed (see {@link SystemPerformanceData#getTimeStampMillis()})
+ * within the window ending then: it has the min, max, mean, p95 and last
+ * value of each metric (e.g. 'cpuUtil.p95'), and the number of samples;
+ * its CPU, memory and disk utilization are the means. If the hop is the
+ * window length, windows don't overlap (tumbling windows); if shorter,
+ * they do (sliding windows).
+ * <p>
+ * A location's windows are closed by its first sample timed at or after
+ * their end, so no timer is needed; hops without new samples are skipped.
+ * Windows are aligned to multiples of the hop since the Epoch. Call
+ * {@link #flush()} to close the current windows early, e.g. when stopping.
+ * <p>
+ * This class is thread-safe; samples of different locations are
+ * aggregated concurrently, and the handler is called without holding a
+ * lock.
+ */
+public class SystemPerformanceAggregator
+{
+	// static
+
+	private static final long NOT_SET = Long.MIN_VALUE;
+
+
+	// private var's
+
+	private final long windowMillis;
+	private final long hopMillis;
+	private final int  maxSamples;
+	private final Consumer<SystemPerformanceData> summaryHandler;
+
+	// by location ID
+	private final Map<String, LocationWindows> locations = new ConcurrentHashMap<>();
+	private final AtomicLong summaryCount = new AtomicLong(0L);
+
+
+	// constructors
+
+	/**
+	 * Constructor, using the configured window, hop and number of samples.
+	 *
+	 * @param summaryHandler The handler for each window's summary.
+	 */
+	public SystemPerformanceAggregator(Consumer<SystemPerformanceData> summaryHandler)
+	{
+		this(
+			ConfigUtil.getInstance().getInteger(
+				ConfigConst.GATEWAY_DEVICE, ConfigConst.SYS_PERF_AGG_WINDOW_KEY, ConfigConst.DEFAULT_SYS_PERF_AGG_WINDOW_MILLIS),
+			ConfigUtil.getInstance().getInteger(
+				ConfigConst.GATEWAY_DEVICE, ConfigConst.SYS_PERF_AGG_HOP_KEY, 0),
+			ConfigUtil.getInstance().getInteger(
+				ConfigConst.GATEWAY_DEVICE, ConfigConst.SYS_PERF_AGG_MAX_SAMPLES_KEY, ConfigConst.DEFAULT_SYS_PERF_AGG_MAX_SAMPLES),
+			summaryHandler);
+	}
+
+	/**
+	 * Constructor.
+	 *
+	 * @param windowMillis The window length.
+	 * @param hopMillis The time between summaries; if 0 or more than the
+	 * window length, the window length.
+	 * @param maxSamples The maximum number of samples held per metric, per location.
+	 * @param summaryHandler The handler for each window's summary.
+	 */
+	public SystemPerformanceAggregator(
+		long windowMillis, long hopMillis, int maxSamples, Consumer<SystemPerformanceData> summaryHandler)
+	{
+		if (windowMillis <= 0L || maxSamples <= 0) {
+			throw new IllegalArgumentException("Window length and maximum samples must be positive.");
+		}
+
+		this.windowMillis   = windowMillis;
+		this.hopMillis      = (hopMillis > 0L && hopMillis < windowMillis ? hopMillis : windowMillis);
+		this.maxSamples     = maxSamples;
+		this.summaryHandler = summaryHandler;
+	}
+
+
+	// public methods
+
+	/**
+	 * Adds the metrics of a sample, timed by its timestamp. If the sample
+	 * is timed at or after the end of its location's current window, the
+	 * window's summary is passed to the handler first.
+	 *
+	 * @param data The sample.
+	 */
+	public void addSample(SystemPerformanceData data)
+	{
+		if (data != null) {
+			addSample(data, data.getTimeStampMillis());
+		}
+	}
+
+	/**
+	 * Adds the metrics of a sample, timed as given. Samples of a location
+	 * are expected in time order.
+	 *
+	 * @param data The sample.
+	 * @param timeMillis The time of the sample, in milliseconds since the Epoch.
+	 */
+	public void addSample(SystemPerformanceData data, long timeMillis)
+	{
+		if (data == null) {
+			return;
+		}
+
+		String locationID = (data.getLocationID() != null ? data.getLocationID() : ConfigConst.NOT_SET);
+		LocationWindows location = this.locations.get(locationID);
+
+		if (location == null) {
+			location = this.locations.computeIfAbsent(locationID, LocationWindows::new);
+		}
+
+		SystemPerformanceData summary;
+
+		synchronized (location) {
+			summary = location.add(data, timeMillis);
+		}
+
+		handleSummary(summary);
+	}
+
+	/**
+	 * Passes the summary of the current window of each location, if it has
+	 * any samples, to the handler, and clears all samples.
+	 *
+	 */
+	public void flush()
+	{
+		List<SystemPerformanceData> summaries = new ArrayList<>();
+
+		for (LocationWindows location : this.locations.values()) {
+			synchronized (location) {
+				SystemPerformanceData summary = location.close();
+
+				if (summary != null) {
+					summaries.add(summary);
+				}
+			}
+		}
+
+		for (SystemPerformanceData summary : summaries) {
+			handleSummary(summary);
+		}
+	}
+
+	/**
+	 * Returns the time between the starts of consecutive windows.
+	 *
+	 * @return long
+	 */
+	public long getHopMillis()
+	{
+		return this.hopMillis;
+	}
+
+	/**
+	 * Returns the number of summaries passed to the handler.
+	 *
+	 * @return long
+	 */
+	public long getSummaryCount()
+	{
+		return this.summaryCount.get();
+	}
+
+	/**
+	 * Returns the length of each window.
+	 *
+	 * @return long
+	 */
+	public long getWindowMillis()
+	{
+		return this.windowMillis;
+	}
+
+
+	// private methods
+
+	private void handleSummary(SystemPerformanceData summary)
+	{
+		if (summary != null) {
+			this.summaryCount.incrementAndGet();
+
+			if (this.summaryHandler != null) {
+				this.summaryHandler.accept(summary);
+			}
+		}
+	}
+
+
+	/**
+	 * The metric windows of a location. Guarded by its own lock.
+	 *
+	 */
+	private final class LocationWindows
+	{
+		private final String locationID;
+		private final Map<String, MetricWindow> windows = new LinkedHashMap<>();
+		private final WindowStats stats = new WindowStats();
+
+		private long windowEndMillis = NOT_SET;
+
+		LocationWindows(String locationID)
+		{
+			this.locationID = locationID;
+		}
+
+		/**
+		 * Adds the metrics of a sample, closing the current window first if
+		 * the sample is timed at or after its end.
+		 *
+		 * @return SystemPerformanceData The closed window's summary, or null if none.
+		 */
+		SystemPerformanceData add(SystemPerformanceData data, long timeMillis)
+		{
+			SystemPerformanceData summary = null;
+
+			if (this.windowEndMillis == NOT_SET) {
+				this.windowEndMillis = (Math.floorDiv(timeMillis, hopMillis) + 1L) * hopMillis;
+			} else if (timeMillis >= this.windowEndMillis) {
+				summary = summarize();
+
+				// skip to the first window this sample is in
+				this.windowEndMillis += ((timeMillis - this.windowEndMillis) / hopMillis + 1L) * hopMillis;
+
+				evictBefore(this.windowEndMillis - windowMillis);
+			}
+
+			addMetric(ConfigConst.CPU_UTIL_PROP, timeMillis, data.getCpuUtilization());
+			addMetric(ConfigConst.MEM_UTIL_PROP, timeMillis, data.getMemoryUtilization());
+			addMetric(ConfigConst.DISK_UTIL_PROP, timeMillis, data.getDiskUtilization());
+
+			for (Map.Entry<String, Float> metric : data.getMetrics().entrySet()) {
+				addMetric(metric.getKey(), timeMillis, metric.getValue());
+			}
+
+			return summary;
+		}
+
+		/**
+		 * Closes the current window, and clears all samples.
+		 *
+		 * @return SystemPerformanceData The window's summary, or null if it has no samples.
+		 */
+		SystemPerformanceData close()
+		{
+			SystemPerformanceData summary = null;
+
+			if (this.windowEndMillis != NOT_SET) {
+				summary = summarize();
+			}
+
+			this.windows.clear();
+			this.windowEndMillis = NOT_SET;
+
+			return summary;
+		}
+
+		private void addMetric(String name, long timeMillis, float value)
+		{
+			MetricWindow window = this.windows.get(name);
+
+			if (window == null) {
+				window = new MetricWindow(maxSamples);
+				this.windows.put(name, window);
+			}
+
+			window.add(timeMillis, value);
+		}
+
+		/**
+		 * Removes the samples timed before the given time, and the metrics
+		 * left without samples (e.g. of a removed network interface).
+		 *
+		 */
+		private void evictBefore(long timeMillis)
+		{
+			Iterator<MetricWindow> iter = this.windows.values().iterator();
+
+			while (iter.hasNext()) {
+				MetricWindow window = iter.next();
+				window.evictBefore(timeMillis);
+
+				if (window.size() == 0) {
+					iter.remove();
+				}
+			}
+		}
+
+		/**
+		 * Returns the summary of the current window.
+		 *
+		 * @return SystemPerformanceData The summary, or null if the window has no samples.
+		 */
+		private SystemPerformanceData summarize()
+		{
+			SystemPerformanceData summary = new SystemPerformanceData();
+			summary.setLocationID(this.locationID);
+
+			long fromMillis = this.windowEndMillis - windowMillis;
+			int sampleCount = 0;
+
+			for (Map.Entry<String, MetricWindow> entry : this.windows.entrySet()) {
+				String name = entry.getKey();
+
+				if (entry.getValue().computeStats(fromMillis, this.windowEndMillis, this.stats) == 0) {
+					continue;
+				}
+
+				sampleCount = Math.max(sampleCount, this.stats.getCount());
+
+				if (ConfigConst.CPU_UTIL_PROP.equals(name)) {
+					summary.setCpuUtilization(this.stats.getMean());
+				} else if (ConfigConst.MEM_UTIL_PROP.equals(name)) {
+					summary.setMemoryUtilization(this.stats.getMean());
+				} else if (ConfigConst.DISK_UTIL_PROP.equals(name)) {
+					summary.setDiskUtilization(this.stats.getMean());
+				}
+
+				summary.setMetric(name + "." + ConfigConst.MIN_STAT, this.stats.getMin());
+				summary.setMetric(name + "." + ConfigConst.MAX_STAT, this.stats.getMax());
+				summary.setMetric(name + "." + ConfigConst.MEAN_STAT, this.stats.getMean());
+				summary.setMetric(name + "." + ConfigConst.P95_STAT, this.stats.getP95());
+				summary.setMetric(name + "." + ConfigConst.LAST_STAT, this.stats.getLast());
+			}
+
+			if (sampleCount == 0) {
+				return null;
+			}
+
+			summary.setMetric(ConfigConst.SAMPLE_COUNT_PROP, sampleCount);
+
+			return summary;
+		}
+	}
+
+}
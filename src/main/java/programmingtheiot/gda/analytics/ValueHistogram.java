@@ -0,0 +1,180 @@
+/**
+ * This class is part of the Programming the Internet of Things project.
+ *
+ * It is provided as a simple shell to guide the student and assist with
+ * implementation for the Programming the Internet of Things exercises,
+ * and designed to be modified by the student as needed.
+ */
+
+package programmingtheiot.gda.analytics;
+
+import java.util.Arrays;
+
+/**
+ * A fixed-size histogram of float values, for estimating quantiles (e.g.
+ * the median or p95) of a stream without keeping its values.
+ * <p>
+ * As in an HDR histogram, buckets are log-linear: each power of two is
+ * split into 16 equal sub-buckets, so a quantile is estimated to within
+ * about 3% of its value, whatever its magnitude. Magnitudes from 2^-8 to
+ * 2^24 get their own buckets; smaller and larger ones are counted in the
+ * first and last bucket. Negative values are counted in a mirrored set of
+ * buckets, allocated on the first negative value.
+ * <p>
+ * Adding a value doesn't allocate. This class is not thread-safe.
+ */
+public class ValueHistogram
+{
+	// static
+
+	private static final int SUB_BUCKET_BITS  = 4;
+	private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+	private static final int MIN_EXPONENT     = -8;
+	private static final int MAX_EXPONENT     = 23;
+	private static final int BUCKET_COUNT     = (MAX_EXPONENT - MIN_EXPONENT + 1) * SUB_BUCKET_COUNT;
+
+	private static final int MANTISSA_BITS = 23;
+
+
+	// private var's
+
+	private final int[] positiveCounts = new int[BUCKET_COUNT];
+	private int[] negativeCounts = null;
+
+	private long zeroCount = 0L;
+	private long count = 0L;
+
+
+	// public methods
+
+	/**
+	 * Adds a value. NaN is ignored.
+	 *
+	 * @param value The value.
+	 */
+	public void add(float value)
+	{
+		if (Float.isNaN(value)) {
+			return;
+		}
+
+		if (value > 0.0f) {
+			this.positiveCounts[getBucketIndex(value)]++;
+		} else if (value < 0.0f) {
+			if (this.negativeCounts == null) {
+				this.negativeCounts = new int[BUCKET_COUNT];
+			}
+
+			this.negativeCounts[getBucketIndex(-value)]++;
+		} else {
+			this.zeroCount++;
+		}
+
+		this.count++;
+	}
+
+	/**
+	 * Returns the number of values added.
+	 *
+	 * @return long
+	 */
+	public long getCount()
+	{
+		return this.count;
+	}
+
+	/**
+	 * Returns an estimate of the value at the given quantile (nearest rank):
+	 * the midpoint of its bucket.
+	 *
+	 * @param quantile The quantile, from 0.0 to 1.0 (e.g. 0.95 for p95).
+	 * @return float The value, or NaN if there are no values.
+	 */
+	public float getValueAtQuantile(double quantile)
+	{
+		if (this.count == 0L) {
+			return Float.NaN;
+		}
+
+		long rank = Math.max(1L, (long) Math.ceil(Math.min(1.0d, Math.max(0.0d, quantile)) * this.count));
+		long seen = 0L;
+
+		// from the most negative value up
+		if (this.negativeCounts != null) {
+			for (int i = BUCKET_COUNT - 1; i >= 0; i--) {
+				seen += this.negativeCounts[i];
+
+				if (seen >= rank) {
+					return -getBucketMidpoint(i);
+				}
+			}
+		}
+
+		seen += this.zeroCount;
+
+		if (seen >= rank) {
+			return 0.0f;
+		}
+
+		for (int i = 0; i < BUCKET_COUNT; i++) {
+			seen += this.positiveCounts[i];
+
+			if (seen >= rank) {
+				return getBucketMidpoint(i);
+			}
+		}
+
+		// not reached
+		return Float.NaN;
+	}
+
+	/**
+	 * Removes all values.
+	 *
+	 */
+	public void reset()
+	{
+		Arrays.fill(this.positiveCounts, 0);
+
+		if (this.negativeCounts != null) {
+			Arrays.fill(this.negativeCounts, 0);
+		}
+
+		this.zeroCount = 0L;
+		this.count = 0L;
+	}
+
+
+	// private methods
+
+	/**
+	 * Returns the bucket of a positive value: its exponent selects the
+	 * power of two, and the top bits of its mantissa the sub-bucket.
+	 *
+	 */
+	private static int getBucketIndex(float value)
+	{
+		int exponent = Math.getExponent(value);
+
+		if (exponent < MIN_EXPONENT) {
+			return 0;
+		}
+
+		if (exponent > MAX_EXPONENT) {
+			return BUCKET_COUNT - 1;
+		}
+
+		int subBucket = (Float.floatToRawIntBits(value) >>> (MANTISSA_BITS - SUB_BUCKET_BITS)) & (SUB_BUCKET_COUNT - 1);
+
+		return (exponent - MIN_EXPONENT) * SUB_BUCKET_COUNT + subBucket;
+	}
+
+	private static float getBucketMidpoint(int index)
+	{
+		int exponent  = index / SUB_BUCKET_COUNT + MIN_EXPONENT;
+		int subBucket = index % SUB_BUCKET_COUNT;
+
+		return Math.scalb(1.0f + (subBucket + 0.5f) / SUB_BUCKET_COUNT, exponent);
+	}
+
+}
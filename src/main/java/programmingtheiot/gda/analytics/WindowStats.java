@@ -0,0 +1,105 @@
+/**
+ * This class is part of the Programming the Internet of Things project.
+ *
+ * It is provided as a simple shell to guide the student and assist with
+ * implementation for the Programming the Internet of Things exercises,
+ * and designed to be modified by the student as needed.
+ */
+
+package programmingtheiot.gda.analytics;
+
+/**
+ * The statistics of the samples of a metric within a window, as computed
+ * by {@link MetricWindow}. Instances are re-used, to avoid an allocation
+ * per window, so are mutable and not thread-safe.
+ *
+ */
+public class WindowStats
+{
+	// private var's
+
+	private int   count = 0;
+	private float min   = Float.NaN;
+	private float max   = Float.NaN;
+	private float mean  = Float.NaN;
+	private float p95   = Float.NaN;
+	private float last  = Float.NaN;
+
+
+	// public methods
+
+	/**
+	 * Returns the number of samples.
+	 *
+	 * @return int
+	 */
+	public int getCount()
+	{
+		return this.count;
+	}
+
+	public float getMin()
+	{
+		return this.min;
+	}
+
+	public float getMax()
+	{
+		return this.max;
+	}
+
+	public float getMean()
+	{
+		return this.mean;
+	}
+
+	/**
+	 * Returns the 95th percentile (nearest rank) of the samples.
+	 *
+	 * @return float
+	 */
+	public float getP95()
+	{
+		return this.p95;
+	}
+
+	/**
+	 * Returns the most recent sample.
+	 *
+	 * @return float
+	 */
+	public float getLast()
+	{
+		return this.last;
+	}
+
+	/**
+	 * Resets the statistics to those of no samples (all NaN).
+	 *
+	 */
+	public void reset()
+	{
+		set(0, Float.NaN, Float.NaN, Float.NaN, Float.NaN, Float.NaN);
+	}
+
+	@Override
+	public String toString()
+	{
+		return "WindowStats[count=" + this.count + ",min=" + this.min + ",max=" + this.max +
+			",mean=" + this.mean + ",p95=" + this.p95 + ",last=" + this.last + "]";
+	}
+
+
+	// package methods
+
+	void set(int count, float min, float max, float mean, float p95, float last)
+	{
+		this.count = count;
+		this.min   = min;
+		this.max   = max;
+		this.mean  = mean;
+		this.p95   = p95;
+		this.last  = last;
+	}
+
+}
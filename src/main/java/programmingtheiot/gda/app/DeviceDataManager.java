@@ -8,23 +8,39 @@
 
 package programmingtheiot.gda.app;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
+import com.google.gson.JsonParseException;
+
+import programmingtheiot.common.CompositeDataMessageListener;
 import programmingtheiot.common.ConfigConst;
 import programmingtheiot.common.ConfigUtil;
+import programmingtheiot.common.ExecutorUtil;
 import programmingtheiot.common.IActuatorDataListener;
 import programmingtheiot.common.IDataMessageListener;
 import programmingtheiot.common.ResourceNameEnum;
 
 import programmingtheiot.data.ActuatorData;
+import programmingtheiot.data.BaseIotData;
 import programmingtheiot.data.DataUtil;
 import programmingtheiot.data.SensorData;
 import programmingtheiot.data.SystemPerformanceData;
 import programmingtheiot.data.SystemStateData;
 
+import programmingtheiot.gda.analytics.DeadbandFilter;
+import programmingtheiot.gda.analytics.RulesEngine;
+import programmingtheiot.gda.analytics.SensorAggregator;
+import programmingtheiot.gda.analytics.SystemPerformanceAggregator;
+
 import programmingtheiot.gda.connection.CloudClientConnector;
 import programmingtheiot.gda.connection.CoapServerGateway;
+import programmingtheiot.gda.connection.ICloudClient;
 import programmingtheiot.gda.connection.IPersistenceClient;
 import programmingtheiot.gda.connection.IPubSubClient;
 import programmingtheiot.gda.connection.IRequestResponseClient;
@@ -32,6 +48,14 @@ import programmingtheiot.gda.connection.MqttClientConnector;
 import programmingtheiot.gda.connection.RedisPersistenceAdapter;
 import programmingtheiot.gda.connection.SmtpClientConnector;
 
+import programmingtheiot.gda.pipeline.CloudBatchSender;
+import programmingtheiot.gda.pipeline.DataPipeline;
+import programmingtheiot.gda.pipeline.IBatchSender;
+import programmingtheiot.gda.pipeline.PersistenceBatchSender;
+import programmingtheiot.gda.pipeline.PipelineMessage;
+import programmingtheiot.gda.pipeline.PubSubBatchSender;
+import programmingtheiot.gda.pipeline.UpstreamBatcher;
+
 import programmingtheiot.gda.system.SystemPerformanceManager;
 /**
  * This class manages device data, including incoming messages, sensor data, actuator command responses,
@@ -44,6 +68,9 @@ public class DeviceDataManager implements IDataMessageListener
 	private static final Logger _Logger =
 		Logger.getLogger(DeviceDataManager.class.getName());
 	
+	// the maximum time to wait for queued messages to be handled when stopping
+	public static final long STOP_TIMEOUT_MILLIS = 5000L;
+	
 	// private var's
 	
 	private boolean enableMqttClient = true;
@@ -52,14 +79,27 @@ public class DeviceDataManager implements IDataMessageListener
 //	private boolean enableSmtpClient = false;
 	private boolean enablePersistenceClient = false;
 	private boolean enableSystemPerf = false;
+	private boolean enableDataPipeline = false;
+	private boolean enableSysPerfAggregation = false;
+	private boolean enableSensorAggregation = false;
+	private boolean enableUpstreamPubSub = false;
 	
 	private IActuatorDataListener actuatorDataListener = null;
+	private CompositeDataMessageListener dataMsgListener = null;
 	private IPubSubClient mqttClient = null;
-	private IPubSubClient cloudClient = null;
+	private ICloudClient cloudClient = null;
 	private IPersistenceClient persistenceClient = null;
 	private IRequestResponseClient smtpClient = null;
 	private CoapServerGateway coapServer = null;
 	private SystemPerformanceManager sysPerfMgr = null;
+	private DataPipeline dataPipeline = null;
+	private SystemPerformanceAggregator sysPerfAggregator = null;
+	private SensorAggregator sensorAggregator = null;
+	private DeadbandFilter deadbandFilter = null;
+	private RulesEngine rulesEngine = null;
+	private int actuatorCmdQos = ConfigConst.DEFAULT_QOS;
+	private ExecutorService messageExecutor = null;
+	private List<UpstreamBatcher> upstreamBatchers = new ArrayList<>();
 	
 	// constructors
 	/**
@@ -87,11 +127,17 @@ public class DeviceDataManager implements IDataMessageListener
 			configUtil.getBoolean(
 				ConfigConst.GATEWAY_DEVICE, ConfigConst.ENABLE_PERSISTENCE_CLIENT_KEY);
 		
+		this.enableSystemPerf =
+			configUtil.getBoolean(
+				ConfigConst.GATEWAY_DEVICE, ConfigConst.ENABLE_SYSTEM_PERF_KEY);
+		
+		initDataPathConfig();
 		initManager();
 	}
 	
 	/**
-	 * Constructor that allows setting the enablement of various components.
+	 * Constructor that allows setting the enablement of various components. The data
+	 * pipeline and aggregation are enabled as configured.
 	 */
 	public DeviceDataManager(
 		boolean enableSystemPerf,
@@ -109,6 +155,33 @@ public class DeviceDataManager implements IDataMessageListener
 //		this.enableSmtpClient = enableSmtpClient;
 		this.enablePersistenceClient = enablePersistenceClient;
 		
+		initDataPathConfig();
+		initManager();
+	}
+	
+	/**
+	 * Constructor that allows setting the enablement of various components, including
+	 * the data pipeline and the sensor and system performance aggregation.
+	 */
+	public DeviceDataManager(
+		boolean enableSystemPerf,
+		boolean enableMqttClient,
+		boolean enableCoapServer,
+		boolean enableCloudClient,
+		boolean enablePersistenceClient,
+		boolean enableDataPipeline,
+		boolean enableAggregation)
+	{
+		super();
+		this.enableSystemPerf = enableSystemPerf;
+		this.enableMqttClient = enableMqttClient;
+		this.enableCoapServer = enableCoapServer;
+		this.enableCloudClient = enableCloudClient;
+		this.enablePersistenceClient = enablePersistenceClient;
+		this.enableDataPipeline = enableDataPipeline;
+		this.enableSysPerfAggregation = enableAggregation;
+		this.enableSensorAggregation = enableAggregation;
+		
 		initManager();
 	}
 	
@@ -136,7 +209,8 @@ public class DeviceDataManager implements IDataMessageListener
 	}
 
 	/**
-	 * Handles generic incoming messages (not further processed at the moment).
+	 * Handles generic incoming messages. System state messages from the CDA are
+	 * analyzed by the rules engine, if enabled; others are only logged.
 	 */
 	@Override
 	public boolean handleIncomingMessage(ResourceNameEnum resourceName, String msg)
@@ -144,7 +218,17 @@ public class DeviceDataManager implements IDataMessageListener
 		if (msg != null) {
 			_Logger.info("Handling incoming generic message: " + msg);
 			
-			// For now, just log the message without further processing
+			if (this.rulesEngine != null && resourceName == ResourceNameEnum.CDA_MGMT_STATUS_MSG_RESOURCE) {
+				try {
+					SystemStateData data = DataUtil.getInstance().jsonToSystemStateData(msg);
+					
+					if (data != null) {
+						this.handleIncomingDataAnalysis(resourceName, data);
+					}
+				} catch (JsonParseException e) {
+					_Logger.warning("Failed to parse system state message. Ignoring: " + e.getMessage());
+				}
+			}
 			
 			return true;
 		} else {
@@ -154,23 +238,35 @@ public class DeviceDataManager implements IDataMessageListener
 
 	/**
 	 * Handles incoming sensor data, converts it to JSON, and triggers upstream transmission.
+	 * If the rules engine is enabled, each reading is first checked against its rules.
+	 * If aggregation is enabled, only the statistics of each sensor's aggregation windows
+	 * are transmitted; otherwise, if deadband filtering is enabled, only the readings that
+	 * changed enough (or are heartbeats) are transmitted.
 	 */
 	@Override
 	public boolean handleSensorMessage(ResourceNameEnum resourceName, SensorData data)
 	{
 		if (data != null) {
-			_Logger.info("Handling sensor message: " + data.getName());
-			
+			// the message is only built if INFO is enabled (e.g. not when ingest is quietened)
+			if (_Logger.isLoggable(Level.INFO)) {
+				_Logger.info("Handling sensor message: " + data.getName());
+			}
 			
 			if (data.hasError()) {
 				_Logger.warning("Error flag set for SensorData instance.");
 			}
 			
-			String sensorDataJson = DataUtil.getInstance().sensorDataToJson(data);
-						
-			handleUpstreamTransmission(resourceName, sensorDataJson, 1);
+			this.handleIncomingDataAnalysis(resourceName, data);
 			
-			return true;
+			if (this.sensorAggregator != null && this.sensorAggregator.addSample(data)) {
+				return true;
+			}
+			
+			if (this.deadbandFilter != null && ! this.deadbandFilter.accept(data)) {
+				return true;
+			}
+			
+			return submitMessage(resourceName, data);
 		} else {
 			return false;
 		}
@@ -178,6 +274,7 @@ public class DeviceDataManager implements IDataMessageListener
 
 	/**
 	 * Handles incoming system performance data, converts it to JSON, and triggers upstream transmission.
+	 * If aggregation is enabled, only the summaries of the aggregation windows are transmitted.
 	 */
 	@Override
 	public boolean handleSystemPerformanceMessage(ResourceNameEnum resourceName, SystemPerformanceData data)
@@ -189,11 +286,15 @@ public class DeviceDataManager implements IDataMessageListener
 				_Logger.warning("Error flag set for SystemPerformanceData instance.");
 			}
 			
-			String performanceDataJson = DataUtil.getInstance().systemPerformanceDataToJson(data);
-									
-			handleUpstreamTransmission(resourceName, performanceDataJson, 1);
+			this.handleIncomingDataAnalysis(resourceName, data);
 			
-			return true;
+			if (this.sysPerfAggregator != null) {
+				this.sysPerfAggregator.addSample(data);
+				
+				return true;
+			}
+			
+			return submitMessage(resourceName, data);
 		} else {
 			return false;
 		}
@@ -201,11 +302,39 @@ public class DeviceDataManager implements IDataMessageListener
 
 	
 	/**
-	 * Sets the actuator data listener (not fully implemented yet).
+	 * Sets the listener for actuator commands issued locally by the rules engine
+	 * (in addition to their being published to the CDA).
 	 */
 	public void setActuatorDataListener(String name, IActuatorDataListener listener)
 	{
-		// TODO: Implement this method
+		this.actuatorDataListener = listener;
+	}
+	
+	/**
+	 * Adds a listener that receives all data passed to this manager by its
+	 * clients and the system performance manager, on its own thread, so a
+	 * slow listener (e.g. analytics) doesn't delay this manager. The data
+	 * is shared, and must not be modified. Additional listeners are stopped
+	 * with {@link #stopManager()}.
+	 * 
+	 * @param name The listener name, for its thread and metrics.
+	 * @param listener The listener to add.
+	 */
+	public void addDataMessageListener(String name, IDataMessageListener listener)
+	{
+		this.dataMsgListener.addListener(name, listener);
+	}
+	
+	/**
+	 * Adds an upstream destination, with its own batcher, in addition to the
+	 * enabled clients. Must be called before {@link #startManager()}.
+	 * 
+	 * @param name The destination name, also the prefix of its batching config keys.
+	 * @param sender The sender of each batch.
+	 */
+	public void addUpstreamDestination(String name, IBatchSender sender)
+	{
+		this.upstreamBatchers.add(new UpstreamBatcher(name, sender));
 	}
 	
 	/**
@@ -215,8 +344,24 @@ public class DeviceDataManager implements IDataMessageListener
 	{
 		_Logger.info("DeviceDataManager is starting...");
 		
+		if (this.cloudClient != null) {
+			_Logger.info("Cloud client connection result: " + this.cloudClient.connectClient());
+		}
+		
+		if (this.persistenceClient != null) {
+			_Logger.info("Persistence client connection result: " + this.persistenceClient.connectClient());
+		}
+		
+		for (UpstreamBatcher batcher : this.upstreamBatchers) {
+			batcher.start();
+		}
+		
+		if (this.dataPipeline != null) {
+			this.dataPipeline.start();
+		}
+		
 		try {
-			if ( this.sysPerfMgr.startManager()) {
+			if (this.sysPerfMgr == null || this.sysPerfMgr.startManager()) {
 				_Logger.info("Device Data Manager started successfully.");
 			} else {
 				_Logger.warning("Failed to start system performance manager!");;
@@ -239,10 +384,6 @@ public class DeviceDataManager implements IDataMessageListener
 			// Optional: Implement CoAP server start logic here
 		}
 
-		if (this.enableCloudClient) {
-			// Optional: Implement Cloud client connection logic here
-		}
-
 		_Logger.info("DeviceDataManager started.");
 	}
 	
@@ -253,6 +394,52 @@ public class DeviceDataManager implements IDataMessageListener
 	{
 		_Logger.info("DeviceDataManager is stopping...");
 
+		// stop the GDA's own producer first, so its last samples are included below
+		if (this.sysPerfMgr != null) {
+			try  {
+				if (this.sysPerfMgr.stopManager()) {
+					_Logger.info("Device Data Manager stopped successfully.");
+				} else {
+					_Logger.warning("Failed to stop the system performance manager!");
+				}
+			} catch (Exception e) {
+				_Logger.log(Level.SEVERE, "Failed to cleanly stop Device Dat amanager. Exiting.", e);
+			}
+		}
+
+		// send the results of the current (partial) aggregation windows
+		if (this.sysPerfAggregator != null) {
+			this.sysPerfAggregator.flush();
+		}
+		
+		if (this.sensorAggregator != null) {
+			this.sensorAggregator.flush();
+		}
+
+		// let the data path hand all queued messages (including the flushed
+		// windows above) to the upstream batchers, which send what they hold
+		// when stopped; all before the clients are disconnected
+		if (this.dataPipeline != null) {
+			this.dataPipeline.drain(STOP_TIMEOUT_MILLIS);
+			this.dataPipeline.stop();
+		}
+		
+		if (this.messageExecutor != null) {
+			this.messageExecutor.shutdown();
+			
+			try {
+				if (! this.messageExecutor.awaitTermination(STOP_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+					_Logger.warning("Message executor not terminated within " + STOP_TIMEOUT_MILLIS + " ms.");
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+		
+		for (UpstreamBatcher batcher : this.upstreamBatchers) {
+			batcher.stop();
+		}
+
 		if (this.enableMqttClient) {
 			if (this.mqttClient != null && this.mqttClient instanceof MqttClientConnector) {
 				boolean mqttDisconnectResult = ((MqttClientConnector) this.mqttClient).disconnectClient();
@@ -264,27 +451,41 @@ public class DeviceDataManager implements IDataMessageListener
 			// Optional: Implement CoAP server stop logic here during relevant lab module
 		}
 
-		if (this.enableCloudClient) {
-			// Optional: Implement Cloud client disconnection logic here during relevant lab module
+		if (this.cloudClient != null) {
+			_Logger.info("Cloud client disconnection result: " + this.cloudClient.disconnectClient());
 		}
-
-		if (this.sysPerfMgr != null) {
-			try  {
-				if (this.sysPerfMgr.stopManager()) {
-					_Logger.info("Device Data Manager stopped successfully.");
-				} else {
-					_Logger.warning("Failed to stop the system performance manager!");
-				}
-			} catch (Exception e) {
-				_Logger.log(Level.SEVERE, "Failed to cleanly stop Device Dat amanager. Exiting.", e);
-			}
+		
+		if (this.persistenceClient != null) {
+			_Logger.info("Persistence client disconnection result: " + this.persistenceClient.disconnectClient());
 		}
 
+		// all producers are stopped; the additional listeners handle what's queued
+		this.dataMsgListener.shutdown();
+
 		_Logger.info("DeviceDataManager stopped.");
 	}
 	
 	// private methods
 	
+	/**
+	 * Reads the enablement of the data pipeline and the sensor and system
+	 * performance aggregation from the configuration.
+	 * 
+	 */
+	private void initDataPathConfig()
+	{
+		ConfigUtil configUtil = ConfigUtil.getInstance();
+		
+		this.enableDataPipeline =
+			configUtil.getBoolean(ConfigConst.GATEWAY_DEVICE, ConfigConst.ENABLE_DATA_PIPELINE_KEY);
+		
+		this.enableSysPerfAggregation =
+			configUtil.getBoolean(ConfigConst.GATEWAY_DEVICE, ConfigConst.ENABLE_SYS_PERF_AGG_KEY);
+		
+		this.enableSensorAggregation =
+			configUtil.getBoolean(ConfigConst.GATEWAY_DEVICE, ConfigConst.ENABLE_SENSOR_AGG_KEY);
+	}
+	
 	/**
 	 * Initializes the enabled connections. This will NOT start them, but only create the
 	 * instances that will be used in the {@link #startManager() and #stopManager()) methods.
@@ -294,16 +495,59 @@ public class DeviceDataManager implements IDataMessageListener
 	{
 		ConfigUtil configUtil = ConfigUtil.getInstance();
 		
-		this.enableSystemPerf =
-			configUtil.getBoolean(ConfigConst.GATEWAY_DEVICE,  ConfigConst.ENABLE_SYSTEM_PERF_KEY);
+		this.enableUpstreamPubSub =
+			configUtil.getBoolean(ConfigConst.GATEWAY_DEVICE, ConfigConst.ENABLE_UPSTREAM_PUB_SUB_KEY);
+		
+		// this manager is called on the producer's thread, any additional
+		// listeners on their own
+		this.dataMsgListener = new CompositeDataMessageListener(this);
+		
+		if (this.enableDataPipeline) {
+			this.dataPipeline = new DataPipeline(this::handleUpstreamTransmission);
+		} else if (ExecutorUtil.getInstance().isVirtualThreadModeEnabled()) {
+			// without the pipeline, each message (including any blocking upstream
+			// I/O, such as persistence or SMTP) is handled on its own virtual thread
+			this.messageExecutor = ExecutorUtil.getInstance().newTaskExecutor("DeviceDataManager-msg");
+		}
+		
+		if (this.enableSysPerfAggregation) {
+			this.sysPerfAggregator =
+				new SystemPerformanceAggregator(
+					summary -> submitMessage(ResourceNameEnum.GDA_SYSTEM_PERF_MSG_RESOURCE, summary));
+		}
+		
+		if (this.enableSensorAggregation) {
+			this.sensorAggregator = new SensorAggregator(this::handleSensorAggregate);
+		}
+		
+		if (configUtil.getBoolean(ConfigConst.GATEWAY_DEVICE, ConfigConst.ENABLE_DEADBAND_FILTER_KEY)) {
+			this.deadbandFilter = new DeadbandFilter();
+		}
+		
+		if (configUtil.getBoolean(ConfigConst.GATEWAY_DEVICE, ConfigConst.ENABLE_RULES_ENGINE_KEY)) {
+			this.rulesEngine = new RulesEngine(this::handleActuatorCommand);
+		}
 		
 		if (this.enableSystemPerf) {
 			this.sysPerfMgr = new SystemPerformanceManager();
-			this.sysPerfMgr.setDataMessageListener(this);
+			this.sysPerfMgr.setDataMessageListener(this.dataMsgListener);
 		}
 		
+		// each upstream destination gets its own batcher, so a slow or
+		// failing destination can't hold back the others
 		if (this.enableMqttClient) {
-			// TODO: implement this in Lab Module 7
+			this.mqttClient = new MqttClientConnector();
+			this.mqttClient.setDataMessageListener(this.dataMsgListener);
+			
+			this.actuatorCmdQos =
+				configUtil.getInteger(
+					ConfigConst.MQTT_GATEWAY_SERVICE, ConfigConst.DEFAULT_QOS_KEY, ConfigConst.DEFAULT_QOS);
+			
+			if (this.enableUpstreamPubSub) {
+				this.upstreamBatchers.add(
+					new UpstreamBatcher(
+						ConfigConst.PUB_SUB_PREFIX, new PubSubBatchSender(this.mqttClient, this.actuatorCmdQos)));
+			}
 		}
 		
 		if (this.enableCoapServer) {
@@ -311,34 +555,191 @@ public class DeviceDataManager implements IDataMessageListener
 		}
 		
 		if (this.enableCloudClient) {
-			// TODO: implement this in Lab Module 10
+			this.cloudClient = new CloudClientConnector();
+			this.cloudClient.setDataMessageListener(this.dataMsgListener);
+			
+			this.upstreamBatchers.add(
+				new UpstreamBatcher(ConfigConst.CLOUD_PREFIX, new CloudBatchSender(this.cloudClient)));
 		}
 		
 		if (this.enablePersistenceClient) {
-			// TODO: implement this as an optional exercise in Lab Module 5
+			this.persistenceClient = new RedisPersistenceAdapter();
+			
+			this.upstreamBatchers.add(
+				new UpstreamBatcher(
+					ConfigConst.PERSISTENCE_PREFIX,
+					new PersistenceBatchSender(this.persistenceClient, ConfigConst.DEFAULT_QOS)));
+		}
+	}
+	
+	/**
+	 * Sends an actuator command issued by the rules engine to the CDA, and to
+	 * the actuator data listener, if set. Called on the thread that handled
+	 * the triggering data, so the command isn't queued behind upstream traffic.
+	 * 
+	 * @param data The actuator command.
+	 */
+	private void handleActuatorCommand(ActuatorData data)
+	{
+		_Logger.info("Sending actuator command: " + data.getName() + ", command=" + data.getCommand());
+		
+		if (this.actuatorDataListener != null) {
+			this.actuatorDataListener.onActuatorDataUpdate(data);
+		}
+		
+		if (this.mqttClient != null) {
+			String jsonData = DataUtil.getInstance().actuatorDataToJson(data);
+			
+			if (! this.mqttClient.publishMessage(ResourceNameEnum.CDA_ACTUATOR_CMD_RESOURCE, jsonData, this.actuatorCmdQos)) {
+				_Logger.warning("Failed to publish actuator command: " + data.getName());
+			}
 		}
 	}
 	
-	// Private method for future implementation
+	/**
+	 * Passes an actuator response to the rules engine, so a failed command is
+	 * sent again.
+	 */
 	private void handleIncomingDataAnalysis(ResourceNameEnum resourceName, ActuatorData data)
 	{
 		_Logger.fine("Handling incoming data analysis for actuator: " + data.getName());
-		// TODO: Implement logic for handling incoming actuator data analysis
+		
+		if (this.rulesEngine != null && data.isResponseFlagEnabled()) {
+			this.rulesEngine.handleActuatorResponse(data);
+		}
+	}
+
+	/**
+	 * Checks a sensor reading against the rules engine's rules.
+	 */
+	private void handleIncomingDataAnalysis(ResourceNameEnum resourceName, SensorData data)
+	{
+		if (this.rulesEngine != null) {
+			this.rulesEngine.evaluate(data);
+		}
+	}
+
+	/**
+	 * Checks system performance data against the rules engine's rules.
+	 */
+	private void handleIncomingDataAnalysis(ResourceNameEnum resourceName, SystemPerformanceData data)
+	{
+		if (this.rulesEngine != null) {
+			this.rulesEngine.evaluate(data);
+		}
 	}
 
-	// Private method for future implementation
+	/**
+	 * Checks the sensor readings and system performance data in system state
+	 * data against the rules engine's rules.
+	 */
 	private void handleIncomingDataAnalysis(ResourceNameEnum resourceName, SystemStateData data)
 	{
 		_Logger.fine("Handling incoming data analysis for system state: " + data.getName());
-		// TODO: Implement logic for handling incoming system state data analysis
+		
+		if (this.rulesEngine != null) {
+			this.rulesEngine.evaluate(data);
+		}
 	}
 
-	// Private method for future implementation
-	private boolean handleUpstreamTransmission(ResourceNameEnum resourceName, String jsonData, int qos)
+	/**
+	 * Transmits the statistics of a sensor's aggregation window upstream, as
+	 * sensor data, which all upstream destinations support.
+	 * 
+	 * @param data The statistics of the window.
+	 */
+	private void handleSensorAggregate(SystemStateData data)
+	{
+		for (SensorData stat : data.getSensorDataList()) {
+			submitMessage(ResourceNameEnum.CDA_SENSOR_MSG_RESOURCE, stat);
+		}
+	}
+	
+	/**
+	 * Handles the given message on the message executor, releasing the
+	 * calling (MQTT / CoAP) thread.
+	 * 
+	 * @param resourceName The resource the data was received on.
+	 * @param data The data. Must not be modified or re-used by the caller.
+	 * @return boolean True if dispatched; false if the executor is shut down.
+	 */
+	private boolean dispatchMessage(ResourceNameEnum resourceName, BaseIotData data)
+	{
+		try {
+			this.messageExecutor.execute(() -> handleUpstreamTransmission(resourceName, data));
+			
+			return true;
+		} catch (RejectedExecutionException e) {
+			_Logger.warning("Message executor is shut down. Ignoring message for resource: " + resourceName);
+			
+			return false;
+		}
+	}
+	
+	/**
+	 * Hands the given message to the pipeline or message executor, if
+	 * enabled, so the (MQTT / CoAP) caller isn't held up; otherwise queues
+	 * it for upstream transmission on the calling thread.
+	 * 
+	 * @param resourceName The resource the data was received on.
+	 * @param data The data. Must not be modified or re-used by the caller.
+	 * @return boolean True if accepted.
+	 */
+	private boolean submitMessage(ResourceNameEnum resourceName, BaseIotData data)
+	{
+		if (this.dataPipeline != null) {
+			return this.dataPipeline.submit(resourceName, data);
+		}
+		
+		if (this.messageExecutor != null) {
+			return dispatchMessage(resourceName, data);
+		}
+		
+		handleUpstreamTransmission(resourceName, data);
+		
+		return true;
+	}
+	
+	/**
+	 * Encodes the given data to JSON and queues it for upstream
+	 * transmission. If no upstream destination is enabled, the data is
+	 * ignored without being encoded.
+	 * 
+	 * @param resourceName The resource the data was received on.
+	 * @param data The data. Must not be modified or re-used by the caller.
+	 * @return boolean True if queued for at least one destination.
+	 */
+	private boolean handleUpstreamTransmission(ResourceNameEnum resourceName, BaseIotData data)
+	{
+		if (this.upstreamBatchers.isEmpty()) {
+			return false;
+		}
+		
+		PipelineMessage msg = new PipelineMessage(resourceName, data);
+		msg.setJsonData(DataUtil.getInstance().dataToJson(data));
+		
+		return handleUpstreamTransmission(msg);
+	}
+	
+	/**
+	 * Queues the given (already JSON encoded) message with each upstream
+	 * destination's batcher. This never blocks. Also used as the fan-out
+	 * stage handler for the data pipeline.
+	 * 
+	 * @param msg The message.
+	 * @return boolean True if queued for at least one destination.
+	 */
+	private boolean handleUpstreamTransmission(PipelineMessage msg)
 	{
-		_Logger.fine("Handling upstream transmission for resource: " + resourceName + ", QoS: " + qos);
-		// TODO: Implement logic for handling upstream transmission (e.g., publish to the cloud service)
-		return false;
+		_Logger.log(Level.FINE, "Handling upstream transmission for resource: {0}", msg.getResourceName());
+		
+		boolean success = false;
+		
+		for (UpstreamBatcher batcher : this.upstreamBatchers) {
+			success |= batcher.submit(msg);
+		}
+		
+		return success;
 	}
 	
 }
@@ -111,6 +111,10 @@ public class GatewayDeviceApp
 				this.dataMgr.startManager();
 			}
 			
+			if (ConfigUtil.getInstance().getBoolean(ConfigConst.GATEWAY_DEVICE, ConfigConst.ENABLE_CONFIG_WATCH_KEY)) {
+				ConfigUtil.getInstance().startConfigWatcher();
+			}
+			
 			_Logger.info("GDA started successfully.");
 		} catch (Exception e) {
 			_Logger.log(Level.SEVERE, "Failed to start GDA. Exiting.", e);
@@ -130,6 +134,8 @@ public class GatewayDeviceApp
 		_Logger.info("Stopping GDA...");
 		
 		try {
+			ConfigUtil.getInstance().stopConfigWatcher();
+			
 			if (this.dataMgr != null) {
 				this.dataMgr.stopManager();
 			}
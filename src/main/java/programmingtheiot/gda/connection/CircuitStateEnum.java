@@ -0,0 +1,33 @@
+/**
+ * This class is part of the Programming the Internet of Things
+ * project, and is available via the MIT License, which can be
+ * found in the LICENSE file at the top level of this repository.
+ *
+ * Copyright (c) 2020 by Andrew D. King
+ */
+
+package programmingtheiot.gda.connection;
+
+/**
+ * Circuit breaker states used by {@link ReconnectScheduler}.
+ *
+ */
+public enum CircuitStateEnum
+{
+	/**
+	 * Reconnect attempts are made with exponential backoff.
+	 */
+	CLOSED,
+
+	/**
+	 * Too many consecutive attempts failed; no attempts are made until
+	 * the open interval has passed.
+	 */
+	OPEN,
+
+	/**
+	 * The open interval has passed; a single trial attempt is made,
+	 * which either closes the circuit or opens it again.
+	 */
+	HALF_OPEN;
+}
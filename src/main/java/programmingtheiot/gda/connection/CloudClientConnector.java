@@ -8,18 +8,23 @@
 
 package programmingtheiot.gda.connection;
 
-import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import programmingtheiot.common.ConfigConst;
 import programmingtheiot.common.ConfigUtil;
 import programmingtheiot.common.IDataMessageListener;
 import programmingtheiot.common.ResourceNameEnum;
+import programmingtheiot.data.DataUtil;
 import programmingtheiot.data.SensorData;
 import programmingtheiot.data.SystemPerformanceData;
 
 /**
- * Shell representation of class for student implementation.
+ * Cloud client, which publishes edge data as JSON to the cloud service's
+ * MQTT broker, configured by the {@link ConfigConst#CLOUD_GATEWAY_SERVICE}
+ * section.
+ * <p>
+ * Connection handling, including reconnects with backoff, jitter and a
+ * circuit breaker, is delegated to an {@link MqttClientConnector}.
  *
  */
 public class CloudClientConnector implements ICloudClient
@@ -31,6 +36,8 @@ public class CloudClientConnector implements ICloudClient
 	
 	// private var's
 	
+	private MqttClientConnector mqttClient = null;
+	private int qos = ConfigConst.DEFAULT_QOS;
 	
 	// constructors
 	
@@ -42,6 +49,10 @@ public class CloudClientConnector implements ICloudClient
 	{
 		super();
 		
+		this.mqttClient = new MqttClientConnector(ConfigConst.CLOUD_GATEWAY_SERVICE);
+		this.qos =
+			ConfigUtil.getInstance().getInteger(
+				ConfigConst.CLOUD_GATEWAY_SERVICE, ConfigConst.DEFAULT_QOS_KEY, ConfigConst.DEFAULT_QOS);
 	}
 	
 	
@@ -50,43 +61,77 @@ public class CloudClientConnector implements ICloudClient
 	@Override
 	public boolean connectClient()
 	{
-		return false;
+		return this.mqttClient.connectClient();
 	}
 
 	@Override
 	public boolean disconnectClient()
 	{
-		return false;
+		return this.mqttClient.disconnectClient();
+	}
+
+	/**
+	 * Returns the reconnect scheduler, e.g. for its metrics.
+	 *
+	 * @return ReconnectScheduler
+	 */
+	public ReconnectScheduler getReconnectScheduler()
+	{
+		return this.mqttClient.getReconnectScheduler();
 	}
 
 	@Override
 	public boolean setDataMessageListener(IDataMessageListener listener)
 	{
-		return false;
+		return this.mqttClient.setDataMessageListener(listener);
 	}
 
 	@Override
 	public boolean sendEdgeDataToCloud(ResourceNameEnum resource, SensorData data)
 	{
-		return false;
+		if (resource == null || data == null) {
+			_Logger.warning("Resource or data is null. Ignoring.");
+			
+			return false;
+		}
+		
+		return this.mqttClient.publishMessage(resource, DataUtil.getInstance().sensorDataToJson(data), this.qos);
 	}
 
 	@Override
 	public boolean sendEdgeDataToCloud(ResourceNameEnum resource, SystemPerformanceData data)
 	{
-		return false;
+		if (resource == null || data == null) {
+			_Logger.warning("Resource or data is null. Ignoring.");
+			
+			return false;
+		}
+		
+		return this.mqttClient.publishMessage(resource, DataUtil.getInstance().systemPerformanceDataToJson(data), this.qos);
+	}
+
+	@Override
+	public boolean sendEdgeDataToCloud(ResourceNameEnum resource, String jsonData)
+	{
+		if (resource == null || jsonData == null) {
+			_Logger.warning("Resource or data is null. Ignoring.");
+			
+			return false;
+		}
+		
+		return this.mqttClient.publishMessage(resource, jsonData, this.qos);
 	}
 
 	@Override
 	public boolean subscribeToCloudEvents(ResourceNameEnum resource)
 	{
-		return false;
+		return this.mqttClient.subscribeToTopic(resource, this.qos);
 	}
 
 	@Override
 	public boolean unsubscribeFromCloudEvents(ResourceNameEnum resource)
 	{
-		return false;
+		return this.mqttClient.unsubscribeFromTopic(resource);
 	}
 	
 	
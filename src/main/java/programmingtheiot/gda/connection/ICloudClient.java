@@ -57,6 +57,18 @@ public interface ICloudClient
 	 */
 	public boolean sendEdgeDataToCloud(ResourceNameEnum resource, SystemPerformanceData data);
 
+	/**
+	 * Attempts to send the given, already encoded, JSON payload (e.g. a JSON
+	 * array of a batch of data instances) to the remote cloud service.
+	 * This will default to the pre-configured QoS level set in the configuration
+	 * for the cloud service.
+	 * 
+	 * @param resource The resource enum to use for this send request.
+	 * @param jsonData The JSON payload to publish to the remote cloud service.
+	 * @return bool True on success, False otherwise.
+	 */
+	public boolean sendEdgeDataToCloud(ResourceNameEnum resource, String jsonData);
+
 	/**
 	 * Attempts to subscribe to events destined for edge consumption that are
 	 * sent by the remote cloud service.
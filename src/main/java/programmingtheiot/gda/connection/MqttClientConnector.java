@@ -1,156 +1,935 @@
 /**
  * This class is part of the Programming the Internet of Things project.
- * 
+ *
  * It is provided as a simple shell to guide the student and assist with
  * implementation for the Programming the Internet of Things exercises,
  * and designed to be modified by the student as needed.
- */ 
+ */
 
 package programmingtheiot.gda.connection;
 
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
+import javax.net.ssl.SSLSocketFactory;
+
+import org.eclipse.paho.client.mqttv3.IMqttActionListener;
 import org.eclipse.paho.client.mqttv3.IMqttDeliveryToken;
+import org.eclipse.paho.client.mqttv3.IMqttToken;
+import org.eclipse.paho.client.mqttv3.MqttAsyncClient;
 import org.eclipse.paho.client.mqttv3.MqttCallbackExtended;
 import org.eclipse.paho.client.mqttv3.MqttClient;
 import org.eclipse.paho.client.mqttv3.MqttConnectOptions;
 import org.eclipse.paho.client.mqttv3.MqttException;
 import org.eclipse.paho.client.mqttv3.MqttMessage;
-import org.eclipse.paho.client.mqttv3.MqttPersistenceException;
-import org.eclipse.paho.client.mqttv3.MqttSecurityException;
 import org.eclipse.paho.client.mqttv3.persist.MemoryPersistence;
 
 import programmingtheiot.common.ConfigConst;
 import programmingtheiot.common.ConfigUtil;
+import programmingtheiot.common.DataHandlerRegistry;
+import programmingtheiot.common.ExecutorUtil;
+import programmingtheiot.common.IConfigChangeListener;
 import programmingtheiot.common.IDataMessageListener;
+import programmingtheiot.common.PayloadFormatEnum;
 import programmingtheiot.common.ResourceNameEnum;
+import programmingtheiot.common.SimpleCertManagementUtil;
+import programmingtheiot.data.DataUtil;
 
 /**
- * Shell representation of class for student implementation.
- * 
+ * MQTT v3.1.1 client, built on Paho's {@link MqttAsyncClient}.
+ * <p>
+ * {@link #publishMessage(ResourceNameEnum, String, int)} never waits for
+ * QoS 1 / 2 acknowledgements: the publish is handed to the client, and
+ * the ack is handled on the client's callback thread. The number of
+ * un-acknowledged publishes is limited to the configured max in-flight
+ * window; once it's reached, publishMessage() waits (up to the configured
+ * in-flight wait time) for an ack before failing, so a slow broker
+ * throttles the publisher instead of exhausting memory. QoS 0 publishes
+ * aren't acknowledged, so they aren't counted: Paho queues them without
+ * a limit, so QoS 0 publishers are never throttled.
+ * <p>
+ * Connect, disconnect, subscribe and unsubscribe are control operations,
+ * and wait for their result. If the connection is lost (or the initial
+ * connect fails), reconnect attempts are made in the background by a
+ * {@link ReconnectScheduler}, until {@link #disconnectClient()} is called.
+ * <p>
+ * If the spool is enabled, publishes made while disconnected are written
+ * to a {@link MqttPublishSpool} instead of failing, and replayed in order,
+ * rate limited, on a background thread once (re)connected. Until the spool
+ * has drained, new publishes are spooled too, so publish order is kept.
+ * The spool is closed by {@link #disconnectClient()}, and re-opened on the
+ * next connect; publishes made in between aren't spooled.
+ * <p>
+ * While connected (or reconnecting), config reloads of the client's
+ * section update the default QoS, the in-flight wait time and the max
+ * in-flight window. A new window size takes effect on the next connect,
+ * as Paho's own limit is fixed for the life of a connection.
+ *
  */
-public class MqttClientConnector implements IPubSubClient, MqttCallbackExtended
+public class MqttClientConnector implements IPubSubClient, IConfigChangeListener, MqttCallbackExtended
 {
 	// static
-	
+
 	private static final Logger _Logger =
 		Logger.getLogger(MqttClientConnector.class.getName());
-	
+
 	// params
-	
-	
+
+	private String configSectionName = ConfigConst.MQTT_GATEWAY_SERVICE;
+
+	private MqttAsyncClient      mqttClient = null;
+	private MqttConnectOptions   connOpts = null;
+	private MemoryPersistence    persistence = null;
+	private IDataMessageListener dataMsgListener = null;
+	private DataHandlerRegistry  handlerRegistry = new DataHandlerRegistry();
+
+	private String clientID = null;
+	private String brokerAddr = null;
+	private String host = ConfigConst.DEFAULT_HOST;
+	private String protocol = ConfigConst.DEFAULT_MQTT_PROTOCOL;
+	private int    port = ConfigConst.DEFAULT_MQTT_PORT;
+	private int    brokerKeepAlive = ConfigConst.DEFAULT_KEEP_ALIVE;
+
+	// may be updated on config reload
+	private volatile int  defaultQos = ConfigConst.DEFAULT_QOS;
+	private volatile int  maxInflight = ConfigConst.DEFAULT_MAX_INFLIGHT;
+	private volatile long inflightWaitMillis = ConfigConst.DEFAULT_INFLIGHT_WAIT_MILLIS;
+
+	// replaced, with its permits, on each (re)connect, so acks for publishes
+	// made on an earlier connection can't release permits of the current one
+	private volatile InflightListener inflightListener = null;
+
+	private ReconnectScheduler reconnectScheduler = null;
+
+	// null while spooling is disabled, or the client has been disconnected
+	private volatile MqttPublishSpool spool = null;
+	private ThreadFactory    replayThreadFactory = null;
+	private int              spoolReplayRate = ConfigConst.DEFAULT_SPOOL_REPLAY_RATE;
+
+	private final AtomicBoolean isReplaying = new AtomicBoolean(false);
+
+
 	// constructors
-	
+
 	/**
-	 * Default.
-	 * 
+	 * Default. Uses the {@link ConfigConst#MQTT_GATEWAY_SERVICE} section.
+	 *
 	 */
 	public MqttClientConnector()
+	{
+		this(ConfigConst.MQTT_GATEWAY_SERVICE);
+	}
+
+	/**
+	 * Constructor.
+	 *
+	 * @param configSectionName The name of the configuration section to use for
+	 * the MQTT client configuration parameters.
+	 */
+	public MqttClientConnector(String configSectionName)
 	{
 		super();
+
+		if (configSectionName != null && configSectionName.trim().length() > 0) {
+			this.configSectionName = configSectionName;
+		}
+
+		initClientParameters(this.configSectionName);
 	}
-	
-	
+
+
 	// public methods
-	
+
 	@Override
 	public boolean connectClient()
 	{
+		// pick up any changes made while disconnected
+		initPublishParameters(this.configSectionName);
+		ConfigUtil.getInstance().addConfigChangeListener(this);
+
+		// closed by an earlier disconnect
+		if (this.spool == null && ConfigUtil.getInstance().getBoolean(this.configSectionName, ConfigConst.ENABLE_SPOOL_KEY)) {
+			initSpool(this.configSectionName);
+		}
+
+		this.reconnectScheduler.enable();
+
+		if (isConnected()) {
+			_Logger.warning("MQTT client already connected to broker: " + this.brokerAddr);
+
+			return false;
+		}
+
+		if (attemptConnect()) {
+			this.reconnectScheduler.notifyConnected();
+
+			return true;
+		}
+
+		// keep trying in the background
+		this.reconnectScheduler.scheduleReconnect();
+
 		return false;
 	}
 
 	@Override
 	public boolean disconnectClient()
 	{
-		return false;
+		ConfigUtil.getInstance().removeConfigChangeListener(this);
+
+		this.reconnectScheduler.disable();
+
+		boolean success = false;
+
+		try {
+			if (this.mqttClient != null && this.mqttClient.isConnected()) {
+				_Logger.info("Disconnecting MQTT client from broker: " + this.brokerAddr);
+
+				this.mqttClient.disconnect().waitForCompletion(getConnectTimeoutMillis());
+
+				success = true;
+			} else {
+				_Logger.warning("MQTT client not connected to broker: " + this.brokerAddr);
+			}
+		} catch (MqttException e) {
+			_Logger.log(Level.SEVERE, "Failed to disconnect MQTT client from broker: " + this.brokerAddr, e);
+		}
+
+		// once disconnected, so the replay thread stops
+		closeSpool();
+
+		return success;
 	}
 
+	/**
+	 * Returns true if the client is connected to the broker.
+	 *
+	 * @return boolean
+	 */
 	public boolean isConnected()
 	{
-		return false;
+		return (this.mqttClient != null && this.mqttClient.isConnected());
 	}
-	
+
+	/**
+	 * Returns the number of QoS 1 / 2 publishes awaiting an ack.
+	 *
+	 * @return int
+	 */
+	public int getInflightCount()
+	{
+		InflightListener listener = this.inflightListener;
+
+		return listener.window - listener.permits.availablePermits();
+	}
+
+	/**
+	 * Returns the reconnect scheduler, e.g. for its metrics.
+	 *
+	 * @return ReconnectScheduler
+	 */
+	public ReconnectScheduler getReconnectScheduler()
+	{
+		return this.reconnectScheduler;
+	}
+
+	/**
+	 * Returns the number of spooled publishes awaiting replay.
+	 *
+	 * @return long The count, or 0 if the spool isn't enabled.
+	 */
+	public long getSpooledCount()
+	{
+		MqttPublishSpool spool = this.spool;
+
+		return (spool != null ? spool.getPendingCount() : 0L);
+	}
+
+	/**
+	 * Re-reads the default QoS and the in-flight parameters if the client's
+	 * config section changed.
+	 *
+	 * @param changedSections The changed config section names.
+	 */
+	@Override
+	public void handleConfigChange(Set<String> changedSections)
+	{
+		if (changedSections.contains(this.configSectionName)) {
+			initPublishParameters(this.configSectionName);
+		}
+	}
+
 	@Override
 	public boolean publishMessage(ResourceNameEnum topicName, String msg, int qos)
 	{
-		return false;
+		if (topicName == null) {
+			_Logger.warning("Resource is null. Unable to publish message: " + this.brokerAddr);
+
+			return false;
+		}
+
+		if (msg == null || msg.length() == 0) {
+			_Logger.warning("Message is null or empty. Unable to publish message: " + this.brokerAddr);
+
+			return false;
+		}
+
+		return publishMessage(topicName.getResourceName(), msg.getBytes(StandardCharsets.UTF_8), qos);
 	}
 
 	@Override
 	public boolean subscribeToTopic(ResourceNameEnum topicName, int qos)
 	{
+		if (topicName == null) {
+			_Logger.warning("Resource is null. Unable to subscribe: " + this.brokerAddr);
+
+			return false;
+		}
+
+		if (! isConnected()) {
+			_Logger.warning("MQTT client not connected. Unable to subscribe: " + topicName.getResourceName());
+
+			return false;
+		}
+
+		try {
+			this.mqttClient.subscribe(topicName.getResourceName(), getValidQos(qos)).waitForCompletion(getConnectTimeoutMillis());
+
+			_Logger.info("Successfully subscribed to topic: " + topicName.getResourceName());
+
+			return true;
+		} catch (MqttException e) {
+			_Logger.log(Level.WARNING, "Failed to subscribe to topic: " + topicName.getResourceName(), e);
+		}
+
 		return false;
 	}
 
 	@Override
 	public boolean unsubscribeFromTopic(ResourceNameEnum topicName)
 	{
+		if (topicName == null) {
+			_Logger.warning("Resource is null. Unable to unsubscribe: " + this.brokerAddr);
+
+			return false;
+		}
+
+		if (! isConnected()) {
+			_Logger.warning("MQTT client not connected. Unable to unsubscribe: " + topicName.getResourceName());
+
+			return false;
+		}
+
+		try {
+			this.mqttClient.unsubscribe(topicName.getResourceName()).waitForCompletion(getConnectTimeoutMillis());
+
+			_Logger.info("Successfully unsubscribed from topic: " + topicName.getResourceName());
+
+			return true;
+		} catch (MqttException e) {
+			_Logger.log(Level.WARNING, "Failed to unsubscribe from topic: " + topicName.getResourceName(), e);
+		}
+
 		return false;
 	}
 
+	/**
+	 * Returns the registry incoming messages are dispatched to, so
+	 * typed handlers can be registered alongside (or instead of) the
+	 * data message listener.
+	 *
+	 * @return DataHandlerRegistry
+	 */
+	public DataHandlerRegistry getDataHandlerRegistry()
+	{
+		return this.handlerRegistry;
+	}
+
 	@Override
 	public boolean setDataMessageListener(IDataMessageListener listener)
 	{
+		if (listener != null) {
+			if (this.dataMsgListener != null) {
+				this.handlerRegistry.removeHandlers(this.dataMsgListener);
+			}
+
+			this.dataMsgListener = listener;
+			this.handlerRegistry.addListener(listener);
+
+			return true;
+		}
+
 		return false;
 	}
-	
+
 	// callbacks
-	
+
 	@Override
 	public void connectComplete(boolean reconnect, String serverURI)
 	{
+		_Logger.info("MQTT connection successful (is reconnect = " + reconnect + "). Broker: " + serverURI);
+
+		// the in-flight window was reset by attemptConnect(); Paho's own
+		// automatic reconnect (the only case where 'reconnect' is true)
+		// is disabled
+
+		// also on the initial connect, as the spool may hold publishes
+		// from an earlier run
+		startSpoolReplay();
+
+		// the CDA topics are only published to the local broker
+		if (this.dataMsgListener != null && ConfigConst.MQTT_GATEWAY_SERVICE.equals(this.configSectionName)) {
+			// don't wait on the callback thread; the result is logged by Paho
+			subscribeAsync(ResourceNameEnum.CDA_ACTUATOR_RESPONSE_RESOURCE);
+			subscribeAsync(ResourceNameEnum.CDA_SENSOR_MSG_RESOURCE);
+			subscribeAsync(ResourceNameEnum.CDA_SYSTEM_PERF_MSG_RESOURCE);
+		}
 	}
 
 	@Override
 	public void connectionLost(Throwable t)
 	{
+		_Logger.log(Level.WARNING, "Lost connection to MQTT broker: " + this.brokerAddr, t);
+
+		this.reconnectScheduler.scheduleReconnect();
 	}
-	
+
 	@Override
 	public void deliveryComplete(IMqttDeliveryToken token)
 	{
+		// in-flight permits are released by the publish action listener
+		// instead, as it's also notified of failed deliveries
 	}
-	
+
 	@Override
 	public void messageArrived(String topic, MqttMessage msg) throws Exception
 	{
+		// never throw from here: Paho would drop the connection
+		try {
+			handleIncomingMessage(topic, msg.getPayload());
+		} catch (Exception e) {
+			_Logger.log(Level.WARNING, "Failed to handle message on topic: " + topic, e);
+		}
 	}
 
-	
+
 	// private methods
-	
+
+	/**
+	 * Decodes the payload (using the payload format configured for the
+	 * topic) to each payload type registered for the resource, and
+	 * dispatches it to the resource's handlers.
+	 *
+	 * @param topic The topic the message arrived on.
+	 * @param payload The message payload.
+	 * @return boolean True if any handler handled it; false otherwise.
+	 */
+	private boolean handleIncomingMessage(String topic, byte[] payload)
+	{
+		ResourceNameEnum resource = ResourceNameEnum.getEnumFromTopic(topic);
+
+		if (resource == null) {
+			_Logger.warning("Message arrived on unknown topic. Ignoring: " + topic);
+
+			return false;
+		}
+
+		if (this.handlerRegistry.getHandlerCount(resource) == 0) {
+			_Logger.fine("No data handlers. Ignoring message on topic: " + topic);
+
+			return false;
+		}
+
+		DataUtil dataUtil = DataUtil.getInstance();
+		PayloadFormatEnum format = dataUtil.getPayloadFormat(resource);
+
+		return this.handlerRegistry.dispatchPayload(resource, type -> dataUtil.payloadToObject(format, payload, type));
+	}
+
+	/**
+	 * Publishes the payload, or spools it if the spool is enabled and
+	 * either the client is disconnected or earlier publishes are still
+	 * waiting to be replayed.
+	 *
+	 * @param topic The topic to publish to.
+	 * @param payload The message payload.
+	 * @param qos The QoS level (0 - 2); the default QoS is used if invalid.
+	 * @return boolean True if handed to the client or spooled; false otherwise.
+	 */
+	private boolean publishMessage(String topic, byte[] payload, int qos)
+	{
+		MqttPublishSpool spool = this.spool;
+
+		if (spool != null) {
+			if (! isConnected() || ! spool.isEmpty()) {
+				return spoolMessage(spool, topic, payload, qos);
+			}
+
+			// the connection may drop while publishing
+			return (sendMessage(topic, payload, qos) || (! isConnected() && spoolMessage(spool, topic, payload, qos)));
+		}
+
+		return sendMessage(topic, payload, qos);
+	}
+
+	/**
+	 * Publishes the payload without waiting for the broker's ack. For
+	 * QoS 1 / 2, waits for an in-flight permit first.
+	 *
+	 * @param topic The topic to publish to.
+	 * @param payload The message payload.
+	 * @param qos The QoS level (0 - 2); the default QoS is used if invalid.
+	 * @return boolean True if handed to the client; false otherwise.
+	 */
+	private boolean sendMessage(String topic, byte[] payload, int qos)
+	{
+		if (! isConnected()) {
+			_Logger.warning("MQTT client not connected. Unable to publish to topic: " + topic);
+
+			return false;
+		}
+
+		int validQos = getValidQos(qos);
+		InflightListener listener = null;
+
+		// QoS 0 publishes aren't acked, so they don't take a permit
+		if (validQos > 0 && (listener = acquireInflightPermit()) == null) {
+			_Logger.warning(
+				"MQTT in-flight window full (" + this.inflightListener.window + "). Unable to publish to topic: " + topic);
+
+			return false;
+		}
+
+		try {
+			MqttMessage mqttMsg = new MqttMessage(payload);
+			mqttMsg.setQos(validQos);
+
+			this.mqttClient.publish(topic, mqttMsg, null, listener);
+
+			return true;
+		} catch (MqttException e) {
+			if (listener != null) {
+				listener.release();
+			}
+
+			_Logger.log(Level.WARNING, "Failed to publish message to topic: " + topic, e);
+		}
+
+		return false;
+	}
+
+	private boolean spoolMessage(MqttPublishSpool spool, String topic, byte[] payload, int qos)
+	{
+		boolean success = spool.append(topic, payload, getValidQos(qos));
+
+		if (success && isConnected()) {
+			// e.g. spooled just as the previous replay finished
+			startSpoolReplay();
+		}
+
+		return success;
+	}
+
+	/**
+	 * Starts the replay thread, unless it's already running or there's
+	 * nothing to replay.
+	 *
+	 */
+	private void startSpoolReplay()
+	{
+		MqttPublishSpool spool = this.spool;
+
+		if (spool != null && ! spool.isEmpty() && this.isReplaying.compareAndSet(false, true)) {
+			this.replayThreadFactory.newThread(() -> replaySpool(spool)).start();
+		}
+	}
+
+	/**
+	 * Closes the spool, if open. Unreplayed publishes stay on disk, and
+	 * are replayed after the next connect.
+	 *
+	 */
+	private void closeSpool()
+	{
+		MqttPublishSpool spool = this.spool;
+
+		if (spool != null) {
+			this.spool = null;
+
+			spool.close();
+
+			_Logger.info("Closed MQTT publish spool. Pending messages: " + spool.getPendingCount());
+		}
+	}
+
+	/**
+	 * Replays spooled publishes in order, at up to the configured replay
+	 * rate, until the spool is drained or a publish fails (e.g. as the
+	 * connection was lost, in which case replay resumes on reconnect).
+	 *
+	 * @param spool The spool to replay.
+	 */
+	private void replaySpool(MqttPublishSpool spool)
+	{
+		_Logger.info("Replaying spooled MQTT publishes: " + spool.getPendingCount());
+
+		long intervalNanos = TimeUnit.SECONDS.toNanos(1L) / this.spoolReplayRate;
+		long nextSendNanos = System.nanoTime();
+		long count = 0L;
+		boolean isDrained = false;
+
+		try {
+			while (isConnected()) {
+				MqttPublishSpool.SpooledMessage msg = spool.peek();
+
+				if (msg == null) {
+					isDrained = true;
+					break;
+				}
+
+				long delayNanos = nextSendNanos - System.nanoTime();
+
+				if (delayNanos > 0L) {
+					LockSupport.parkNanos(delayNanos);
+				}
+
+				if (! sendMessage(msg.getTopic(), msg.getPayload(), msg.getQos())) {
+					break;
+				}
+
+				spool.commit();
+
+				// no catch-up bursts after a stall (e.g. a full in-flight window)
+				nextSendNanos = Math.max(nextSendNanos, System.nanoTime() - intervalNanos) + intervalNanos;
+				count++;
+			}
+		} catch (Exception e) {
+			_Logger.log(Level.WARNING, "Failed to replay spooled MQTT publishes.", e);
+		} finally {
+			this.isReplaying.set(false);
+		}
+
+		_Logger.info(
+			"Replayed spooled MQTT publishes: " + count + ". Remaining: " + spool.getPendingCount());
+
+		if (isDrained && isConnected()) {
+			// a publish may have been spooled after the last peek()
+			startSpoolReplay();
+		}
+	}
+
+	/**
+	 * Makes a single attempt to connect. Used by {@link #connectClient()}
+	 * and the reconnect scheduler.
+	 *
+	 * @return boolean True if connected; false otherwise.
+	 */
+	private boolean attemptConnect()
+	{
+		try {
+			if (this.mqttClient == null) {
+				this.mqttClient = new MqttAsyncClient(this.brokerAddr, this.clientID, this.persistence);
+				this.mqttClient.setCallback(this);
+			}
+
+			if (this.mqttClient.isConnected()) {
+				return true;
+			}
+
+			_Logger.info("MQTT client connecting to broker: " + this.brokerAddr);
+
+			// Paho discards in-flight state for a clean session, so any acks
+			// still outstanding from an earlier connection will never arrive
+			resetInflightWindow();
+			this.connOpts.setMaxInflight(this.inflightListener.window);
+
+			this.mqttClient.connect(this.connOpts).waitForCompletion(getConnectTimeoutMillis());
+
+			return true;
+		} catch (MqttException e) {
+			_Logger.warning("Failed to connect MQTT client to broker: " + this.brokerAddr + ". " + e.getMessage());
+		}
+
+		return false;
+	}
+
+	/**
+	 * Acquires a permit of the current connection's in-flight window. If the
+	 * window is replaced (on reconnect) while waiting, the permit is handed
+	 * back and one of the new window is acquired instead, so each permit is
+	 * released to the window it was taken from.
+	 *
+	 * @return InflightListener The window the permit was acquired from, or
+	 * null if none was available in time.
+	 */
+	private InflightListener acquireInflightPermit()
+	{
+		long deadlineNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(this.inflightWaitMillis);
+
+		try {
+			while (true) {
+				InflightListener listener = this.inflightListener;
+				long waitNanos = Math.max(0L, deadlineNanos - System.nanoTime());
+
+				if (! listener.permits.tryAcquire(waitNanos, TimeUnit.NANOSECONDS)) {
+					return null;
+				}
+
+				if (listener == this.inflightListener) {
+					return listener;
+				}
+
+				listener.release();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+
+			return null;
+		}
+	}
+
+	/**
+	 * Starts a new, full in-flight window for a new connection.
+	 *
+	 */
+	private void resetInflightWindow()
+	{
+		InflightListener prevListener = this.inflightListener;
+
+		this.inflightListener = new InflightListener(this.maxInflight);
+
+		// wakes publishers waiting on the previous window, which then move to the new one
+		prevListener.permits.release(prevListener.window);
+	}
+
+	private long getConnectTimeoutMillis()
+	{
+		return TimeUnit.SECONDS.toMillis(this.connOpts.getConnectionTimeout());
+	}
+
+	private int getValidQos(int qos)
+	{
+		return (qos >= 0 && qos <= 2 ? qos : this.defaultQos);
+	}
+
+	private void subscribeAsync(ResourceNameEnum resource)
+	{
+		try {
+			this.mqttClient.subscribe(resource.getResourceName(), this.defaultQos);
+		} catch (MqttException e) {
+			_Logger.log(Level.WARNING, "Failed to subscribe to topic: " + resource.getResourceName(), e);
+		}
+	}
+
 	/**
 	 * Called by the constructor to set the MQTT client parameters to be used for the connection.
-	 * 
+	 *
 	 * @param configSectionName The name of the configuration section to use for
 	 * the MQTT client configuration parameters.
 	 */
 	private void initClientParameters(String configSectionName)
 	{
-		// TODO: implement this
+		ConfigUtil configUtil = ConfigUtil.getInstance();
+
+		this.host =
+			configUtil.getProperty(configSectionName, ConfigConst.HOST_KEY, ConfigConst.DEFAULT_HOST);
+		this.port =
+			configUtil.getInteger(configSectionName, ConfigConst.PORT_KEY, ConfigConst.DEFAULT_MQTT_PORT);
+		this.brokerKeepAlive =
+			configUtil.getInteger(configSectionName, ConfigConst.KEEP_ALIVE_KEY, ConfigConst.DEFAULT_KEEP_ALIVE);
+
+		initPublishParameters(configSectionName);
+
+		this.clientID    = MqttClient.generateClientId();
+		this.persistence = new MemoryPersistence();
+		this.connOpts    = new MqttConnectOptions();
+
+		this.connOpts.setKeepAliveInterval(this.brokerKeepAlive);
+		this.connOpts.setCleanSession(true);
+		// reconnects are made by the reconnect scheduler instead, as Paho's
+		// backoff has no jitter
+		this.connOpts.setAutomaticReconnect(false);
+
+		this.inflightListener = new InflightListener(this.maxInflight);
+
+		if (configUtil.getBoolean(configSectionName, ConfigConst.ENABLE_SPOOL_KEY)) {
+			initSpool(configSectionName);
+		}
+
+		if (configUtil.getBoolean(configSectionName, ConfigConst.ENABLE_CRYPT_KEY)) {
+			initSecureConnectionParameters(configSectionName);
+		}
+
+		if (configUtil.getBoolean(configSectionName, ConfigConst.ENABLE_AUTH_KEY)) {
+			initCredentialConnectionParameters(configSectionName);
+		}
+
+		this.brokerAddr = this.protocol + "://" + this.host + ":" + this.port;
+		this.reconnectScheduler =
+			new ReconnectScheduler("MQTT client " + this.brokerAddr, configSectionName, this::attemptConnect, this::disconnectClient);
+
+		_Logger.info("Using URL for broker connection: " + this.brokerAddr);
+	}
+
+	/**
+	 * Called by {@link #initClientParameters(String)}, and on connect and
+	 * config reload, to load the publish parameters that may change while
+	 * running: the default QoS and the in-flight parameters.
+	 *
+	 * @param configSectionName The name of the configuration section to use for
+	 * the MQTT client configuration parameters.
+	 */
+	private void initPublishParameters(String configSectionName)
+	{
+		ConfigUtil configUtil = ConfigUtil.getInstance();
+
+		this.defaultQos =
+			configUtil.getInteger(configSectionName, ConfigConst.DEFAULT_QOS_KEY, ConfigConst.DEFAULT_QOS);
+		this.inflightWaitMillis =
+			Math.max(0, configUtil.getInteger(
+				configSectionName, ConfigConst.INFLIGHT_WAIT_MILLIS_KEY, ConfigConst.DEFAULT_INFLIGHT_WAIT_MILLIS));
+
+		int newMaxInflight =
+			Math.max(1, configUtil.getInteger(configSectionName, ConfigConst.MAX_INFLIGHT_KEY, ConfigConst.DEFAULT_MAX_INFLIGHT));
+
+		// nothing to report while the constructor is still running
+		if (newMaxInflight != this.maxInflight && this.reconnectScheduler != null) {
+			_Logger.info(
+				"MQTT max in-flight changed from " + this.maxInflight + " to " + newMaxInflight + ". Applies from the next connect.");
+		}
+
+		this.maxInflight = newMaxInflight;
 	}
-	
+
 	/**
 	 * Called by {@link #initClientParameters(String)} to load credentials.
-	 * 
+	 *
 	 * @param configSectionName The name of the configuration section to use for
 	 * the MQTT client configuration parameters.
 	 */
 	private void initCredentialConnectionParameters(String configSectionName)
 	{
-		// TODO: implement this
+		Properties props = ConfigUtil.getInstance().getCredentials(configSectionName);
+
+		if (props != null) {
+			String userName  = props.getProperty(ConfigConst.USER_NAME_TOKEN_KEY, "");
+			String authToken = props.getProperty(ConfigConst.USER_AUTH_TOKEN_KEY, "");
+
+			this.connOpts.setUserName(userName);
+			this.connOpts.setPassword(authToken.toCharArray());
+
+			_Logger.info("Credentials now set.");
+		} else {
+			_Logger.warning("No credentials available for section: " + configSectionName);
+		}
 	}
-	
+
+	/**
+	 * Called by {@link #initClientParameters(String)} and
+	 * {@link #connectClient()} to open the publish spool. The spool path defaults to a directory within the GDA data path.
+	 *
+	 * @param configSectionName The name of the configuration section to use for
+	 * the MQTT client configuration parameters.
+	 */
+	private void initSpool(String configSectionName)
+	{
+		ConfigUtil configUtil = ConfigUtil.getInstance();
+
+		String dataPath =
+			configUtil.getProperty(
+				ConfigConst.GATEWAY_DEVICE, ConfigConst.TEST_GDA_DATA_PATH_KEY, System.getProperty("java.io.tmpdir"));
+		String spoolPath =
+			configUtil.getProperty(
+				configSectionName, ConfigConst.SPOOL_PATH_KEY, new File(dataPath, ConfigConst.DEFAULT_SPOOL_DIR_NAME).getPath());
+
+		int segmentSize =
+			configUtil.getInteger(configSectionName, ConfigConst.SPOOL_SEGMENT_SIZE_KEY, ConfigConst.DEFAULT_SPOOL_SEGMENT_SIZE);
+		int maxSize =
+			configUtil.getInteger(configSectionName, ConfigConst.SPOOL_MAX_SIZE_KEY, ConfigConst.DEFAULT_SPOOL_MAX_SIZE);
+
+		this.spoolReplayRate =
+			Math.max(1, configUtil.getInteger(configSectionName, ConfigConst.SPOOL_REPLAY_RATE_KEY, ConfigConst.DEFAULT_SPOOL_REPLAY_RATE));
+
+		try {
+			this.spool = new MqttPublishSpool(spoolPath, segmentSize, maxSize);
+			this.replayThreadFactory = ExecutorUtil.getInstance().newThreadFactory("MqttSpoolReplay");
+		} catch (IOException e) {
+			_Logger.log(Level.SEVERE, "Failed to open MQTT publish spool: " + spoolPath + ". Spooling disabled.", e);
+		}
+	}
+
 	/**
 	 * Called by {@link #initClientParameters(String)} to enable encryption.
-	 * 
+	 *
 	 * @param configSectionName The name of the configuration section to use for
 	 * the MQTT client configuration parameters.
 	 */
 	private void initSecureConnectionParameters(String configSectionName)
 	{
-		// TODO: implement this
+		ConfigUtil configUtil = ConfigUtil.getInstance();
+
+		String certFile = configUtil.getProperty(configSectionName, ConfigConst.CERT_FILE_KEY);
+		SSLSocketFactory sslFactory = SimpleCertManagementUtil.getInstance().loadCertificate(certFile);
+
+		if (sslFactory != null) {
+			this.connOpts.setSocketFactory(sslFactory);
+
+			this.protocol = ConfigConst.DEFAULT_MQTT_SECURE_PROTOCOL;
+			this.port =
+				configUtil.getInteger(configSectionName, ConfigConst.SECURE_PORT_KEY, ConfigConst.DEFAULT_MQTT_SECURE_PORT);
+
+			_Logger.info("TLS enabled for MQTT client using cert file: " + certFile);
+		} else {
+			_Logger.warning("Failed to load cert file: " + certFile + ". Using an unencrypted connection.");
+		}
+	}
+
+
+	/**
+	 * Releases an in-flight permit once a QoS 1 / 2 publish has been
+	 * acknowledged (or has failed). One instance, with its own permits,
+	 * per connection.
+	 *
+	 */
+	private class InflightListener implements IMqttActionListener
+	{
+		private final int       window;
+		private final Semaphore permits;
+
+		InflightListener(int window)
+		{
+			this.window  = window;
+			this.permits = new Semaphore(window);
+		}
+
+		@Override
+		public void onSuccess(IMqttToken token)
+		{
+			release();
+		}
+
+		@Override
+		public void onFailure(IMqttToken token, Throwable t)
+		{
+			_Logger.log(Level.FINE, "MQTT publish failed.", t);
+
+			release();
+		}
+
+		void release()
+		{
+			this.permits.release();
+		}
 	}
+
 }
@@ -0,0 +1,555 @@
+/**
+ * This class is part of the Programming the Internet of Things
+ * project, and is available via the MIT License, which can be
+ * found in the LICENSE file at the top level of this repository.
+ *
+ * Copyright (c) 2020 by Andrew D. King
+ */
+
+package programmingtheiot.gda.connection;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A disk-backed, append-only store-and-forward spool for MQTT publishes
+ * made while the broker is unreachable.
+ * <p>
+ * Messages are appended to fixed size, memory-mapped segment files
+ * ('spool-NNNNNNNNNNNNNNNNNNNN.seg') in the spool directory, and read
+ * back in the order they were appended. Each segment starts with a
+ * small header holding its write and read offsets, which are updated
+ * in place, so a spool re-opened after a restart resumes where it left
+ * off. A record only becomes visible once its write offset has been
+ * updated, so a partially written record is never replayed.
+ * <p>
+ * Segments are compacted by deleting them once all their messages have
+ * been read. If the spool reaches its maximum size, the oldest segment
+ * is deleted (and its unread messages lost) to make room, so the most
+ * recent data is kept during a long outage.
+ * <p>
+ * Segment record format: int length (of the remainder), byte QoS,
+ * short topic length, topic (UTF-8), payload.
+ * <p>
+ * This class is thread-safe.
+ *
+ */
+public class MqttPublishSpool
+{
+	// static
+
+	private static final Logger _Logger =
+		Logger.getLogger(MqttPublishSpool.class.getName());
+
+	public static final String SEGMENT_PREFIX = "spool-";
+	public static final String SEGMENT_SUFFIX = ".seg";
+
+	private static final int MAGIC           = 0x50535031; // "PSP1"
+	private static final int HEADER_SIZE     = 16;
+	private static final int WRITE_POS_INDEX = 4;
+	private static final int READ_POS_INDEX  = 8;
+	private static final int RECORD_OVERHEAD = 4 + 1 + 2;
+
+
+	// private var's
+
+	private final File spoolDir;
+	private final int  segmentSize;
+	private final long maxSegments;
+
+	// oldest first; the first is the read segment, the last the write segment
+	private final Deque<Segment> segments = new ArrayDeque<>();
+
+	private long nextSegmentID = 0L;
+	private long pendingCount  = 0L;
+	private long droppedCount  = 0L;
+
+	private SpooledMessage peekedMsg = null;
+	private int peekedEndPos = 0;
+
+
+	// constructors
+
+	/**
+	 * Constructor. Opens (or creates) the spool in 'spoolPath', recovering
+	 * any messages left by an earlier instance.
+	 *
+	 * @param spoolPath The spool directory; created if non-existent.
+	 * @param segmentSize The size of each segment file in bytes.
+	 * @param maxSize The maximum total size of all segment files in bytes;
+	 * at least two segments are always allowed.
+	 * @throws IOException If the spool directory or segments can't be opened.
+	 */
+	public MqttPublishSpool(String spoolPath, int segmentSize, long maxSize) throws IOException
+	{
+		super();
+
+		this.spoolDir    = new File(spoolPath);
+		this.segmentSize = Math.max(HEADER_SIZE + RECORD_OVERHEAD + 1, segmentSize);
+		this.maxSegments = Math.max(2L, maxSize / this.segmentSize);
+
+		if (! this.spoolDir.isDirectory() && ! this.spoolDir.mkdirs()) {
+			throw new IOException("Failed to create spool directory: " + this.spoolDir);
+		}
+
+		openSegments();
+
+		_Logger.info(
+			"Opened MQTT publish spool: " + this.spoolDir + ". Segments = " + this.segments.size() +
+			", pending messages = " + this.pendingCount);
+	}
+
+
+	// public methods
+
+	/**
+	 * Appends a message to the spool.
+	 *
+	 * @param topic The topic.
+	 * @param payload The payload.
+	 * @param qos The QoS level.
+	 * @return boolean True if spooled; false if it's too large for a
+	 * segment or can't be written.
+	 */
+	public synchronized boolean append(String topic, byte[] payload, int qos)
+	{
+		byte[] topicBytes = topic.getBytes(StandardCharsets.UTF_8);
+		int recordSize = RECORD_OVERHEAD + topicBytes.length + payload.length;
+
+		if (topicBytes.length > Short.MAX_VALUE || recordSize > this.segmentSize - HEADER_SIZE) {
+			_Logger.warning("Message too large to spool (" + recordSize + " bytes). Dropping message for topic: " + topic);
+
+			return false;
+		}
+
+		try {
+			Segment segment = this.segments.peekLast();
+
+			if (segment == null || segment.getWritePos() + recordSize > this.segmentSize) {
+				segment = addSegment();
+			}
+
+			MappedByteBuffer buf = segment.buffer;
+			int pos = segment.getWritePos();
+
+			buf.putInt(pos, recordSize - 4);
+			buf.put(pos + 4, (byte) qos);
+			buf.putShort(pos + 5, (short) topicBytes.length);
+
+			ByteBuffer dup = buf.duplicate();
+			dup.position(pos + RECORD_OVERHEAD);
+			dup.put(topicBytes).put(payload);
+
+			// makes the record visible
+			segment.setWritePos(pos + recordSize);
+
+			this.pendingCount++;
+
+			return true;
+		} catch (IOException e) {
+			_Logger.log(Level.WARNING, "Failed to spool message for topic: " + topic, e);
+
+			return false;
+		}
+	}
+
+	/**
+	 * Releases the spool's segments. Unread messages remain on disk
+	 * for the next instance.
+	 *
+	 */
+	public synchronized void close()
+	{
+		for (Segment segment : this.segments) {
+			segment.close();
+		}
+
+		this.segments.clear();
+		this.peekedMsg = null;
+	}
+
+	/**
+	 * Marks the message last returned by {@link #peek()} as sent, deleting
+	 * its segment once all of the segment's messages have been sent.
+	 *
+	 */
+	public synchronized void commit()
+	{
+		if (this.peekedMsg == null) {
+			return;
+		}
+
+		Segment segment = this.segments.peekFirst();
+		segment.setReadPos(this.peekedEndPos);
+
+		this.peekedMsg = null;
+		this.pendingCount--;
+
+		compact();
+	}
+
+	/**
+	 * Returns the number of messages discarded to keep the spool within
+	 * its maximum size.
+	 *
+	 * @return long
+	 */
+	public synchronized long getDroppedCount()
+	{
+		return this.droppedCount;
+	}
+
+	/**
+	 * Returns the number of spooled messages not yet committed.
+	 *
+	 * @return long
+	 */
+	public synchronized long getPendingCount()
+	{
+		return this.pendingCount;
+	}
+
+	/**
+	 * Returns the number of segment files.
+	 *
+	 * @return int
+	 */
+	public synchronized int getSegmentCount()
+	{
+		return this.segments.size();
+	}
+
+	/**
+	 * Returns true if there are no spooled messages left to send.
+	 *
+	 * @return boolean
+	 */
+	public synchronized boolean isEmpty()
+	{
+		return this.pendingCount == 0L;
+	}
+
+	/**
+	 * Returns the oldest spooled message without removing it; call
+	 * {@link #commit()} once it's been sent.
+	 *
+	 * @return SpooledMessage The message, or null if the spool is empty.
+	 */
+	public synchronized SpooledMessage peek()
+	{
+		if (this.peekedMsg != null) {
+			return this.peekedMsg;
+		}
+
+		compact();
+
+		Segment segment = this.segments.peekFirst();
+
+		if (segment == null || segment.getReadPos() >= segment.getWritePos()) {
+			return null;
+		}
+
+		MappedByteBuffer buf = segment.buffer;
+		int pos = segment.getReadPos();
+
+		int recordLen = buf.getInt(pos);
+		int qos = buf.get(pos + 4);
+		int topicLen = buf.getShort(pos + 5);
+
+		byte[] topicBytes = new byte[topicLen];
+		byte[] payload = new byte[recordLen - 3 - topicLen];
+
+		ByteBuffer dup = buf.duplicate();
+		dup.position(pos + RECORD_OVERHEAD);
+		dup.get(topicBytes).get(payload);
+
+		this.peekedMsg = new SpooledMessage(new String(topicBytes, StandardCharsets.UTF_8), payload, qos);
+		this.peekedEndPos = pos + 4 + recordLen;
+
+		return this.peekedMsg;
+	}
+
+
+	// private methods
+
+	private Segment addSegment() throws IOException
+	{
+		while (this.segments.size() >= this.maxSegments) {
+			dropOldestSegment();
+		}
+
+		File file = new File(this.spoolDir, String.format("%s%020d%s", SEGMENT_PREFIX, this.nextSegmentID++, SEGMENT_SUFFIX));
+		Segment segment = new Segment(file, this.segmentSize, true);
+
+		this.segments.addLast(segment);
+
+		return segment;
+	}
+
+	/**
+	 * Deletes read segments from the head of the spool (except the write
+	 * segment, which is reset instead once fully read).
+	 *
+	 */
+	private void compact()
+	{
+		while (! this.segments.isEmpty()) {
+			Segment segment = this.segments.peekFirst();
+
+			if (segment.getReadPos() < segment.getWritePos()) {
+				return;
+			}
+
+			if (this.segments.size() == 1) {
+				// nothing left to read: re-use the segment from the start
+				segment.setWritePos(HEADER_SIZE);
+				segment.setReadPos(HEADER_SIZE);
+
+				return;
+			}
+
+			this.segments.removeFirst();
+			segment.delete();
+		}
+	}
+
+	private void dropOldestSegment()
+	{
+		Segment segment = this.segments.removeFirst();
+
+		long dropped = segment.countRecords();
+
+		this.pendingCount -= dropped;
+		this.droppedCount += dropped;
+		this.peekedMsg = null;
+
+		segment.delete();
+
+		_Logger.warning("MQTT publish spool full. Dropped " + dropped + " oldest messages.");
+	}
+
+	private void openSegments() throws IOException
+	{
+		File[] files =
+			this.spoolDir.listFiles((dir, name) -> name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX));
+
+		if (files == null) {
+			throw new IOException("Failed to list spool directory: " + this.spoolDir);
+		}
+
+		// zero padded IDs, so name order is append order
+		Arrays.sort(files);
+
+		for (File file : files) {
+			String idStr = file.getName().substring(SEGMENT_PREFIX.length(), file.getName().length() - SEGMENT_SUFFIX.length());
+
+			try {
+				this.nextSegmentID = Math.max(this.nextSegmentID, Long.parseLong(idStr) + 1);
+
+				Segment segment = new Segment(file, (int) Math.max(file.length(), this.segmentSize), false);
+
+				if (segment.isValid()) {
+					int writePos = segment.getWritePos();
+
+					if (segment.truncateAtInvalidRecord()) {
+						_Logger.warning(
+							"Corrupt spool segment record. Discarding " + (writePos - segment.getWritePos()) +
+							" bytes from: " + file);
+					}
+
+					this.segments.addLast(segment);
+					this.pendingCount += segment.countRecords();
+				} else {
+					_Logger.warning("Invalid spool segment. Deleting: " + file);
+
+					segment.delete();
+				}
+			} catch (NumberFormatException e) {
+				_Logger.warning("Unexpected spool segment name. Ignoring: " + file);
+			}
+		}
+
+		compact();
+	}
+
+
+	/**
+	 * A message read from the spool.
+	 *
+	 */
+	public static final class SpooledMessage
+	{
+		private final String topic;
+		private final byte[] payload;
+		private final int qos;
+
+		SpooledMessage(String topic, byte[] payload, int qos)
+		{
+			this.topic   = topic;
+			this.payload = payload;
+			this.qos     = qos;
+		}
+
+		/**
+		 * @return byte[] The payload.
+		 */
+		public byte[] getPayload()
+		{
+			return this.payload;
+		}
+
+		/**
+		 * @return int The QoS level.
+		 */
+		public int getQos()
+		{
+			return this.qos;
+		}
+
+		/**
+		 * @return String The topic.
+		 */
+		public String getTopic()
+		{
+			return this.topic;
+		}
+	}
+
+	/**
+	 * A single memory-mapped segment file.
+	 *
+	 */
+	private static final class Segment
+	{
+		private final File file;
+		private final MappedByteBuffer buffer;
+
+		Segment(File file, int size, boolean isNew) throws IOException
+		{
+			this.file = file;
+
+			try (RandomAccessFile raf = new RandomAccessFile(file, "rw"); FileChannel channel = raf.getChannel()) {
+				// the mapping stays valid once the channel is closed
+				this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+			}
+
+			if (isNew) {
+				this.buffer.putInt(0, MAGIC);
+				setWritePos(HEADER_SIZE);
+				setReadPos(HEADER_SIZE);
+			}
+		}
+
+		int getReadPos()
+		{
+			return this.buffer.getInt(READ_POS_INDEX);
+		}
+
+		int getWritePos()
+		{
+			return this.buffer.getInt(WRITE_POS_INDEX);
+		}
+
+		void setReadPos(int pos)
+		{
+			this.buffer.putInt(READ_POS_INDEX, pos);
+		}
+
+		void setWritePos(int pos)
+		{
+			this.buffer.putInt(WRITE_POS_INDEX, pos);
+		}
+
+		boolean isValid()
+		{
+			int writePos = getWritePos();
+			int readPos  = getReadPos();
+
+			return this.buffer.getInt(0) == MAGIC &&
+				readPos >= HEADER_SIZE && readPos <= writePos && writePos <= this.buffer.capacity();
+		}
+
+		long countRecords()
+		{
+			long count = 0L;
+			int writePos = getWritePos();
+
+			for (int pos = getReadPos(); pos < writePos && pos >= 0; pos = getRecordEnd(pos, writePos)) {
+				count++;
+			}
+
+			return count;
+		}
+
+		/**
+		 * Validates the unread records against the write offset, moving it
+		 * back to the first record whose lengths don't fit (e.g. after a
+		 * crash or disk corruption), so only intact records are replayed.
+		 *
+		 * @return boolean True if the segment was truncated.
+		 */
+		boolean truncateAtInvalidRecord()
+		{
+			int writePos = getWritePos();
+			int pos = getReadPos();
+
+			while (pos < writePos) {
+				int endPos = getRecordEnd(pos, writePos);
+
+				if (endPos < 0) {
+					setWritePos(pos);
+
+					return true;
+				}
+
+				pos = endPos;
+			}
+
+			return false;
+		}
+
+		/**
+		 * Returns the end offset of the record at 'pos', or -1 if its
+		 * lengths are inconsistent or it extends past 'writePos'.
+		 *
+		 */
+		private int getRecordEnd(int pos, int writePos)
+		{
+			if (pos < HEADER_SIZE || pos + RECORD_OVERHEAD > writePos) {
+				return -1;
+			}
+
+			int recordLen = this.buffer.getInt(pos);
+			int topicLen  = this.buffer.getShort(pos + 5);
+
+			if (recordLen < RECORD_OVERHEAD - 4 + topicLen || topicLen < 0 || recordLen > writePos - pos - 4) {
+				return -1;
+			}
+
+			return pos + 4 + recordLen;
+		}
+
+		void close()
+		{
+			this.buffer.force();
+		}
+
+		void delete()
+		{
+			if (! this.file.delete()) {
+				_Logger.warning("Failed to delete spool segment: " + this.file);
+			}
+		}
+	}
+
+}
@@ -1,176 +1,865 @@
 /**
  * This class is part of the Programming the Internet of Things project.
- * 
+ *
  * It is provided as a simple shell to guide the student and assist with
  * implementation for the Programming the Internet of Things exercises,
  * and designed to be modified by the student as needed.
- */ 
+ */
 
 package programmingtheiot.gda.connection;
 
+import java.nio.charset.StandardCharsets;
+import java.util.EnumMap;
+import java.util.Map;
 import java.util.Properties;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
-import org.eclipse.paho.mqttv5.client.IMqttDeliveryToken;
+import javax.net.ssl.SSLSocketFactory;
+
 import org.eclipse.paho.mqttv5.client.IMqttToken;
+import org.eclipse.paho.mqttv5.client.MqttActionListener;
+import org.eclipse.paho.mqttv5.client.MqttAsyncClient;
 import org.eclipse.paho.mqttv5.client.MqttCallback;
-import org.eclipse.paho.mqttv5.client.MqttClient;
 import org.eclipse.paho.mqttv5.client.MqttConnectionOptions;
 import org.eclipse.paho.mqttv5.client.MqttDisconnectResponse;
 import org.eclipse.paho.mqttv5.client.persist.MemoryPersistence;
 import org.eclipse.paho.mqttv5.common.MqttException;
 import org.eclipse.paho.mqttv5.common.MqttMessage;
-import org.eclipse.paho.mqttv5.common.MqttPersistenceException;
-import org.eclipse.paho.mqttv5.common.MqttSecurityException;
 import org.eclipse.paho.mqttv5.common.packet.MqttProperties;
 
 import programmingtheiot.common.ConfigConst;
 import programmingtheiot.common.ConfigUtil;
+import programmingtheiot.common.DataHandlerRegistry;
+import programmingtheiot.common.IConfigChangeListener;
 import programmingtheiot.common.IDataMessageListener;
+import programmingtheiot.common.PayloadFormatEnum;
 import programmingtheiot.common.ResourceNameEnum;
+import programmingtheiot.common.SimpleCertManagementUtil;
+import programmingtheiot.data.DataUtil;
 
 /**
- * Shell representation of class for student implementation.
- * 
+ * MQTT v5 client, built on Paho's v5 {@link MqttAsyncClient}, using
+ * the v5 features that reduce bytes per message and broker memory:
+ * <p>
+ * - Topic aliases: if the broker grants any in its CONNACK, Paho sends
+ * each topic name once per connection, then only a 2 byte alias. The
+ * client also allows the broker up to the configured number of aliases.
+ * <p>
+ * - Receive Maximum: un-acknowledged QoS 1 / 2 publishes are limited to
+ * the smaller of the configured max in-flight window and the broker's
+ * Receive Maximum, so the broker is never sent more than it accepts.
+ * Once the window is full, publishMessage() waits (up to the configured
+ * in-flight wait time) for an ack before failing. The client's own
+ * Receive Maximum is sent to the broker on connect. QoS 0 publishes
+ * aren't acknowledged, so they aren't counted: Paho queues them without
+ * a limit, so QoS 0 publishers are never throttled.
+ * <p>
+ * - Message expiry: each publish carries the expiry interval configured
+ * for its resource, so the broker discards stale telemetry that hasn't
+ * been delivered (e.g. to an offline subscriber) in time.
+ * <p>
+ * - Content type: each publish carries the MIME type of its payload
+ * format (see {@link PayloadFormatEnum}), which is used to decode
+ * incoming messages.
+ * <p>
+ * If the connection is lost (or the initial connect fails), reconnect
+ * attempts are made in the background by a {@link ReconnectScheduler}
+ * rather than by Paho, so the in-flight window is always sized from the
+ * new CONNACK.
+ * <p>
+ * While connected (or reconnecting), config reloads of the client's
+ * section update the default QoS, the in-flight wait time and the max
+ * in-flight window. A new window size takes effect on the next connect,
+ * as it's bounded by the broker's Receive Maximum for that connection.
+ *
  */
-public class Mqttv5ClientConnector implements IPubSubClient, MqttCallback
+public class Mqttv5ClientConnector implements IPubSubClient, IConfigChangeListener, MqttCallback
 {
 	// static
-	
+
 	private static final Logger _Logger =
 		Logger.getLogger(Mqttv5ClientConnector.class.getName());
-	
+
+	/**
+	 * Receive Maximum if the broker doesn't send one (MQTT v5, 3.2.2.3.3).
+	 */
+	public static final int MAX_RECEIVE_MAXIMUM = 65535;
+
 	// params
-	
-	
+
+	private String configSectionName = ConfigConst.MQTT_GATEWAY_SERVICE;
+
+	private MqttAsyncClient       mqttClient = null;
+	private MqttConnectionOptions connOpts = null;
+	private MemoryPersistence     persistence = null;
+	private IDataMessageListener  dataMsgListener = null;
+	private DataHandlerRegistry   handlerRegistry = new DataHandlerRegistry();
+
+	private String clientID = null;
+	private String brokerAddr = null;
+	private String host = ConfigConst.DEFAULT_HOST;
+	private String protocol = ConfigConst.DEFAULT_MQTT_PROTOCOL;
+	private int    port = ConfigConst.DEFAULT_MQTT_PORT;
+	private int    brokerKeepAlive = ConfigConst.DEFAULT_KEEP_ALIVE;
+
+	private long defaultMessageExpirySecs = ConfigConst.DEFAULT_MESSAGE_EXPIRY_SECS;
+	private Map<ResourceNameEnum, Long> messageExpirySecs = new EnumMap<>(ResourceNameEnum.class);
+
+	// may be updated on config reload
+	private volatile int  defaultQos = ConfigConst.DEFAULT_QOS;
+	private volatile int  maxInflight = ConfigConst.DEFAULT_MAX_INFLIGHT;
+	private volatile long inflightWaitMillis = ConfigConst.DEFAULT_INFLIGHT_WAIT_MILLIS;
+
+	// replaced, with its permits, on each connect, so acks for publishes
+	// made on an earlier connection can't release permits of the current one
+	private volatile InflightListener inflightListener = new InflightListener(0);
+	private volatile int inflightWindow = 0;
+
+	private ReconnectScheduler reconnectScheduler = null;
+
+
 	// constructors
-	
+
 	/**
-	 * Default.
-	 * 
+	 * Default. Uses the {@link ConfigConst#MQTT_GATEWAY_SERVICE} section.
+	 *
 	 */
 	public Mqttv5ClientConnector()
+	{
+		this(ConfigConst.MQTT_GATEWAY_SERVICE);
+	}
+
+	/**
+	 * Constructor.
+	 *
+	 * @param configSectionName The name of the configuration section to use for
+	 * the MQTT client configuration parameters.
+	 */
+	public Mqttv5ClientConnector(String configSectionName)
 	{
 		super();
+
+		if (configSectionName != null && configSectionName.trim().length() > 0) {
+			this.configSectionName = configSectionName;
+		}
+
+		initClientParameters(this.configSectionName);
 	}
-	
-	
+
+
 	// public methods
-	
+
 	@Override
 	public boolean connectClient()
 	{
+		// pick up any changes made while disconnected
+		initPublishParameters(this.configSectionName);
+		ConfigUtil.getInstance().addConfigChangeListener(this);
+
+		this.reconnectScheduler.enable();
+
+		if (isConnected()) {
+			_Logger.warning("MQTT v5 client already connected to broker: " + this.brokerAddr);
+
+			return false;
+		}
+
+		if (attemptConnect()) {
+			this.reconnectScheduler.notifyConnected();
+
+			return true;
+		}
+
+		// keep trying in the background
+		this.reconnectScheduler.scheduleReconnect();
+
 		return false;
 	}
 
 	@Override
 	public boolean disconnectClient()
 	{
+		ConfigUtil.getInstance().removeConfigChangeListener(this);
+
+		this.reconnectScheduler.disable();
+
+		try {
+			if (this.mqttClient != null && this.mqttClient.isConnected()) {
+				_Logger.info("Disconnecting MQTT v5 client from broker: " + this.brokerAddr);
+
+				this.mqttClient.disconnect().waitForCompletion(getConnectTimeoutMillis());
+
+				return true;
+			} else {
+				_Logger.warning("MQTT v5 client not connected to broker: " + this.brokerAddr);
+			}
+		} catch (MqttException e) {
+			_Logger.log(Level.SEVERE, "Failed to disconnect MQTT v5 client from broker: " + this.brokerAddr, e);
+		}
+
 		return false;
 	}
 
+	/**
+	 * Returns true if the client is connected to the broker.
+	 *
+	 * @return boolean
+	 */
 	public boolean isConnected()
 	{
-		return false;
+		return (this.mqttClient != null && this.mqttClient.isConnected());
+	}
+
+	/**
+	 * Returns the current in-flight window: the smaller of the configured
+	 * max in-flight value and the broker's Receive Maximum. Zero until
+	 * connected.
+	 *
+	 * @return int
+	 */
+	public int getInflightWindow()
+	{
+		return this.inflightWindow;
+	}
+
+	/**
+	 * Returns the message expiry interval that will be set on publishes
+	 * to the given resource.
+	 *
+	 * @param resource The resource.
+	 * @return long The expiry interval in seconds; 0 if none.
+	 */
+	public long getMessageExpirySecs(ResourceNameEnum resource)
+	{
+		Long expirySecs = this.messageExpirySecs.get(resource);
+
+		return (expirySecs != null ? expirySecs : this.defaultMessageExpirySecs);
+	}
+
+	/**
+	 * Re-reads the default QoS and the in-flight parameters if the client's
+	 * config section changed.
+	 *
+	 * @param changedSections The changed config section names.
+	 */
+	@Override
+	public void handleConfigChange(Set<String> changedSections)
+	{
+		if (changedSections.contains(this.configSectionName)) {
+			initPublishParameters(this.configSectionName);
+		}
 	}
-	
+
 	@Override
 	public boolean publishMessage(ResourceNameEnum topicName, String msg, int qos)
 	{
-		return false;
+		if (topicName == null) {
+			_Logger.warning("Resource is null. Unable to publish message: " + this.brokerAddr);
+
+			return false;
+		}
+
+		if (msg == null || msg.length() == 0) {
+			_Logger.warning("Message is null or empty. Unable to publish message: " + this.brokerAddr);
+
+			return false;
+		}
+
+		return publishMessage(topicName, msg.getBytes(StandardCharsets.UTF_8), PayloadFormatEnum.JSON, qos);
 	}
 
 	@Override
 	public boolean subscribeToTopic(ResourceNameEnum topicName, int qos)
 	{
+		if (topicName == null) {
+			_Logger.warning("Resource is null. Unable to subscribe: " + this.brokerAddr);
+
+			return false;
+		}
+
+		if (! isConnected()) {
+			_Logger.warning("MQTT v5 client not connected. Unable to subscribe: " + topicName.getResourceName());
+
+			return false;
+		}
+
+		try {
+			this.mqttClient.subscribe(topicName.getResourceName(), getValidQos(qos)).waitForCompletion(getConnectTimeoutMillis());
+
+			_Logger.info("Successfully subscribed to topic: " + topicName.getResourceName());
+
+			return true;
+		} catch (MqttException e) {
+			_Logger.log(Level.WARNING, "Failed to subscribe to topic: " + topicName.getResourceName(), e);
+		}
+
 		return false;
 	}
 
 	@Override
 	public boolean unsubscribeFromTopic(ResourceNameEnum topicName)
 	{
+		if (topicName == null) {
+			_Logger.warning("Resource is null. Unable to unsubscribe: " + this.brokerAddr);
+
+			return false;
+		}
+
+		if (! isConnected()) {
+			_Logger.warning("MQTT v5 client not connected. Unable to unsubscribe: " + topicName.getResourceName());
+
+			return false;
+		}
+
+		try {
+			this.mqttClient.unsubscribe(topicName.getResourceName()).waitForCompletion(getConnectTimeoutMillis());
+
+			_Logger.info("Successfully unsubscribed from topic: " + topicName.getResourceName());
+
+			return true;
+		} catch (MqttException e) {
+			_Logger.log(Level.WARNING, "Failed to unsubscribe from topic: " + topicName.getResourceName(), e);
+		}
+
 		return false;
 	}
 
+	/**
+	 * Returns the registry incoming messages are dispatched to, so
+	 * typed handlers can be registered alongside (or instead of) the
+	 * data message listener.
+	 *
+	 * @return DataHandlerRegistry
+	 */
+	public DataHandlerRegistry getDataHandlerRegistry()
+	{
+		return this.handlerRegistry;
+	}
+
 	@Override
 	public boolean setDataMessageListener(IDataMessageListener listener)
 	{
+		if (listener != null) {
+			if (this.dataMsgListener != null) {
+				this.handlerRegistry.removeHandlers(this.dataMsgListener);
+			}
+
+			this.dataMsgListener = listener;
+			this.handlerRegistry.addListener(listener);
+
+			return true;
+		}
+
 		return false;
 	}
-	
+
 	// callbacks
-	
+
+	/**
+	 * Returns the reconnect scheduler, e.g. for its metrics.
+	 *
+	 * @return ReconnectScheduler
+	 */
+	public ReconnectScheduler getReconnectScheduler()
+	{
+		return this.reconnectScheduler;
+	}
+
 	@Override
 	public void authPacketArrived(int reasonCode, MqttProperties properties)
 	{
-		// TODO: implement this callback
+		_Logger.fine("MQTT v5 auth packet arrived: " + reasonCode);
 	}
 
 	@Override
 	public void connectComplete(boolean reconnect, String serverURI)
 	{
-		// TODO: implement this callback
+		_Logger.info("MQTT v5 connection successful (is reconnect = " + reconnect + "). Broker: " + serverURI);
+
+		// the in-flight window is reset by attemptConnect(), from the
+		// CONNACK; Paho's own automatic reconnect is disabled
+
+		// the CDA topics are only published to the local broker
+		if (this.dataMsgListener != null && ConfigConst.MQTT_GATEWAY_SERVICE.equals(this.configSectionName)) {
+			// don't wait on the callback thread; the result is logged by Paho
+			subscribeAsync(ResourceNameEnum.CDA_ACTUATOR_RESPONSE_RESOURCE);
+			subscribeAsync(ResourceNameEnum.CDA_SENSOR_MSG_RESOURCE);
+			subscribeAsync(ResourceNameEnum.CDA_SYSTEM_PERF_MSG_RESOURCE);
+		}
 	}
 
 	@Override
 	public void deliveryComplete(IMqttToken token)
 	{
-		// TODO: implement this callback
+		// in-flight permits are released by the publish action listener
+		// instead, as it's also notified of failed deliveries
 	}
 
 	@Override
 	public void disconnected(MqttDisconnectResponse disconnectResponse)
 	{
-		// TODO: implement this callback
+		_Logger.warning("Disconnected from MQTT v5 broker: " + this.brokerAddr + ". Response: " + disconnectResponse);
+
+		this.reconnectScheduler.scheduleReconnect();
 	}
 
 	@Override
 	public void mqttErrorOccurred(MqttException exception)
 	{
-		// TODO: implement this callback
+		_Logger.log(Level.WARNING, "MQTT v5 error occurred: " + this.brokerAddr, exception);
 	}
 
 	@Override
 	public void messageArrived(String topic, MqttMessage msg) throws Exception
 	{
-		// TODO: implement this callback
+		// never throw from here: Paho would drop the connection
+		try {
+			MqttProperties props = msg.getProperties();
+			String contentType = (props != null ? props.getContentType() : null);
+
+			handleIncomingMessage(topic, msg.getPayload(), contentType);
+		} catch (Exception e) {
+			_Logger.log(Level.WARNING, "Failed to handle message on topic: " + topic, e);
+		}
 	}
 
-	
+
 	// private methods
-	
+
+	/**
+	 * Decodes the payload to each payload type registered for the
+	 * resource, and dispatches it to the resource's handlers.
+	 * The payload format is taken from the content type if set, and from
+	 * the format configured for the topic otherwise.
+	 *
+	 * @param topic The topic the message arrived on.
+	 * @param payload The message payload.
+	 * @param contentType The content type property; may be null.
+	 * @return boolean True if any handler handled it; false otherwise.
+	 */
+	private boolean handleIncomingMessage(String topic, byte[] payload, String contentType)
+	{
+		ResourceNameEnum resource = ResourceNameEnum.getEnumFromTopic(topic);
+
+		if (resource == null) {
+			_Logger.warning("Message arrived on unknown topic. Ignoring: " + topic);
+
+			return false;
+		}
+
+		if (this.handlerRegistry.getHandlerCount(resource) == 0) {
+			_Logger.fine("No data handlers. Ignoring message on topic: " + topic);
+
+			return false;
+		}
+
+		DataUtil dataUtil = DataUtil.getInstance();
+
+		PayloadFormatEnum format =
+			(contentType != null ?
+				PayloadFormatEnum.getEnumFromContentType(contentType) : dataUtil.getPayloadFormat(resource));
+
+		return this.handlerRegistry.dispatchPayload(resource, type -> dataUtil.payloadToObject(format, payload, type));
+	}
+
+	/**
+	 * Publishes the payload with its content type and the resource's
+	 * message expiry, without waiting for the broker's ack. For QoS 1 / 2,
+	 * waits for an in-flight permit first.
+	 *
+	 * @param resource The resource to publish to.
+	 * @param payload The message payload.
+	 * @param format The payload format, for the content type property.
+	 * @param qos The QoS level (0 - 2); the default QoS is used if invalid.
+	 * @return boolean True if handed to the client; false otherwise.
+	 */
+	private boolean publishMessage(ResourceNameEnum resource, byte[] payload, PayloadFormatEnum format, int qos)
+	{
+		if (! isConnected()) {
+			_Logger.warning("MQTT v5 client not connected. Unable to publish to topic: " + resource.getResourceName());
+
+			return false;
+		}
+
+		int validQos = getValidQos(qos);
+		InflightListener listener = null;
+
+		// QoS 0 publishes aren't acked, so they don't take a permit
+		if (validQos > 0 && (listener = acquireInflightPermit()) == null) {
+			_Logger.warning(
+				"MQTT v5 in-flight window full (" + this.inflightWindow + "). Unable to publish to topic: " +
+				resource.getResourceName());
+
+			return false;
+		}
+
+		try {
+			// a new instance per publish, as Paho sets the topic alias on it
+			MqttProperties props = new MqttProperties();
+			props.setContentType(format.getContentType());
+			props.setPayloadFormat(format == PayloadFormatEnum.JSON);
+
+			long expirySecs = getMessageExpirySecs(resource);
+
+			if (expirySecs > 0L) {
+				props.setMessageExpiryInterval(expirySecs);
+			}
+
+			MqttMessage mqttMsg = new MqttMessage(payload, validQos, false, props);
+
+			this.mqttClient.publish(resource.getResourceName(), mqttMsg, null, listener);
+
+			return true;
+		} catch (MqttException e) {
+			if (listener != null) {
+				listener.release();
+			}
+
+			_Logger.log(Level.WARNING, "Failed to publish message to topic: " + resource.getResourceName(), e);
+		}
+
+		return false;
+	}
+
+	/**
+	 * Acquires a permit of the current connection's in-flight window. If the
+	 * window is replaced (on reconnect) while waiting, the permit is handed
+	 * back and one of the new window is acquired instead, so each permit is
+	 * released to the window it was taken from.
+	 *
+	 * @return InflightListener The window the permit was acquired from, or
+	 * null if none was available in time.
+	 */
+	private InflightListener acquireInflightPermit()
+	{
+		long deadlineNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(this.inflightWaitMillis);
+
+		try {
+			while (true) {
+				InflightListener listener = this.inflightListener;
+				long waitNanos = Math.max(0L, deadlineNanos - System.nanoTime());
+
+				if (! listener.permits.tryAcquire(waitNanos, TimeUnit.NANOSECONDS)) {
+					return null;
+				}
+
+				if (listener == this.inflightListener) {
+					return listener;
+				}
+
+				listener.release();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+
+			return null;
+		}
+	}
+
+	/**
+	 * Makes a single attempt to connect. Used by {@link #connectClient()}
+	 * and the reconnect scheduler.
+	 *
+	 * @return boolean True if connected; false otherwise.
+	 */
+	private boolean attemptConnect()
+	{
+		try {
+			if (this.mqttClient == null) {
+				this.mqttClient = new MqttAsyncClient(this.brokerAddr, this.clientID, this.persistence);
+				this.mqttClient.setCallback(this);
+			}
+
+			if (this.mqttClient.isConnected()) {
+				return true;
+			}
+
+			_Logger.info("MQTT v5 client connecting to broker: " + this.brokerAddr);
+
+			IMqttToken token = this.mqttClient.connect(this.connOpts);
+			token.waitForCompletion(getConnectTimeoutMillis());
+
+			// connectComplete() may not have run yet; don't publish
+			// until the window reflects the broker's limits
+			resetInflightWindow(token.getResponseProperties());
+
+			return true;
+		} catch (MqttException e) {
+			_Logger.warning("Failed to connect MQTT v5 client to broker: " + this.brokerAddr + ". " + e.getMessage());
+		}
+
+		return false;
+	}
+
+	/**
+	 * Starts a new, full in-flight window for a new connection.
+	 *
+	 * @param connAckProps The broker's CONNACK properties. If null, the
+	 * current window size is kept (or the configured max is used).
+	 */
+	private synchronized void resetInflightWindow(MqttProperties connAckProps)
+	{
+		int window = (this.inflightWindow > 0 ? this.inflightWindow : this.maxInflight);
+
+		if (connAckProps != null) {
+			Integer brokerReceiveMax = connAckProps.getReceiveMaximum();
+
+			window = Math.min(this.maxInflight, (brokerReceiveMax != null ? brokerReceiveMax : MAX_RECEIVE_MAXIMUM));
+
+			_Logger.info(
+				"MQTT v5 broker limits: Receive Maximum = " + brokerReceiveMax +
+				", Topic Alias Maximum = " + connAckProps.getTopicAliasMaximum() + ". In-flight window = " + window);
+		}
+
+		InflightListener prevListener = this.inflightListener;
+
+		this.inflightListener = new InflightListener(window);
+		this.inflightWindow   = window;
+
+		// wakes publishers waiting on the previous window, which then move to the new one
+		prevListener.permits.release(Math.max(1, window));
+	}
+
+	private long getConnectTimeoutMillis()
+	{
+		return TimeUnit.SECONDS.toMillis(this.connOpts.getConnectionTimeout());
+	}
+
+	private int getValidQos(int qos)
+	{
+		return (qos >= 0 && qos <= 2 ? qos : this.defaultQos);
+	}
+
+	private void subscribeAsync(ResourceNameEnum resource)
+	{
+		try {
+			this.mqttClient.subscribe(resource.getResourceName(), this.defaultQos);
+		} catch (MqttException e) {
+			_Logger.log(Level.WARNING, "Failed to subscribe to topic: " + resource.getResourceName(), e);
+		}
+	}
+
 	/**
 	 * Called by the constructor to set the MQTT client parameters to be used for the connection.
-	 * 
+	 *
 	 * @param configSectionName The name of the configuration section to use for
 	 * the MQTT client configuration parameters.
 	 */
 	private void initClientParameters(String configSectionName)
 	{
-		// TODO: implement this
+		ConfigUtil configUtil = ConfigUtil.getInstance();
+
+		this.host =
+			configUtil.getProperty(configSectionName, ConfigConst.HOST_KEY, ConfigConst.DEFAULT_HOST);
+		this.port =
+			configUtil.getInteger(configSectionName, ConfigConst.PORT_KEY, ConfigConst.DEFAULT_MQTT_PORT);
+		this.brokerKeepAlive =
+			configUtil.getInteger(configSectionName, ConfigConst.KEEP_ALIVE_KEY, ConfigConst.DEFAULT_KEEP_ALIVE);
+
+		initPublishParameters(configSectionName);
+
+		int receiveMax =
+			configUtil.getInteger(configSectionName, ConfigConst.RECEIVE_MAXIMUM_KEY, ConfigConst.DEFAULT_RECEIVE_MAXIMUM);
+		int topicAliasMax =
+			configUtil.getInteger(configSectionName, ConfigConst.TOPIC_ALIAS_MAXIMUM_KEY, ConfigConst.DEFAULT_TOPIC_ALIAS_MAXIMUM);
+
+		this.clientID    = ConfigConst.PRODUCT_NAME + "-" + UUID.randomUUID();
+		this.persistence = new MemoryPersistence();
+		this.connOpts    = new MqttConnectionOptions();
+
+		this.connOpts.setKeepAliveInterval(this.brokerKeepAlive);
+		this.connOpts.setCleanStart(true);
+		// reconnects are made by the reconnect scheduler instead, as Paho's
+		// backoff has no jitter, and its reconnect hides the CONNACK
+		this.connOpts.setAutomaticReconnect(false);
+		this.connOpts.setReceiveMaximum(Math.max(1, Math.min(receiveMax, MAX_RECEIVE_MAXIMUM)));
+		this.connOpts.setTopicAliasMaximum(Math.max(0, topicAliasMax));
+
+		initMessageExpiry(configSectionName);
+
+		if (configUtil.getBoolean(configSectionName, ConfigConst.ENABLE_CRYPT_KEY)) {
+			initSecureConnectionParameters(configSectionName);
+		}
+
+		if (configUtil.getBoolean(configSectionName, ConfigConst.ENABLE_AUTH_KEY)) {
+			initCredentialConnectionParameters(configSectionName);
+		}
+
+		this.brokerAddr = this.protocol + "://" + this.host + ":" + this.port;
+		this.reconnectScheduler =
+			new ReconnectScheduler("MQTT v5 client " + this.brokerAddr, configSectionName, this::attemptConnect, this::disconnectClient);
+
+		_Logger.info("Using URL for broker connection: " + this.brokerAddr);
 	}
-	
+
+	/**
+	 * Called by {@link #initClientParameters(String)}, and on connect and
+	 * config reload, to load the publish parameters that may change while
+	 * running: the default QoS and the in-flight parameters.
+	 *
+	 * @param configSectionName The name of the configuration section to use for
+	 * the MQTT client configuration parameters.
+	 */
+	private void initPublishParameters(String configSectionName)
+	{
+		ConfigUtil configUtil = ConfigUtil.getInstance();
+
+		this.defaultQos =
+			configUtil.getInteger(configSectionName, ConfigConst.DEFAULT_QOS_KEY, ConfigConst.DEFAULT_QOS);
+		this.inflightWaitMillis =
+			Math.max(0, configUtil.getInteger(
+				configSectionName, ConfigConst.INFLIGHT_WAIT_MILLIS_KEY, ConfigConst.DEFAULT_INFLIGHT_WAIT_MILLIS));
+
+		int newMaxInflight =
+			Math.max(1, configUtil.getInteger(configSectionName, ConfigConst.MAX_INFLIGHT_KEY, ConfigConst.DEFAULT_MAX_INFLIGHT));
+
+		// nothing to report while the constructor is still running
+		if (newMaxInflight != this.maxInflight && this.reconnectScheduler != null) {
+			_Logger.info(
+				"MQTT v5 max in-flight changed from " + this.maxInflight + " to " + newMaxInflight + ". Applies from the next connect.");
+		}
+
+		this.maxInflight = newMaxInflight;
+	}
+
 	/**
 	 * Called by {@link #initClientParameters(String)} to load credentials.
-	 * 
+	 *
 	 * @param configSectionName The name of the configuration section to use for
 	 * the MQTT client configuration parameters.
 	 */
 	private void initCredentialConnectionParameters(String configSectionName)
 	{
-		// TODO: implement this
+		Properties props = ConfigUtil.getInstance().getCredentials(configSectionName);
+
+		if (props != null) {
+			String userName  = props.getProperty(ConfigConst.USER_NAME_TOKEN_KEY, "");
+			String authToken = props.getProperty(ConfigConst.USER_AUTH_TOKEN_KEY, "");
+
+			this.connOpts.setUserName(userName);
+			this.connOpts.setPassword(authToken.getBytes(StandardCharsets.UTF_8));
+
+			_Logger.info("Credentials now set.");
+		} else {
+			_Logger.warning("No credentials available for section: " + configSectionName);
+		}
 	}
-	
+
+	/**
+	 * Called by {@link #initClientParameters(String)} to load the message
+	 * expiry intervals: a default, plus comma-delimited per-resource
+	 * overrides of the form 'resource:secs', where 'resource' is either a
+	 * resource type (e.g. SensorMsg) or full resource name.
+	 *
+	 * @param configSectionName The name of the configuration section to use for
+	 * the MQTT client configuration parameters.
+	 */
+	private void initMessageExpiry(String configSectionName)
+	{
+		ConfigUtil configUtil = ConfigUtil.getInstance();
+
+		this.defaultMessageExpirySecs =
+			Math.max(0, configUtil.getInteger(
+				configSectionName, ConfigConst.DEFAULT_MESSAGE_EXPIRY_KEY, (int) ConfigConst.DEFAULT_MESSAGE_EXPIRY_SECS));
+
+		String entries = configUtil.getProperty(configSectionName, ConfigConst.MESSAGE_EXPIRY_RESOURCES_KEY, "");
+
+		for (String entry : entries.split(",")) {
+			entry = entry.trim();
+
+			if (entry.length() == 0) {
+				continue;
+			}
+
+			int sepIndex = entry.lastIndexOf(':');
+
+			try {
+				String resourceType = entry.substring(0, sepIndex).trim();
+				long expirySecs = Long.parseLong(entry.substring(sepIndex + 1).trim());
+
+				boolean isFound = false;
+
+				for (ResourceNameEnum resource : ResourceNameEnum.values()) {
+					if (resource.getResourceType().equals(resourceType) || resource.getResourceName().equals(resourceType)) {
+						this.messageExpirySecs.put(resource, Math.max(0L, expirySecs));
+						isFound = true;
+					}
+				}
+
+				if (! isFound) {
+					_Logger.warning("Unknown resource for message expiry. Ignoring: " + entry);
+				}
+			} catch (IndexOutOfBoundsException | NumberFormatException e) {
+				_Logger.warning("Invalid message expiry entry. Expected 'resource:secs'. Ignoring: " + entry);
+			}
+		}
+	}
+
 	/**
 	 * Called by {@link #initClientParameters(String)} to enable encryption.
-	 * 
+	 *
 	 * @param configSectionName The name of the configuration section to use for
 	 * the MQTT client configuration parameters.
 	 */
 	private void initSecureConnectionParameters(String configSectionName)
 	{
-		// TODO: implement this
+		ConfigUtil configUtil = ConfigUtil.getInstance();
+
+		String certFile = configUtil.getProperty(configSectionName, ConfigConst.CERT_FILE_KEY);
+		SSLSocketFactory sslFactory = SimpleCertManagementUtil.getInstance().loadCertificate(certFile);
+
+		if (sslFactory != null) {
+			this.connOpts.setSocketFactory(sslFactory);
+
+			this.protocol = ConfigConst.DEFAULT_MQTT_SECURE_PROTOCOL;
+			this.port =
+				configUtil.getInteger(configSectionName, ConfigConst.SECURE_PORT_KEY, ConfigConst.DEFAULT_MQTT_SECURE_PORT);
+
+			_Logger.info("TLS enabled for MQTT v5 client using cert file: " + certFile);
+		} else {
+			_Logger.warning("Failed to load cert file: " + certFile + ". Using an unencrypted connection.");
+		}
+	}
+
+
+	/**
+	 * Releases an in-flight permit once a QoS 1 / 2 publish has been
+	 * acknowledged (or has failed). One instance, with its own permits,
+	 * per connection.
+	 *
+	 */
+	private class InflightListener implements MqttActionListener
+	{
+		private final Semaphore permits;
+
+		InflightListener(int window)
+		{
+			this.permits = new Semaphore(window);
+		}
+
+		@Override
+		public void onSuccess(IMqttToken token)
+		{
+			release();
+		}
+
+		@Override
+		public void onFailure(IMqttToken token, Throwable t)
+		{
+			_Logger.log(Level.FINE, "MQTT v5 publish failed.", t);
+
+			release();
+		}
+
+		void release()
+		{
+			this.permits.release();
+		}
 	}
 
 }
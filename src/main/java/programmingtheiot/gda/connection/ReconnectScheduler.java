@@ -0,0 +1,426 @@
+/**
+ * This class is part of the Programming the Internet of Things
+ * project, and is available via the MIT License, which can be
+ * found in the LICENSE file at the top level of this repository.
+ *
+ * Copyright (c) 2020 by Andrew D. King
+ */
+
+package programmingtheiot.gda.connection;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import programmingtheiot.common.ConfigConst;
+import programmingtheiot.common.ConfigUtil;
+import programmingtheiot.common.ExecutorUtil;
+
+/**
+ * Schedules reconnect attempts for a connector, using exponential backoff
+ * with full jitter and a circuit breaker.
+ * <p>
+ * The delay before attempt 'n' (counting consecutive failures from 0) is
+ * a random value between 0 and min(maxDelay, baseDelay * 2^n), so a fleet
+ * of gateways that lost the same broker spreads its reconnects out instead
+ * of reconnecting in lock-step. Once 'circuitBreakerThreshold' consecutive
+ * attempts have failed, the circuit opens: no attempt is made for the open
+ * interval (plus up to one base delay of jitter), after which a single
+ * half-open trial attempt either closes the circuit or opens it again.
+ * <p>
+ * If {@link #disable()} is called while an attempt is in progress, and the
+ * attempt then succeeds, the optional disconnect task is run, so the
+ * connector isn't left connected.
+ * <p>
+ * All instances share a small scheduler thread pool; the connect task
+ * runs on it, so it should be bounded by the connector's own timeout.
+ * <p>
+ * This class is thread-safe.
+ *
+ */
+public class ReconnectScheduler
+{
+	// static
+
+	private static final Logger _Logger =
+		Logger.getLogger(ReconnectScheduler.class.getName());
+
+	// lazily created on first use
+	private static class SchedulerHolder
+	{
+		private static final ScheduledExecutorService _Scheduler =
+			Executors.newScheduledThreadPool(
+				ConfigConst.DEFAULT_RECONNECT_THREADS, ExecutorUtil.getInstance().newThreadFactory("ReconnectScheduler"));
+	}
+
+
+	// private var's
+
+	private final String name;
+	private final long baseDelayMillis;
+	private final long maxDelayMillis;
+	private final int  failureThreshold;
+	private final long openMillis;
+	private final BooleanSupplier connectTask;
+	private final Runnable disconnectTask;
+
+	private boolean isEnabled = false;
+	private boolean isAttempting = false;
+	private ScheduledFuture<?> pendingAttempt = null;
+	private CircuitStateEnum circuitState = CircuitStateEnum.CLOSED;
+
+	private int  consecutiveFailures = 0;
+	private long attemptCount = 0L;
+	private long successCount = 0L;
+	private long failureCount = 0L;
+	private long circuitOpenCount = 0L;
+	private long lastDelayMillis = 0L;
+
+
+	// constructors
+
+	/**
+	 * Constructor. Loads the backoff and circuit breaker settings from
+	 * the given configuration section.
+	 *
+	 * @param name The name of the connection, for logging.
+	 * @param configSectionName The name of the configuration section.
+	 * @param connectTask Makes a single connect attempt, returning true
+	 * if connected.
+	 */
+	public ReconnectScheduler(String name, String configSectionName, BooleanSupplier connectTask)
+	{
+		this(name, configSectionName, connectTask, null);
+	}
+
+	/**
+	 * Constructor. Loads the backoff and circuit breaker settings from
+	 * the given configuration section.
+	 *
+	 * @param name The name of the connection, for logging.
+	 * @param configSectionName The name of the configuration section.
+	 * @param connectTask Makes a single connect attempt, returning true
+	 * if connected.
+	 * @param disconnectTask Disconnects after an attempt that succeeded
+	 * once disabled; may be null.
+	 */
+	public ReconnectScheduler(
+		String name, String configSectionName, BooleanSupplier connectTask, Runnable disconnectTask)
+	{
+		this(
+			name,
+			ConfigUtil.getInstance().getInteger(
+				configSectionName, ConfigConst.RECONNECT_BASE_DELAY_KEY, ConfigConst.DEFAULT_RECONNECT_BASE_DELAY_MILLIS),
+			ConfigUtil.getInstance().getInteger(
+				configSectionName, ConfigConst.RECONNECT_MAX_DELAY_KEY, ConfigConst.DEFAULT_RECONNECT_MAX_DELAY_MILLIS),
+			ConfigUtil.getInstance().getInteger(
+				configSectionName, ConfigConst.CIRCUIT_BREAKER_THRESHOLD_KEY, ConfigConst.DEFAULT_CIRCUIT_BREAKER_THRESHOLD),
+			ConfigUtil.getInstance().getInteger(
+				configSectionName, ConfigConst.CIRCUIT_BREAKER_OPEN_KEY, ConfigConst.DEFAULT_CIRCUIT_BREAKER_OPEN_MILLIS),
+			connectTask,
+			disconnectTask);
+	}
+
+	/**
+	 * Constructor.
+	 *
+	 * @param name The name of the connection, for logging.
+	 * @param baseDelayMillis The backoff delay cap for the first attempt.
+	 * @param maxDelayMillis The maximum backoff delay cap.
+	 * @param failureThreshold The consecutive failures that open the circuit.
+	 * @param openMillis How long the circuit stays open.
+	 * @param connectTask Makes a single connect attempt, returning true
+	 * if connected.
+	 */
+	public ReconnectScheduler(
+		String name, long baseDelayMillis, long maxDelayMillis, int failureThreshold, long openMillis, BooleanSupplier connectTask)
+	{
+		this(name, baseDelayMillis, maxDelayMillis, failureThreshold, openMillis, connectTask, null);
+	}
+
+	/**
+	 * Constructor.
+	 *
+	 * @param name The name of the connection, for logging.
+	 * @param baseDelayMillis The backoff delay cap for the first attempt.
+	 * @param maxDelayMillis The maximum backoff delay cap.
+	 * @param failureThreshold The consecutive failures that open the circuit.
+	 * @param openMillis How long the circuit stays open.
+	 * @param connectTask Makes a single connect attempt, returning true
+	 * if connected.
+	 * @param disconnectTask Disconnects after an attempt that succeeded
+	 * once disabled; may be null.
+	 */
+	public ReconnectScheduler(
+		String name, long baseDelayMillis, long maxDelayMillis, int failureThreshold, long openMillis,
+		BooleanSupplier connectTask, Runnable disconnectTask)
+	{
+		super();
+
+		this.name             = name;
+		this.baseDelayMillis  = Math.max(1L, baseDelayMillis);
+		this.maxDelayMillis   = Math.max(this.baseDelayMillis, maxDelayMillis);
+		this.failureThreshold = Math.max(1, failureThreshold);
+		this.openMillis       = Math.max(0L, openMillis);
+		this.connectTask      = connectTask;
+		this.disconnectTask   = disconnectTask;
+	}
+
+
+	// public methods
+
+	/**
+	 * Cancels any pending attempt, and ignores further requests to
+	 * reconnect until {@link #enable()} is called. Used when the
+	 * connector is disconnected on purpose.
+	 *
+	 */
+	public synchronized void disable()
+	{
+		this.isEnabled = false;
+
+		cancelPendingAttempt();
+	}
+
+	/**
+	 * Allows reconnect attempts to be scheduled.
+	 *
+	 */
+	public synchronized void enable()
+	{
+		this.isEnabled = true;
+	}
+
+	/**
+	 * Returns the number of connect attempts made.
+	 *
+	 * @return long
+	 */
+	public synchronized long getAttemptCount()
+	{
+		return this.attemptCount;
+	}
+
+	/**
+	 * Returns the current circuit breaker state.
+	 *
+	 * @return CircuitStateEnum
+	 */
+	public synchronized CircuitStateEnum getCircuitState()
+	{
+		return this.circuitState;
+	}
+
+	/**
+	 * Returns the number of times the circuit has opened.
+	 *
+	 * @return long
+	 */
+	public synchronized long getCircuitOpenCount()
+	{
+		return this.circuitOpenCount;
+	}
+
+	/**
+	 * Returns the number of consecutive failed attempts.
+	 *
+	 * @return int
+	 */
+	public synchronized int getConsecutiveFailures()
+	{
+		return this.consecutiveFailures;
+	}
+
+	/**
+	 * Returns the number of failed attempts.
+	 *
+	 * @return long
+	 */
+	public synchronized long getFailureCount()
+	{
+		return this.failureCount;
+	}
+
+	/**
+	 * Returns the delay used for the most recently scheduled attempt.
+	 *
+	 * @return long
+	 */
+	public synchronized long getLastDelayMillis()
+	{
+		return this.lastDelayMillis;
+	}
+
+	/**
+	 * Returns the number of successful attempts.
+	 *
+	 * @return long
+	 */
+	public synchronized long getSuccessCount()
+	{
+		return this.successCount;
+	}
+
+	/**
+	 * Returns true if an attempt is scheduled.
+	 *
+	 * @return boolean
+	 */
+	public synchronized boolean isReconnectPending()
+	{
+		return (this.pendingAttempt != null);
+	}
+
+	/**
+	 * Records that the connector is connected (e.g. by an explicit
+	 * connect), closing the circuit and cancelling any pending attempt.
+	 *
+	 */
+	public synchronized void notifyConnected()
+	{
+		cancelPendingAttempt();
+
+		this.consecutiveFailures = 0;
+		this.circuitState = CircuitStateEnum.CLOSED;
+	}
+
+	/**
+	 * Schedules a reconnect attempt, unless one is already pending or
+	 * reconnecting is disabled. Later attempts are scheduled until one
+	 * succeeds.
+	 *
+	 * @return boolean True if an attempt is (or already was) pending.
+	 */
+	public synchronized boolean scheduleReconnect()
+	{
+		if (! this.isEnabled) {
+			return false;
+		}
+
+		// an attempt in progress schedules the next one if it fails
+		if (this.pendingAttempt == null && ! this.isAttempting) {
+			scheduleNextAttempt();
+		}
+
+		return true;
+	}
+
+	@Override
+	public synchronized String toString()
+	{
+		return
+			this.name + ": state = " + this.circuitState + ", attempts = " + this.attemptCount +
+			", successes = " + this.successCount + ", failures = " + this.failureCount +
+			", consecutive failures = " + this.consecutiveFailures + ", circuit opened = " + this.circuitOpenCount;
+	}
+
+
+	// private methods
+
+	private void attemptReconnect()
+	{
+		synchronized (this) {
+			if (! this.isEnabled) {
+				return;
+			}
+
+			this.pendingAttempt = null;
+			this.isAttempting = true;
+			this.attemptCount++;
+
+			if (this.circuitState == CircuitStateEnum.OPEN) {
+				this.circuitState = CircuitStateEnum.HALF_OPEN;
+			}
+		}
+
+		boolean success = false;
+
+		try {
+			success = this.connectTask.getAsBoolean();
+		} catch (Exception e) {
+			_Logger.log(Level.WARNING, "Reconnect attempt failed: " + this.name, e);
+		}
+
+		synchronized (this) {
+			this.isAttempting = false;
+
+			if (success) {
+				this.successCount++;
+				this.consecutiveFailures = 0;
+				this.circuitState = CircuitStateEnum.CLOSED;
+
+				if (this.isEnabled) {
+					_Logger.info("Reconnected. " + this);
+
+					return;
+				}
+			} else {
+				this.failureCount++;
+				this.consecutiveFailures++;
+
+				if (this.circuitState == CircuitStateEnum.HALF_OPEN ||
+					(this.circuitState == CircuitStateEnum.CLOSED && this.consecutiveFailures >= this.failureThreshold)) {
+					this.circuitState = CircuitStateEnum.OPEN;
+					this.circuitOpenCount++;
+
+					_Logger.warning("Reconnect circuit opened for " + this.openMillis + " ms. " + this);
+				}
+
+				if (this.isEnabled && this.pendingAttempt == null) {
+					scheduleNextAttempt();
+				}
+
+				return;
+			}
+		}
+
+		// disabled while connecting: undo it, outside the lock, as the
+		// disconnect task may call disable()
+		_Logger.info("Reconnected after reconnecting was disabled. Disconnecting: " + this.name);
+
+		if (this.disconnectTask != null) {
+			try {
+				this.disconnectTask.run();
+			} catch (Exception e) {
+				_Logger.log(Level.WARNING, "Failed to disconnect: " + this.name, e);
+			}
+		}
+	}
+
+	private void cancelPendingAttempt()
+	{
+		if (this.pendingAttempt != null) {
+			this.pendingAttempt.cancel(false);
+			this.pendingAttempt = null;
+		}
+	}
+
+	private void scheduleNextAttempt()
+	{
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+
+		if (this.circuitState == CircuitStateEnum.OPEN) {
+			this.lastDelayMillis = this.openMillis + random.nextLong(this.baseDelayMillis + 1);
+		} else {
+			// full jitter: uniform between 0 and the exponential cap, which
+			// saturates at the max delay instead of overflowing the shift
+			int exponent = Math.min(this.consecutiveFailures, 62);
+			long capMillis =
+				(this.baseDelayMillis > (this.maxDelayMillis >> exponent) ?
+					this.maxDelayMillis : this.baseDelayMillis << exponent);
+
+			this.lastDelayMillis = random.nextLong(capMillis + 1);
+		}
+
+		_Logger.fine("Scheduling reconnect in " + this.lastDelayMillis + " ms. " + this);
+
+		this.pendingAttempt =
+			SchedulerHolder._Scheduler.schedule(this::attemptReconnect, this.lastDelayMillis, TimeUnit.MILLISECONDS);
+	}
+
+}
@@ -0,0 +1,58 @@
+/**
+ * This class is part of the Programming the Internet of Things
+ * project, and is available via the MIT License, which can be
+ * found in the LICENSE file at the top level of this repository.
+ *
+ * Copyright (c) 2020 by Andrew D. King
+ */
+
+package programmingtheiot.gda.pipeline;
+
+/**
+ * The policies a {@link PipelineStage} can apply when its queue is full.
+ *
+ */
+public enum BackpressurePolicyEnum
+{
+	/**
+	 * The submitting thread waits until there's room in the queue.
+	 * No data is lost, but a slow stage will stall its producers.
+	 */
+	BLOCK,
+
+	/**
+	 * The oldest queued item is discarded to make room. Producers never
+	 * wait, and the queue always holds the most recent data.
+	 */
+	DROP_OLDEST,
+
+	/**
+	 * Only every Nth item submitted while the queue is full is accepted
+	 * (replacing the oldest queued item); the rest are discarded.
+	 * Producers never wait, and a thinned-out but continuous stream of
+	 * recent data still gets through.
+	 */
+	SAMPLE;
+
+	/**
+	 * Convenience method for looking up an enum type based on its name,
+	 * ignoring case. If the lookup fails, 'defaultPolicy' is returned.
+	 *
+	 * @param name The policy name (e.g. from the config file).
+	 * @param defaultPolicy The policy to return if 'name' is invalid.
+	 * @return BackpressurePolicyEnum The enum instance.
+	 */
+	public static BackpressurePolicyEnum getEnumFromName(String name, BackpressurePolicyEnum defaultPolicy)
+	{
+		if (name != null) {
+			for (BackpressurePolicyEnum policy : values()) {
+				if (policy.name().equalsIgnoreCase(name.trim())) {
+					return policy;
+				}
+			}
+		}
+
+		return defaultPolicy;
+	}
+
+}
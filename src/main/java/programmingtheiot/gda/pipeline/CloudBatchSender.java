@@ -0,0 +1,94 @@
+/**
+ * This class is part of the Programming the Internet of Things
+ * project, and is available via the MIT License, which can be
+ * found in the LICENSE file at the top level of this repository.
+ *
+ * Copyright (c) 2020 by Andrew D. King
+ */
+
+package programmingtheiot.gda.pipeline;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Logger;
+
+import programmingtheiot.common.ResourceNameEnum;
+import programmingtheiot.data.BaseIotData;
+import programmingtheiot.data.SensorData;
+import programmingtheiot.data.SystemPerformanceData;
+import programmingtheiot.gda.connection.ICloudClient;
+
+/**
+ * Sends the sensor and system performance messages of a batch to an
+ * {@link ICloudClient}, grouped by resource so each group is a single
+ * send of a JSON array of the messages' (already transformed) JSON
+ * payloads. Sent groups (and messages of a type the cloud client doesn't
+ * accept) are removed from the batch, so a retry only re-sends the groups
+ * that failed.
+ *
+ */
+public class CloudBatchSender implements IBatchSender
+{
+	// static
+
+	private static final Logger _Logger =
+		Logger.getLogger(CloudBatchSender.class.getName());
+
+
+	// private var's
+
+	private final ICloudClient cloudClient;
+
+
+	// constructors
+
+	/**
+	 * Constructor.
+	 *
+	 * @param cloudClient The client to send with.
+	 */
+	public CloudBatchSender(ICloudClient cloudClient)
+	{
+		super();
+
+		this.cloudClient = cloudClient;
+	}
+
+
+	// public methods
+
+	@Override
+	public boolean sendBatch(List<PipelineMessage> batch)
+	{
+		// keyed on resource; insertion order is preserved
+		Map<ResourceNameEnum, List<PipelineMessage>> groups = new LinkedHashMap<>();
+		List<PipelineMessage> ignored = new ArrayList<>();
+
+		for (PipelineMessage msg : batch) {
+			BaseIotData data = msg.getData();
+
+			if (data instanceof SensorData || data instanceof SystemPerformanceData) {
+				groups.computeIfAbsent(msg.getResourceName(), (k) -> new ArrayList<>()).add(msg);
+			} else {
+				_Logger.fine("Ignoring unsupported data type for cloud: " + msg.getResourceName());
+
+				ignored.add(msg);
+			}
+		}
+
+		batch.removeAll(ignored);
+
+		for (Map.Entry<ResourceNameEnum, List<PipelineMessage>> entry : groups.entrySet()) {
+			List<PipelineMessage> group = entry.getValue();
+
+			if (this.cloudClient.sendEdgeDataToCloud(entry.getKey(), PipelineMessage.toJsonArray(group))) {
+				batch.removeAll(group);
+			}
+		}
+
+		return batch.isEmpty();
+	}
+
+}
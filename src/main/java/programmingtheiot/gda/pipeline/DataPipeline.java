@@ -0,0 +1,206 @@
+/**
+ * This class is part of the Programming the Internet of Things
+ * project, and is available via the MIT License, which can be
+ * found in the LICENSE file at the top level of this repository.
+ *
+ * Copyright (c) 2020 by Andrew D. King
+ */
+
+package programmingtheiot.gda.pipeline;
+
+import java.util.function.Consumer;
+import java.util.logging.Logger;
+
+import programmingtheiot.common.ConfigConst;
+import programmingtheiot.common.ConfigUtil;
+import programmingtheiot.common.ExecutorUtil;
+import programmingtheiot.common.ResourceNameEnum;
+import programmingtheiot.data.BaseIotData;
+import programmingtheiot.data.DataUtil;
+
+/**
+ * An asynchronous, bounded pipeline for data messages received from
+ * the CDA (or generated locally), so the MQTT / CoAP callback threads
+ * only pay for a queue insert:
+ * <p>
+ * ingest queue -> transform stage (encode to JSON) -> fan-out queue ->
+ * fan-out stage (upstream handler)
+ * <p>
+ * Each stage has its own bounded queue, worker count and
+ * {@link BackpressurePolicyEnum}. Workers are created by {@link ExecutorUtil},
+ * so they're virtual threads if that execution mode is enabled.
+ * Submitted data instances are owned by the pipeline; callers must not
+ * modify or re-use them afterwards.
+ *
+ */
+public class DataPipeline
+{
+	// static
+
+	private static final Logger _Logger =
+		Logger.getLogger(DataPipeline.class.getName());
+
+
+	// private var's
+
+	private final PipelineStage<PipelineMessage> transformStage;
+	private final PipelineStage<PipelineMessage> fanOutStage;
+
+
+	// constructors
+
+	/**
+	 * Constructor. Reads the queue size, worker counts and backpressure
+	 * policy from the {@link ConfigConst#GATEWAY_DEVICE} section.
+	 *
+	 * @param fanOutHandler The handler for each transformed message.
+	 */
+	public DataPipeline(Consumer<PipelineMessage> fanOutHandler)
+	{
+		this(
+			ConfigUtil.getInstance().getInteger(
+				ConfigConst.GATEWAY_DEVICE, ConfigConst.PIPELINE_QUEUE_SIZE_KEY, ConfigConst.DEFAULT_PIPELINE_QUEUE_SIZE),
+			ConfigUtil.getInstance().getInteger(
+				ConfigConst.GATEWAY_DEVICE, ConfigConst.PIPELINE_TRANSFORM_WORKERS_KEY, ConfigConst.DEFAULT_PIPELINE_WORKERS),
+			ConfigUtil.getInstance().getInteger(
+				ConfigConst.GATEWAY_DEVICE, ConfigConst.PIPELINE_FAN_OUT_WORKERS_KEY, ConfigConst.DEFAULT_PIPELINE_WORKERS),
+			BackpressurePolicyEnum.getEnumFromName(
+				ConfigUtil.getInstance().getProperty(ConfigConst.GATEWAY_DEVICE, ConfigConst.PIPELINE_BACKPRESSURE_KEY),
+				BackpressurePolicyEnum.DROP_OLDEST),
+			ConfigUtil.getInstance().getInteger(
+				ConfigConst.GATEWAY_DEVICE, ConfigConst.PIPELINE_SAMPLE_RATE_KEY, ConfigConst.DEFAULT_PIPELINE_SAMPLE_RATE),
+			fanOutHandler);
+	}
+
+	/**
+	 * Constructor.
+	 *
+	 * @param queueSize The maximum number of queued messages per stage.
+	 * @param transformWorkers The number of transform stage workers.
+	 * @param fanOutWorkers The number of fan-out stage workers.
+	 * @param policy The policy to apply when a stage's queue is full.
+	 * @param sampleRate The sample rate for {@link BackpressurePolicyEnum#SAMPLE}.
+	 * @param fanOutHandler The handler for each transformed message.
+	 */
+	public DataPipeline(
+		int queueSize, int transformWorkers, int fanOutWorkers,
+		BackpressurePolicyEnum policy, int sampleRate, Consumer<PipelineMessage> fanOutHandler)
+	{
+		super();
+
+		ExecutorUtil execUtil = ExecutorUtil.getInstance();
+
+		this.fanOutStage =
+			new PipelineStage<>(
+				"fanOut", queueSize, fanOutWorkers, policy, sampleRate,
+				fanOutHandler, execUtil.newThreadFactory("DataPipeline-fanOut"));
+
+		this.transformStage =
+			new PipelineStage<>(
+				"transform", queueSize, transformWorkers, policy, sampleRate,
+				this::transform, execUtil.newThreadFactory("DataPipeline-transform"));
+	}
+
+
+	// public methods
+
+	/**
+	 * Returns the fan-out stage, e.g. for its counters.
+	 *
+	 * @return PipelineStage
+	 */
+	public PipelineStage<PipelineMessage> getFanOutStage()
+	{
+		return this.fanOutStage;
+	}
+
+	/**
+	 * Returns the transform stage (which drains the ingest queue),
+	 * e.g. for its counters.
+	 *
+	 * @return PipelineStage
+	 */
+	public PipelineStage<PipelineMessage> getTransformStage()
+	{
+		return this.transformStage;
+	}
+
+	/**
+	 * Starts both stages.
+	 *
+	 */
+	public void start()
+	{
+		this.fanOutStage.start();
+		this.transformStage.start();
+
+		_Logger.info("Data pipeline started.");
+	}
+
+	/**
+	 * Waits until all messages submitted have passed through both stages,
+	 * e.g. before stopping, so they aren't discarded.
+	 *
+	 * @param timeoutMillis The maximum time to wait.
+	 * @return boolean True if drained; false on timeout.
+	 */
+	public boolean drain(long timeoutMillis)
+	{
+		long startMillis = System.currentTimeMillis();
+
+		// the transform stage hands each message to the fan-out stage
+		// before it's counted as handled
+		boolean isDrained = this.transformStage.awaitIdle(timeoutMillis);
+		long remainingMillis = Math.max(0L, timeoutMillis - (System.currentTimeMillis() - startMillis));
+
+		isDrained &= this.fanOutStage.awaitIdle(remainingMillis);
+
+		if (! isDrained) {
+			_Logger.warning("Data pipeline not drained within " + timeoutMillis + " ms.");
+		}
+
+		return isDrained;
+	}
+
+	/**
+	 * Stops both stages, discarding any queued messages; call
+	 * {@link #drain(long)} first to have them handled.
+	 *
+	 */
+	public void stop()
+	{
+		this.transformStage.stop();
+		this.fanOutStage.stop();
+
+		_Logger.info("Data pipeline stopped.");
+	}
+
+	/**
+	 * Submits the given data to the ingest queue. This will only block
+	 * the calling thread if the queue is full and the policy is
+	 * {@link BackpressurePolicyEnum#BLOCK}.
+	 *
+	 * @param resourceName The resource the data was received on.
+	 * @param data The data. Owned by the pipeline once submitted.
+	 * @return boolean True if queued; false if discarded.
+	 */
+	public boolean submit(ResourceNameEnum resourceName, BaseIotData data)
+	{
+		if (data == null) {
+			return false;
+		}
+
+		return this.transformStage.submit(new PipelineMessage(resourceName, data));
+	}
+
+
+	// private methods
+
+	private void transform(PipelineMessage msg)
+	{
+		msg.setJsonData(DataUtil.getInstance().dataToJson(msg.getData()));
+
+		this.fanOutStage.submit(msg);
+	}
+
+}
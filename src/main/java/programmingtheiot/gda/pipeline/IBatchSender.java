@@ -0,0 +1,31 @@
+/**
+ * This class is part of the Programming the Internet of Things
+ * project, and is available via the MIT License, which can be
+ * found in the LICENSE file at the top level of this repository.
+ *
+ * Copyright (c) 2020 by Andrew D. King
+ */
+
+package programmingtheiot.gda.pipeline;
+
+import java.util.List;
+
+/**
+ * A simple callback interface for sending a batch of messages to a
+ * single upstream destination, as used by {@link UpstreamBatcher}.
+ *
+ */
+public interface IBatchSender
+{
+	/**
+	 * Sends the given batch. This is only ever called by the batcher's
+	 * own worker thread, so it may block (e.g. on network I/O).
+	 * <p>
+	 * Implementations may remove successfully sent messages from the
+	 * batch, so that only the remainder is retried on failure.
+	 *
+	 * @param batch The messages to send, in the order received.
+	 * @return boolean True if the whole batch was sent; false otherwise.
+	 */
+	public boolean sendBatch(List<PipelineMessage> batch);
+}
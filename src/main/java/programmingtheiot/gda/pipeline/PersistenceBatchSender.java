@@ -0,0 +1,113 @@
+/**
+ * This class is part of the Programming the Internet of Things
+ * project, and is available via the MIT License, which can be
+ * found in the LICENSE file at the top level of this repository.
+ *
+ * Copyright (c) 2020 by Andrew D. King
+ */
+
+package programmingtheiot.gda.pipeline;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import programmingtheiot.common.ResourceNameEnum;
+import programmingtheiot.data.ActuatorData;
+import programmingtheiot.data.BaseIotData;
+import programmingtheiot.data.SensorData;
+import programmingtheiot.data.SystemPerformanceData;
+import programmingtheiot.gda.connection.IPersistenceClient;
+
+/**
+ * Writes a batch to an {@link IPersistenceClient}, grouped by resource
+ * and data type so each group is a single (multi-instance)
+ * {@code storeData()} call, using the resource name as the topic.
+ * Stored groups are removed from the batch, so a retry only re-writes
+ * those that failed.
+ *
+ */
+public class PersistenceBatchSender implements IBatchSender
+{
+	// private var's
+
+	private final IPersistenceClient persistenceClient;
+	private final int qos;
+
+
+	// constructors
+
+	/**
+	 * Constructor.
+	 *
+	 * @param persistenceClient The client to store with.
+	 * @param qos The intended target QoS passed to the client.
+	 */
+	public PersistenceBatchSender(IPersistenceClient persistenceClient, int qos)
+	{
+		super();
+
+		this.persistenceClient = persistenceClient;
+		this.qos               = qos;
+	}
+
+
+	// public methods
+
+	@Override
+	public boolean sendBatch(List<PipelineMessage> batch)
+	{
+		// keyed on resource, then data type; insertion order is preserved
+		Map<ResourceNameEnum, Map<Class<?>, List<PipelineMessage>>> groups = new LinkedHashMap<>();
+
+		for (PipelineMessage msg : batch) {
+			groups
+				.computeIfAbsent(msg.getResourceName(), (k) -> new LinkedHashMap<>())
+				.computeIfAbsent(msg.getData().getClass(), (k) -> new ArrayList<>())
+				.add(msg);
+		}
+
+		for (Map.Entry<ResourceNameEnum, Map<Class<?>, List<PipelineMessage>>> resourceEntry : groups.entrySet()) {
+			String topic = (resourceEntry.getKey() != null ? resourceEntry.getKey().getResourceName() : null);
+
+			for (List<PipelineMessage> group : resourceEntry.getValue().values()) {
+				if (storeGroup(topic, group)) {
+					batch.removeAll(group);
+				}
+			}
+		}
+
+		return batch.isEmpty();
+	}
+
+
+	// private methods
+
+	private boolean storeGroup(String topic, List<PipelineMessage> group)
+	{
+		BaseIotData first = group.get(0).getData();
+
+		if (first instanceof SensorData) {
+			return this.persistenceClient.storeData(topic, this.qos, toArray(group, new SensorData[group.size()]));
+		} else if (first instanceof SystemPerformanceData) {
+			return this.persistenceClient.storeData(topic, this.qos, toArray(group, new SystemPerformanceData[group.size()]));
+		} else if (first instanceof ActuatorData) {
+			return this.persistenceClient.storeData(topic, this.qos, toArray(group, new ActuatorData[group.size()]));
+		}
+
+		// nothing the client can store
+		return true;
+	}
+
+	@SuppressWarnings("unchecked")
+	private <T extends BaseIotData> T[] toArray(List<PipelineMessage> group, T[] dataArray)
+	{
+		for (int i = 0; i < dataArray.length; i++) {
+			dataArray[i] = (T) group.get(i).getData();
+		}
+
+		return dataArray;
+	}
+
+}
@@ -0,0 +1,143 @@
+/**
+ * This class is part of the Programming the Internet of Things
+ * project, and is available via the MIT License, which can be
+ * found in the LICENSE file at the top level of this repository.
+ *
+ * Copyright (c) 2020 by Andrew D. King
+ */
+
+package programmingtheiot.gda.pipeline;
+
+import java.util.List;
+
+import programmingtheiot.common.ResourceNameEnum;
+import programmingtheiot.data.BaseIotData;
+import programmingtheiot.data.DataUtil;
+
+/**
+ * A message as it moves through the {@link DataPipeline}: the resource
+ * and data as received, and the JSON payload once transformed.
+ *
+ */
+public class PipelineMessage
+{
+	// static
+
+	/**
+	 * Returns the JSON payloads of the given messages as a single JSON
+	 * array, in order. The payload of a message not yet transformed is
+	 * created from its data.
+	 *
+	 * @param msgs The messages.
+	 * @return String The JSON array.
+	 */
+	public static String toJsonArray(List<PipelineMessage> msgs)
+	{
+		String[] jsonData = new String[msgs.size()];
+
+		// brackets and separators
+		int length = jsonData.length + 1;
+
+		for (int i = 0; i < jsonData.length; i++) {
+			PipelineMessage msg = msgs.get(i);
+
+			jsonData[i] =
+				String.valueOf(msg.jsonData != null ? msg.jsonData : DataUtil.getInstance().dataToJson(msg.data));
+			length += jsonData[i].length();
+		}
+
+		StringBuilder builder = new StringBuilder(length).append('[');
+
+		for (int i = 0; i < jsonData.length; i++) {
+			if (i > 0) {
+				builder.append(',');
+			}
+
+			builder.append(jsonData[i]);
+		}
+
+		return builder.append(']').toString();
+	}
+
+
+	// private var's
+
+	private final ResourceNameEnum resourceName;
+	private final BaseIotData data;
+	private final long ingestNanos;
+
+	private String jsonData = null;
+
+
+	// constructors
+
+	/**
+	 * Constructor.
+	 *
+	 * @param resourceName The resource the data was received on.
+	 * @param data The data.
+	 */
+	public PipelineMessage(ResourceNameEnum resourceName, BaseIotData data)
+	{
+		super();
+
+		this.resourceName = resourceName;
+		this.data         = data;
+		this.ingestNanos  = System.nanoTime();
+	}
+
+
+	// public methods
+
+	/**
+	 * Returns the data as received.
+	 *
+	 * @return BaseIotData
+	 */
+	public BaseIotData getData()
+	{
+		return this.data;
+	}
+
+	/**
+	 * Returns the {@link System#nanoTime()} value when this message
+	 * entered the pipeline.
+	 *
+	 * @return long
+	 */
+	public long getIngestNanos()
+	{
+		return this.ingestNanos;
+	}
+
+	/**
+	 * Returns the JSON payload, or null if not yet transformed.
+	 *
+	 * @return String
+	 */
+	public String getJsonData()
+	{
+		return this.jsonData;
+	}
+
+	/**
+	 * Returns the resource the data was received on.
+	 *
+	 * @return ResourceNameEnum
+	 */
+	public ResourceNameEnum getResourceName()
+	{
+		return this.resourceName;
+	}
+
+	/**
+	 * Sets the JSON payload.
+	 *
+	 * @param jsonData The JSON payload.
+	 */
+	public void setJsonData(String jsonData)
+	{
+		this.jsonData = jsonData;
+	}
+
+}
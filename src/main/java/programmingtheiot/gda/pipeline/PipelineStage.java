@@ -0,0 +1,362 @@
+/**
+ * This class is part of the Programming the Internet of Things
+ * project, and is available via the MIT License, which can be
+ * found in the LICENSE file at the top level of this repository.
+ *
+ * Copyright (c) 2020 by Andrew D. King
+ */
+
+package programmingtheiot.gda.pipeline;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A single pipeline stage: a bounded queue drained by one or more worker
+ * threads, each passing items to the stage handler. When the queue is
+ * full, {@link #submit(Object)} applies the stage's
+ * {@link BackpressurePolicyEnum}.
+ * <p>
+ * With more than one worker, items may be handled out of order.
+ * <p>
+ * This class is thread-safe.
+ *
+ * @param <T> The item type.
+ */
+public class PipelineStage<T>
+{
+	// static
+
+	private static final Logger _Logger =
+		Logger.getLogger(PipelineStage.class.getName());
+
+	private static final long IDLE_POLL_MILLIS = 10L;
+
+
+	// private var's
+
+	private final String name;
+	private final BlockingQueue<T> queue;
+	private final int workerCount;
+	private final BackpressurePolicyEnum policy;
+	private final int sampleRate;
+	private final Consumer<T> handler;
+	private final ThreadFactory threadFactory;
+
+	private final AtomicLong acceptedCount  = new AtomicLong(0L);
+	private final AtomicLong droppedCount   = new AtomicLong(0L);
+	private final AtomicLong fullCount      = new AtomicLong(0L);
+	private final AtomicLong processedCount = new AtomicLong(0L);
+
+	// queued or being handled
+	private final AtomicInteger pendingCount = new AtomicInteger(0);
+
+	private final List<Thread> workers = new ArrayList<>();
+	private volatile boolean isRunning = false;
+
+
+	// constructors
+
+	/**
+	 * Constructor.
+	 *
+	 * @param name The stage name, used for worker thread names and logging.
+	 * @param queueSize The maximum number of queued items.
+	 * @param workerCount The number of worker threads.
+	 * @param policy The policy to apply when the queue is full.
+	 * @param sampleRate For {@link BackpressurePolicyEnum#SAMPLE}, accept
+	 * 1 of every 'sampleRate' items submitted while the queue is full.
+	 * @param handler The handler invoked by the workers for each item.
+	 */
+	public PipelineStage(
+		String name, int queueSize, int workerCount, BackpressurePolicyEnum policy, int sampleRate, Consumer<T> handler)
+	{
+		this(name, queueSize, workerCount, policy, sampleRate, handler, null);
+	}
+
+	/**
+	 * Constructor.
+	 *
+	 * @param name The stage name, used for worker thread names and logging.
+	 * @param queueSize The maximum number of queued items.
+	 * @param workerCount The number of worker threads.
+	 * @param policy The policy to apply when the queue is full.
+	 * @param sampleRate For {@link BackpressurePolicyEnum#SAMPLE}, accept
+	 * 1 of every 'sampleRate' items submitted while the queue is full.
+	 * @param handler The handler invoked by the workers for each item.
+	 * @param threadFactory The factory for worker threads (e.g. from
+	 * {@link programmingtheiot.common.ExecutorUtil}). If null, daemon
+	 * platform threads are used.
+	 */
+	public PipelineStage(
+		String name, int queueSize, int workerCount, BackpressurePolicyEnum policy, int sampleRate,
+		Consumer<T> handler, ThreadFactory threadFactory)
+	{
+		super();
+
+		if (handler == null) {
+			throw new IllegalArgumentException("Stage handler must not be null.");
+		}
+
+		this.name          = name;
+		this.queue         = new ArrayBlockingQueue<>(queueSize > 0 ? queueSize : 1);
+		this.workerCount   = (workerCount > 0 ? workerCount : 1);
+		this.policy        = (policy != null ? policy : BackpressurePolicyEnum.BLOCK);
+		this.sampleRate    = (sampleRate > 0 ? sampleRate : 1);
+		this.handler       = handler;
+		this.threadFactory = threadFactory;
+	}
+
+
+	// public methods
+
+	/**
+	 * Returns the number of items accepted into the queue.
+	 *
+	 * @return long
+	 */
+	public long getAcceptedCount()
+	{
+		return this.acceptedCount.get();
+	}
+
+	/**
+	 * Returns the number of items discarded due to backpressure.
+	 *
+	 * @return long
+	 */
+	public long getDroppedCount()
+	{
+		return this.droppedCount.get();
+	}
+
+	/**
+	 * Returns the stage name.
+	 *
+	 * @return String
+	 */
+	public String getName()
+	{
+		return this.name;
+	}
+
+	/**
+	 * Returns the number of items passed to the handler.
+	 *
+	 * @return long
+	 */
+	public long getProcessedCount()
+	{
+		return this.processedCount.get();
+	}
+
+	/**
+	 * Waits until all items queued have been handled, e.g. before stopping,
+	 * so they aren't discarded. Items submitted meanwhile are waited for too.
+	 *
+	 * @param timeoutMillis The maximum time to wait.
+	 * @return boolean True if all items were handled; false on timeout, if
+	 * the workers aren't running, or if the calling thread was interrupted.
+	 */
+	public boolean awaitIdle(long timeoutMillis)
+	{
+		long deadlineNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+
+		while (this.pendingCount.get() > 0) {
+			if (! this.isRunning || System.nanoTime() - deadlineNanos >= 0L) {
+				return false;
+			}
+
+			try {
+				Thread.sleep(IDLE_POLL_MILLIS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	/**
+	 * Returns the number of items currently queued.
+	 *
+	 * @return int
+	 */
+	public int getQueueSize()
+	{
+		return this.queue.size();
+	}
+
+	/**
+	 * Returns true if the workers are running.
+	 *
+	 * @return boolean
+	 */
+	public boolean isRunning()
+	{
+		return this.isRunning;
+	}
+
+	/**
+	 * Starts the worker threads.
+	 *
+	 */
+	public synchronized void start()
+	{
+		if (this.isRunning) {
+			return;
+		}
+
+		this.isRunning = true;
+
+		for (int i = 0; i < this.workerCount; i++) {
+			Thread worker = null;
+
+			if (this.threadFactory != null) {
+				worker = this.threadFactory.newThread(this::runWorker);
+			} else {
+				worker = new Thread(this::runWorker, "PipelineStage-" + this.name + "-" + (i + 1));
+				worker.setDaemon(true);
+			}
+
+			worker.start();
+
+			this.workers.add(worker);
+		}
+
+		_Logger.info("Started pipeline stage " + this.name + ": workers = " + this.workerCount + ", policy = " + this.policy);
+	}
+
+	/**
+	 * Stops the worker threads. Items still queued are discarded; call
+	 * {@link #awaitIdle(long)} first to have them handled.
+	 *
+	 */
+	public synchronized void stop()
+	{
+		if (! this.isRunning) {
+			return;
+		}
+
+		this.isRunning = false;
+
+		for (Thread worker : this.workers) {
+			worker.interrupt();
+		}
+
+		this.workers.clear();
+
+		List<T> discarded = new ArrayList<>();
+		this.queue.drainTo(discarded);
+		this.pendingCount.addAndGet(-discarded.size());
+
+		_Logger.info(
+			"Stopped pipeline stage " + this.name + ": accepted = " + this.acceptedCount.get() +
+			", processed = " + this.processedCount.get() + ", dropped = " + this.droppedCount.get() +
+			", discarded on stop = " + discarded.size());
+	}
+
+	/**
+	 * Submits an item to this stage, applying the backpressure policy
+	 * if the queue is full.
+	 *
+	 * @param item The item to submit.
+	 * @return boolean True if the item was queued; false if it was
+	 * discarded (or the calling thread was interrupted while blocked).
+	 */
+	public boolean submit(T item)
+	{
+		if (item == null) {
+			return false;
+		}
+
+		// counted first, so it's never seen as handled before it's queued
+		this.pendingCount.incrementAndGet();
+
+		if (this.queue.offer(item)) {
+			this.acceptedCount.incrementAndGet();
+
+			return true;
+		}
+
+		switch (this.policy) {
+			case DROP_OLDEST:
+				return replaceOldest(item);
+
+			case SAMPLE:
+				if (this.fullCount.incrementAndGet() % this.sampleRate == 0) {
+					return replaceOldest(item);
+				}
+
+				this.pendingCount.decrementAndGet();
+				this.droppedCount.incrementAndGet();
+
+				return false;
+
+			default:
+				try {
+					this.queue.put(item);
+					this.acceptedCount.incrementAndGet();
+
+					return true;
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					this.pendingCount.decrementAndGet();
+					this.droppedCount.incrementAndGet();
+
+					return false;
+				}
+		}
+	}
+
+
+	// private methods
+
+	private boolean replaceOldest(T item)
+	{
+		while (! this.queue.offer(item)) {
+			if (this.queue.poll() != null) {
+				this.pendingCount.decrementAndGet();
+				this.droppedCount.incrementAndGet();
+			}
+		}
+
+		this.acceptedCount.incrementAndGet();
+
+		return true;
+	}
+
+	private void runWorker()
+	{
+		while (this.isRunning) {
+			T item = null;
+
+			try {
+				item = this.queue.take();
+			} catch (InterruptedException e) {
+				break;
+			}
+
+			try {
+				this.handler.accept(item);
+			} catch (RuntimeException e) {
+				_Logger.log(Level.WARNING, "Pipeline stage " + this.name + " failed to handle item.", e);
+			} finally {
+				this.processedCount.incrementAndGet();
+				this.pendingCount.decrementAndGet();
+			}
+		}
+	}
+
+}
@@ -0,0 +1,127 @@
+/**
+ * This class is part of the Programming the Internet of Things
+ * project, and is available via the MIT License, which can be
+ * found in the LICENSE file at the top level of this repository.
+ *
+ * Copyright (c) 2020 by Andrew D. King
+ */
+
+package programmingtheiot.gda.pipeline;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Logger;
+
+import programmingtheiot.common.ConfigConst;
+import programmingtheiot.common.ResourceNameEnum;
+import programmingtheiot.gda.connection.IPubSubClient;
+
+/**
+ * Publishes a batch with an {@link IPubSubClient}, grouped by upstream
+ * resource so each group is a single publish of a JSON array of the
+ * messages' JSON payloads. Published groups are removed from the batch,
+ * so a retry only re-publishes the groups that failed.
+ * <p>
+ * Messages are published to the GDA resource of the same type as the
+ * message's resource (e.g. CDA sensor messages to the GDA sensor message
+ * topic), never to the CDA topic they arrived on: the GDA's MQTT client
+ * subscribes to those, so re-publishing to them would loop. Messages of
+ * resources without a GDA counterpart (e.g. actuator responses) are
+ * dropped.
+ *
+ */
+public class PubSubBatchSender implements IBatchSender
+{
+	// static
+
+	private static final Logger _Logger =
+		Logger.getLogger(PubSubBatchSender.class.getName());
+
+	private static final Map<ResourceNameEnum, ResourceNameEnum> _UpstreamResources =
+		new EnumMap<>(ResourceNameEnum.class);
+
+	static {
+		for (ResourceNameEnum resource : ResourceNameEnum.values()) {
+			for (ResourceNameEnum gdaResource : ResourceNameEnum.values()) {
+				if (ConfigConst.GATEWAY_DEVICE.equals(gdaResource.getDeviceName()) &&
+					gdaResource.getResourceType().equals(resource.getResourceType()))
+				{
+					_UpstreamResources.put(resource, gdaResource);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Returns the resource messages of the given resource are published to.
+	 *
+	 * @param resource The resource the message was received on.
+	 * @return ResourceNameEnum The GDA resource, or null if there's none.
+	 */
+	public static ResourceNameEnum getUpstreamResource(ResourceNameEnum resource)
+	{
+		return (resource != null ? _UpstreamResources.get(resource) : null);
+	}
+
+
+	// private var's
+
+	private final IPubSubClient pubSubClient;
+	private final int qos;
+
+
+	// constructors
+
+	/**
+	 * Constructor.
+	 *
+	 * @param pubSubClient The client to publish with.
+	 * @param qos The QoS level to publish at.
+	 */
+	public PubSubBatchSender(IPubSubClient pubSubClient, int qos)
+	{
+		super();
+
+		this.pubSubClient = pubSubClient;
+		this.qos          = qos;
+	}
+
+
+	// public methods
+
+	@Override
+	public boolean sendBatch(List<PipelineMessage> batch)
+	{
+		// keyed on upstream resource; insertion order is preserved
+		Map<ResourceNameEnum, List<PipelineMessage>> groups = new LinkedHashMap<>();
+		List<PipelineMessage> dropped = new ArrayList<>();
+
+		for (PipelineMessage msg : batch) {
+			ResourceNameEnum resource = getUpstreamResource(msg.getResourceName());
+
+			if (resource != null) {
+				groups.computeIfAbsent(resource, (k) -> new ArrayList<>()).add(msg);
+			} else {
+				_Logger.fine("No upstream topic for resource. Dropping message: " + msg.getResourceName());
+
+				dropped.add(msg);
+			}
+		}
+
+		batch.removeAll(dropped);
+
+		for (Map.Entry<ResourceNameEnum, List<PipelineMessage>> entry : groups.entrySet()) {
+			List<PipelineMessage> group = entry.getValue();
+
+			if (this.pubSubClient.publishMessage(entry.getKey(), PipelineMessage.toJsonArray(group), this.qos)) {
+				batch.removeAll(group);
+			}
+		}
+
+		return batch.isEmpty();
+	}
+
+}
@@ -0,0 +1,499 @@
+/**
+ * This class is part of the Programming the Internet of Things
+ * project, and is available via the MIT License, which can be
+ * found in the LICENSE file at the top level of this repository.
+ *
+ * Copyright (c) 2020 by Andrew D. King
+ */
+
+package programmingtheiot.gda.pipeline;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import programmingtheiot.common.ConfigConst;
+import programmingtheiot.common.ConfigUtil;
+import programmingtheiot.common.ExecutorUtil;
+import programmingtheiot.common.IConfigChangeListener;
+
+/**
+ * Micro-batches messages for a single upstream destination (e.g. the
+ * cloud or persistence client). A batch is flushed to the
+ * {@link IBatchSender} once it reaches the maximum message count, the
+ * maximum payload size in bytes, or the linger time since its first
+ * message - whichever comes first.
+ * <p>
+ * Each batcher has its own bounded queue and worker thread, and
+ * {@link #submit(PipelineMessage)} never blocks: if the queue is full,
+ * the oldest message is discarded. Failed batches are retried on the
+ * worker thread with exponential backoff, then discarded. A slow or
+ * failing destination therefore only ever delays (and drops) its own
+ * messages, never those of the other destinations.
+ * <p>
+ * A batcher constructed from the configuration re-reads its batching
+ * and retry parameters on config reload while it's running; the new
+ * values apply from the next batch. The queue size is fixed.
+ * <p>
+ * This class is thread-safe.
+ *
+ */
+public class UpstreamBatcher implements IConfigChangeListener
+{
+	// static
+
+	private static final Logger _Logger =
+		Logger.getLogger(UpstreamBatcher.class.getName());
+
+	public static final long STOP_TIMEOUT_MILLIS = 1000L;
+
+
+	// private var's
+
+	private final String name;
+	private final BlockingQueue<PipelineMessage> queue;
+	private final IBatchSender sender;
+	private final ThreadFactory threadFactory;
+
+	// may be updated on config reload
+	private volatile int  maxCount;
+	private volatile int  maxBytes;
+	private volatile long lingerNanos;
+	private volatile int  maxRetries;
+	private volatile long retryDelayMillis;
+
+	// true if constructed from the configuration, and so re-read on reload
+	private boolean isConfigured = false;
+
+	private final AtomicLong acceptedCount = new AtomicLong(0L);
+	private final AtomicLong droppedCount  = new AtomicLong(0L);
+	private final AtomicLong failedCount   = new AtomicLong(0L);
+	private final AtomicLong sentCount     = new AtomicLong(0L);
+	private final AtomicLong batchCount    = new AtomicLong(0L);
+
+	private Thread worker = null;
+	private volatile boolean isRunning = false;
+
+
+	// constructors
+
+	/**
+	 * Constructor. Reads the batching parameters from the
+	 * {@link ConfigConst#GATEWAY_DEVICE} section, using the 'name' prefixed
+	 * keys (e.g. 'cloudBatchMaxCount') if present, and the 'upstream'
+	 * prefixed keys otherwise.
+	 *
+	 * @param name The destination name and config key prefix (e.g.
+	 * {@link ConfigConst#CLOUD_PREFIX}).
+	 * @param sender The sender for this destination.
+	 */
+	public UpstreamBatcher(String name, IBatchSender sender)
+	{
+		this(
+			name,
+			getConfiguredInteger(null, ConfigConst.UPSTREAM_QUEUE_SIZE_KEY, ConfigConst.DEFAULT_UPSTREAM_QUEUE_SIZE),
+			getConfiguredInteger(name, ConfigConst.BATCH_MAX_COUNT_KEY, ConfigConst.DEFAULT_UPSTREAM_BATCH_MAX_COUNT),
+			getConfiguredInteger(name, ConfigConst.BATCH_MAX_BYTES_KEY, ConfigConst.DEFAULT_UPSTREAM_BATCH_MAX_BYTES),
+			getConfiguredInteger(name, ConfigConst.BATCH_LINGER_MILLIS_KEY, ConfigConst.DEFAULT_UPSTREAM_BATCH_LINGER_MILLIS),
+			getConfiguredInteger(null, ConfigConst.UPSTREAM_MAX_RETRIES_KEY, ConfigConst.DEFAULT_UPSTREAM_MAX_RETRIES),
+			getConfiguredInteger(null, ConfigConst.UPSTREAM_RETRY_DELAY_KEY, ConfigConst.DEFAULT_UPSTREAM_RETRY_DELAY_MILLIS),
+			sender,
+			ExecutorUtil.getInstance().newThreadFactory("UpstreamBatcher-" + name));
+
+		this.isConfigured = true;
+	}
+
+	/**
+	 * Constructor.
+	 *
+	 * @param name The destination name, used for logging.
+	 * @param queueSize The maximum number of queued messages.
+	 * @param maxCount The maximum number of messages per batch.
+	 * @param maxBytes The maximum total UTF-8 encoded size of the JSON
+	 * payloads per batch, in bytes.
+	 * A batch is flushed once it reaches (or exceeds) this value.
+	 * @param lingerMillis The maximum time to wait for more messages
+	 * once a batch has been started.
+	 * @param maxRetries The number of times to retry a failed batch.
+	 * @param retryDelayMillis The delay before the first retry; doubled
+	 * for each subsequent retry.
+	 * @param sender The sender for this destination.
+	 * @param threadFactory The factory for the worker thread. If null,
+	 * a daemon platform thread is used.
+	 */
+	public UpstreamBatcher(
+		String name, int queueSize, int maxCount, int maxBytes, long lingerMillis,
+		int maxRetries, long retryDelayMillis, IBatchSender sender, ThreadFactory threadFactory)
+	{
+		super();
+
+		if (sender == null) {
+			throw new IllegalArgumentException("Batch sender must not be null.");
+		}
+
+		this.name          = name;
+		this.queue         = new ArrayBlockingQueue<>(queueSize > 0 ? queueSize : 1);
+		this.sender        = sender;
+		this.threadFactory = threadFactory;
+
+		setBatchParameters(maxCount, maxBytes, lingerMillis, maxRetries, retryDelayMillis);
+	}
+
+
+	// public methods
+
+	/**
+	 * Returns the number of messages accepted into the queue.
+	 *
+	 * @return long
+	 */
+	public long getAcceptedCount()
+	{
+		return this.acceptedCount.get();
+	}
+
+	/**
+	 * Returns the number of batches passed to the sender (not
+	 * including retries).
+	 *
+	 * @return long
+	 */
+	public long getBatchCount()
+	{
+		return this.batchCount.get();
+	}
+
+	/**
+	 * Returns the number of messages discarded because the queue was full.
+	 *
+	 * @return long
+	 */
+	public long getDroppedCount()
+	{
+		return this.droppedCount.get();
+	}
+
+	/**
+	 * Returns the number of messages discarded after all retries failed.
+	 *
+	 * @return long
+	 */
+	public long getFailedCount()
+	{
+		return this.failedCount.get();
+	}
+
+	/**
+	 * Returns the destination name.
+	 *
+	 * @return String
+	 */
+	public String getName()
+	{
+		return this.name;
+	}
+
+	/**
+	 * Returns the number of messages sent successfully.
+	 *
+	 * @return long
+	 */
+	public long getSentCount()
+	{
+		return this.sentCount.get();
+	}
+
+	/**
+	 * Re-reads the batching and retry parameters if the
+	 * {@link ConfigConst#GATEWAY_DEVICE} section changed. Ignored unless
+	 * this batcher was constructed from the configuration.
+	 *
+	 * @param changedSections The changed config section names.
+	 */
+	@Override
+	public void handleConfigChange(Set<String> changedSections)
+	{
+		if (! this.isConfigured || ! changedSections.contains(ConfigConst.GATEWAY_DEVICE)) {
+			return;
+		}
+
+		setBatchParameters(
+			getConfiguredInteger(this.name, ConfigConst.BATCH_MAX_COUNT_KEY, ConfigConst.DEFAULT_UPSTREAM_BATCH_MAX_COUNT),
+			getConfiguredInteger(this.name, ConfigConst.BATCH_MAX_BYTES_KEY, ConfigConst.DEFAULT_UPSTREAM_BATCH_MAX_BYTES),
+			getConfiguredInteger(this.name, ConfigConst.BATCH_LINGER_MILLIS_KEY, ConfigConst.DEFAULT_UPSTREAM_BATCH_LINGER_MILLIS),
+			getConfiguredInteger(null, ConfigConst.UPSTREAM_MAX_RETRIES_KEY, ConfigConst.DEFAULT_UPSTREAM_MAX_RETRIES),
+			getConfiguredInteger(null, ConfigConst.UPSTREAM_RETRY_DELAY_KEY, ConfigConst.DEFAULT_UPSTREAM_RETRY_DELAY_MILLIS));
+
+		_Logger.info(
+			"Reloaded upstream batcher " + this.name + ": maxCount = " + this.maxCount +
+			", maxBytes = " + this.maxBytes + ", lingerMillis = " + TimeUnit.NANOSECONDS.toMillis(this.lingerNanos));
+	}
+
+	/**
+	 * Returns true if the worker is running.
+	 *
+	 * @return boolean
+	 */
+	public boolean isRunning()
+	{
+		return this.isRunning;
+	}
+
+	/**
+	 * Starts the worker thread.
+	 *
+	 */
+	public synchronized void start()
+	{
+		if (this.isRunning) {
+			return;
+		}
+
+		this.isRunning = true;
+
+		if (this.threadFactory != null) {
+			this.worker = this.threadFactory.newThread(this::runWorker);
+		} else {
+			this.worker = new Thread(this::runWorker, "UpstreamBatcher-" + this.name);
+			this.worker.setDaemon(true);
+		}
+
+		this.worker.start();
+
+		ConfigUtil.getInstance().addConfigChangeListener(this);
+
+		_Logger.info(
+			"Started upstream batcher " + this.name + ": maxCount = " + this.maxCount +
+			", maxBytes = " + this.maxBytes + ", lingerMillis = " + TimeUnit.NANOSECONDS.toMillis(this.lingerNanos));
+	}
+
+	/**
+	 * Stops the worker thread, then makes a single attempt (without
+	 * retries) to send any messages still queued.
+	 *
+	 */
+	public synchronized void stop()
+	{
+		if (! this.isRunning) {
+			return;
+		}
+
+		ConfigUtil.getInstance().removeConfigChangeListener(this);
+
+		this.isRunning = false;
+		this.worker.interrupt();
+
+		try {
+			this.worker.join(STOP_TIMEOUT_MILLIS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+
+		this.worker = null;
+
+		List<PipelineMessage> batch = new ArrayList<>();
+		this.queue.drainTo(batch);
+
+		if (! batch.isEmpty()) {
+			flush(batch, 0);
+		}
+
+		_Logger.info(
+			"Stopped upstream batcher " + this.name + ": accepted = " + this.acceptedCount.get() +
+			", sent = " + this.sentCount.get() + ", batches = " + this.batchCount.get() +
+			", dropped = " + this.droppedCount.get() + ", failed = " + this.failedCount.get());
+	}
+
+	/**
+	 * Queues the given message for the next batch. This never blocks; if
+	 * the queue is full, the oldest queued message is discarded.
+	 *
+	 * @param msg The message, which must already have its JSON payload.
+	 * @return boolean True if queued; false if the message is null.
+	 */
+	public boolean submit(PipelineMessage msg)
+	{
+		if (msg == null) {
+			return false;
+		}
+
+		while (! this.queue.offer(msg)) {
+			if (this.queue.poll() != null) {
+				this.droppedCount.incrementAndGet();
+			}
+		}
+
+		this.acceptedCount.incrementAndGet();
+
+		return true;
+	}
+
+
+	// private methods
+
+	private static int getConfiguredInteger(String prefix, String key, int defaultVal)
+	{
+		ConfigUtil configUtil = ConfigUtil.getInstance();
+
+		int val = configUtil.getInteger(
+			ConfigConst.GATEWAY_DEVICE, ConfigConst.UPSTREAM_PREFIX + key, defaultVal);
+
+		if (prefix != null) {
+			val = configUtil.getInteger(ConfigConst.GATEWAY_DEVICE, prefix + key, val);
+		}
+
+		return val;
+	}
+
+	/**
+	 * Returns the UTF-8 encoded length of the message's JSON payload,
+	 * without encoding it.
+	 *
+	 * @param msg The message.
+	 * @return int The length in bytes; 0 if there's no payload.
+	 */
+	private static int getPayloadLength(PipelineMessage msg)
+	{
+		String jsonData = msg.getJsonData();
+
+		if (jsonData == null) {
+			return 0;
+		}
+
+		int length = jsonData.length();
+		int byteCount = length;
+
+		for (int i = 0; i < length; i++) {
+			char c = jsonData.charAt(i);
+
+			if (Character.isSurrogate(c)) {
+				// a surrogate pair encodes to 4 bytes: 2 per char
+				byteCount += 1;
+			} else if (c >= 0x800) {
+				byteCount += 2;
+			} else if (c >= 0x80) {
+				byteCount += 1;
+			}
+		}
+
+		return byteCount;
+	}
+
+	private void setBatchParameters(int maxCount, int maxBytes, long lingerMillis, int maxRetries, long retryDelayMillis)
+	{
+		this.maxCount         = (maxCount > 0 ? maxCount : 1);
+		this.maxBytes         = (maxBytes > 0 ? maxBytes : Integer.MAX_VALUE);
+		this.lingerNanos      = TimeUnit.MILLISECONDS.toNanos(Math.max(0L, lingerMillis));
+		this.maxRetries       = Math.max(0, maxRetries);
+		this.retryDelayMillis = Math.max(1L, retryDelayMillis);
+	}
+
+	/**
+	 * Sends the batch, retrying up to 'maxRetries' times. Messages still
+	 * in the batch once all attempts have failed are discarded.
+	 *
+	 * @param batch The batch to send.
+	 * @param maxRetries The number of retries.
+	 */
+	private void flush(List<PipelineMessage> batch, int maxRetries)
+	{
+		int batchSize = batch.size();
+		int attempt = 0;
+
+		this.batchCount.incrementAndGet();
+
+		while (true) {
+			boolean success = false;
+
+			try {
+				success = this.sender.sendBatch(batch);
+			} catch (RuntimeException e) {
+				_Logger.log(Level.WARNING, "Upstream batcher " + this.name + " failed to send batch.", e);
+			}
+
+			if (success || batch.isEmpty()) {
+				this.sentCount.addAndGet(batchSize);
+
+				return;
+			}
+
+			if (attempt >= maxRetries) {
+				break;
+			}
+
+			try {
+				Thread.sleep(this.retryDelayMillis << Math.min(attempt, 16));
+			} catch (InterruptedException e) {
+				// stopping: give up on this batch
+				Thread.currentThread().interrupt();
+				break;
+			}
+
+			attempt++;
+		}
+
+		this.sentCount.addAndGet(batchSize - batch.size());
+		this.failedCount.addAndGet(batch.size());
+
+		_Logger.warning(
+			"Upstream batcher " + this.name + " discarded " + batch.size() + " messages after " +
+			(attempt + 1) + " attempts.");
+	}
+
+	private void runWorker()
+	{
+		List<PipelineMessage> batch = new ArrayList<>();
+
+		while (this.isRunning) {
+			PipelineMessage msg = null;
+
+			try {
+				msg = this.queue.take();
+			} catch (InterruptedException e) {
+				break;
+			}
+
+			batch.add(msg);
+
+			// read once per batch, as they may change on config reload
+			int maxCount = this.maxCount;
+			int maxBytes = this.maxBytes;
+
+			int batchBytes = getPayloadLength(msg);
+			long deadline = System.nanoTime() + this.lingerNanos;
+
+			try {
+				while (batch.size() < maxCount && batchBytes < maxBytes) {
+					long remaining = deadline - System.nanoTime();
+
+					msg = (remaining > 0L ? this.queue.poll(remaining, TimeUnit.NANOSECONDS) : this.queue.poll());
+
+					if (msg == null) {
+						break;
+					}
+
+					batch.add(msg);
+					batchBytes += getPayloadLength(msg);
+				}
+			} catch (InterruptedException e) {
+				// stopping: flush what's been collected, once
+				Thread.currentThread().interrupt();
+			}
+
+			flush(batch, (this.isRunning ? this.maxRetries : 0));
+			batch.clear();
+
+			if (Thread.currentThread().isInterrupted()) {
+				break;
+			}
+		}
+	}
+
+}
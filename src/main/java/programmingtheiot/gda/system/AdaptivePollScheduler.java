@@ -0,0 +1,416 @@
+/**
+ * This class is part of the Programming the Internet of Things project.
+ *
+ * It is provided as a simple shell to guide the student and assist with
+ * implementation for the Programming the Internet of Things exercises,
+ * and designed to be modified by the student as needed.
+ */
+
+package programmingtheiot.gda.system;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import programmingtheiot.common.ExecutorUtil;
+import programmingtheiot.data.SystemPerformanceData;
+
+/**
+ * Polls telemetry tasks independently, each at its own adaptive interval
+ * (see {@link PollSchedule}), on a small thread pool, so a slow task (e.g.
+ * a disk probe) doesn't delay the others. After each poll, the next poll
+ * of that task is scheduled, so a task is never polled concurrently with
+ * itself, and polls never queue up.
+ * <p>
+ * Polls are due at whole intervals from the first poll, rather than an
+ * interval after the previous poll finished, so they don't drift by the
+ * time each poll takes. If a poll runs past the next due time(s), e.g.
+ * because the listener blocked, these ticks are skipped, and the task is
+ * next polled at the following due time, rather than repeatedly to catch
+ * up. The duration, lag and skipped ticks of each task's polls are
+ * measured (see {@link #getPollStats(BaseSystemUtilTask)}).
+ * <p>
+ * Each poll passes the task's metrics (as added by
+ * {@link BaseSystemUtilTask#addTelemetry(SystemPerformanceData)}) to the
+ * {@link ITelemetrySampleListener}. The value compared with the schedule
+ * is the largest of these metrics.
+ * <p>
+ * This class is thread-safe.
+ */
+public class AdaptivePollScheduler
+{
+	// static
+
+	private static final Logger _Logger =
+		Logger.getLogger(AdaptivePollScheduler.class.getName());
+
+
+	// private var's
+
+	private final int threadCount;
+	private final ITelemetrySampleListener listener;
+	private final List<TaskEntry> entries = new CopyOnWriteArrayList<>();
+
+	private ScheduledThreadPoolExecutor executor = null;
+
+
+	// constructors
+
+	/**
+	 * Constructor.
+	 *
+	 * @param threadCount The number of polling threads.
+	 * @param listener The listener for each task's samples.
+	 */
+	public AdaptivePollScheduler(int threadCount, ITelemetrySampleListener listener)
+	{
+		super();
+
+		this.threadCount = Math.max(1, threadCount);
+		this.listener    = listener;
+	}
+
+
+	// public methods
+
+	/**
+	 * Adds a task to poll. If started, its first poll is scheduled now.
+	 *
+	 * @param task The task.
+	 * @param schedule The task's poll schedule.
+	 */
+	public synchronized void addTask(BaseSystemUtilTask task, PollSchedule schedule)
+	{
+		TaskEntry entry = new TaskEntry(task, schedule);
+
+		this.entries.add(entry);
+
+		if (isStarted()) {
+			scheduleAt(entry, System.nanoTime());
+		}
+	}
+
+	/**
+	 * Returns the current poll interval of a task.
+	 *
+	 * @param task The task.
+	 * @return long The interval in milliseconds, or -1 if the task isn't scheduled.
+	 */
+	public long getCurrentIntervalMillis(BaseSystemUtilTask task)
+	{
+		TaskEntry entry = getEntry(task);
+
+		return (entry != null ? entry.currentIntervalMillis : -1L);
+	}
+
+	/**
+	 * Returns the smallest current poll interval of all tasks.
+	 *
+	 * @return long The interval in milliseconds, or -1 if there are no tasks.
+	 */
+	public long getMinCurrentIntervalMillis()
+	{
+		long minMillis = Long.MAX_VALUE;
+
+		for (TaskEntry entry : this.entries) {
+			minMillis = Math.min(minMillis, entry.currentIntervalMillis);
+		}
+
+		return (minMillis < Long.MAX_VALUE ? minMillis : -1L);
+	}
+
+	/**
+	 * Returns the number of times a task was polled.
+	 *
+	 * @param task The task.
+	 * @return long
+	 */
+	public long getPollCount(BaseSystemUtilTask task)
+	{
+		TaskEntry entry = getEntry(task);
+
+		return (entry != null ? entry.pollCount : 0L);
+	}
+
+	/**
+	 * Returns the polling statistics of a task.
+	 *
+	 * @param task The task.
+	 * @return PollStats The statistics, or null if the task isn't scheduled.
+	 */
+	public PollStats getPollStats(BaseSystemUtilTask task)
+	{
+		TaskEntry entry = getEntry(task);
+
+		return (entry != null ? entry.getPollStats() : null);
+	}
+
+	/**
+	 * Returns the tasks, in the order added.
+	 *
+	 * @return List
+	 */
+	public List<BaseSystemUtilTask> getTasks()
+	{
+		List<BaseSystemUtilTask> tasks = new ArrayList<>(this.entries.size());
+
+		for (TaskEntry entry : this.entries) {
+			tasks.add(entry.task);
+		}
+
+		return tasks;
+	}
+
+	/**
+	 * Returns true if polling is started.
+	 *
+	 * @return boolean
+	 */
+	public synchronized boolean isStarted()
+	{
+		return (this.executor != null);
+	}
+
+	/**
+	 * Changes the base interval of all tasks, and re-schedules them.
+	 *
+	 * @param intervalMillis The new base interval.
+	 */
+	public synchronized void setIntervalMillis(long intervalMillis)
+	{
+		for (TaskEntry entry : this.entries) {
+			synchronized (entry) {
+				entry.schedule = entry.schedule.withIntervalMillis(intervalMillis);
+				entry.currentIntervalMillis = intervalMillis;
+
+				if (entry.future != null) {
+					entry.future.cancel(false);
+					scheduleAt(entry, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(intervalMillis));
+				}
+			}
+		}
+	}
+
+	/**
+	 * Starts polling; each task is first polled now.
+	 *
+	 * @return boolean True if started; false if already started.
+	 */
+	public synchronized boolean start()
+	{
+		if (isStarted()) {
+			return false;
+		}
+
+		this.executor =
+			new ScheduledThreadPoolExecutor(this.threadCount, ExecutorUtil.getInstance().newThreadFactory("SysPerfPoll"));
+		this.executor.setRemoveOnCancelPolicy(true);
+
+		long nowNanos = System.nanoTime();
+
+		for (TaskEntry entry : this.entries) {
+			scheduleAt(entry, nowNanos);
+		}
+
+		return true;
+	}
+
+	/**
+	 * Stops polling. Polls in progress are completed.
+	 *
+	 */
+	public synchronized void stop()
+	{
+		if (this.executor != null) {
+			this.executor.shutdown();
+			this.executor = null;
+
+			for (TaskEntry entry : this.entries) {
+				entry.generation++;
+				entry.future = null;
+			}
+		}
+	}
+
+
+	// private methods
+
+	private TaskEntry getEntry(BaseSystemUtilTask task)
+	{
+		for (TaskEntry entry : this.entries) {
+			if (entry.task == task) {
+				return entry;
+			}
+		}
+
+		return null;
+	}
+
+	private void poll(TaskEntry entry, int generation)
+	{
+		// superseded, e.g. by a re-schedule while this poll was queued
+		if (generation != entry.generation) {
+			return;
+		}
+
+		long dueNanos = entry.dueNanos;
+		long startNanos = System.nanoTime();
+
+		// the listener is called without holding any lock
+		float prevValue = entry.lastValue;
+		float value = sample(entry);
+
+		long endNanos = System.nanoTime();
+		long skippedTicks = 0L;
+		long nextDueNanos;
+
+		synchronized (entry) {
+			entry.currentIntervalMillis =
+				entry.schedule.nextIntervalMillis(entry.currentIntervalMillis, prevValue, value);
+
+			entry.addRun(startNanos - dueNanos, endNanos - startNanos);
+
+			// skip due times that passed while polling, rather than catching up
+			long intervalNanos = TimeUnit.MILLISECONDS.toNanos(entry.currentIntervalMillis);
+			nextDueNanos = dueNanos + intervalNanos;
+
+			if (nextDueNanos - endNanos < 0L) {
+				skippedTicks = (endNanos - nextDueNanos) / intervalNanos + 1L;
+				nextDueNanos += skippedTicks * intervalNanos;
+
+				entry.skippedCount += skippedTicks;
+			}
+		}
+
+		if (skippedTicks > 0L) {
+			_Logger.fine("Poll of telemetry task " + entry.task.getName() + " overran; skipped ticks: " + skippedTicks);
+		}
+
+		synchronized (this) {
+			if (isStarted() && generation == entry.generation) {
+				scheduleAt(entry, nextDueNanos);
+			}
+		}
+	}
+
+	/**
+	 * Polls the task, and passes its metrics to the listener. A failing
+	 * task or listener is logged, and doesn't stop the task being polled.
+	 *
+	 * @return float The largest metric, or NaN if none.
+	 */
+	private float sample(TaskEntry entry)
+	{
+		float value = Float.NaN;
+
+		try {
+			SystemPerformanceData data = new SystemPerformanceData();
+			entry.task.addTelemetry(data);
+
+			Map<String, Float> metrics = data.getMetrics();
+
+			for (Float metric : metrics.values()) {
+				if (Float.isNaN(value) || metric > value) {
+					value = metric;
+				}
+			}
+
+			entry.lastValue = value;
+			entry.pollCount++;
+
+			if (this.listener != null) {
+				this.listener.handleTelemetrySample(entry.task, metrics, entry.schedule.isAboveThreshold(value));
+			}
+		} catch (RuntimeException e) {
+			_Logger.log(Level.WARNING, "Failed to poll telemetry task: " + entry.task.getName(), e);
+		}
+
+		return value;
+	}
+
+	/**
+	 * Schedules the next poll of the task, superseding any other scheduled
+	 * or running poll of it. Must be called holding this instance's lock.
+	 *
+	 * @param dueNanos The time the poll is due, as of System.nanoTime().
+	 */
+	private void scheduleAt(TaskEntry entry, long dueNanos)
+	{
+		int generation = ++entry.generation;
+		long delayNanos = Math.max(0L, dueNanos - System.nanoTime());
+
+		entry.dueNanos = dueNanos;
+		entry.future = this.executor.schedule(() -> poll(entry, generation), delayNanos, TimeUnit.NANOSECONDS);
+	}
+
+
+	/**
+	 * A task, its schedule and its polling state. The statistics are
+	 * guarded by the entry's lock.
+	 *
+	 */
+	private static final class TaskEntry
+	{
+		private final BaseSystemUtilTask task;
+
+		private volatile PollSchedule schedule;
+		private volatile long currentIntervalMillis;
+		private volatile float lastValue = Float.NaN;
+		private volatile long pollCount = 0L;
+		private volatile int generation = 0;
+		private volatile long dueNanos = 0L;
+
+		private ScheduledFuture<?> future = null;
+
+		private long runCount = 0L;
+		private long skippedCount = 0L;
+		private long lastDurationNanos = 0L;
+		private long maxDurationNanos = 0L;
+		private long totalDurationNanos = 0L;
+		private long lastLagNanos = 0L;
+		private long maxLagNanos = 0L;
+		private long totalLagNanos = 0L;
+
+		TaskEntry(BaseSystemUtilTask task, PollSchedule schedule)
+		{
+			this.task     = task;
+			this.schedule = schedule;
+			this.currentIntervalMillis = schedule.getIntervalMillis();
+		}
+
+		void addRun(long lagNanos, long durationNanos)
+		{
+			lagNanos = Math.max(0L, lagNanos);
+
+			this.runCount++;
+			this.lastDurationNanos   = durationNanos;
+			this.maxDurationNanos    = Math.max(this.maxDurationNanos, durationNanos);
+			this.totalDurationNanos += durationNanos;
+			this.lastLagNanos        = lagNanos;
+			this.maxLagNanos         = Math.max(this.maxLagNanos, lagNanos);
+			this.totalLagNanos      += lagNanos;
+		}
+
+		synchronized PollStats getPollStats()
+		{
+			long runs = Math.max(1L, this.runCount);
+
+			return new PollStats(
+				this.pollCount, this.skippedCount,
+				toMillis(this.lastDurationNanos), toMillis(this.maxDurationNanos), toMillis(this.totalDurationNanos) / runs,
+				toMillis(this.lastLagNanos), toMillis(this.maxLagNanos), toMillis(this.totalLagNanos) / runs);
+		}
+
+		private static double toMillis(long nanos)
+		{
+			return nanos / 1.0e6d;
+		}
+	}
+
+}
@@ -11,6 +11,7 @@ package programmingtheiot.gda.system;
 import java.util.logging.Logger;
 
 import programmingtheiot.common.ConfigConst;
+import programmingtheiot.data.SystemPerformanceData;
 
 /**
  * Base class for our System utilities with getter functions for name, typeID and telemetry value. 
@@ -66,4 +67,21 @@ public abstract class BaseSystemUtilTask
 	 */
 	public abstract float getTelemetryValue();
 	
+	/**
+	 * Adds this task's measure(s) to 'data' as additional metrics. By
+	 * default, this is the telemetry value named by {@link #getName()},
+	 * unless it's negative (not supported); sub-classes that produce more
+	 * than one measure (e.g. per network interface) override this.
+	 * 
+	 * @param data The data to add the metric(s) to.
+	 */
+	public void addTelemetry(SystemPerformanceData data)
+	{
+		float val = getTelemetryValue();
+		
+		if (val >= 0.0f) {
+			data.setMetric(getName(), val);
+		}
+	}
+	
 }
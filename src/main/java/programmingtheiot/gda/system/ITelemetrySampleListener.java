@@ -0,0 +1,32 @@
+/**
+ * This class is part of the Programming the Internet of Things project.
+ *
+ * It is provided as a simple shell to guide the student and assist with
+ * implementation for the Programming the Internet of Things exercises,
+ * and designed to be modified by the student as needed.
+ */
+
+package programmingtheiot.gda.system;
+
+import java.util.Map;
+
+/**
+ * A simple callback interface for receiving the samples of telemetry
+ * tasks polled by an {@link AdaptivePollScheduler}.
+ *
+ */
+public interface ITelemetrySampleListener
+{
+	/**
+	 * Callback signature for receiving a sample. This is called on the
+	 * polling thread of the task, so may be called concurrently for
+	 * different tasks.
+	 *
+	 * @param task The task polled.
+	 * @param metrics The metrics the task reported, by name.
+	 * @param isAboveThreshold True if the task's value reached its poll
+	 * threshold (e.g. a load spike).
+	 */
+	public void handleTelemetrySample(BaseSystemUtilTask task, Map<String, Float> metrics, boolean isAboveThreshold);
+
+}
@@ -0,0 +1,146 @@
+/**
+ * This class is part of the Programming the Internet of Things project.
+ *
+ * It is provided as a simple shell to guide the student and assist with
+ * implementation for the Programming the Internet of Things exercises,
+ * and designed to be modified by the student as needed.
+ */
+
+package programmingtheiot.gda.system;
+
+/**
+ * The adaptive polling intervals of a telemetry task, as used by
+ * {@link AdaptivePollScheduler}.
+ * <p>
+ * A task is polled at its base interval until its value:
+ * <ul>
+ * <li>reaches the threshold: it's then polled at the minimum interval,
+ * to catch short spikes, until it drops below the threshold again;</li>
+ * <li>changes by less than the idle delta between polls: the interval is
+ * then doubled on each poll, up to the maximum interval, and reset to the
+ * base interval as soon as the value changes again.</li>
+ * </ul>
+ * <p>
+ * Instances are immutable.
+ */
+public final class PollSchedule
+{
+	// private var's
+
+	private final long  intervalMillis;
+	private final long  minIntervalMillis;
+	private final long  maxIntervalMillis;
+	private final float threshold;
+	private final float idleDelta;
+
+
+	// constructors
+
+	/**
+	 * Constructor.
+	 *
+	 * @param intervalMillis The base interval.
+	 * @param minIntervalMillis The interval while at or above the threshold;
+	 * limited to the base interval.
+	 * @param maxIntervalMillis The maximum interval while idle; at least the
+	 * base interval.
+	 * @param threshold The value at or above which the task is polled at the
+	 * minimum interval; use Float.POSITIVE_INFINITY for none.
+	 * @param idleDelta The change in value between polls below which the
+	 * task is considered idle; use 0 to never back off.
+	 */
+	public PollSchedule(long intervalMillis, long minIntervalMillis, long maxIntervalMillis, float threshold, float idleDelta)
+	{
+		if (intervalMillis <= 0L || minIntervalMillis <= 0L) {
+			throw new IllegalArgumentException("Poll intervals must be positive.");
+		}
+
+		this.intervalMillis    = intervalMillis;
+		this.minIntervalMillis = Math.min(minIntervalMillis, intervalMillis);
+		this.maxIntervalMillis = Math.max(maxIntervalMillis, intervalMillis);
+		this.threshold         = threshold;
+		this.idleDelta         = Math.max(0.0f, idleDelta);
+	}
+
+
+	// public methods
+
+	public long getIntervalMillis()
+	{
+		return this.intervalMillis;
+	}
+
+	public long getMinIntervalMillis()
+	{
+		return this.minIntervalMillis;
+	}
+
+	public long getMaxIntervalMillis()
+	{
+		return this.maxIntervalMillis;
+	}
+
+	public float getThreshold()
+	{
+		return this.threshold;
+	}
+
+	public float getIdleDelta()
+	{
+		return this.idleDelta;
+	}
+
+	/**
+	 * Checks whether the value is at or above the threshold.
+	 *
+	 * @param value The polled value.
+	 * @return boolean
+	 */
+	public boolean isAboveThreshold(float value)
+	{
+		return (value >= this.threshold);
+	}
+
+	/**
+	 * Returns the interval until the next poll.
+	 *
+	 * @param currentIntervalMillis The interval before the last poll.
+	 * @param prevValue The value polled before the last poll, or NaN if none.
+	 * @param value The value of the last poll, or NaN if none.
+	 * @return long The next interval.
+	 */
+	public long nextIntervalMillis(long currentIntervalMillis, float prevValue, float value)
+	{
+		if (isAboveThreshold(value)) {
+			return this.minIntervalMillis;
+		}
+
+		if (Float.isNaN(value) || Float.isNaN(prevValue) || Math.abs(value - prevValue) >= this.idleDelta) {
+			return this.intervalMillis;
+		}
+
+		// idle: back off from (at least) the base interval
+		long backOffMillis = Math.max(currentIntervalMillis, this.intervalMillis);
+
+		return Math.min(backOffMillis * 2L, this.maxIntervalMillis);
+	}
+
+	/**
+	 * Returns a copy of this schedule with a different base interval.
+	 *
+	 * @param intervalMillis The new base interval.
+	 * @return PollSchedule
+	 */
+	public PollSchedule withIntervalMillis(long intervalMillis)
+	{
+		return new PollSchedule(intervalMillis, this.minIntervalMillis, this.maxIntervalMillis, this.threshold, this.idleDelta);
+	}
+
+	@Override
+	public String toString()
+	{
+		return "PollSchedule[interval=" + this.intervalMillis + ",min=" + this.minIntervalMillis +
+			",max=" + this.maxIntervalMillis + ",threshold=" + this.threshold + ",idleDelta=" + this.idleDelta + "]";
+	}
+
+}
@@ -0,0 +1,104 @@
+/**
+ * This class is part of the Programming the Internet of Things project.
+ *
+ * It is provided as a simple shell to guide the student and assist with
+ * implementation for the Programming the Internet of Things exercises,
+ * and designed to be modified by the student as needed.
+ */
+
+package programmingtheiot.gda.system;
+
+/**
+ * A snapshot of the polling statistics of a telemetry task, as measured by
+ * {@link AdaptivePollScheduler}.
+ * <p>
+ * The lag of a poll is how late it started after it was due, e.g. because
+ * all polling threads were busy; its variation is the jitter of the poll
+ * timestamps. A skipped tick is a due time that passed while the previous
+ * poll was still running; it isn't polled late, but skipped.
+ * <p>
+ * Instances are immutable.
+ */
+public final class PollStats
+{
+	// private var's
+
+	private final long   pollCount;
+	private final long   skippedCount;
+	private final double lastDurationMillis;
+	private final double maxDurationMillis;
+	private final double meanDurationMillis;
+	private final double lastLagMillis;
+	private final double maxLagMillis;
+	private final double meanLagMillis;
+
+
+	// constructors
+
+	PollStats(
+		long pollCount, long skippedCount,
+		double lastDurationMillis, double maxDurationMillis, double meanDurationMillis,
+		double lastLagMillis, double maxLagMillis, double meanLagMillis)
+	{
+		this.pollCount          = pollCount;
+		this.skippedCount       = skippedCount;
+		this.lastDurationMillis = lastDurationMillis;
+		this.maxDurationMillis  = maxDurationMillis;
+		this.meanDurationMillis = meanDurationMillis;
+		this.lastLagMillis      = lastLagMillis;
+		this.maxLagMillis       = maxLagMillis;
+		this.meanLagMillis      = meanLagMillis;
+	}
+
+
+	// public methods
+
+	public long getPollCount()
+	{
+		return this.pollCount;
+	}
+
+	public long getSkippedCount()
+	{
+		return this.skippedCount;
+	}
+
+	public double getLastDurationMillis()
+	{
+		return this.lastDurationMillis;
+	}
+
+	public double getMaxDurationMillis()
+	{
+		return this.maxDurationMillis;
+	}
+
+	public double getMeanDurationMillis()
+	{
+		return this.meanDurationMillis;
+	}
+
+	public double getLastLagMillis()
+	{
+		return this.lastLagMillis;
+	}
+
+	public double getMaxLagMillis()
+	{
+		return this.maxLagMillis;
+	}
+
+	public double getMeanLagMillis()
+	{
+		return this.meanLagMillis;
+	}
+
+	@Override
+	public String toString()
+	{
+		return "PollStats[polls=" + this.pollCount + ",skipped=" + this.skippedCount +
+			",durationMillis=" + this.lastDurationMillis + "/" + this.maxDurationMillis + "/" + this.meanDurationMillis +
+			",lagMillis=" + this.lastLagMillis + "/" + this.maxLagMillis + "/" + this.meanLagMillis + "]";
+	}
+
+}
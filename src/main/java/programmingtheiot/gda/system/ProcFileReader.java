@@ -0,0 +1,257 @@
+/**
+ * This class is part of the Programming the Internet of Things project.
+ *
+ * It is provided as a simple shell to guide the student and assist with
+ * implementation for the Programming the Internet of Things exercises,
+ * and designed to be modified by the student as needed.
+ */
+
+package programmingtheiot.gda.system;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.BiConsumer;
+
+/**
+ * Reads a Linux /proc file (e.g. /proc/stat) into a reused buffer, and
+ * parses numeric fields from it without creating Strings. The buffer grows
+ * as needed, up to {@link #MAX_BUFFER_SIZE}; only whole lines of a file
+ * larger than that are parsed.
+ * <p>
+ * The file is kept open, and re-read from the start on each call to
+ * {@link #read()}, which makes the kernel regenerate its content. If
+ * reading fails, the file is re-opened on the next call.
+ * <p>
+ * This class isn't thread-safe.
+ */
+final class ProcFileReader
+{
+	// static
+
+	private static final int DEFAULT_BUFFER_SIZE = 8192;
+
+	static final int MAX_BUFFER_SIZE = 1024 * 1024;
+
+
+	// private var's
+
+	private final Path path;
+
+	private ByteBuffer buffer = null;
+
+	private FileChannel channel = null;
+	private int length = 0;
+
+
+	// constructors
+
+	ProcFileReader(Path path)
+	{
+		this(path, DEFAULT_BUFFER_SIZE);
+	}
+
+	ProcFileReader(Path path, int bufferSize)
+	{
+		this.path   = path;
+		this.buffer = ByteBuffer.allocate(bufferSize);
+	}
+
+
+	// package methods
+
+	/**
+	 * Reads the file from the start, growing the buffer if the file doesn't
+	 * fit. If it doesn't fit the max buffer size, a cut-off last line is
+	 * dropped.
+	 *
+	 * @throws IOException If the file can't be read.
+	 */
+	void read() throws IOException
+	{
+		try {
+			if (this.channel == null) {
+				this.channel = FileChannel.open(this.path, StandardOpenOption.READ);
+			}
+
+			this.buffer.clear();
+
+			long position = 0L;
+			int count = 0;
+
+			while ((count = this.channel.read(this.buffer, position)) > 0) {
+				position += count;
+
+				if (! this.buffer.hasRemaining()) {
+					if (this.buffer.capacity() >= MAX_BUFFER_SIZE) {
+						break;
+					}
+
+					// /proc files have no size, so there's no way to know in advance
+					ByteBuffer larger = ByteBuffer.allocate(Math.min(this.buffer.capacity() * 2, MAX_BUFFER_SIZE));
+					this.buffer.flip();
+					this.buffer = larger.put(this.buffer);
+				}
+			}
+
+			this.length = this.buffer.position();
+
+			if (! this.buffer.hasRemaining()) {
+				// possibly cut off: drop the last line unless it's complete
+				byte[] data = this.buffer.array();
+
+				while (this.length > 0 && data[this.length - 1] != '\n') {
+					this.length--;
+				}
+			}
+		} catch (IOException e) {
+			close();
+
+			throw e;
+		}
+	}
+
+	/**
+	 * Parses the whitespace separated numbers following the first line
+	 * that starts with the given key, as last read.
+	 *
+	 * @param key The US-ASCII line key, including any trailing ':' or
+	 * space (e.g. "cpu " or "MemTotal:").
+	 * @param values The array to fill; unparsed entries are set to 0.
+	 * @return int The number of values parsed, or -1 if there's no such line.
+	 */
+	int parseLine(byte[] key, long[] values)
+	{
+		byte[] data = this.buffer.array();
+
+		int lineStart = 0;
+
+		while (lineStart < this.length) {
+			if (startsWith(data, lineStart, key)) {
+				return parseValues(data, lineStart + key.length, values);
+			}
+
+			while (lineStart < this.length && data[lineStart] != '\n') {
+				lineStart++;
+			}
+
+			lineStart++;
+		}
+
+		return -1;
+	}
+
+	/**
+	 * Parses each line of the form 'name: numbers' (e.g. in /proc/net/dev),
+	 * as last read, passing the trimmed name and the parsed numbers to
+	 * 'consumer'. Lines without a ':' (e.g. headers) are skipped.
+	 *
+	 * @param values The array to fill for each line; it's re-used.
+	 * @param consumer The consumer of each name and its values.
+	 * @return int The number of lines parsed.
+	 */
+	int parseNamedLines(long[] values, BiConsumer<String, long[]> consumer)
+	{
+		byte[] data = this.buffer.array();
+
+		int lineStart = 0;
+		int count = 0;
+
+		while (lineStart < this.length) {
+			int pos = lineStart;
+
+			while (pos < this.length && data[pos] != ':' && data[pos] != '\n') {
+				pos++;
+			}
+
+			if (pos < this.length && data[pos] == ':') {
+				int nameStart = lineStart;
+				int nameEnd = pos;
+
+				while (nameStart < nameEnd && data[nameStart] == ' ') nameStart++;
+				while (nameEnd > nameStart && data[nameEnd - 1] == ' ') nameEnd--;
+
+				parseValues(data, pos + 1, values);
+				consumer.accept(new String(data, nameStart, nameEnd - nameStart, StandardCharsets.US_ASCII), values);
+
+				count++;
+			}
+
+			while (pos < this.length && data[pos] != '\n') {
+				pos++;
+			}
+
+			lineStart = pos + 1;
+		}
+
+		return count;
+	}
+
+	/**
+	 * Closes the file; it's re-opened on the next read.
+	 *
+	 */
+	void close()
+	{
+		if (this.channel != null) {
+			try {
+				this.channel.close();
+			} catch (IOException e) {
+				// ignore
+			}
+
+			this.channel = null;
+		}
+	}
+
+
+	// private methods
+
+	private int parseValues(byte[] data, int pos, long[] values)
+	{
+		int count = 0;
+
+		while (count < values.length && pos < this.length && data[pos] != '\n') {
+			while (pos < this.length && (data[pos] == ' ' || data[pos] == '\t')) {
+				pos++;
+			}
+
+			if (pos >= this.length || data[pos] < '0' || data[pos] > '9') {
+				break;
+			}
+
+			long value = 0L;
+
+			while (pos < this.length && data[pos] >= '0' && data[pos] <= '9') {
+				value = value * 10 + (data[pos++] - '0');
+			}
+
+			values[count++] = value;
+		}
+
+		for (int i = count; i < values.length; i++) {
+			values[i] = 0L;
+		}
+
+		return count;
+	}
+
+	private boolean startsWith(byte[] data, int pos, byte[] prefix)
+	{
+		if (pos + prefix.length > this.length) {
+			return false;
+		}
+
+		for (int i = 0; i < prefix.length; i++) {
+			if (data[pos + i] != prefix[i]) {
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+}
@@ -0,0 +1,124 @@
+/**
+ * This class is part of the Programming the Internet of Things project.
+ *
+ * It is provided as a simple shell to guide the student and assist with
+ * implementation for the Programming the Internet of Things exercises,
+ * and designed to be modified by the student as needed.
+ */
+
+package programmingtheiot.gda.system;
+
+import java.lang.management.ManagementFactory;
+import java.util.HashMap;
+import java.util.Map;
+
+import programmingtheiot.common.ConfigConst;
+
+
+/**
+ * Represents a task to measure the JVM heap allocation rate, in bytes per
+ * second, since the previous call (the first call covers the time since
+ * construction).
+ * <p>
+ * This is the sum of the bytes allocated by each live thread since the
+ * previous call, so allocations by threads that ended in between aren't
+ * counted. It's only supported on JVMs whose thread management bean
+ * supports allocation measurement (e.g. HotSpot).
+ */
+public class SystemAllocRateTask extends BaseSystemUtilTask
+{
+	// private var's
+
+	private com.sun.management.ThreadMXBean threadBean = null;
+
+	private Map<Long, Long> prevAllocatedBytes = new HashMap<>();
+	private long prevNanos = 0L;
+
+
+	// constructors
+
+	/**
+	 * Default.
+	 *
+	 */
+	public SystemAllocRateTask()
+	{
+		super(ConfigConst.ALLOC_RATE_PROP, ConfigConst.ALLOC_RATE_TYPE);
+
+		java.lang.management.ThreadMXBean mxBean = ManagementFactory.getThreadMXBean();
+
+		if (mxBean instanceof com.sun.management.ThreadMXBean) {
+			com.sun.management.ThreadMXBean bean = (com.sun.management.ThreadMXBean) mxBean;
+
+			if (bean.isThreadAllocatedMemorySupported()) {
+				bean.setThreadAllocatedMemoryEnabled(true);
+
+				this.threadBean = bean;
+
+				// establish the baseline for the first rate
+				getAllocatedBytes();
+			}
+		}
+	}
+
+
+	// public methods
+
+	/**
+	 * Get the telemetry value representing the allocation rate.
+	 *
+	 * @return The allocation rate in bytes per second, or a negative value
+	 * if not supported.
+	 */
+	@Override
+	public synchronized float getTelemetryValue()
+	{
+		if (this.threadBean == null) {
+			return -1.0f;
+		}
+
+		long prevNanos = this.prevNanos;
+		long allocatedBytes = getAllocatedBytes();
+		long elapsedNanos = this.prevNanos - prevNanos;
+
+		if (elapsedNanos <= 0L) {
+			return 0.0f;
+		}
+
+		return (float) (allocatedBytes * 1.0e9d / elapsedNanos);
+	}
+
+
+	// private methods
+
+	/**
+	 * Returns the bytes allocated since the previous call, and records the
+	 * current per-thread totals and time.
+	 *
+	 */
+	private long getAllocatedBytes()
+	{
+		long[] threadIds = this.threadBean.getAllThreadIds();
+		long[] allocatedBytes = this.threadBean.getThreadAllocatedBytes(threadIds);
+
+		this.prevNanos = System.nanoTime();
+
+		Map<Long, Long> currentBytes = new HashMap<>(threadIds.length * 2);
+		long total = 0L;
+
+		for (int i = 0; i < threadIds.length; i++) {
+			if (allocatedBytes[i] < 0L) {
+				continue;
+			}
+
+			Long prevBytes = this.prevAllocatedBytes.get(threadIds[i]);
+
+			total += allocatedBytes[i] - (prevBytes != null ? prevBytes : 0L);
+			currentBytes.put(threadIds[i], allocatedBytes[i]);
+		}
+
+		this.prevAllocatedBytes = currentBytes;
+
+		return Math.max(0L, total);
+	}
+}
@@ -1,52 +1,166 @@
 /**
  * This class is part of the Programming the Internet of Things project.
- * 
+ *
  * It is provided as a simple shell to guide the student and assist with
  * implementation for the Programming the Internet of Things exercises,
  * and designed to be modified by the student as needed.
- */ 
+ */
 
 package programmingtheiot.gda.system;
 
+import java.io.IOException;
 import java.lang.management.ManagementFactory;
 import java.lang.management.OperatingSystemMXBean;
-
-import java.util.logging.Logger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.logging.Level;
 
 import programmingtheiot.common.ConfigConst;
 
 
 /**
  * Represents a task to measure CPU utilization.
+ * <p>
+ * On Linux, the utilization is the percentage of CPU time not spent idle
+ * (or waiting for I/O) since the previous call, from the aggregate 'cpu'
+ * line of /proc/stat; the first call covers the time since construction.
+ * Elsewhere, the OS management bean's system CPU load is used, or -1 if
+ * that's not supported.
  */
 public class SystemCpuUtilTask extends BaseSystemUtilTask
 {
+	// static
+
+	private static final Path   PROC_STAT_PATH = Paths.get("/proc/stat");
+	private static final byte[] CPU_KEY        = "cpu ".getBytes(StandardCharsets.US_ASCII);
+
+	// user, nice, system, idle, iowait, irq, softirq, steal - guest time
+	// is already included in user time, so isn't summed
+	private static final int IDLE_INDEX   = 3;
+	private static final int IOWAIT_INDEX = 4;
+	private static final int FIELD_COUNT  = 8;
+
+
+	// private var's
+
+	private ProcFileReader procStatReader = null;
+	private long[] fields = new long[FIELD_COUNT];
+
+	private long prevTotalTime = 0L;
+	private long prevIdleTime  = 0L;
+
+
 	// constructors
-	
+
 	/**
 	 * Default constructor.
 	 * Initializes SystemCpuUtilTask with default type ID.
 	 */
 	public SystemCpuUtilTask()
 	{
-		super(ConfigConst.NOT_SET, ConfigConst.DEFAULT_TYPE_ID);
+		this(PROC_STAT_PATH);
 	}
-	
-	
+
+	/**
+	 * Constructor.
+	 *
+	 * @param procStatPath The path of the file to read in /proc/stat format.
+	 */
+	public SystemCpuUtilTask(Path procStatPath)
+	{
+		super(ConfigConst.CPU_UTIL_NAME, ConfigConst.CPU_UTIL_TYPE);
+
+		if (procStatPath != null && Files.isReadable(procStatPath)) {
+			this.procStatReader = new ProcFileReader(procStatPath);
+
+			// establish the baseline for the first delta
+			readCpuTimes();
+		}
+	}
+
+
 	// public methods
 
 	/**
 	 * Get the telemetry value representing CPU utilization.
 	 *
-	 * @return The CPU utilization as a floating point value.
+	 * @return The CPU utilization as a percentage (0 - 100), or a
+	 * negative value if not supported.
 	 */
 	@Override
-	public float getTelemetryValue()
+	public synchronized float getTelemetryValue()
+	{
+		if (this.procStatReader != null) {
+			long prevTotal = this.prevTotalTime;
+			long prevIdle  = this.prevIdleTime;
+
+			if (readCpuTimes()) {
+				long totalDelta = this.prevTotalTime - prevTotal;
+				long idleDelta  = this.prevIdleTime - prevIdle;
+
+				if (totalDelta <= 0L) {
+					return 0.0f;
+				}
+
+				return (float) (100.0d * (totalDelta - idleDelta) / totalDelta);
+			}
+		}
+
+		return getMXBeanCpuUtil();
+	}
+
+
+	// private methods
+
+	/**
+	 * Reads the aggregate CPU times, and stores them as the previous
+	 * times for the next call.
+	 *
+	 * @return boolean True if read; false if reading failed, in which case
+	 * the management bean is used from now on.
+	 */
+	private boolean readCpuTimes()
+	{
+		try {
+			this.procStatReader.read();
+
+			if (this.procStatReader.parseLine(CPU_KEY, this.fields) < IOWAIT_INDEX + 1) {
+				throw new IOException("Unexpected format: no aggregate 'cpu' line.");
+			}
+
+			long totalTime = 0L;
+
+			for (long field : this.fields) {
+				totalTime += field;
+			}
+
+			this.prevTotalTime = totalTime;
+			this.prevIdleTime  = this.fields[IDLE_INDEX] + this.fields[IOWAIT_INDEX];
+
+			return true;
+		} catch (IOException e) {
+			_Logger.log(Level.WARNING, "Failed to read CPU times. Using OS management bean instead.", e);
+
+			this.procStatReader.close();
+			this.procStatReader = null;
+
+			return false;
+		}
+	}
+
+	@SuppressWarnings("deprecation")
+	private float getMXBeanCpuUtil()
 	{
-		//Implement custom getTelemetry function for CPU Utilization
 		OperatingSystemMXBean mxBean = ManagementFactory.getOperatingSystemMXBean();
-		double cpuUtil = mxBean.getSystemLoadAverage();
-		
-		return (float) cpuUtil;
+
+		if (mxBean instanceof com.sun.management.OperatingSystemMXBean) {
+			double cpuLoad = ((com.sun.management.OperatingSystemMXBean) mxBean).getSystemCpuLoad();
+
+			return (cpuLoad >= 0.0d ? (float) (cpuLoad * 100.0d) : -1.0f);
+		}
+
+		return -1.0f;
 	}
 }
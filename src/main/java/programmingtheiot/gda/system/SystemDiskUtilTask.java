@@ -1,47 +1,109 @@
 /**
  * This class is part of the Programming the Internet of Things project.
- * 
+ *
  * It is provided as a simple shell to guide the student and assist with
  * implementation for the Programming the Internet of Things exercises,
  * and designed to be modified by the student as needed.
- */ 
+ */
 
 package programmingtheiot.gda.system;
 
-import java.lang.management.ManagementFactory;
-import java.lang.management.OperatingSystemMXBean;
-
-import java.util.logging.Logger;
+import java.io.IOException;
+import java.nio.file.FileStore;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.logging.Level;
 
 import programmingtheiot.common.ConfigConst;
+import programmingtheiot.common.ConfigUtil;
 
 
 /**
- * Shell representation of class for student implementation.
- * 
+ * Represents a task to measure disk utilization.
+ * <p>
+ * This is the used percentage of the file store (volume) holding the
+ * configured path ({@link ConfigConst#DISK_UTIL_PATH_KEY}), calculated as
+ * 'df' does: used / (used + available to this user), where used is the
+ * total less the unallocated space.
  */
 public class SystemDiskUtilTask extends BaseSystemUtilTask
 {
+	// private var's
+
+	private FileStore fileStore = null;
+
+
 	// constructors
-	
+
 	/**
 	 * Default.
-	 * 
+	 *
 	 */
 	public SystemDiskUtilTask()
 	{
-		super(ConfigConst.NOT_SET, ConfigConst.DEFAULT_TYPE_ID);
+		this(getConfiguredPath());
+	}
+
+	/**
+	 * Constructor.
+	 *
+	 * @param path A path on the file store to measure.
+	 */
+	public SystemDiskUtilTask(Path path)
+	{
+		super(ConfigConst.DISK_UTIL_NAME, ConfigConst.DISK_UTIL_TYPE);
+
+		try {
+			this.fileStore = Files.getFileStore(path);
+
+			_Logger.info("Measuring disk utilization of file store: " + this.fileStore);
+		} catch (IOException | RuntimeException e) {
+			_Logger.log(Level.WARNING, "Failed to find file store for path: " + path, e);
+		}
 	}
-	
-	
+
+
 	// public methods
+
+	/**
+	 * Get the telemetry value representing disk utilization.
+	 *
+	 * @return The disk utilization as a percentage (0 - 100), or a
+	 * negative value if not supported.
+	 */
 	@Override
 	public float getTelemetryValue()
 	{
-		//Implement custom getTelemetry function for CPU Utilization
-		OperatingSystemMXBean mxBean = ManagementFactory.getOperatingSystemMXBean();
-		double diskUtil = mxBean.getSystemLoadAverage();
-		
-		return (float) diskUtil;
+		if (this.fileStore != null) {
+			try {
+				long total = this.fileStore.getTotalSpace();
+				long used  = total - this.fileStore.getUnallocatedSpace();
+				long avail = this.fileStore.getUsableSpace();
+
+				if (used + avail > 0L) {
+					return (float) (100.0d * used / (used + avail));
+				}
+			} catch (IOException e) {
+				_Logger.log(Level.WARNING, "Failed to read file store usage: " + this.fileStore, e);
+			}
+		}
+
+		return -1.0f;
+	}
+
+
+	// private methods
+
+	private static Path getConfiguredPath()
+	{
+		String pathName =
+			ConfigUtil.getInstance().getProperty(ConfigConst.GATEWAY_DEVICE, ConfigConst.DISK_UTIL_PATH_KEY, "");
+
+		if (pathName == null || pathName.isBlank()) {
+			return Paths.get("").toAbsolutePath().getRoot();
+		}
+
+		return Paths.get(pathName.trim());
 	}
 }
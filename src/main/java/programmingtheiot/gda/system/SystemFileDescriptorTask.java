@@ -0,0 +1,62 @@
+/**
+ * This class is part of the Programming the Internet of Things project.
+ *
+ * It is provided as a simple shell to guide the student and assist with
+ * implementation for the Programming the Internet of Things exercises,
+ * and designed to be modified by the student as needed.
+ */
+
+package programmingtheiot.gda.system;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.OperatingSystemMXBean;
+
+import com.sun.management.UnixOperatingSystemMXBean;
+
+import programmingtheiot.common.ConfigConst;
+
+
+/**
+ * Represents a task to measure the number of file descriptors (files,
+ * sockets, pipes) the process has open. This is only supported on Unix
+ * like systems.
+ */
+public class SystemFileDescriptorTask extends BaseSystemUtilTask
+{
+	// private var's
+
+	private UnixOperatingSystemMXBean osBean = null;
+
+
+	// constructors
+
+	/**
+	 * Default.
+	 *
+	 */
+	public SystemFileDescriptorTask()
+	{
+		super(ConfigConst.OPEN_FILE_DESC_PROP, ConfigConst.OPEN_FILE_DESC_TYPE);
+
+		OperatingSystemMXBean mxBean = ManagementFactory.getOperatingSystemMXBean();
+
+		if (mxBean instanceof UnixOperatingSystemMXBean) {
+			this.osBean = (UnixOperatingSystemMXBean) mxBean;
+		}
+	}
+
+
+	// public methods
+
+	/**
+	 * Get the telemetry value representing the open file descriptor count.
+	 *
+	 * @return The number of open file descriptors, or a negative value if
+	 * not supported.
+	 */
+	@Override
+	public float getTelemetryValue()
+	{
+		return (this.osBean != null ? (float) this.osBean.getOpenFileDescriptorCount() : -1.0f);
+	}
+}
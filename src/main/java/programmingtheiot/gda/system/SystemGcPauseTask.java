@@ -0,0 +1,85 @@
+/**
+ * This class is part of the Programming the Internet of Things project.
+ *
+ * It is provided as a simple shell to guide the student and assist with
+ * implementation for the Programming the Internet of Things exercises,
+ * and designed to be modified by the student as needed.
+ */
+
+package programmingtheiot.gda.system;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+
+import programmingtheiot.common.ConfigConst;
+
+
+/**
+ * Represents a task to measure the time the JVM spent in garbage
+ * collection, in milliseconds, since the previous call (the first call
+ * covers the time since construction), summed over all collectors.
+ */
+public class SystemGcPauseTask extends BaseSystemUtilTask
+{
+	// private var's
+
+	private List<GarbageCollectorMXBean> gcBeans = null;
+	private long prevCollectionMillis = 0L;
+
+
+	// constructors
+
+	/**
+	 * Default.
+	 *
+	 */
+	public SystemGcPauseTask()
+	{
+		super(ConfigConst.GC_PAUSE_MILLIS_PROP, ConfigConst.GC_PAUSE_TYPE);
+
+		this.gcBeans = ManagementFactory.getGarbageCollectorMXBeans();
+		this.prevCollectionMillis = getCollectionMillis();
+	}
+
+
+	// public methods
+
+	/**
+	 * Get the telemetry value representing GC time since the previous call.
+	 *
+	 * @return The GC time in milliseconds, or a negative value if not supported.
+	 */
+	@Override
+	public synchronized float getTelemetryValue()
+	{
+		long collectionMillis = getCollectionMillis();
+
+		if (collectionMillis < 0L) {
+			return -1.0f;
+		}
+
+		long delta = collectionMillis - this.prevCollectionMillis;
+		this.prevCollectionMillis = collectionMillis;
+
+		return (float) Math.max(0L, delta);
+	}
+
+
+	// private methods
+
+	private long getCollectionMillis()
+	{
+		long total = -1L;
+
+		for (GarbageCollectorMXBean gcBean : this.gcBeans) {
+			long millis = gcBean.getCollectionTime();
+
+			if (millis >= 0L) {
+				total = Math.max(total, 0L) + millis;
+			}
+		}
+
+		return total;
+	}
+}
@@ -1,58 +1,149 @@
 /**
  * This class is part of the Programming the Internet of Things project.
- * 
+ *
  * It is provided as a simple shell to guide the student and assist with
  * implementation for the Programming the Internet of Things exercises,
  * and designed to be modified by the student as needed.
- */ 
+ */
 
 package programmingtheiot.gda.system;
 
+import java.io.IOException;
 import java.lang.management.ManagementFactory;
-import java.lang.management.MemoryUsage;
-
-import java.util.logging.Logger;
+import java.lang.management.OperatingSystemMXBean;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.logging.Level;
 
 import programmingtheiot.common.ConfigConst;
 
 /**
  * Represents a task to measure memory utilization.
+ * <p>
+ * This is system (not JVM heap) memory: on Linux, the percentage of
+ * MemTotal that's not MemAvailable in /proc/meminfo (or, on kernels
+ * without MemAvailable, not free, buffers or page cache). Elsewhere, the
+ * OS management bean's physical memory sizes are used, or -1 if that's
+ * not supported.
  */
 public class SystemMemUtilTask extends BaseSystemUtilTask
 {
-		
+	// static
+
+	private static final Path PROC_MEMINFO_PATH = Paths.get("/proc/meminfo");
+
+	private static final byte[] MEM_TOTAL_KEY     = "MemTotal:".getBytes(StandardCharsets.US_ASCII);
+	private static final byte[] MEM_AVAILABLE_KEY = "MemAvailable:".getBytes(StandardCharsets.US_ASCII);
+	private static final byte[] MEM_FREE_KEY      = "MemFree:".getBytes(StandardCharsets.US_ASCII);
+	private static final byte[] BUFFERS_KEY       = "Buffers:".getBytes(StandardCharsets.US_ASCII);
+	private static final byte[] CACHED_KEY        = "Cached:".getBytes(StandardCharsets.US_ASCII);
+
+
+	// private var's
+
+	private ProcFileReader memInfoReader = null;
+	private long[] value = new long[1];
+
+
 	// constructors
-	
+
 	/**
 	 * Default constructor.
 	 * Initializes SystemMemUtilTask with default type ID.
 	 */
 	public SystemMemUtilTask()
 	{
-		super(ConfigConst.NOT_SET, ConfigConst.DEFAULT_TYPE_ID);
+		this(PROC_MEMINFO_PATH);
+	}
+
+	/**
+	 * Constructor.
+	 *
+	 * @param memInfoPath The path of the file to read in /proc/meminfo format.
+	 */
+	public SystemMemUtilTask(Path memInfoPath)
+	{
+		super(ConfigConst.MEM_UTIL_NAME, ConfigConst.MEM_UTIL_TYPE);
+
+		if (memInfoPath != null && Files.isReadable(memInfoPath)) {
+			this.memInfoReader = new ProcFileReader(memInfoPath);
+		}
 	}
-	
-	
+
+
 	// public methods
 
 	/**
 	 * Get the telemetry value representing memory utilization.
 	 *
-	 * @return The memory utilization as a floating point value.
+	 * @return The memory utilization as a percentage (0 - 100), or a
+	 * negative value if not supported.
 	 */
 	@Override
-	public float getTelemetryValue()
+	public synchronized float getTelemetryValue()
 	{
-		//Implement custom getTelemetry function for Memory Utilization
-		MemoryUsage memUsage = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage();
-		double memUsed = (double) memUsage.getUsed();
-		double memMax  = (double) memUsage.getMax();
-		
-		_Logger.fine("Mem used: " + memUsed + "; Mem Max: " + memMax);
-		
-		double memUtil = (memUsed / memMax) * 100.0d;
-		
-		return (float) memUtil;
+		if (this.memInfoReader != null) {
+			try {
+				this.memInfoReader.read();
+
+				long memTotal = getValue(MEM_TOTAL_KEY);
+				long memAvail = getValue(MEM_AVAILABLE_KEY);
+
+				if (memAvail < 0L) {
+					memAvail = Math.max(0L, getValue(MEM_FREE_KEY)) + Math.max(0L, getValue(BUFFERS_KEY)) + Math.max(0L, getValue(CACHED_KEY));
+				}
+
+				if (memTotal <= 0L) {
+					throw new IOException("Unexpected format: no MemTotal.");
+				}
+
+				_Logger.fine("Mem total: " + memTotal + " kB; Mem available: " + memAvail + " kB");
+
+				return toUtilization(memTotal, memAvail);
+			} catch (IOException e) {
+				_Logger.log(Level.WARNING, "Failed to read memory info. Using OS management bean instead.", e);
+
+				this.memInfoReader.close();
+				this.memInfoReader = null;
+			}
+		}
+
+		return getMXBeanMemUtil();
 	}
-	
+
+
+	// private methods
+
+	private long getValue(byte[] key)
+	{
+		return (this.memInfoReader.parseLine(key, this.value) > 0 ? this.value[0] : -1L);
+	}
+
+	@SuppressWarnings("deprecation")
+	private float getMXBeanMemUtil()
+	{
+		OperatingSystemMXBean mxBean = ManagementFactory.getOperatingSystemMXBean();
+
+		if (mxBean instanceof com.sun.management.OperatingSystemMXBean) {
+			com.sun.management.OperatingSystemMXBean osBean = (com.sun.management.OperatingSystemMXBean) mxBean;
+
+			long memTotal = osBean.getTotalPhysicalMemorySize();
+
+			if (memTotal > 0L) {
+				return toUtilization(memTotal, osBean.getFreePhysicalMemorySize());
+			}
+		}
+
+		return -1.0f;
+	}
+
+	private float toUtilization(long total, long available)
+	{
+		long used = Math.max(0L, Math.min(total, total - available));
+
+		return (float) (100.0d * used / total);
+	}
+
 }
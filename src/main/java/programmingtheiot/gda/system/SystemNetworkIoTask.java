@@ -0,0 +1,187 @@
+/**
+ * This class is part of the Programming the Internet of Things project.
+ *
+ * It is provided as a simple shell to guide the student and assist with
+ * implementation for the Programming the Internet of Things exercises,
+ * and designed to be modified by the student as needed.
+ */
+
+package programmingtheiot.gda.system;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.logging.Level;
+
+import programmingtheiot.common.ConfigConst;
+import programmingtheiot.data.SystemPerformanceData;
+
+
+/**
+ * Represents a task to measure network I/O, in bytes per second received
+ * and transmitted per interface since the previous call (the first call
+ * covers the time since construction), from /proc/net/dev. The loopback
+ * interface is excluded. This is only supported on Linux.
+ * <p>
+ * {@link #addTelemetry(SystemPerformanceData)} adds a received and a
+ * transmitted metric per interface (e.g. 'netRxBytesPerSec.eth0');
+ * {@link #getTelemetryValue()} returns the total over all interfaces.
+ */
+public class SystemNetworkIoTask extends BaseSystemUtilTask
+{
+	// static
+
+	private static final Path   PROC_NET_DEV_PATH  = Paths.get("/proc/net/dev");
+	private static final String LOOPBACK_INTERFACE = "lo";
+
+	// receive bytes is the first field, transmit bytes the ninth
+	private static final int RX_BYTES_INDEX = 0;
+	private static final int TX_BYTES_INDEX = 8;
+
+
+	// private var's
+
+	private ProcFileReader netDevReader = null;
+	private long[] fields = new long[TX_BYTES_INDEX + 1];
+
+	// per interface: rx bytes, tx bytes, rx rate, tx rate
+	private Map<String, double[]> interfaceStats = new LinkedHashMap<>();
+	private long prevNanos = 0L;
+	private long curNanos = 0L;
+
+
+	// constructors
+
+	/**
+	 * Default.
+	 *
+	 */
+	public SystemNetworkIoTask()
+	{
+		this(PROC_NET_DEV_PATH);
+	}
+
+	/**
+	 * Constructor.
+	 *
+	 * @param netDevPath The path of the file to read in /proc/net/dev format.
+	 */
+	public SystemNetworkIoTask(Path netDevPath)
+	{
+		super(ConfigConst.NET_RX_BYTES_RATE_PROP, ConfigConst.NETWORK_IO_TYPE);
+
+		if (netDevPath != null && Files.isReadable(netDevPath)) {
+			this.netDevReader = new ProcFileReader(netDevPath);
+
+			// establish the baseline for the first rates
+			collect();
+		}
+	}
+
+
+	// public methods
+
+	/**
+	 * Adds the received and transmitted bytes per second of each interface.
+	 *
+	 * @param data The data to add the metrics to.
+	 */
+	@Override
+	public synchronized void addTelemetry(SystemPerformanceData data)
+	{
+		if (collect()) {
+			for (Map.Entry<String, double[]> entry : this.interfaceStats.entrySet()) {
+				String suffix = "." + entry.getKey();
+				double[] stats = entry.getValue();
+
+				data.setMetric(ConfigConst.NET_RX_BYTES_RATE_PROP + suffix, (float) stats[2]);
+				data.setMetric(ConfigConst.NET_TX_BYTES_RATE_PROP + suffix, (float) stats[3]);
+			}
+		}
+	}
+
+	/**
+	 * Get the telemetry value representing total network I/O.
+	 *
+	 * @return The bytes per second received and transmitted on all
+	 * interfaces, or a negative value if not supported.
+	 */
+	@Override
+	public synchronized float getTelemetryValue()
+	{
+		if (! collect()) {
+			return -1.0f;
+		}
+
+		double total = 0.0d;
+
+		for (double[] stats : this.interfaceStats.values()) {
+			total += stats[2] + stats[3];
+		}
+
+		return (float) total;
+	}
+
+
+	// private methods
+
+	/**
+	 * Reads the interface counters, and updates the rates since the
+	 * previous read. Interfaces that disappeared are removed.
+	 *
+	 * @return boolean True if read; false if not supported, or reading failed.
+	 */
+	private boolean collect()
+	{
+		if (this.netDevReader == null) {
+			return false;
+		}
+
+		try {
+			this.netDevReader.read();
+		} catch (IOException e) {
+			_Logger.log(Level.WARNING, "Failed to read network device stats.", e);
+
+			this.netDevReader.close();
+			this.netDevReader = null;
+
+			return false;
+		}
+
+		this.prevNanos = this.curNanos;
+		this.curNanos  = System.nanoTime();
+
+		// only used for interfaces seen on the previous read
+		double elapsedSecs = (this.curNanos - this.prevNanos) / 1.0e9d;
+
+		Map<String, double[]> prevStats = this.interfaceStats;
+		Map<String, double[]> curStats  = new LinkedHashMap<>();
+
+		this.netDevReader.parseNamedLines(this.fields, (name, values) -> {
+			if (LOOPBACK_INTERFACE.equals(name)) {
+				return;
+			}
+
+			double[] stats = prevStats.get(name);
+
+			if (stats == null) {
+				stats = new double[] { values[RX_BYTES_INDEX], values[TX_BYTES_INDEX], 0.0d, 0.0d };
+			} else if (elapsedSecs > 0.0d) {
+				// counters may wrap or be reset, so never report a negative rate
+				stats[2] = Math.max(0.0d, (values[RX_BYTES_INDEX] - stats[0]) / elapsedSecs);
+				stats[3] = Math.max(0.0d, (values[TX_BYTES_INDEX] - stats[1]) / elapsedSecs);
+				stats[0] = values[RX_BYTES_INDEX];
+				stats[1] = values[TX_BYTES_INDEX];
+			}
+
+			curStats.put(name, stats);
+		});
+
+		this.interfaceStats = curStats;
+
+		return true;
+	}
+}
@@ -1,22 +1,22 @@
 /**
  * This class is part of the Programming the Internet of Things project.
- * 
+ *
  * It is provided as a simple shell to guide the student and assist with
  * implementation for the Programming the Internet of Things exercises,
  * and designed to be modified by the student as needed.
- */ 
+ */
 
 package programmingtheiot.gda.system;
 
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.ScheduledFuture;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 import java.util.logging.Logger;
-import java.util.logging.Level;
 
 import programmingtheiot.common.ConfigConst;
 import programmingtheiot.common.ConfigUtil;
+import programmingtheiot.common.IConfigChangeListener;
 import programmingtheiot.common.IDataMessageListener;
 import programmingtheiot.common.ResourceNameEnum;
 import programmingtheiot.data.SystemPerformanceData;
@@ -25,82 +25,220 @@ import programmingtheiot.data.SystemPerformanceData;
 /**
  * This class manages system performance data, including CPU utilization, memory utilization,
  * and disk utilization, and sends this data to a specified listener.
+ * <p>
+ * Each telemetry task is polled independently by an {@link AdaptivePollScheduler},
+ * at its own millisecond interval, which shortens while its value is at or above
+ * its threshold (e.g. a CPU spike) and lengthens while the value doesn't change.
+ * The latest values of all tasks are published together whenever the fastest
+ * polled task is sampled, and immediately when a task reaches its threshold.
+ * <p>
+ * While started, a change to the poll interval in the configuration file is applied
+ * by re-scheduling the tasks, without restarting the manager.
+ * <p>
+ * Telemetry is passed to the data message listener on the polling thread. To
+ * deliver it to more than one listener, without a slow listener (e.g. analytics)
+ * delaying the others, set a {@link programmingtheiot.common.CompositeDataMessageListener},
+ * whose threads are owned, and shut down, by the caller.
+ * <p>
+ * Besides CPU, memory and disk utilization, the metrics of any number of
+ * additional telemetry tasks are published (see {@link #addTelemetryTask(BaseSystemUtilTask)});
+ * if enabled, these include GC time, allocation rate, thread count, open file
+ * descriptors, network I/O and process CPU utilization, and the largest lag and
+ * duration of the latest polls and the total number of skipped (overrun) poll
+ * ticks (see {@link PollStats}).
  */
-public class SystemPerformanceManager
+public class SystemPerformanceManager implements IConfigChangeListener, ITelemetrySampleListener
 {
-	// private var's
+	// static
+
 	private static final Logger _Logger = Logger.getLogger(SystemPerformanceManager.class.getName());
-	private int pollRate = ConfigConst.DEFAULT_POLL_CYCLES;
-	
-	private ScheduledExecutorService schedExecSvc = null;
+
+	// samples of tasks with the same interval don't arrive exactly together
+	private static final double PUBLISH_INTERVAL_TOLERANCE = 0.9d;
+
+
+	// private var's
+
+	private long pollIntervalMillis = ConfigConst.DEFAULT_POLL_CYCLES * 1000L;
+
+	private AdaptivePollScheduler pollScheduler = null;
 	private SystemCpuUtilTask sysCpuUtilTask = null;
 	private SystemMemUtilTask sysMemUtilTask = null;
 	private SystemDiskUtilTask sysDiskUtilTask = null;
 
-	private Runnable taskRunner = null;
+	private Map<BaseSystemUtilTask, Map<String, Float>> latestMetrics = new ConcurrentHashMap<>();
+	private long lastPublishNanos = 0L;
+	private long startNanos = 0L;
 	private boolean isStarted = false;
-	
+	private boolean enablePollMetrics = false;
+
 	private String locationID = ConfigConst.NOT_SET;
-	private IDataMessageListener dataMsgListener = null;
-	
+	private volatile IDataMessageListener dataMsgListener = null;
+
 	// constructors
-	
+
 	/**
 	 * Default constructor that initializes the SystemPerformanceManager with default values.
-	 * It reads the poll rate and location ID from the configuration.
+	 * It reads the poll intervals, thresholds and location ID from the configuration.
 	 */
 	public SystemPerformanceManager()
 	{
-		this.pollRate =  ConfigUtil.getInstance().getInteger(
-				ConfigConst.GATEWAY_DEVICE, ConfigConst.POLL_CYCLES_KEY, ConfigConst.DEFAULT_POLL_CYCLES);
-		
-		if (this.pollRate <= 0) {
-			this.pollRate = ConfigConst.DEFAULT_POLL_CYCLES;
-		}
-		
+		ConfigUtil config = ConfigUtil.getInstance();
+
+		this.pollIntervalMillis = getConfiguredIntervalMillis();
+
 		this.locationID =
-				ConfigUtil.getInstance().getProperty(
+				config.getProperty(
 					ConfigConst.GATEWAY_DEVICE, ConfigConst.LOCATION_ID_PROP, ConfigConst.NOT_SET);
-		
-		this.schedExecSvc   = Executors.newScheduledThreadPool(1);
-		this.sysCpuUtilTask = new SystemCpuUtilTask();
-		this.sysMemUtilTask = new SystemMemUtilTask();
+
+		this.pollScheduler =
+			new AdaptivePollScheduler(
+				config.getInteger(ConfigConst.GATEWAY_DEVICE, ConfigConst.POLL_THREADS_KEY, ConfigConst.DEFAULT_POLL_THREADS),
+				this);
+
+		this.sysCpuUtilTask  = new SystemCpuUtilTask();
+		this.sysMemUtilTask  = new SystemMemUtilTask();
 		this.sysDiskUtilTask = new SystemDiskUtilTask();
-		
-		// Define the Runnable task which is called by the scheduler
-		this.taskRunner = () -> {
-			this.handleTelemetry();
-		};
+
+		addTelemetryTask(this.sysCpuUtilTask, createPollSchedule(
+			config.getFloat(ConfigConst.GATEWAY_DEVICE, ConfigConst.CPU_UTIL_POLL_THRESHOLD_KEY, ConfigConst.DEFAULT_CPU_UTIL_POLL_THRESHOLD)));
+		addTelemetryTask(this.sysMemUtilTask, createPollSchedule(
+			config.getFloat(ConfigConst.GATEWAY_DEVICE, ConfigConst.MEM_UTIL_POLL_THRESHOLD_KEY, ConfigConst.DEFAULT_MEM_UTIL_POLL_THRESHOLD)));
+		addTelemetryTask(this.sysDiskUtilTask, createPollSchedule(
+			config.getFloat(ConfigConst.GATEWAY_DEVICE, ConfigConst.DISK_UTIL_POLL_THRESHOLD_KEY, ConfigConst.DEFAULT_DISK_UTIL_POLL_THRESHOLD)));
+
+		if (config.getBoolean(ConfigConst.GATEWAY_DEVICE, ConfigConst.ENABLE_EXTENDED_TELEMETRY_KEY)) {
+			this.enablePollMetrics = true;
+
+			addTelemetryTask(new SystemGcPauseTask());
+			addTelemetryTask(new SystemAllocRateTask());
+			addTelemetryTask(new SystemThreadCountTask());
+			addTelemetryTask(new SystemFileDescriptorTask());
+			addTelemetryTask(new SystemNetworkIoTask());
+			addTelemetryTask(new SystemProcessCpuTask());
+		}
 	}
-	
+
 
 	// public methods
-	
+
+	/**
+	 * Re-schedules the telemetry tasks if the poll interval changed.
+	 *
+	 * @param changedSections The changed config section names.
+	 */
+	@Override
+	public void handleConfigChange(Set<String> changedSections)
+	{
+		if (! changedSections.contains(ConfigConst.GATEWAY_DEVICE)) {
+			return;
+		}
+
+		long newIntervalMillis = getConfiguredIntervalMillis();
+
+		synchronized (this) {
+			if (newIntervalMillis == this.pollIntervalMillis) {
+				return;
+			}
+
+			_Logger.info("Poll interval changed from " + this.pollIntervalMillis + " to " + newIntervalMillis + " ms.");
+
+			this.pollIntervalMillis = newIntervalMillis;
+		}
+
+		// not holding this instance's lock, which the polling threads need
+		this.pollScheduler.setIntervalMillis(newIntervalMillis);
+	}
+
+	/**
+	 * Stores the latest metrics of a task, and publishes the latest values
+	 * of all tasks if the task reached its threshold, or if the fastest
+	 * polling interval has passed since the last publish. Nothing is
+	 * published until each task was sampled, or the poll interval passed.
+	 *
+	 * @param task The task polled.
+	 * @param metrics The task's metrics.
+	 * @param isAboveThreshold True if the task reached its threshold.
+	 */
+	@Override
+	public void handleTelemetrySample(BaseSystemUtilTask task, Map<String, Float> metrics, boolean isAboveThreshold)
+	{
+		this.latestMetrics.put(task, metrics);
+
+		long nowNanos = System.nanoTime();
+		long minIntervalNanos = TimeUnit.MILLISECONDS.toNanos(this.pollScheduler.getMinCurrentIntervalMillis());
+
+		synchronized (this) {
+			// wait for the first sample of each task, unless it's slow
+			boolean isReady =
+				this.latestMetrics.size() >= this.pollScheduler.getTasks().size() ||
+				nowNanos - this.startNanos >= TimeUnit.MILLISECONDS.toNanos(this.pollIntervalMillis);
+
+			boolean isDue =
+				nowNanos - this.lastPublishNanos >= (long) (minIntervalNanos * PUBLISH_INTERVAL_TOLERANCE);
+
+			if (! isReady || ! (isDue || isAboveThreshold)) {
+				return;
+			}
+
+			this.lastPublishNanos = nowNanos;
+		}
+
+		publishTelemetry();
+	}
+
 	/**
-	 * Handles the collection of system performance telemetry data and sends it to the listener.
-	 * The collected data includes CPU utilization, memory utilization, and disk utilization.
+	 * Polls all telemetry tasks now, on the calling thread, and publishes
+	 * the system performance data.
 	 */
 	public void handleTelemetry()
 	{
-		float cpuUtil = this.sysCpuUtilTask.getTelemetryValue();
-		float memUtil = this.sysMemUtilTask.getTelemetryValue();
-		float diskUtil = this.sysDiskUtilTask.getTelemetryValue();
-		
-		// TODO: change the log level to 'info' for testing purposes
-		_Logger.info("CPU utilization: " + cpuUtil + ", Mem utilization: " + memUtil + ", Disk utilization: " + diskUtil);
-		
-		SystemPerformanceData spd = new SystemPerformanceData();
-		spd.setLocationID(this.locationID);
-		spd.setCpuUtilization(cpuUtil);
-		spd.setMemoryUtilization(memUtil);
-		spd.setDiskUtilization(diskUtil);
-		
-		if (this.dataMsgListener != null) {
-			this.dataMsgListener.handleSystemPerformanceMessage(
-				ResourceNameEnum.GDA_SYSTEM_PERF_MSG_RESOURCE, spd);
+		for (BaseSystemUtilTask task : this.pollScheduler.getTasks()) {
+			SystemPerformanceData data = new SystemPerformanceData();
+			task.addTelemetry(data);
+
+			this.latestMetrics.put(task, data.getMetrics());
+		}
+
+		publishTelemetry();
+	}
+
+	/**
+	 * Adds a task whose metric(s) are added to the system performance data.
+	 * It's polled at the configured interval, backing off while idle, and
+	 * has no threshold.
+	 *
+	 * @param task The telemetry task to add.
+	 */
+	public void addTelemetryTask(BaseSystemUtilTask task)
+	{
+		addTelemetryTask(task, createPollSchedule(Float.POSITIVE_INFINITY));
+	}
+
+	/**
+	 * Adds a task whose metric(s) are added to the system performance data.
+	 *
+	 * @param task The telemetry task to add.
+	 * @param schedule The task's poll schedule.
+	 */
+	public void addTelemetryTask(BaseSystemUtilTask task, PollSchedule schedule)
+	{
+		if (task != null && schedule != null) {
+			this.pollScheduler.addTask(task, schedule);
 		}
 	}
 
+	/**
+	 * Returns the scheduler polling the telemetry tasks, e.g. to check
+	 * their current intervals.
+	 *
+	 * @return AdaptivePollScheduler
+	 */
+	public AdaptivePollScheduler getPollScheduler()
+	{
+		return this.pollScheduler;
+	}
+
 	/**
 	 * Sets the data message listener to be used for sending system performance data.
 	 * @param listener The data message listener to set.
@@ -116,21 +254,25 @@ public class SystemPerformanceManager
 	 * Starts the SystemPerformanceManager by scheduling tasks to collect and send system performance data.
 	 * @return boolean True if the manager is started successfully, false otherwise.
 	 */
-	public boolean startManager()
+	public synchronized boolean startManager()
 	{
 		if (! this.isStarted) {
 			_Logger.info("SystemPerformanceManager is starting...");
-			
-			//Start the scheduler to run a task at a fixed rate every pollRate seconds
-			ScheduledFuture<?> futureTask =
-				this.schedExecSvc.scheduleAtFixedRate(this.taskRunner, 1L, this.pollRate, TimeUnit.SECONDS);
-			
+
+			// due as soon as each task was first sampled
+			this.startNanos = System.nanoTime();
+			this.lastPublishNanos = this.startNanos - TimeUnit.MILLISECONDS.toNanos(this.pollIntervalMillis);
+			this.latestMetrics.clear();
+
+			this.pollScheduler.start();
 			this.isStarted = true;
-			
+
+			ConfigUtil.getInstance().addConfigChangeListener(this);
+
 		} else {
 			_Logger.info("SystemPerformanceManager is already started.");
 		}
-		
+
 		return this.isStarted;
 	}
 
@@ -138,14 +280,126 @@ public class SystemPerformanceManager
 	 * Stops the SystemPerformanceManager by shutting down the scheduler.
 	 * @return boolean True if the manager is stopped successfully, false otherwise.
 	 */
-	public boolean stopManager()
+	public synchronized boolean stopManager()
 	{
-		//Shut down scheduler and stop the manager
-		this.schedExecSvc.shutdown();
+		ConfigUtil.getInstance().removeConfigChangeListener(this);
+
+		this.pollScheduler.stop();
 		this.isStarted = false;
-		
+
 		_Logger.info("SystemPerformanceManager is stopped.");
-		
+
 		return true;
 	}
+
+
+	// private methods
+
+	/**
+	 * Returns a poll schedule using the configured intervals.
+	 *
+	 * @param threshold The value at or above which to poll at the minimum interval.
+	 * @return PollSchedule
+	 */
+	private PollSchedule createPollSchedule(float threshold)
+	{
+		ConfigUtil config = ConfigUtil.getInstance();
+
+		return new PollSchedule(
+			this.pollIntervalMillis,
+			config.getInteger(ConfigConst.GATEWAY_DEVICE, ConfigConst.POLL_MIN_INTERVAL_KEY, ConfigConst.DEFAULT_POLL_MIN_INTERVAL_MILLIS),
+			config.getInteger(ConfigConst.GATEWAY_DEVICE, ConfigConst.POLL_MAX_INTERVAL_KEY, ConfigConst.DEFAULT_POLL_MAX_INTERVAL_MILLIS),
+			threshold,
+			config.getFloat(ConfigConst.GATEWAY_DEVICE, ConfigConst.POLL_IDLE_DELTA_KEY, ConfigConst.DEFAULT_POLL_IDLE_DELTA));
+	}
+
+	/**
+	 * Returns the poll interval from the configuration: the interval in
+	 * milliseconds if set, else the poll rate in seconds, else the default.
+	 *
+	 * @return long The poll interval in milliseconds.
+	 */
+	private long getConfiguredIntervalMillis()
+	{
+		ConfigUtil config = ConfigUtil.getInstance();
+
+		int intervalMillis = config.getInteger(ConfigConst.GATEWAY_DEVICE, ConfigConst.POLL_INTERVAL_KEY, 0);
+
+		if (intervalMillis > 0) {
+			return intervalMillis;
+		}
+
+		int rate = config.getInteger(ConfigConst.GATEWAY_DEVICE, ConfigConst.POLL_CYCLES_KEY, ConfigConst.DEFAULT_POLL_CYCLES);
+
+		return (rate > 0 ? rate : ConfigConst.DEFAULT_POLL_CYCLES) * 1000L;
+	}
+
+	/**
+	 * Adds the largest lag and duration of the latest poll of all tasks,
+	 * and the total number of skipped poll ticks.
+	 *
+	 * @param spd The data to add the metrics to.
+	 */
+	private void addPollMetrics(SystemPerformanceData spd)
+	{
+		double maxLagMillis = 0.0d;
+		double maxDurationMillis = 0.0d;
+		long skippedCount = 0L;
+
+		for (BaseSystemUtilTask task : this.pollScheduler.getTasks()) {
+			PollStats stats = this.pollScheduler.getPollStats(task);
+
+			if (stats != null) {
+				maxLagMillis      = Math.max(maxLagMillis, stats.getLastLagMillis());
+				maxDurationMillis = Math.max(maxDurationMillis, stats.getLastDurationMillis());
+				skippedCount     += stats.getSkippedCount();
+			}
+		}
+
+		spd.setMetric(ConfigConst.POLL_LAG_MILLIS_PROP, (float) maxLagMillis);
+		spd.setMetric(ConfigConst.POLL_DURATION_MILLIS_PROP, (float) maxDurationMillis);
+		spd.setMetric(ConfigConst.POLL_SKIPPED_TICKS_PROP, (float) skippedCount);
+	}
+
+	/**
+	 * Publishes the latest values of all tasks.
+	 */
+	private void publishTelemetry()
+	{
+		SystemPerformanceData spd = new SystemPerformanceData();
+		spd.setLocationID(this.locationID);
+
+		for (BaseSystemUtilTask task : this.pollScheduler.getTasks()) {
+			Map<String, Float> metrics = this.latestMetrics.get(task);
+
+			if (metrics == null) {
+				continue;
+			}
+
+			if (task == this.sysCpuUtilTask) {
+				spd.setCpuUtilization(metrics.getOrDefault(task.getName(), ConfigConst.DEFAULT_VAL));
+			} else if (task == this.sysMemUtilTask) {
+				spd.setMemoryUtilization(metrics.getOrDefault(task.getName(), ConfigConst.DEFAULT_VAL));
+			} else if (task == this.sysDiskUtilTask) {
+				spd.setDiskUtilization(metrics.getOrDefault(task.getName(), ConfigConst.DEFAULT_VAL));
+			} else {
+				for (Map.Entry<String, Float> metric : metrics.entrySet()) {
+					spd.setMetric(metric.getKey(), metric.getValue());
+				}
+			}
+		}
+
+		if (this.enablePollMetrics) {
+			addPollMetrics(spd);
+		}
+
+		_Logger.fine("CPU utilization: " + spd.getCpuUtilization() + ", Mem utilization: " + spd.getMemoryUtilization() +
+			", Disk utilization: " + spd.getDiskUtilization() + ", Metrics: " + spd.getMetrics());
+
+		IDataMessageListener listener = this.dataMsgListener;
+
+		if (listener != null) {
+			listener.handleSystemPerformanceMessage(ResourceNameEnum.GDA_SYSTEM_PERF_MSG_RESOURCE, spd);
+		}
+	}
 }
@@ -0,0 +1,88 @@
+/**
+ * This class is part of the Programming the Internet of Things project.
+ *
+ * It is provided as a simple shell to guide the student and assist with
+ * implementation for the Programming the Internet of Things exercises,
+ * and designed to be modified by the student as needed.
+ */
+
+package programmingtheiot.gda.system;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.OperatingSystemMXBean;
+
+import programmingtheiot.common.ConfigConst;
+
+
+/**
+ * Represents a task to measure the CPU utilization of this process: the
+ * CPU time it used since the previous call (the first call covers the
+ * time since construction), as a percentage of the CPU time available on
+ * all processors in that period.
+ */
+public class SystemProcessCpuTask extends BaseSystemUtilTask
+{
+	// private var's
+
+	private com.sun.management.OperatingSystemMXBean osBean = null;
+	private int processorCount = 1;
+
+	private long prevCpuNanos  = 0L;
+	private long prevWallNanos = 0L;
+
+
+	// constructors
+
+	/**
+	 * Default.
+	 *
+	 */
+	public SystemProcessCpuTask()
+	{
+		super(ConfigConst.PROCESS_CPU_UTIL_PROP, ConfigConst.PROCESS_CPU_UTIL_TYPE);
+
+		OperatingSystemMXBean mxBean = ManagementFactory.getOperatingSystemMXBean();
+
+		if (mxBean instanceof com.sun.management.OperatingSystemMXBean) {
+			this.osBean = (com.sun.management.OperatingSystemMXBean) mxBean;
+			this.processorCount = Math.max(1, mxBean.getAvailableProcessors());
+
+			this.prevCpuNanos  = this.osBean.getProcessCpuTime();
+			this.prevWallNanos = System.nanoTime();
+		}
+	}
+
+
+	// public methods
+
+	/**
+	 * Get the telemetry value representing process CPU utilization.
+	 *
+	 * @return The process CPU utilization as a percentage (0 - 100), or a
+	 * negative value if not supported.
+	 */
+	@Override
+	public synchronized float getTelemetryValue()
+	{
+		if (this.osBean == null || this.prevCpuNanos < 0L) {
+			return -1.0f;
+		}
+
+		long cpuNanos  = this.osBean.getProcessCpuTime();
+		long wallNanos = System.nanoTime();
+
+		long cpuDelta  = cpuNanos - this.prevCpuNanos;
+		long wallDelta = wallNanos - this.prevWallNanos;
+
+		this.prevCpuNanos  = cpuNanos;
+		this.prevWallNanos = wallNanos;
+
+		if (wallDelta <= 0L) {
+			return 0.0f;
+		}
+
+		double util = 100.0d * cpuDelta / ((double) wallDelta * this.processorCount);
+
+		return (float) Math.max(0.0d, Math.min(100.0d, util));
+	}
+}
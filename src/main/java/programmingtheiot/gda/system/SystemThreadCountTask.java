@@ -0,0 +1,53 @@
+/**
+ * This class is part of the Programming the Internet of Things project.
+ *
+ * It is provided as a simple shell to guide the student and assist with
+ * implementation for the Programming the Internet of Things exercises,
+ * and designed to be modified by the student as needed.
+ */
+
+package programmingtheiot.gda.system;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+import programmingtheiot.common.ConfigConst;
+
+
+/**
+ * Represents a task to measure the number of live JVM threads.
+ */
+public class SystemThreadCountTask extends BaseSystemUtilTask
+{
+	// private var's
+
+	private ThreadMXBean threadBean = null;
+
+
+	// constructors
+
+	/**
+	 * Default.
+	 *
+	 */
+	public SystemThreadCountTask()
+	{
+		super(ConfigConst.THREAD_COUNT_PROP, ConfigConst.THREAD_COUNT_TYPE);
+
+		this.threadBean = ManagementFactory.getThreadMXBean();
+	}
+
+
+	// public methods
+
+	/**
+	 * Get the telemetry value representing the live thread count.
+	 *
+	 * @return The number of live threads, including daemon threads.
+	 */
+	@Override
+	public float getTelemetryValue()
+	{
+		return (float) this.threadBean.getThreadCount();
+	}
+}
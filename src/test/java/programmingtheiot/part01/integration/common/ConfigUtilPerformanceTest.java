@@ -0,0 +1,180 @@
+/**
+ * This class is part of the Programming the Internet of Things
+ * project, and is available via the MIT License, which can be
+ * found in the LICENSE file at the top level of this repository.
+ *
+ * Copyright (c) 2020 by Andrew D. King
+ */
+
+package programmingtheiot.part01.integration.common;
+
+import static org.junit.Assert.*;
+
+import java.io.FileReader;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.logging.Logger;
+
+import org.apache.commons.configuration2.INIConfiguration;
+import org.junit.Before;
+import org.junit.Test;
+
+import programmingtheiot.common.ConfigConst;
+import programmingtheiot.common.ConfigUtil;
+
+/**
+ * This test case class contains very basic multi-threaded performance
+ * tests for config property reads, comparing a synchronized lookup on
+ * the Apache Commons configuration (the previous ConfigUtil behavior)
+ * against the snapshot-based ConfigUtil getters.
+ * It should not be considered complete, but serve as a starting point
+ * for the student implementing additional functionality within their
+ * Programming the IoT environment.
+ *
+ */
+public class ConfigUtilPerformanceTest
+{
+	// static
+
+	private static final Logger _Logger =
+		Logger.getLogger(ConfigUtilPerformanceTest.class.getName());
+
+	public static final int MAX_WARMUP_RUNS = 20000;
+	public static final int MAX_TEST_RUNS   = 200000;
+	public static final int[] THREAD_COUNTS = {1, 4};
+
+
+	// member var's
+
+	private INIConfiguration iniConfig = null;
+	private int expectedPollCycleSecs = 0;
+
+
+	// test setup methods
+
+	/**
+	 * @throws java.lang.Exception
+	 */
+	@Before
+	public void setUp() throws Exception
+	{
+		this.iniConfig = new INIConfiguration();
+
+		try (FileReader fReader = new FileReader(ConfigConst.DEFAULT_CONFIG_FILE_NAME)) {
+			this.iniConfig.read(fReader);
+		}
+
+		this.expectedPollCycleSecs =
+			ConfigUtil.getInstance().getInteger(
+				ConfigConst.GATEWAY_DEVICE, ConfigConst.POLL_CYCLES_KEY, ConfigConst.DEFAULT_POLL_CYCLES);
+	}
+
+
+	// test methods
+
+	/**
+	 * Baseline: synchronized Apache Commons section lookup per read.
+	 */
+	@Test
+	public void testSynchronizedSectionLookup()
+	{
+		Object lock = new Object();
+
+		for (int threadCount : THREAD_COUNTS) {
+			execTest("synchronized section lookup", threadCount, () -> {
+				synchronized (lock) {
+					int val = this.iniConfig.getSection(ConfigConst.GATEWAY_DEVICE).getInt(ConfigConst.POLL_CYCLES_KEY);
+
+					assertEquals(this.expectedPollCycleSecs, val);
+				}
+			});
+		}
+	}
+
+	/**
+	 * Test method for {@link programmingtheiot.common.ConfigUtil#getInteger(String, String, int)}.
+	 */
+	@Test
+	public void testSnapshotLookup()
+	{
+		ConfigUtil configUtil = ConfigUtil.getInstance();
+
+		for (int threadCount : THREAD_COUNTS) {
+			execTest("ConfigUtil snapshot lookup", threadCount, () -> {
+				int val =
+					configUtil.getInteger(
+						ConfigConst.GATEWAY_DEVICE, ConfigConst.POLL_CYCLES_KEY, ConfigConst.DEFAULT_POLL_CYCLES);
+
+				assertEquals(this.expectedPollCycleSecs, val);
+			});
+		}
+	}
+
+
+	// private methods
+
+	private void execTest(String label, int threadCount, Runnable task)
+	{
+		for (int i = 0; i < MAX_WARMUP_RUNS; i++) {
+			task.run();
+		}
+
+		int runsPerThread = MAX_TEST_RUNS / threadCount;
+
+		CountDownLatch startLatch = new CountDownLatch(1);
+		Thread[] threads = new Thread[threadCount];
+
+		// assertion failures in the test threads are re-thrown on this one
+		AtomicReference<Throwable> failure = new AtomicReference<>();
+
+		for (int i = 0; i < threadCount; i++) {
+			threads[i] = new Thread(() -> {
+				try {
+					startLatch.await();
+
+					for (int j = 0; j < runsPerThread; j++) {
+						task.run();
+					}
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				} catch (Throwable t) {
+					failure.compareAndSet(null, t);
+				}
+			});
+
+			threads[i].setDaemon(true);
+			threads[i].start();
+		}
+
+		long startNanos = System.nanoTime();
+
+		try {
+			startLatch.countDown();
+
+			for (Thread t : threads) {
+				t.join();
+			}
+		} catch (InterruptedException e) {
+			fail("Interrupted waiting for test threads.");
+		}
+
+		long elapsedNanos = System.nanoTime() - startNanos;
+		int  totalRuns    = runsPerThread * threadCount;
+
+		Throwable error = failure.get();
+
+		if (error instanceof AssertionError) {
+			throw (AssertionError) error;
+		} else if (error != null) {
+			throw new AssertionError("Test thread failed: " + label, error);
+		}
+
+		String msg =
+			String.format(
+				"\n\tTesting [%s]: threads = %s | reads = %s | elapsed = %s ms | cost = %s ns/read",
+				label, threadCount, totalRuns, elapsedNanos / 1000000L, elapsedNanos / totalRuns);
+
+		_Logger.info(msg);
+	}
+
+}
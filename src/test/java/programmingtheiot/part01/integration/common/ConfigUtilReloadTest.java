@@ -0,0 +1,107 @@
+/**
+ * This class is part of the Programming the Internet of Things
+ * project, and is available via the MIT License, which can be
+ * found in the LICENSE file at the top level of this repository.
+ *
+ * Copyright (c) 2020 by Andrew D. King
+ */
+
+package programmingtheiot.part01.integration.common;
+
+import static org.junit.Assert.*;
+
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import programmingtheiot.common.ConfigConst;
+import programmingtheiot.common.ConfigUtil;
+import programmingtheiot.common.IConfigChangeListener;
+
+/**
+ * This test case class contains very basic integration tests for
+ * re-loading the configuration file while running. It should not
+ * be considered complete, but serve as a starting point for the
+ * student implementing additional functionality within their
+ * Programming the IoT environment.
+ *
+ */
+public class ConfigUtilReloadTest
+{
+	// static
+
+	private static final Logger _Logger =
+		Logger.getLogger(ConfigUtilReloadTest.class.getName());
+
+
+	// member var's
+
+	private AtomicInteger changeCount = new AtomicInteger(0);
+
+	private IConfigChangeListener listener = (Set<String> changedSections) -> {
+		_Logger.info("Config changed: " + changedSections);
+
+		this.changeCount.incrementAndGet();
+	};
+
+
+	// test setup methods
+
+	/**
+	 * @throws java.lang.Exception
+	 */
+	@Before
+	public void setUp() throws Exception
+	{
+		assertTrue(ConfigUtil.getInstance().addConfigChangeListener(this.listener));
+	}
+
+	/**
+	 * @throws java.lang.Exception
+	 */
+	@After
+	public void tearDown() throws Exception
+	{
+		ConfigUtil.getInstance().stopConfigWatcher();
+		ConfigUtil.getInstance().removeConfigChangeListener(this.listener);
+	}
+
+
+	// test methods
+
+	/**
+	 * Test method for {@link programmingtheiot.common.ConfigUtil#reloadConfig()}.
+	 */
+	@Test
+	public void testReloadUnchangedConfig()
+	{
+		ConfigUtil configUtil = ConfigUtil.getInstance();
+
+		String locID = configUtil.getProperty(ConfigConst.GATEWAY_DEVICE, ConfigConst.DEVICE_LOCATION_ID_KEY);
+
+		assertTrue(configUtil.reloadConfig());
+		assertEquals(locID, configUtil.getProperty(ConfigConst.GATEWAY_DEVICE, ConfigConst.DEVICE_LOCATION_ID_KEY));
+
+		// nothing changed, so listeners must not be notified
+		assertEquals(0, this.changeCount.get());
+	}
+
+	/**
+	 * Test method for {@link programmingtheiot.common.ConfigUtil#startConfigWatcher()}.
+	 */
+	@Test
+	public void testStartAndStopConfigWatcher()
+	{
+		ConfigUtil configUtil = ConfigUtil.getInstance();
+
+		assertTrue(configUtil.startConfigWatcher());
+		assertTrue(configUtil.startConfigWatcher());
+
+		configUtil.stopConfigWatcher();
+	}
+
+}
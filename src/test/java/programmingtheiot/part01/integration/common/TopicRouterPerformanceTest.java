@@ -0,0 +1,170 @@
+/**
+ * This class is part of the Programming the Internet of Things
+ * project, and is available via the MIT License, which can be
+ * found in the LICENSE file at the top level of this repository.
+ *
+ * Copyright (c) 2020 by Andrew D. King
+ */
+
+package programmingtheiot.part01.integration.common;
+
+import static org.junit.Assert.*;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.function.Function;
+import java.util.logging.Logger;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import programmingtheiot.common.ResourceNameEnum;
+import programmingtheiot.common.TopicRouter;
+
+/**
+ * This test case class contains very basic performance tests for
+ * mapping incoming topics to a {@link ResourceNameEnum}: the HashMap
+ * based lookup, the {@link TopicRouter} based lookup, and a wildcard
+ * routing table. Each topic is decoded from bytes per lookup, as it
+ * is for an incoming MQTT message, so no cached String hash is reused.
+ * It should not be considered complete, but serve as a starting point
+ * for the student implementing additional functionality within their
+ * Programming the IoT environment.
+ *
+ */
+public class TopicRouterPerformanceTest
+{
+	// static
+
+	private static final Logger _Logger =
+		Logger.getLogger(TopicRouterPerformanceTest.class.getName());
+
+	public static final int MAX_WARMUP_RUNS = 100000;
+	public static final int MAX_TEST_RUNS   = 1000000;
+
+
+	// member var's
+
+	private ResourceNameEnum[] resources = null;
+	private byte[][] topics = null;
+
+
+	// test setup methods
+
+	@Before
+	public void setUp() throws Exception
+	{
+		this.resources = ResourceNameEnum.values();
+		this.topics = new byte[this.resources.length][];
+
+		for (int i = 0; i < this.resources.length; i++) {
+			this.topics[i] = this.resources[i].getResourceName().getBytes(StandardCharsets.UTF_8);
+		}
+	}
+
+
+	// test methods
+
+	/**
+	 * Test method for {@link ResourceNameEnum#getEnumFromValue(String)}.
+	 */
+	@Test
+	public void testHashMapLookup()
+	{
+		execTest("HashMap lookup", ResourceNameEnum::getEnumFromValue);
+	}
+
+	/**
+	 * Test method for {@link ResourceNameEnum#getEnumFromTopic(String)}.
+	 */
+	@Test
+	public void testRouterLookup()
+	{
+		execTest("TopicRouter lookup", ResourceNameEnum::getEnumFromTopic);
+	}
+
+	/**
+	 * Test method for {@link TopicRouter#route(String)}, with wildcard
+	 * filters that don't match ahead of the exact ones.
+	 */
+	@Test
+	public void testWildcardRouterLookup()
+	{
+		TopicRouter.Builder<ResourceNameEnum> builder = TopicRouter.builder();
+
+		builder.add("PIOT/+/Unused", ResourceNameEnum.CDA_MEDIA_MSG_RESOURCE);
+		builder.add("Other/#", ResourceNameEnum.CDA_MEDIA_MSG_RESOURCE);
+
+		for (ResourceNameEnum resource : this.resources) {
+			builder.add(resource, resource);
+		}
+
+		TopicRouter<ResourceNameEnum> router = builder.build();
+
+		execTest("TopicRouter wildcard lookup", router::route);
+	}
+
+	/**
+	 * Baseline for {@link ResourceNameEnum#getResourceNameChain()}: the
+	 * previous split-based implementation.
+	 */
+	@Test
+	public void testResourceNameChain()
+	{
+		long startNanos = System.nanoTime();
+		int total = 0;
+
+		for (int i = 0; i < MAX_TEST_RUNS; i++) {
+			total += List.of(this.resources[i % this.resources.length].getResourceName().split("/")).size();
+		}
+
+		logResult("split resource name chain", startNanos, total);
+
+		startNanos = System.nanoTime();
+		total = 0;
+
+		for (int i = 0; i < MAX_TEST_RUNS; i++) {
+			total += this.resources[i % this.resources.length].getResourceNameChain().size();
+		}
+
+		logResult("cached resource name chain", startNanos, total);
+	}
+
+
+	// private methods
+
+	private void execTest(String label, Function<String, ResourceNameEnum> lookup)
+	{
+		for (int i = 0; i < MAX_WARMUP_RUNS; i++) {
+			runLookup(lookup, i);
+		}
+
+		long startNanos = System.nanoTime();
+
+		for (int i = 0; i < MAX_TEST_RUNS; i++) {
+			runLookup(lookup, i);
+		}
+
+		logResult(label, startNanos, MAX_TEST_RUNS);
+	}
+
+	private void runLookup(Function<String, ResourceNameEnum> lookup, int i)
+	{
+		int index = i % this.topics.length;
+
+		assertSame(this.resources[index], lookup.apply(new String(this.topics[index], StandardCharsets.UTF_8)));
+	}
+
+	private void logResult(String label, long startNanos, int total)
+	{
+		long elapsedNanos = System.nanoTime() - startNanos;
+
+		String msg =
+			String.format(
+				"\n\tTesting [%s]: lookups = %s | elapsed = %s ms | cost = %s ns/lookup (%s)",
+				label, MAX_TEST_RUNS, elapsedNanos / 1000000L, elapsedNanos / MAX_TEST_RUNS, total);
+
+		_Logger.info(msg);
+	}
+
+}
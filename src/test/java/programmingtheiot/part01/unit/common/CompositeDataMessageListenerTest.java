@@ -0,0 +1,165 @@
+/**
+ * This class is part of the Programming the Internet of Things
+ * project, and is available via the MIT License, which can be
+ * found in the LICENSE file at the top level of this repository.
+ *
+ * Copyright (c) 2020 by Andrew D. King
+ */
+
+package programmingtheiot.part01.unit.common;
+
+import static org.junit.Assert.*;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import programmingtheiot.common.CompositeDataMessageListener;
+import programmingtheiot.common.DefaultDataMessageListener;
+import programmingtheiot.common.ResourceNameEnum;
+import programmingtheiot.data.SystemPerformanceData;
+
+/**
+ * This test case class contains very basic unit tests for
+ * CompositeDataMessageListener. It should not be considered complete,
+ * but serve as a starting point for the student implementing
+ * additional functionality within their Programming the IoT
+ * environment.
+ *
+ */
+public class CompositeDataMessageListenerTest
+{
+	// member var's
+
+	private CompositeDataMessageListener composite = null;
+
+
+	// test setup methods
+
+	@Before
+	public void setUp() throws Exception
+	{
+		this.composite = new CompositeDataMessageListener();
+	}
+
+	@After
+	public void tearDown() throws Exception
+	{
+		this.composite.shutdown();
+	}
+
+
+	// test methods
+
+	@Test
+	public void testSlowListenerDoesNotBlockPrimary() throws Exception
+	{
+		AtomicInteger primaryCount = new AtomicInteger(0);
+		CountDownLatch release = new CountDownLatch(1);
+
+		this.composite.setPrimaryListener(new DefaultDataMessageListener() {
+			@Override
+			public boolean handleSystemPerformanceMessage(ResourceNameEnum resourceName, SystemPerformanceData data)
+			{
+				return primaryCount.incrementAndGet() > 0;
+			}
+		});
+
+		this.composite.addListener("slow", new DefaultDataMessageListener() {
+			@Override
+			public boolean handleSystemPerformanceMessage(ResourceNameEnum resourceName, SystemPerformanceData data)
+			{
+				try {
+					release.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+
+				return true;
+			}
+		}, 4);
+
+		int count = 1000;
+		long startNanos = System.nanoTime();
+
+		for (int i = 0; i < count; i++) {
+			assertTrue(this.composite.handleSystemPerformanceMessage(
+				ResourceNameEnum.GDA_SYSTEM_PERF_MSG_RESOURCE, new SystemPerformanceData()));
+		}
+
+		long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+
+		assertEquals(count, primaryCount.get());
+		assertTrue("Primary listener delayed: " + elapsedMillis + " ms", elapsedMillis < 5000);
+
+		// 1 in progress, 4 queued
+		assertEquals(count - 5, this.composite.getDroppedCount("slow"));
+
+		release.countDown();
+	}
+
+	@Test
+	public void testListenerOrderPreserved() throws Exception
+	{
+		int count = 100;
+		List<String> received = new CopyOnWriteArrayList<>();
+		CountDownLatch done = new CountDownLatch(count);
+
+		this.composite.addListener("ordered", new DefaultDataMessageListener() {
+			@Override
+			public boolean handleIncomingMessage(ResourceNameEnum resourceName, String msg)
+			{
+				received.add(msg);
+				done.countDown();
+
+				return true;
+			}
+		}, count);
+
+		for (int i = 0; i < count; i++) {
+			this.composite.handleIncomingMessage(ResourceNameEnum.GDA_MGMT_STATUS_MSG_RESOURCE, String.valueOf(i));
+		}
+
+		assertTrue(done.await(5, TimeUnit.SECONDS));
+
+		for (int i = 0; i < count; i++) {
+			assertEquals(String.valueOf(i), received.get(i));
+		}
+
+		assertEquals(0, this.composite.getDroppedCount("ordered"));
+	}
+
+	@Test
+	public void testFailingListenerIsolated() throws Exception
+	{
+		CountDownLatch done = new CountDownLatch(2);
+
+		this.composite.addListener("failing", new DefaultDataMessageListener() {
+			@Override
+			public boolean handleIncomingMessage(ResourceNameEnum resourceName, String msg)
+			{
+				done.countDown();
+
+				throw new IllegalStateException("Test failure.");
+			}
+		}, 8);
+
+		this.composite.handleIncomingMessage(ResourceNameEnum.GDA_MGMT_STATUS_MSG_RESOURCE, "a");
+		this.composite.handleIncomingMessage(ResourceNameEnum.GDA_MGMT_STATUS_MSG_RESOURCE, "b");
+
+		// the listener thread survives the first failure
+		assertTrue(done.await(5, TimeUnit.SECONDS));
+
+		assertEquals(1, this.composite.getListenerCount());
+		assertTrue(this.composite.removeListener("failing"));
+		assertFalse(this.composite.removeListener("failing"));
+		assertFalse(this.composite.handleIncomingMessage(ResourceNameEnum.GDA_MGMT_STATUS_MSG_RESOURCE, "c"));
+	}
+
+}
@@ -0,0 +1,201 @@
+/**
+ * This class is part of the Programming the Internet of Things
+ * project, and is available via the MIT License, which can be
+ * found in the LICENSE file at the top level of this repository.
+ *
+ * Copyright (c) 2020 by Andrew D. King
+ */
+
+package programmingtheiot.part01.unit.common;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import programmingtheiot.common.DataHandlerRegistry;
+import programmingtheiot.common.DefaultDataMessageListener;
+import programmingtheiot.common.IDataHandler;
+import programmingtheiot.common.ResourceNameEnum;
+import programmingtheiot.data.ActuatorData;
+import programmingtheiot.data.BaseIotData;
+import programmingtheiot.data.SensorData;
+
+/**
+ * This test case class contains very basic unit tests for
+ * DataHandlerRegistry. It should not be considered complete,
+ * but serve as a starting point for the student implementing
+ * additional functionality within their Programming the IoT
+ * environment.
+ *
+ */
+public class DataHandlerRegistryTest
+{
+	// member var's
+
+	private DataHandlerRegistry registry = null;
+	private List<Object> received = null;
+
+
+	// test setup methods
+
+	@Before
+	public void setUp() throws Exception
+	{
+		this.registry = new DataHandlerRegistry();
+		this.received = new ArrayList<>();
+	}
+
+
+	// test methods
+
+	@Test
+	public void testMultipleSubscribers()
+	{
+		IDataHandler<SensorData> handlerA = (resource, data) -> this.received.add("A:" + data.getName());
+		IDataHandler<BaseIotData> handlerB = (resource, data) -> this.received.add("B:" + data.getName());
+
+		this.registry.addHandler(ResourceNameEnum.CDA_SENSOR_MSG_RESOURCE, SensorData.class, handlerA);
+		this.registry.addHandler(ResourceNameEnum.CDA_SENSOR_MSG_RESOURCE, BaseIotData.class, handlerB);
+
+		assertEquals(2, this.registry.getHandlerCount(ResourceNameEnum.CDA_SENSOR_MSG_RESOURCE));
+		assertArrayEquals(
+			new Class<?>[] { SensorData.class, BaseIotData.class },
+			this.registry.getPayloadTypes(ResourceNameEnum.CDA_SENSOR_MSG_RESOURCE));
+
+		assertTrue(this.registry.dispatch(ResourceNameEnum.CDA_SENSOR_MSG_RESOURCE, newSensorData("S1")));
+		assertEquals(List.of("A:S1", "B:S1"), this.received);
+
+		// other resources aren't affected
+		assertFalse(this.registry.dispatch(ResourceNameEnum.CDA_ACTUATOR_CMD_RESOURCE, newSensorData("S2")));
+		assertEquals(2, this.received.size());
+	}
+
+	@Test
+	public void testTypeFiltering()
+	{
+		this.registry.addHandler(
+			ResourceNameEnum.CDA_SENSOR_MSG_RESOURCE, SensorData.class, (resource, data) -> this.received.add(data));
+
+		assertFalse(this.registry.dispatch(ResourceNameEnum.CDA_SENSOR_MSG_RESOURCE, new ActuatorData()));
+		assertFalse(this.registry.dispatch(ResourceNameEnum.CDA_SENSOR_MSG_RESOURCE, null));
+		assertTrue(this.received.isEmpty());
+	}
+
+	@Test
+	public void testAllResourcesHandler()
+	{
+		this.registry.addHandler(String.class, (resource, data) -> this.received.add(resource));
+
+		for (ResourceNameEnum resource : ResourceNameEnum.values()) {
+			assertTrue(this.registry.dispatch(resource, "test"));
+		}
+
+		assertEquals(ResourceNameEnum.values().length, this.received.size());
+	}
+
+	@Test
+	public void testListenerRegistration()
+	{
+		DefaultDataMessageListener listener = new DefaultDataMessageListener() {
+			@Override
+			public boolean handleSensorMessage(ResourceNameEnum resourceName, SensorData data)
+			{
+				return received.add(data);
+			}
+
+			@Override
+			public boolean handleIncomingMessage(ResourceNameEnum resourceName, String msg)
+			{
+				return received.add(msg);
+			}
+		};
+
+		this.registry.addListener(listener);
+
+		assertArrayEquals(
+			new Class<?>[] { SensorData.class }, this.registry.getPayloadTypes(ResourceNameEnum.CDA_SENSOR_MSG_RESOURCE));
+		assertArrayEquals(
+			new Class<?>[] { ActuatorData.class }, this.registry.getPayloadTypes(ResourceNameEnum.CDA_ACTUATOR_RESPONSE_RESOURCE));
+		assertArrayEquals(
+			new Class<?>[] { String.class }, this.registry.getPayloadTypes(ResourceNameEnum.GDA_MGMT_STATUS_MSG_RESOURCE));
+
+		this.registry.dispatch(ResourceNameEnum.CDA_SENSOR_MSG_RESOURCE, newSensorData("S1"));
+		this.registry.dispatch(ResourceNameEnum.GDA_MGMT_STATUS_MSG_RESOURCE, "status");
+
+		assertEquals(2, this.received.size());
+
+		assertTrue(this.registry.removeHandlers(listener));
+		assertEquals(0, this.registry.getPayloadTypes(ResourceNameEnum.CDA_SENSOR_MSG_RESOURCE).length);
+		assertFalse(this.registry.removeHandlers(listener));
+	}
+
+	@Test
+	public void testMixedTypesDecodedOncePerType()
+	{
+		List<Class<?>> decodedTypes = new ArrayList<>();
+
+		this.registry.addHandler(
+			ResourceNameEnum.CDA_SENSOR_MSG_RESOURCE, String.class, (resource, data) -> this.received.add("A:" + data));
+		this.registry.addHandler(
+			ResourceNameEnum.CDA_SENSOR_MSG_RESOURCE, SensorData.class, (resource, data) -> this.received.add("B:" + data.getName()));
+		this.registry.addHandler(
+			ResourceNameEnum.CDA_SENSOR_MSG_RESOURCE, String.class, (resource, data) -> this.received.add("C:" + data));
+
+		boolean success = this.registry.dispatchPayload(ResourceNameEnum.CDA_SENSOR_MSG_RESOURCE, type -> {
+			decodedTypes.add(type);
+
+			return (type == String.class ? "raw" : newSensorData("S1"));
+		});
+
+		assertTrue(success);
+		assertEquals(List.of("A:raw", "B:S1", "C:raw"), this.received);
+		assertEquals(List.of(String.class, SensorData.class), decodedTypes);
+	}
+
+	@Test
+	public void testUndecodableTypeSkipped()
+	{
+		this.registry.addHandler(
+			ResourceNameEnum.CDA_SENSOR_MSG_RESOURCE, SensorData.class, (resource, data) -> this.received.add(data));
+		this.registry.addHandler(
+			ResourceNameEnum.CDA_SENSOR_MSG_RESOURCE, String.class, (resource, data) -> this.received.add(data));
+
+		assertTrue(this.registry.dispatchPayload(
+			ResourceNameEnum.CDA_SENSOR_MSG_RESOURCE, type -> (type == String.class ? "raw" : null)));
+		assertEquals(List.of("raw"), this.received);
+
+		// no handlers, so nothing is decoded
+		assertFalse(this.registry.dispatchPayload(ResourceNameEnum.CDA_ACTUATOR_CMD_RESOURCE, type -> {
+			throw new AssertionError("Unexpected decode.");
+		}));
+	}
+
+	@Test
+	public void testFailingHandlerIsolated()
+	{
+		this.registry.addHandler(ResourceNameEnum.CDA_SENSOR_MSG_RESOURCE, SensorData.class, (resource, data) -> {
+			throw new IllegalStateException("Test failure.");
+		});
+		this.registry.addHandler(
+			ResourceNameEnum.CDA_SENSOR_MSG_RESOURCE, SensorData.class, (resource, data) -> this.received.add(data));
+
+		assertTrue(this.registry.dispatch(ResourceNameEnum.CDA_SENSOR_MSG_RESOURCE, newSensorData("S1")));
+		assertEquals(1, this.received.size());
+	}
+
+
+	// private methods
+
+	private SensorData newSensorData(String name)
+	{
+		SensorData data = new SensorData();
+		data.setName(name);
+
+		return data;
+	}
+
+}
@@ -0,0 +1,99 @@
+/**
+ * This class is part of the Programming the Internet of Things
+ * project, and is available via the MIT License, which can be
+ * found in the LICENSE file at the top level of this repository.
+ *
+ * Copyright (c) 2020 by Andrew D. King
+ */
+
+package programmingtheiot.part01.unit.common;
+
+import static org.junit.Assert.*;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+import org.junit.Test;
+
+import programmingtheiot.common.ExecutorUtil;
+
+/**
+ * This test case class contains very basic unit tests for
+ * ExecutorUtil. It should not be considered complete,
+ * but serve as a starting point for the student implementing
+ * additional functionality within their Programming the IoT
+ * environment.
+ *
+ */
+public class ExecutorUtilTest
+{
+	// static
+
+	private static final Logger _Logger =
+		Logger.getLogger(ExecutorUtilTest.class.getName());
+
+	public static final int  TASK_COUNT        = 200;
+	public static final long TASK_DELAY_MILLIS = 20L;
+
+
+	// test methods
+
+	/**
+	 * Test method for {@link programmingtheiot.common.ExecutorUtil#newThreadFactory(String)}.
+	 */
+	@Test
+	public void testNewThreadFactory()
+	{
+		ThreadFactory factory = ExecutorUtil.getInstance().newThreadFactory("ExecutorUtilTest");
+
+		Thread t = factory.newThread(() -> {});
+
+		assertNotNull(t);
+		assertTrue(t.getName().startsWith("ExecutorUtilTest-"));
+
+		// workers must never keep the JVM alive on their own
+		assertTrue(t.isDaemon());
+	}
+
+	/**
+	 * Test method for {@link programmingtheiot.common.ExecutorUtil#newTaskExecutor(String)}.
+	 */
+	@Test
+	public void testNewTaskExecutorRunsAllTasks() throws Exception
+	{
+		ExecutorService executor = ExecutorUtil.getInstance().newTaskExecutor("ExecutorUtilTest");
+		CountDownLatch latch = new CountDownLatch(TASK_COUNT);
+
+		long startNanos = System.nanoTime();
+
+		for (int i = 0; i < TASK_COUNT; i++) {
+			executor.execute(() -> {
+				try {
+					// simulates a slow, blocking downstream call
+					Thread.sleep(TASK_DELAY_MILLIS);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+
+				latch.countDown();
+			});
+		}
+
+		assertTrue(latch.await(30L, TimeUnit.SECONDS));
+
+		long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+
+		executor.shutdown();
+
+		_Logger.info(
+			"Ran " + TASK_COUNT + " blocking tasks in " + elapsedMillis + " ms. Virtual threads: " +
+			ExecutorUtil.getInstance().isVirtualThreadModeEnabled());
+
+		// must be concurrent, not one after the other
+		assertTrue(elapsedMillis < TASK_COUNT * TASK_DELAY_MILLIS);
+	}
+
+}
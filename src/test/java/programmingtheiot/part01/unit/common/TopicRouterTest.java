@@ -0,0 +1,139 @@
+/**
+ * This class is part of the Programming the Internet of Things
+ * project, and is available via the MIT License, which can be
+ * found in the LICENSE file at the top level of this repository.
+ *
+ * Copyright (c) 2020 by Andrew D. King
+ */
+
+package programmingtheiot.part01.unit.common;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import programmingtheiot.common.ResourceNameEnum;
+import programmingtheiot.common.TopicRouter;
+
+/**
+ * This test case class contains very basic unit tests for
+ * TopicRouter and the ResourceNameEnum topic lookups. It should
+ * not be considered complete, but serve as a starting point for
+ * the student implementing additional functionality within their
+ * Programming the IoT environment.
+ *
+ */
+public class TopicRouterTest
+{
+	// member var's
+
+	private TopicRouter<String> router = null;
+
+
+	// test setup methods
+
+	@Before
+	public void setUp() throws Exception
+	{
+		this.router =
+			TopicRouter.<String>builder()
+				.add(ResourceNameEnum.CDA_SENSOR_MSG_RESOURCE, "sensor")
+				.add("PIOT/+/SystemPerfMsg", "sysPerf")
+				.add("PIOT/GatewayDevice/#", "gateway")
+				.add("PIOT/+/+/Status", "status")
+				.build();
+	}
+
+
+	// test methods
+
+	@Test
+	public void testExactMatch()
+	{
+		assertEquals("sensor", this.router.route("PIOT/ConstrainedDevice/SensorMsg"));
+		assertEquals(4, this.router.size());
+	}
+
+	@Test
+	public void testSingleLevelWildcard()
+	{
+		assertEquals("sysPerf", this.router.route("PIOT/ConstrainedDevice/SystemPerfMsg"));
+		assertEquals("status", this.router.route("PIOT/ConstrainedDevice/Actuator/Status"));
+
+		// '+' matches exactly one level
+		assertNull(this.router.route("PIOT/SystemPerfMsg"));
+		assertNull(this.router.route("PIOT/ConstrainedDevice/SensorMsg/Extra"));
+	}
+
+	@Test
+	public void testMultiLevelWildcard()
+	{
+		assertEquals("gateway", this.router.route("PIOT/GatewayDevice/MgmtStatusMsg"));
+		assertEquals("gateway", this.router.route("PIOT/GatewayDevice/a/b/c"));
+		assertEquals("gateway", this.router.route("PIOT/GatewayDevice"));
+
+		// precedence is decided level by level: the literal 'GatewayDevice'
+		// wins over '+', even though 'PIOT/+/SystemPerfMsg' also matches
+		assertEquals("gateway", this.router.route("PIOT/GatewayDevice/SystemPerfMsg"));
+		assertEquals("sysPerf", this.router.route("PIOT/EdgeDevice/SystemPerfMsg"));
+	}
+
+	@Test
+	public void testNoMatch()
+	{
+		assertNull(this.router.route("PIOT/ConstrainedDevice/Sensor"));
+		assertNull(this.router.route("PIOT/ConstrainedDevice/SensorMsgs"));
+		assertNull(this.router.route(""));
+		assertNull(this.router.route((String) null));
+	}
+
+	@Test
+	public void testPathSegments()
+	{
+		assertEquals("sensor", this.router.route(Arrays.asList("PIOT", "ConstrainedDevice", "SensorMsg")));
+		assertEquals("gateway", this.router.route(Arrays.asList("PIOT", "GatewayDevice", "x", "y")));
+		assertNull(this.router.route(Arrays.asList("PIOT", "ConstrainedDevice")));
+	}
+
+	@Test
+	public void testInvalidFilters()
+	{
+		TopicRouter.Builder<String> builder = TopicRouter.builder();
+
+		assertInvalid(builder, "PIOT/#/SensorMsg");
+		assertInvalid(builder, "PIOT/Sensor+/SensorMsg");
+
+		builder.add("PIOT/+", "a");
+		assertInvalid(builder, "PIOT/+");
+	}
+
+	@Test
+	public void testResourceNameLookups()
+	{
+		for (ResourceNameEnum resource : ResourceNameEnum.values()) {
+			assertSame(resource, ResourceNameEnum.getEnumFromTopic(resource.getResourceName()));
+			assertSame(resource, ResourceNameEnum.getEnumFromPath(resource.getResourceNameChain()));
+			assertSame(resource.getResourceNameChain(), resource.getResourceNameChain());
+		}
+
+		assertNull(ResourceNameEnum.getEnumFromTopic("PIOT/ConstrainedDevice"));
+	}
+
+
+	// private methods
+
+	private void assertInvalid(TopicRouter.Builder<String> builder, String topicFilter)
+	{
+		try {
+			builder.add(topicFilter, "invalid");
+
+			fail("Expected invalid topic filter: " + topicFilter);
+		} catch (IllegalArgumentException e) {
+			// expected
+		}
+	}
+
+}
@@ -0,0 +1,245 @@
+/**
+ * This class is part of the Programming the Internet of Things
+ * project, and is available via the MIT License, which can be
+ * found in the LICENSE file at the top level of this repository.
+ * 
+ * Copyright (c) 2020 by Andrew D. King
+ */ 
+
+package programmingtheiot.part01.unit.system;
+
+import static org.junit.Assert.*;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import programmingtheiot.common.ConfigConst;
+import programmingtheiot.gda.system.AdaptivePollScheduler;
+import programmingtheiot.gda.system.BaseSystemUtilTask;
+import programmingtheiot.gda.system.PollSchedule;
+import programmingtheiot.gda.system.PollStats;
+
+/**
+ * This test case class contains very basic unit tests for
+ * AdaptivePollScheduler and PollSchedule. It should not be considered
+ * complete, but serve as a starting point for the student implementing
+ * additional functionality within their Programming the IoT
+ * environment.
+ *
+ */
+public class AdaptivePollSchedulerTest
+{
+	// member var's
+	
+	private AdaptivePollScheduler scheduler = null;
+	private AtomicInteger hotSampleCount = null;
+	
+	
+	// test setup methods
+	
+	@Before
+	public void setUp() throws Exception
+	{
+		this.hotSampleCount = new AtomicInteger(0);
+		this.scheduler =
+			new AdaptivePollScheduler(2, (task, metrics, isAboveThreshold) -> {
+				if (isAboveThreshold) {
+					this.hotSampleCount.incrementAndGet();
+				}
+			});
+	}
+	
+	@After
+	public void tearDown() throws Exception
+	{
+		this.scheduler.stop();
+	}
+	
+	
+	// test methods
+	
+	@Test
+	public void testNextInterval()
+	{
+		PollSchedule schedule = new PollSchedule(1000L, 100L, 8000L, 80.0f, 1.0f);
+		
+		// first poll, or a changing value: the base interval
+		assertEquals(1000L, schedule.nextIntervalMillis(1000L, Float.NaN, 10.0f));
+		assertEquals(1000L, schedule.nextIntervalMillis(4000L, 10.0f, 20.0f));
+		
+		// at or above the threshold: the minimum interval
+		assertEquals(100L, schedule.nextIntervalMillis(1000L, 10.0f, 80.0f));
+		assertEquals(100L, schedule.nextIntervalMillis(100L, 90.0f, 90.0f));
+		
+		// idle: doubled, up to the maximum
+		assertEquals(2000L, schedule.nextIntervalMillis(1000L, 10.0f, 10.5f));
+		assertEquals(8000L, schedule.nextIntervalMillis(4000L, 10.0f, 10.0f));
+		assertEquals(8000L, schedule.nextIntervalMillis(8000L, 10.0f, 10.0f));
+		
+		// back to normal after a spike, then backing off again
+		assertEquals(1000L, schedule.nextIntervalMillis(100L, 90.0f, 10.0f));
+		assertEquals(2000L, schedule.nextIntervalMillis(100L, 10.0f, 10.0f));
+	}
+	
+	@Test
+	public void testSlowTaskDoesNotDelayOthers() throws Exception
+	{
+		CountDownLatch release = new CountDownLatch(1);
+		
+		TestTask slowTask = new TestTask("slow", () -> {
+			try {
+				release.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			
+			return 1.0f;
+		});
+		
+		TestTask fastTask = new TestTask("fast", new AtomicInteger(0)::incrementAndGet);
+		
+		this.scheduler.addTask(slowTask, new PollSchedule(20L, 20L, 20L, Float.POSITIVE_INFINITY, 0.0f));
+		this.scheduler.addTask(fastTask, new PollSchedule(20L, 20L, 20L, Float.POSITIVE_INFINITY, 0.0f));
+		this.scheduler.start();
+		
+		Thread.sleep(500L);
+		
+		// the slow task is stuck in its first poll, and never polled concurrently
+		assertEquals(0L, this.scheduler.getPollCount(slowTask));
+		assertTrue(this.scheduler.getPollCount(fastTask) >= 5L);
+		
+		release.countDown();
+	}
+	
+	@Test
+	public void testThresholdAndBackOff() throws Exception
+	{
+		AtomicInteger value = new AtomicInteger(95);
+		TestTask task = new TestTask(ConfigConst.CPU_UTIL_NAME, () -> (float) value.get());
+		
+		this.scheduler.addTask(task, new PollSchedule(200L, 10L, 800L, 80.0f, 1.0f));
+		this.scheduler.start();
+		
+		Thread.sleep(300L);
+		
+		// hot: polled at the minimum interval
+		assertEquals(10L, this.scheduler.getCurrentIntervalMillis(task));
+		assertTrue(this.hotSampleCount.get() >= 5);
+		
+		value.set(10);
+		Thread.sleep(1000L);
+		
+		// idle: backed off to the maximum
+		assertEquals(800L, this.scheduler.getCurrentIntervalMillis(task));
+		
+		// a new base interval applies immediately
+		this.scheduler.setIntervalMillis(1000L);
+		assertEquals(1000L, this.scheduler.getCurrentIntervalMillis(task));
+	}
+	
+	
+	@Test
+	public void testPollsDoNotDrift() throws Exception
+	{
+		List<Long> pollNanos = new CopyOnWriteArrayList<>();
+		
+		// each poll takes a third of the interval
+		TestTask task = new TestTask("busy", () -> {
+			pollNanos.add(System.nanoTime());
+			sleep(30L);
+			
+			return 1.0f;
+		});
+		
+		this.scheduler.addTask(task, new PollSchedule(100L, 100L, 100L, Float.POSITIVE_INFINITY, 0.0f));
+		this.scheduler.start();
+		
+		Thread.sleep(1050L);
+		this.scheduler.stop();
+		
+		// polled on the 100 ms grid, not every 130 ms
+		int count = pollNanos.size();
+		double elapsedMillis = (pollNanos.get(count - 1) - pollNanos.get(0)) / 1.0e6d;
+		
+		assertTrue(count >= 10);
+		assertEquals((count - 1) * 100.0d, elapsedMillis, 50.0d);
+		
+		PollStats stats = this.scheduler.getPollStats(task);
+		
+		assertEquals(0L, stats.getSkippedCount());
+		assertTrue(stats.getMeanDurationMillis() >= 30.0d);
+		assertTrue(stats.getMaxLagMillis() >= stats.getMeanLagMillis());
+	}
+	
+	@Test
+	public void testOverrunSkipsTicks() throws Exception
+	{
+		AtomicInteger pollCount = new AtomicInteger(0);
+		
+		// every other poll overruns two and a half intervals
+		TestTask task = new TestTask("overrun", () -> {
+			if (pollCount.incrementAndGet() % 2 == 0) {
+				sleep(125L);
+			}
+			
+			return 1.0f;
+		});
+		
+		this.scheduler.addTask(task, new PollSchedule(50L, 50L, 50L, Float.POSITIVE_INFINITY, 0.0f));
+		this.scheduler.start();
+		
+		Thread.sleep(1000L);
+		this.scheduler.stop();
+		
+		PollStats stats = this.scheduler.getPollStats(task);
+		
+		// the missed ticks are skipped, not polled back to back afterwards
+		assertTrue(stats.getSkippedCount() >= 4L);
+		assertTrue(stats.getPollCount() + stats.getSkippedCount() <= 23L);
+		assertTrue(stats.getMaxDurationMillis() >= 125.0d);
+		assertNull(this.scheduler.getPollStats(new TestTask("unknown", () -> 0.0f)));
+	}
+	
+	
+	// private methods
+	
+	private static void sleep(long millis)
+	{
+		try {
+			Thread.sleep(millis);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+	
+	
+	/**
+	 * A task returning the values of a supplier.
+	 *
+	 */
+	private static class TestTask extends BaseSystemUtilTask
+	{
+		private final Supplier<Number> supplier;
+		
+		TestTask(String name, Supplier<Number> supplier)
+		{
+			super(name, ConfigConst.DEFAULT_TYPE_ID);
+			
+			this.supplier = supplier;
+		}
+		
+		@Override
+		public float getTelemetryValue()
+		{
+			return this.supplier.get().floatValue();
+		}
+	}
+	
+}
@@ -10,6 +10,8 @@ package programmingtheiot.part01.unit.system;
 
 import static org.junit.Assert.*;
 
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.logging.Logger;
 
 import org.junit.After;
@@ -99,4 +101,34 @@ public class SystemCpuUtilTaskTest
 		}
 	}
 	
+	/**
+	 * Test method for {@link programmingtheiot.gda.system.SystemCpuUtilTask#getTelemetryValue()},
+	 * using a file in /proc/stat format.
+	 */
+	@Test
+	public void testGetTelemetryValueFromProcStat() throws Exception
+	{
+		Path procStat = Files.createTempFile("stat", ".txt");
+		
+		try {
+			// user nice system idle iowait irq softirq steal guest guest_nice
+			Files.writeString(procStat, "cpu  100 0 100 700 100 0 0 0 50 0\ncpu0 100 0 100 700 100 0 0 0 50 0\n");
+			
+			SystemCpuUtilTask task = new SystemCpuUtilTask(procStat);
+			
+			// +300 busy, +100 idle, +100 iowait: 300 / 500 busy
+			Files.writeString(procStat, "cpu  250 50 200 800 200 0 0 0 80 0\ncpu0 250 50 200 800 200 0 0 0 80 0\n");
+			assertEquals(60.0f, task.getTelemetryValue(), 0.001f);
+			
+			// no CPU time has passed
+			assertEquals(0.0f, task.getTelemetryValue(), 0.001f);
+			
+			// idle only
+			Files.writeString(procStat, "cpu  250 50 200 1800 200 0 0 0 80 0\n");
+			assertEquals(0.0f, task.getTelemetryValue(), 0.001f);
+		} finally {
+			Files.deleteIfExists(procStat);
+		}
+	}
+	
 }
@@ -10,6 +10,8 @@ package programmingtheiot.part01.unit.system;
 
 import static org.junit.Assert.*;
 
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.logging.Logger;
 
 import org.junit.After;
@@ -101,4 +103,31 @@ public class SystemMemUtilTaskTest
 		}
 	}
 	
+	/**
+	 * Test method for {@link programmingtheiot.gda.system.SystemMemUtilTask#getTelemetryValue()},
+	 * using a file in /proc/meminfo format.
+	 */
+	@Test
+	public void testGetTelemetryValueFromMemInfo() throws Exception
+	{
+		Path memInfo = Files.createTempFile("meminfo", ".txt");
+		
+		try {
+			Files.writeString(memInfo,
+				"MemTotal:        8000000 kB\nMemFree:         1000000 kB\nMemAvailable:    6000000 kB\n" +
+				"Buffers:          500000 kB\nCached:          2000000 kB\n");
+			
+			SystemMemUtilTask task = new SystemMemUtilTask(memInfo);
+			assertEquals(25.0f, task.getTelemetryValue(), 0.001f);
+			
+			// without MemAvailable: free + buffers + cached
+			Files.writeString(memInfo,
+				"MemTotal:        8000000 kB\nMemFree:         1000000 kB\n" +
+				"Buffers:          500000 kB\nCached:          2500000 kB\n");
+			assertEquals(50.0f, task.getTelemetryValue(), 0.001f);
+		} finally {
+			Files.deleteIfExists(memInfo);
+		}
+	}
+	
 }
@@ -0,0 +1,143 @@
+/**
+ * This class is part of the Programming the Internet of Things
+ * project, and is available via the MIT License, which can be
+ * found in the LICENSE file at the top level of this repository.
+ * 
+ * Copyright (c) 2020 by Andrew D. King
+ */ 
+
+package programmingtheiot.part01.unit.system;
+
+import static org.junit.Assert.*;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.logging.Logger;
+
+import org.junit.Test;
+
+import programmingtheiot.common.ConfigConst;
+import programmingtheiot.data.SystemPerformanceData;
+import programmingtheiot.gda.system.BaseSystemUtilTask;
+import programmingtheiot.gda.system.SystemAllocRateTask;
+import programmingtheiot.gda.system.SystemFileDescriptorTask;
+import programmingtheiot.gda.system.SystemGcPauseTask;
+import programmingtheiot.gda.system.SystemNetworkIoTask;
+import programmingtheiot.gda.system.SystemProcessCpuTask;
+import programmingtheiot.gda.system.SystemThreadCountTask;
+
+/**
+ * This test case class contains very basic unit tests for
+ * SystemNetworkIoTask and the other extended telemetry tasks. It
+ * should not be considered complete, but serve as a starting point
+ * for the student implementing additional functionality within their
+ * Programming the IoT environment.
+ *
+ */
+public class SystemNetworkIoTaskTest
+{
+	// static
+	
+	private static final Logger _Logger =
+		Logger.getLogger(SystemNetworkIoTaskTest.class.getName());
+	
+	private static final String NET_DEV_HEADER =
+		"Inter-|   Receive                                                |  Transmit\n" +
+		" face |bytes    packets errs drop fifo frame compressed multicast|bytes    packets errs drop fifo colls carrier compressed\n";
+	
+	public static final int MAX_INTERFACES = 200;
+	
+	
+	// test methods
+	
+	@Test
+	public void testNetworkIoFromNetDev() throws Exception
+	{
+		Path netDev = Files.createTempFile("netdev", ".txt");
+		
+		try {
+			Files.writeString(netDev, NET_DEV_HEADER +
+				"    lo:    5000      10    0    0    0     0          0         0     5000      10    0    0    0     0       0          0\n" +
+				"  eth0:    1000      10    0    0    0     0          0         0     2000      10    0    0    0     0       0          0\n");
+			
+			SystemNetworkIoTask task = new SystemNetworkIoTask(netDev);
+			
+			Files.writeString(netDev, NET_DEV_HEADER +
+				"    lo:    9000      20    0    0    0     0          0         0     9000      20    0    0    0     0       0          0\n" +
+				"  eth0: 1001000      20    0    0    0     0          0         0  2002000      20    0    0    0     0       0          0\n");
+			
+			SystemPerformanceData data = new SystemPerformanceData();
+			task.addTelemetry(data);
+			
+			_Logger.info("Network metrics: " + data.getMetrics());
+			
+			// loopback is excluded; rates depend on the elapsed time
+			assertEquals(2, data.getMetrics().size());
+			assertTrue(data.getMetric(ConfigConst.NET_RX_BYTES_RATE_PROP + ".eth0") > 0.0f);
+			assertTrue(
+				data.getMetric(ConfigConst.NET_TX_BYTES_RATE_PROP + ".eth0") >
+				data.getMetric(ConfigConst.NET_RX_BYTES_RATE_PROP + ".eth0"));
+			
+			// no change since the previous read
+			assertEquals(0.0f, task.getTelemetryValue(), 0.001f);
+		} finally {
+			Files.deleteIfExists(netDev);
+		}
+	}
+	
+	@Test
+	public void testLargeNetDev() throws Exception
+	{
+		Path netDev = Files.createTempFile("netdev", ".txt");
+		
+		// well over the initial read buffer size
+		StringBuilder content = new StringBuilder(NET_DEV_HEADER);
+		
+		for (int i = 0; i < MAX_INTERFACES; i++) {
+			content.append(String.format(
+				"%6s:    1000      10    0    0    0     0          0         0     2000      10    0    0    0     0       0          0\n",
+				"veth" + i));
+		}
+		
+		try {
+			Files.writeString(netDev, content);
+			
+			SystemNetworkIoTask task = new SystemNetworkIoTask(netDev);
+			
+			SystemPerformanceData data = new SystemPerformanceData();
+			task.addTelemetry(data);
+			
+			// rx and tx rates of every interface, including the last
+			assertEquals(MAX_INTERFACES * 2, data.getMetrics().size());
+			assertNotNull(data.getMetrics().get(ConfigConst.NET_TX_BYTES_RATE_PROP + ".veth" + (MAX_INTERFACES - 1)));
+		} finally {
+			Files.deleteIfExists(netDev);
+		}
+	}
+	
+	@Test
+	public void testJvmTelemetryTasks()
+	{
+		BaseSystemUtilTask[] tasks = {
+			new SystemGcPauseTask(), new SystemAllocRateTask(), new SystemThreadCountTask(),
+			new SystemFileDescriptorTask(), new SystemProcessCpuTask()
+		};
+		
+		SystemPerformanceData data = new SystemPerformanceData();
+		
+		for (BaseSystemUtilTask task : tasks) {
+			task.addTelemetry(data);
+		}
+		
+		_Logger.info("JVM metrics: " + data.getMetrics());
+		
+		// these are supported on all JVMs
+		assertTrue(data.getMetric(ConfigConst.THREAD_COUNT_PROP) >= 1.0f);
+		assertTrue(data.getMetric(ConfigConst.GC_PAUSE_MILLIS_PROP) >= 0.0f);
+		
+		for (float val : data.getMetrics().values()) {
+			assertTrue(val >= 0.0f);
+		}
+	}
+	
+}
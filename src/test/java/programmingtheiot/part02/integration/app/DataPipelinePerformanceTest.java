@@ -0,0 +1,116 @@
+/**
+ * This class is part of the Programming the Internet of Things
+ * project, and is available via the MIT License, which can be
+ * found in the LICENSE file at the top level of this repository.
+ *
+ * Copyright (c) 2020 by Andrew D. King
+ */
+
+package programmingtheiot.part02.integration.app;
+
+import static org.junit.Assert.*;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+import org.junit.Test;
+
+import programmingtheiot.common.ResourceNameEnum;
+import programmingtheiot.data.DataUtil;
+import programmingtheiot.data.SensorData;
+import programmingtheiot.gda.pipeline.BackpressurePolicyEnum;
+import programmingtheiot.gda.pipeline.DataPipeline;
+
+/**
+ * This test case class contains a very basic performance test for
+ * the DataPipeline, showing that a slow upstream (fan-out) handler
+ * doesn't hold up the thread submitting data, as an MQTT or CoAP
+ * callback thread would.
+ * It should not be considered complete, but serve as a starting point
+ * for the student implementing additional functionality within their
+ * Programming the IoT environment.
+ *
+ */
+public class DataPipelinePerformanceTest
+{
+	// static
+
+	private static final Logger _Logger =
+		Logger.getLogger(DataPipelinePerformanceTest.class.getName());
+
+	public static final int  MAX_TEST_RUNS         = 10000;
+	public static final int  QUEUE_SIZE            = 256;
+	public static final long UPSTREAM_DELAY_MILLIS = 2L;
+	public static final long SETTLE_DELAY_MILLIS   = 500L;
+
+
+	// test methods
+
+	/**
+	 * Test method for {@link programmingtheiot.gda.pipeline.DataPipeline#submit(ResourceNameEnum, programmingtheiot.data.BaseIotData)}.
+	 */
+	@Test
+	public void testSlowUpstreamDoesNotBlockSubmit()
+	{
+		AtomicInteger upstreamCount = new AtomicInteger(0);
+
+		DataPipeline pipeline =
+			new DataPipeline(QUEUE_SIZE, 1, 1, BackpressurePolicyEnum.DROP_OLDEST, 1, (msg) -> {
+				assertNotNull(msg.getJsonData());
+
+				try {
+					Thread.sleep(UPSTREAM_DELAY_MILLIS);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+
+				upstreamCount.incrementAndGet();
+			});
+
+		// warm up the JSON codec so the first transform isn't skewed
+		DataUtil.getInstance().dataToJson(new SensorData());
+		
+		pipeline.start();
+
+		long maxSubmitNanos = 0L;
+		long startNanos = System.nanoTime();
+
+		for (int i = 0; i < MAX_TEST_RUNS; i++) {
+			SensorData data = new SensorData();
+			data.setName("PipelineTestSensor");
+			data.setValue(i);
+
+			long submitNanos = System.nanoTime();
+
+			pipeline.submit(ResourceNameEnum.CDA_SENSOR_MSG_RESOURCE, data);
+
+			maxSubmitNanos = Math.max(maxSubmitNanos, System.nanoTime() - submitNanos);
+		}
+
+		long elapsedNanos = System.nanoTime() - startNanos;
+
+		try {
+			Thread.sleep(SETTLE_DELAY_MILLIS);
+		} catch (InterruptedException e) {
+			// ignore
+		}
+
+		pipeline.stop();
+
+		String msg =
+			String.format(
+				"\n\tTesting Pipeline [slow upstream]: msgs = %s | elapsed = %s ms | avg submit = %s ns | " +
+				"max submit = %s us | upstream handled = %s | dropped = %s",
+				MAX_TEST_RUNS, elapsedNanos / 1000000L, elapsedNanos / MAX_TEST_RUNS, maxSubmitNanos / 1000L,
+				upstreamCount.get(),
+				pipeline.getTransformStage().getDroppedCount() + pipeline.getFanOutStage().getDroppedCount());
+
+		_Logger.info(msg);
+
+		// a synchronous upstream would have taken at least MAX_TEST_RUNS * UPSTREAM_DELAY_MILLIS
+		assertTrue(elapsedNanos / 1000000L < MAX_TEST_RUNS * UPSTREAM_DELAY_MILLIS);
+		assertTrue(pipeline.getTransformStage().getDroppedCount() + pipeline.getFanOutStage().getDroppedCount() > 0);
+		assertTrue(upstreamCount.get() > 0);
+	}
+
+}
@@ -10,6 +10,9 @@ package programmingtheiot.part02.integration.app;
 
 import static org.junit.Assert.*;
 
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Logger;
 
 import org.junit.After;
@@ -18,6 +21,9 @@ import org.junit.Before;
 import org.junit.BeforeClass;
 import org.junit.Test;
 
+import programmingtheiot.common.DefaultDataMessageListener;
+import programmingtheiot.common.ResourceNameEnum;
+import programmingtheiot.data.SystemPerformanceData;
 import programmingtheiot.gda.app.DeviceDataManager;
 
 /**
@@ -95,4 +101,42 @@ public class DeviceDataManagerNoCommsTest
 		devDataMgr.stopManager();
 	}
 	
+	/**
+	 * Test method for adding a listener for the data passed to the
+	 * DeviceDataManager (here, by the system performance manager).
+	 */
+	@Test
+	public void testAdditionalDataMessageListener()
+	{
+		List<SystemPerformanceData> received = new CopyOnWriteArrayList<>();
+		
+		DeviceDataManager devDataMgr = new DeviceDataManager(true, false, false, false, false);
+		
+		devDataMgr.addDataMessageListener("test", new DefaultDataMessageListener() {
+			@Override
+			public boolean handleSystemPerformanceMessage(ResourceNameEnum resourceName, SystemPerformanceData data)
+			{
+				return received.add(data);
+			}
+		});
+		
+		devDataMgr.startManager();
+		
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30L);
+		
+		while (received.isEmpty() && System.nanoTime() < deadline) {
+			try {
+				Thread.sleep(100L);
+			} catch (InterruptedException e) {
+				// ignore
+			}
+		}
+		
+		devDataMgr.stopManager();
+		
+		_Logger.info("System performance messages received by additional listener: " + received.size());
+		
+		assertFalse(received.isEmpty());
+	}
+	
 }
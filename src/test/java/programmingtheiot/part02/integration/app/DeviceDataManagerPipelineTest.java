@@ -0,0 +1,131 @@
+/**
+ * This class is part of the Programming the Internet of Things
+ * project, and is available via the MIT License, which can be
+ * found in the LICENSE file at the top level of this repository.
+ *
+ * Copyright (c) 2020 by Andrew D. King
+ */
+
+package programmingtheiot.part02.integration.app;
+
+import static org.junit.Assert.*;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import programmingtheiot.common.ConfigConst;
+import programmingtheiot.common.ResourceNameEnum;
+import programmingtheiot.data.SensorData;
+import programmingtheiot.data.SystemPerformanceData;
+import programmingtheiot.gda.app.DeviceDataManager;
+import programmingtheiot.gda.pipeline.PipelineMessage;
+
+/**
+ * This test case class contains very basic integration tests for
+ * stopping DeviceDataManager with the data pipeline enabled. It
+ * should not be considered complete, but serve as a starting point
+ * for the student implementing additional functionality within
+ * their Programming the IoT environment.
+ *
+ */
+public class DeviceDataManagerPipelineTest
+{
+	// static
+
+	public static final int MAX_TEST_MSGS = 500;
+
+
+	// member var's
+
+	private List<PipelineMessage> sentMsgs = null;
+
+
+	// test setup methods
+
+	@Before
+	public void setUp() throws Exception
+	{
+		this.sentMsgs = new CopyOnWriteArrayList<>();
+	}
+
+
+	// test methods
+
+	/**
+	 * Messages still queued in the pipeline when stopping are sent.
+	 */
+	@Test
+	public void testStopSendsQueuedMessages()
+	{
+		DeviceDataManager devDataMgr = createManager(false);
+
+		for (int i = 0; i < MAX_TEST_MSGS; i++) {
+			assertTrue(devDataMgr.handleSensorMessage(ResourceNameEnum.CDA_SENSOR_MSG_RESOURCE, createData(i)));
+		}
+
+		devDataMgr.stopManager();
+
+		assertEquals(MAX_TEST_MSGS, this.sentMsgs.size());
+	}
+
+	/**
+	 * The aggregation windows flushed when stopping are sent.
+	 */
+	@Test
+	public void testStopSendsAggregationWindows()
+	{
+		DeviceDataManager devDataMgr = createManager(true);
+
+		for (int i = 0; i < MAX_TEST_MSGS; i++) {
+			devDataMgr.handleSensorMessage(ResourceNameEnum.CDA_SENSOR_MSG_RESOURCE, createData(i));
+		}
+
+		SystemPerformanceData sysPerfData = new SystemPerformanceData();
+		sysPerfData.setCpuUtilization(10.0f);
+
+		devDataMgr.handleSystemPerformanceMessage(ResourceNameEnum.CDA_SYSTEM_PERF_MSG_RESOURCE, sysPerfData);
+
+		devDataMgr.stopManager();
+
+		// the statistics of the sensor's window(s), and the summary
+		float sampleCount = 0.0f;
+		int summaryCount = 0;
+
+		for (PipelineMessage msg : this.sentMsgs) {
+			if (msg.getData() instanceof SystemPerformanceData) {
+				summaryCount++;
+			} else if (msg.getData().getName().endsWith("." + ConfigConst.COUNT_STAT)) {
+				sampleCount += ((SensorData) msg.getData()).getValue();
+			}
+		}
+
+		assertEquals(MAX_TEST_MSGS, sampleCount, 0.0f);
+		assertEquals(1, summaryCount);
+	}
+
+
+	// private methods
+
+	private DeviceDataManager createManager(boolean enableAggregation)
+	{
+		DeviceDataManager devDataMgr = new DeviceDataManager(false, false, false, false, false, true, enableAggregation);
+		devDataMgr.addUpstreamDestination("test", batch -> this.sentMsgs.addAll(batch));
+		devDataMgr.startManager();
+
+		return devDataMgr;
+	}
+
+	private SensorData createData(int val)
+	{
+		SensorData data = new SensorData();
+		data.setTypeID(ConfigConst.TEMP_SENSOR_TYPE);
+		data.setName(ConfigConst.TEMP_SENSOR_NAME);
+		data.setValue(val);
+
+		return data;
+	}
+
+}
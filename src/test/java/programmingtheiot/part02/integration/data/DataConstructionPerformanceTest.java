@@ -0,0 +1,131 @@
+/**
+ * This class is part of the Programming the Internet of Things
+ * project, and is available via the MIT License, which can be
+ * found in the LICENSE file at the top level of this repository.
+ *
+ * Copyright (c) 2020 by Andrew D. King
+ */
+
+package programmingtheiot.part02.integration.data;
+
+import static org.junit.Assert.*;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.logging.Logger;
+
+import org.junit.Test;
+
+import programmingtheiot.common.ConfigConst;
+import programmingtheiot.common.ConfigUtil;
+import programmingtheiot.data.SensorData;
+
+/**
+ * This test case class contains very basic multi-threaded performance
+ * tests for IoT data construction, which reads the device context from
+ * {@link ConfigUtil} on every instance. A direct config lookup per
+ * instance is included as a baseline.
+ * It should not be considered complete, but serve as a starting point
+ * for the student implementing additional functionality within their
+ * Programming the IoT environment.
+ *
+ */
+public class DataConstructionPerformanceTest
+{
+	// static
+
+	private static final Logger _Logger =
+		Logger.getLogger(DataConstructionPerformanceTest.class.getName());
+
+	public static final int MAX_WARMUP_RUNS = 20000;
+	public static final int MAX_TEST_RUNS   = 200000;
+	public static final int[] THREAD_COUNTS = {1, 2, 4, 8};
+
+
+	// test methods
+
+	/**
+	 * Test method for {@link programmingtheiot.data.SensorData#SensorData()}.
+	 */
+	@Test
+	public void testSensorDataConstruction()
+	{
+		for (int threadCount : THREAD_COUNTS) {
+			execTest("SensorData construction", threadCount, () -> {
+				SensorData data = new SensorData();
+
+				assertNotNull(data.getLocationID());
+			});
+		}
+	}
+
+	/**
+	 * Test method for {@link programmingtheiot.common.ConfigUtil#getProperty(String, String)}.
+	 */
+	@Test
+	public void testConfigLocationLookup()
+	{
+		ConfigUtil configUtil = ConfigUtil.getInstance();
+
+		for (int threadCount : THREAD_COUNTS) {
+			execTest("ConfigUtil location ID lookup", threadCount, () -> {
+				String locID = configUtil.getProperty(ConfigConst.GATEWAY_DEVICE, ConfigConst.DEVICE_LOCATION_ID_KEY);
+
+				assertNotNull(locID);
+			});
+		}
+	}
+
+
+	// private methods
+
+	private void execTest(String label, int threadCount, Runnable task)
+	{
+		for (int i = 0; i < MAX_WARMUP_RUNS; i++) {
+			task.run();
+		}
+
+		int runsPerThread = MAX_TEST_RUNS / threadCount;
+
+		CountDownLatch startLatch = new CountDownLatch(1);
+		CountDownLatch doneLatch  = new CountDownLatch(threadCount);
+
+		for (int i = 0; i < threadCount; i++) {
+			Thread t = new Thread(() -> {
+				try {
+					startLatch.await();
+
+					for (int j = 0; j < runsPerThread; j++) {
+						task.run();
+					}
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				} finally {
+					doneLatch.countDown();
+				}
+			});
+
+			t.setDaemon(true);
+			t.start();
+		}
+
+		long startNanos = System.nanoTime();
+
+		try {
+			startLatch.countDown();
+			doneLatch.await();
+		} catch (InterruptedException e) {
+			fail("Interrupted waiting for test threads.");
+		}
+
+		long elapsedMillis = Math.max(1L, (System.nanoTime() - startNanos) / 1000000L);
+
+		String msg =
+			String.format(
+				"\n\tTesting [%s]: threads = %s | runs = %s | elapsed = %s ms | throughput = %s ops/sec",
+				label, threadCount, runsPerThread * threadCount, elapsedMillis,
+				(runsPerThread * threadCount * 1000L) / elapsedMillis);
+
+		_Logger.info(msg);
+	}
+
+}
@@ -0,0 +1,116 @@
+/**
+ * This class is part of the Programming the Internet of Things
+ * project, and is available via the MIT License, which can be
+ * found in the LICENSE file at the top level of this repository.
+ * 
+ * Copyright (c) 2020 by Andrew D. King
+ */ 
+
+package programmingtheiot.part02.integration.data;
+
+import static org.junit.Assert.*;
+
+import java.util.logging.Logger;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.gson.Gson;
+
+import programmingtheiot.data.DataUtil;
+import programmingtheiot.data.SensorData;
+
+/**
+ * This test case class contains very basic performance tests for
+ * DataUtil, comparing the cached streaming adapters against a
+ * new reflective Gson instance per conversion. It should not be
+ * considered complete, but serve as a starting point for the student
+ * implementing additional functionality within their Programming the IoT
+ * environment.
+ *
+ */
+public class DataUtilPerformanceTest
+{
+	// static
+	
+	private static final Logger _Logger =
+		Logger.getLogger(DataUtilPerformanceTest.class.getName());
+	
+	public static final int MAX_WARMUP_RUNS = 20000;
+	public static final int MAX_TEST_RUNS   = 100000;
+	
+	// member var's
+	
+	private SensorData sensorData = null;
+	private String     sensorJson = null;
+	
+	
+	// test setup methods
+	
+	/**
+	 * @throws java.lang.Exception
+	 */
+	@Before
+	public void setUp() throws Exception
+	{
+		this.sensorData = new SensorData();
+		this.sensorData.setName("PerfTestSensor");
+		this.sensorData.setValue(21.5f);
+		
+		this.sensorJson = DataUtil.getInstance().sensorDataToJson(this.sensorData);
+	}
+	
+	// test methods
+	
+	/**
+	 * Test method for {@link programmingtheiot.data.DataUtil#sensorDataToJson(SensorData)}.
+	 */
+	@Test
+	public void testSensorDataToJsonThroughput()
+	{
+		DataUtil dataUtil = DataUtil.getInstance();
+		
+		execTest("Encode [new Gson per call]", () -> new Gson().toJson(this.sensorData));
+		execTest("Encode [cached DataUtil]", () -> dataUtil.sensorDataToJson(this.sensorData));
+	}
+	
+	/**
+	 * Test method for {@link programmingtheiot.data.DataUtil#jsonToSensorData(String)}.
+	 */
+	@Test
+	public void testJsonToSensorDataThroughput()
+	{
+		DataUtil dataUtil = DataUtil.getInstance();
+		
+		execTest("Decode [new Gson per call]", () -> new Gson().fromJson(this.sensorJson, SensorData.class));
+		execTest("Decode [cached DataUtil]", () -> dataUtil.jsonToSensorData(this.sensorJson));
+	}
+	
+	// private methods
+	
+	private void execTest(String label, Runnable codec)
+	{
+		for (int i = 0; i < MAX_WARMUP_RUNS; i++) {
+			codec.run();
+		}
+		
+		long startNanos = System.nanoTime();
+		
+		for (int i = 0; i < MAX_TEST_RUNS; i++) {
+			codec.run();
+		}
+		
+		long elapsedNanos = System.nanoTime() - startNanos;
+		
+		assertTrue(elapsedNanos > 0);
+		
+		String msg =
+			String.format(
+				"\n\tTesting %s: msgs = %s | elapsed = %s ms | throughput = %.0f msgs/s",
+				label, MAX_TEST_RUNS, elapsedNanos / 1000000L,
+				(double) MAX_TEST_RUNS / ((double) elapsedNanos / 1.0e9));
+		
+		_Logger.info(msg);
+	}
+	
+}
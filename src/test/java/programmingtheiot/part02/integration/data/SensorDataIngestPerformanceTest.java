@@ -0,0 +1,117 @@
+/**
+ * This class is part of the Programming the Internet of Things
+ * project, and is available via the MIT License, which can be
+ * found in the LICENSE file at the top level of this repository.
+ * 
+ * Copyright (c) 2020 by Andrew D. King
+ */ 
+
+package programmingtheiot.part02.integration.data;
+
+import static org.junit.Assert.*;
+
+import java.lang.management.ManagementFactory;
+import java.util.logging.Logger;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import programmingtheiot.common.PayloadFormatEnum;
+import programmingtheiot.data.DataUtil;
+import programmingtheiot.data.SensorData;
+
+/**
+ * This test case class contains very basic GC pressure tests for
+ * the SensorData ingest path, comparing JSON Strings per message
+ * against the compact binary format.
+ * It should not be considered complete, but serve as a starting point
+ * for the student implementing additional functionality within their
+ * Programming the IoT environment.
+ *
+ */
+public class SensorDataIngestPerformanceTest
+{
+	// static
+	
+	private static final Logger _Logger =
+		Logger.getLogger(SensorDataIngestPerformanceTest.class.getName());
+	
+	public static final int MAX_WARMUP_RUNS = 20000;
+	public static final int MAX_TEST_RUNS   = 100000;
+	
+	// member var's
+	
+	private com.sun.management.ThreadMXBean threadMxBean = null;
+	
+	
+	// test setup methods
+	
+	/**
+	 * @throws java.lang.Exception
+	 */
+	@Before
+	public void setUp() throws Exception
+	{
+		this.threadMxBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+	}
+	
+	// test methods
+	
+	/**
+	 * Test method for {@link programmingtheiot.data.DataUtil#dataToPayload(PayloadFormatEnum, programmingtheiot.data.BaseIotData)}.
+	 */
+	@Test
+	public void testIngestAllocationRate()
+	{
+		DataUtil dataUtil = DataUtil.getInstance();
+		SensorData source = new SensorData();
+		source.setName("IngestTestSensor");
+		source.setValue(21.5f);
+		
+		String json = dataUtil.sensorDataToJson(source);
+		
+		byte[] payload = dataUtil.dataToPayload(PayloadFormatEnum.BINARY, source);
+		
+		long jsonBytesPerMsg = execTest("new instance + JSON", () -> {
+			SensorData data = dataUtil.jsonToSensorData(json);
+			dataUtil.sensorDataToJson(data);
+		});
+		
+		long binaryBytesPerMsg = execTest("new instance + binary", () -> {
+			SensorData data = dataUtil.payloadToData(PayloadFormatEnum.BINARY, payload, SensorData.class);
+			dataUtil.dataToPayload(PayloadFormatEnum.BINARY, data);
+		});
+		
+		assertTrue(binaryBytesPerMsg < jsonBytesPerMsg);
+	}
+	
+	// private methods
+	
+	private long execTest(String label, Runnable ingest)
+	{
+		for (int i = 0; i < MAX_WARMUP_RUNS; i++) {
+			ingest.run();
+		}
+		
+		long threadID   = Thread.currentThread().getId();
+		long startBytes = this.threadMxBean.getThreadAllocatedBytes(threadID);
+		long startNanos = System.nanoTime();
+		
+		for (int i = 0; i < MAX_TEST_RUNS; i++) {
+			ingest.run();
+		}
+		
+		long elapsedNanos = System.nanoTime() - startNanos;
+		long bytesPerMsg  = (this.threadMxBean.getThreadAllocatedBytes(threadID) - startBytes) / MAX_TEST_RUNS;
+		
+		String msg =
+			String.format(
+				"\n\tTesting Ingest [%s]: msgs = %s | elapsed = %s ms | allocated = %s bytes/msg",
+				label, MAX_TEST_RUNS, elapsedNanos / 1000000L, bytesPerMsg);
+		
+		_Logger.info(msg);
+		
+		return bytesPerMsg;
+	}
+	
+}
@@ -0,0 +1,135 @@
+/**
+ * This class is part of the Programming the Internet of Things
+ * project, and is available via the MIT License, which can be
+ * found in the LICENSE file at the top level of this repository.
+ *
+ * Copyright (c) 2020 by Andrew D. King
+ */
+
+package programmingtheiot.part02.unit.analytics;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import programmingtheiot.common.ConfigConst;
+import programmingtheiot.data.SensorData;
+import programmingtheiot.gda.analytics.DeadbandFilter;
+
+/**
+ * This test case class contains very basic unit tests for
+ * DeadbandFilter. It should not be considered complete, but serve as
+ * a starting point for the student implementing additional
+ * functionality within their Programming the IoT environment.
+ *
+ */
+public class DeadbandFilterTest
+{
+	// test methods
+
+	@Test
+	public void testAbsoluteDeadband()
+	{
+		DeadbandFilter filter = new DeadbandFilter(0.5f, 0.0f, 0L);
+
+		assertTrue(filter.accept(createData("TempSensor", "room1", 20.0f), 0L));
+		assertFalse(filter.accept(createData("TempSensor", "room1", 20.0f), 100L));
+		assertFalse(filter.accept(createData("TempSensor", "room1", 20.3f), 200L));
+
+		// compared with the last value passed, so a drift adds up
+		assertTrue(filter.accept(createData("TempSensor", "room1", 20.6f), 300L));
+		assertFalse(filter.accept(createData("TempSensor", "room1", 20.2f), 400L));
+		assertTrue(filter.accept(createData("TempSensor", "room1", 19.9f), 500L));
+
+		// sensors at other locations are filtered independently
+		assertTrue(filter.accept(createData("TempSensor", "room2", 20.0f), 600L));
+
+		assertEquals(3L, filter.getSuppressedCount());
+		assertEquals(4L, filter.getPassedCount());
+	}
+
+	@Test
+	public void testPercentDeadband()
+	{
+		DeadbandFilter filter = new DeadbandFilter(0.0f, 10.0f, 0L);
+
+		assertTrue(filter.accept(createData("PressureSensor", "room1", 1000.0f), 0L));
+		assertFalse(filter.accept(createData("PressureSensor", "room1", 1090.0f), 100L));
+		assertTrue(filter.accept(createData("PressureSensor", "room1", 1100.0f), 200L));
+		assertFalse(filter.accept(createData("PressureSensor", "room1", 1000.0f), 300L));
+		assertTrue(filter.accept(createData("PressureSensor", "room1", 990.0f), 400L));
+	}
+
+	@Test
+	public void testChangeOfValueAndHeartbeat()
+	{
+		DeadbandFilter filter = new DeadbandFilter(0.0f, 0.0f, 1000L);
+
+		// no deadband: any change
+		assertTrue(filter.accept(createData("SwitchSensor", "room1", 0.0f), 0L));
+		assertFalse(filter.accept(createData("SwitchSensor", "room1", 0.0f), 500L));
+		assertTrue(filter.accept(createData("SwitchSensor", "room1", 1.0f), 600L));
+
+		// unchanged, but silent for too long
+		assertFalse(filter.accept(createData("SwitchSensor", "room1", 1.0f), 1500L));
+		assertTrue(filter.accept(createData("SwitchSensor", "room1", 1.0f), 1600L));
+		assertFalse(filter.accept(createData("SwitchSensor", "room1", 1.0f), 1700L));
+
+		// errors are always passed
+		SensorData data = createData("SwitchSensor", "room1", 1.0f);
+		data.setStatusCode(-1);
+
+		assertTrue(filter.accept(data, 1800L));
+	}
+
+	@Test
+	public void testPerSensorThresholds()
+	{
+		DeadbandFilter filter = new DeadbandFilter(1.0f, 0.0f, 0L);
+		filter.setThresholds("HumiditySensor", 5.0f, 0.0f, 0L);
+
+		assertTrue(filter.accept(createData("TempSensor", "room1", 20.0f), 0L));
+		assertTrue(filter.accept(createData("TempSensor", "room1", 21.0f), 100L));
+
+		assertTrue(filter.accept(createData("HumiditySensor", "room1", 40.0f), 0L));
+		assertFalse(filter.accept(createData("HumiditySensor", "room1", 44.0f), 100L));
+		assertTrue(filter.accept(createData("HumiditySensor", "room1", 45.0f), 200L));
+	}
+
+	@Test
+	public void testMaxSensors()
+	{
+		DeadbandFilter filter = new DeadbandFilter(0.0f, 0.0f, 1000L, 2);
+
+		assertTrue(filter.accept(createData("TempSensor", "room1", 20.0f), 0L));
+		assertTrue(filter.accept(createData("TempSensor", "room2", 20.0f), 0L));
+
+		// too many sensors: passed, unfiltered
+		assertTrue(filter.accept(createData("TempSensor", "room3", 20.0f), 0L));
+		assertTrue(filter.accept(createData("TempSensor", "room3", 20.0f), 100L));
+		assertEquals(2, filter.getSensorCount());
+
+		// the others went silent, so they're dropped to make room
+		assertTrue(filter.accept(createData("TempSensor", "room3", 20.0f), 1500L));
+		assertEquals(0, filter.getSensorCount());
+
+		assertTrue(filter.accept(createData("TempSensor", "room3", 20.0f), 1600L));
+		assertFalse(filter.accept(createData("TempSensor", "room3", 20.0f), 1700L));
+		assertEquals(1, filter.getSensorCount());
+	}
+
+
+	// private methods
+
+	private SensorData createData(String name, String locationID, float value)
+	{
+		SensorData data = new SensorData();
+		data.setTypeID(ConfigConst.TEMP_SENSOR_TYPE);
+		data.setName(name);
+		data.setLocationID(locationID);
+		data.setValue(value);
+
+		return data;
+	}
+
+}
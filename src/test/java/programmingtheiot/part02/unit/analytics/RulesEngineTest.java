@@ -0,0 +1,204 @@
+/**
+ * This class is part of the Programming the Internet of Things
+ * project, and is available via the MIT License, which can be
+ * found in the LICENSE file at the top level of this repository.
+ *
+ * Copyright (c) 2020 by Andrew D. King
+ */
+
+package programmingtheiot.part02.unit.analytics;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import programmingtheiot.common.ConfigConst;
+import programmingtheiot.data.ActuatorData;
+import programmingtheiot.data.SensorData;
+import programmingtheiot.data.SystemPerformanceData;
+import programmingtheiot.data.SystemStateData;
+import programmingtheiot.gda.analytics.ActuatorRule;
+import programmingtheiot.gda.analytics.RuleConditionEnum;
+import programmingtheiot.gda.analytics.RulesEngine;
+
+/**
+ * This test case class contains very basic unit tests for
+ * RulesEngine. It should not be considered complete, but serve as
+ * a starting point for the student implementing additional
+ * functionality within their Programming the IoT environment.
+ *
+ */
+public class RulesEngineTest
+{
+	// member var's
+
+	private List<ActuatorData> commands = null;
+
+
+	// test setup methods
+
+	@Before
+	public void setUp() throws Exception
+	{
+		this.commands = new CopyOnWriteArrayList<>();
+	}
+
+
+	// test methods
+
+	@Test
+	public void testThresholdWithHysteresis()
+	{
+		ActuatorRule rule =
+			new ActuatorRule(
+				"HumidifierOn", "HumiditySensor", RuleConditionEnum.BELOW, 30.0f, 5.0f,
+				ConfigConst.HUMIDIFIER_ACTUATOR_NAME, ConfigConst.HUMIDIFIER_ACTUATOR_TYPE)
+			.withActuatorValue(35.0f);
+
+		RulesEngine engine = new RulesEngine(Arrays.asList(rule), this.commands::add);
+
+		assertEquals(0, engine.evaluate("HumiditySensor", "room1", 40.0f, 0L));
+		assertEquals(1, engine.evaluate("HumiditySensor", "room1", 29.0f, 100L));
+
+		// still active, and within the hysteresis
+		assertEquals(0, engine.evaluate("HumiditySensor", "room1", 25.0f, 200L));
+		assertEquals(0, engine.evaluate("HumiditySensor", "room1", 31.0f, 300L));
+		assertEquals(0, engine.evaluate("HumiditySensor", "room1", 35.0f, 400L));
+		assertEquals(1, engine.evaluate("HumiditySensor", "room1", 35.5f, 500L));
+
+		assertEquals(2, this.commands.size());
+
+		ActuatorData onCmd = this.commands.get(0);
+
+		assertEquals(ConfigConst.HUMIDIFIER_ACTUATOR_NAME, onCmd.getName());
+		assertEquals(ConfigConst.HUMIDIFIER_ACTUATOR_TYPE, onCmd.getTypeID());
+		assertEquals("room1", onCmd.getLocationID());
+		assertEquals(ConfigConst.ON_COMMAND, onCmd.getCommand());
+		assertEquals(35.0f, onCmd.getValue(), 0.0f);
+		assertEquals(ConfigConst.OFF_COMMAND, this.commands.get(1).getCommand());
+	}
+
+	@Test
+	public void testRateOfChange()
+	{
+		ActuatorRule rule =
+			new ActuatorRule(
+				"TempRising", ConfigConst.TEMP_SENSOR_NAME, RuleConditionEnum.RATE_ABOVE, 1.0f, 0.5f,
+				ConfigConst.HVAC_ACTUATOR_NAME, ConfigConst.HVAC_ACTUATOR_TYPE);
+
+		RulesEngine engine = new RulesEngine(Arrays.asList(rule), this.commands::add);
+
+		assertEquals(0, engine.evaluate(ConfigConst.TEMP_SENSOR_NAME, "room1", 20.0f, 0L));
+
+		// 0.5 per second, then 2.0 per second
+		assertEquals(0, engine.evaluate(ConfigConst.TEMP_SENSOR_NAME, "room1", 20.5f, 1000L));
+		assertEquals(1, engine.evaluate(ConfigConst.TEMP_SENSOR_NAME, "room1", 21.5f, 1500L));
+
+		// not timed after the previous value
+		assertEquals(0, engine.evaluate(ConfigConst.TEMP_SENSOR_NAME, "room1", 10.0f, 1500L));
+
+		// 0.6 per second is within the hysteresis; steady clears
+		assertEquals(0, engine.evaluate(ConfigConst.TEMP_SENSOR_NAME, "room1", 22.1f, 2500L));
+		assertEquals(1, engine.evaluate(ConfigConst.TEMP_SENSOR_NAME, "room1", 22.1f, 3500L));
+
+		assertEquals(ConfigConst.ON_COMMAND, this.commands.get(0).getCommand());
+		assertEquals(ConfigConst.OFF_COMMAND, this.commands.get(1).getCommand());
+	}
+
+	@Test
+	public void testRulesPerResourceAndLocation()
+	{
+		ActuatorRule tempRule =
+			new ActuatorRule(
+				"TooHot", ConfigConst.TEMP_SENSOR_NAME, RuleConditionEnum.ABOVE, 25.0f, 1.0f,
+				ConfigConst.HVAC_ACTUATOR_NAME, ConfigConst.HVAC_ACTUATOR_TYPE);
+
+		ActuatorRule cpuRule =
+			new ActuatorRule(
+				"CpuBusy", ConfigConst.CPU_UTIL_PROP, RuleConditionEnum.ABOVE, 90.0f, 10.0f,
+				ConfigConst.LED_ACTUATOR_NAME, ConfigConst.DEFAULT_ACTUATOR_TYPE)
+			.withLocationID("gateway");
+
+		RulesEngine engine = new RulesEngine(Arrays.asList(tempRule, cpuRule), this.commands::add);
+
+		assertEquals(2, engine.getRuleCount());
+		assertTrue(engine.hasRules(ConfigConst.TEMP_SENSOR_NAME));
+		assertFalse(engine.hasRules("HumiditySensor"));
+
+		// no rules for the name
+		assertEquals(0, engine.evaluate("HumiditySensor", "room1", 99.0f, 0L));
+
+		// each location has its own state
+		assertEquals(1, engine.evaluate(createData(ConfigConst.TEMP_SENSOR_NAME, "room1", 26.0f)));
+		assertEquals(1, engine.evaluate(createData(ConfigConst.TEMP_SENSOR_NAME, "room2", 26.0f)));
+		assertEquals(0, engine.evaluate(createData(ConfigConst.TEMP_SENSOR_NAME, "room1", 27.0f)));
+
+		// readings with errors are ignored
+		SensorData errorData = createData(ConfigConst.TEMP_SENSOR_NAME, "room3", 30.0f);
+		errorData.setStatusCode(-1);
+
+		assertEquals(0, engine.evaluate(errorData));
+
+		// system performance data in system state data, for the rule's location only
+		SystemPerformanceData sysPerfData = new SystemPerformanceData();
+		sysPerfData.setLocationID("gateway");
+		sysPerfData.setCpuUtilization(95.0f);
+
+		SystemStateData stateData = new SystemStateData();
+		stateData.addSystemPerformanceData(sysPerfData);
+		stateData.addSensorData(createData(ConfigConst.TEMP_SENSOR_NAME, "room2", 20.0f));
+
+		assertEquals(2, engine.evaluate(stateData));
+		assertEquals(0, engine.evaluate(ConfigConst.CPU_UTIL_PROP, "room1", 95.0f, 0L));
+
+		assertEquals(4, engine.getCommandCount());
+		assertEquals(ConfigConst.OFF_COMMAND, this.commands.get(2).getCommand());
+		assertEquals(ConfigConst.LED_ACTUATOR_NAME, this.commands.get(3).getName());
+	}
+
+	@Test
+	public void testFailedCommandIsResent()
+	{
+		ActuatorRule rule =
+			new ActuatorRule(
+				"TooHot", ConfigConst.TEMP_SENSOR_NAME, RuleConditionEnum.ABOVE, 25.0f, 1.0f,
+				ConfigConst.HVAC_ACTUATOR_NAME, ConfigConst.HVAC_ACTUATOR_TYPE);
+
+		RulesEngine engine = new RulesEngine(Arrays.asList(rule), this.commands::add);
+
+		assertEquals(1, engine.evaluate(ConfigConst.TEMP_SENSOR_NAME, "room1", 26.0f, 0L));
+		assertEquals(0, engine.evaluate(ConfigConst.TEMP_SENSOR_NAME, "room1", 26.0f, 100L));
+
+		ActuatorData response = this.commands.get(0);
+		response.setAsResponse();
+
+		// successful responses don't change anything
+		assertFalse(engine.handleActuatorResponse(response));
+
+		response.setStatusCode(-1);
+
+		assertTrue(engine.handleActuatorResponse(response));
+		assertEquals(1, engine.evaluate(ConfigConst.TEMP_SENSOR_NAME, "room1", 26.0f, 200L));
+		assertEquals(ConfigConst.ON_COMMAND, this.commands.get(1).getCommand());
+	}
+
+
+	// private methods
+
+	private SensorData createData(String name, String locationID, float value)
+	{
+		SensorData data = new SensorData();
+		data.setTypeID(ConfigConst.TEMP_SENSOR_TYPE);
+		data.setName(name);
+		data.setLocationID(locationID);
+		data.setValue(value);
+
+		return data;
+	}
+
+}
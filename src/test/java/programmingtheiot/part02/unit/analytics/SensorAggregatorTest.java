@@ -0,0 +1,204 @@
+/**
+ * This class is part of the Programming the Internet of Things
+ * project, and is available via the MIT License, which can be
+ * found in the LICENSE file at the top level of this repository.
+ *
+ * Copyright (c) 2020 by Andrew D. King
+ */
+
+package programmingtheiot.part02.unit.analytics;
+
+import static org.junit.Assert.*;
+
+import java.lang.management.ManagementFactory;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import programmingtheiot.common.ConfigConst;
+import programmingtheiot.data.SensorData;
+import programmingtheiot.data.SystemStateData;
+import programmingtheiot.gda.analytics.RunningStats;
+import programmingtheiot.gda.analytics.SensorAggregator;
+
+/**
+ * This test case class contains very basic unit tests for
+ * SensorAggregator and RunningStats. It should not be considered
+ * complete, but serve as a starting point for the student implementing
+ * additional functionality within their Programming the IoT
+ * environment.
+ *
+ */
+public class SensorAggregatorTest
+{
+	// static
+
+	public static final long WINDOW_MILLIS = 1000L;
+
+	public static final int MAX_TEST_RUNS = 100000;
+
+
+	// member var's
+
+	private List<SystemStateData> results = null;
+
+
+	// test setup methods
+
+	@Before
+	public void setUp() throws Exception
+	{
+		this.results = new CopyOnWriteArrayList<>();
+	}
+
+
+	// test methods
+
+	@Test
+	public void testRunningStats()
+	{
+		RunningStats stats = new RunningStats();
+
+		for (int i = 1; i <= 1000; i++) {
+			stats.add(i);
+		}
+
+		assertEquals(1000L, stats.getCount());
+		assertEquals(1.0f, stats.getMin(), 0.0f);
+		assertEquals(1000.0f, stats.getMax(), 0.0f);
+		assertEquals(500.5f, stats.getMean(), 0.001f);
+		assertEquals(288.82f, stats.getStdDev(), 0.01f);
+
+		// the quantiles are estimates, to within about 3%
+		assertEquals(500.0f, stats.getQuantile(0.5d), 15.0f);
+		assertEquals(950.0f, stats.getQuantile(0.95d), 30.0f);
+		assertEquals(990.0f, stats.getQuantile(0.99d), 30.0f);
+		assertEquals(1000.0f, stats.getQuantile(1.0d), 0.0f);
+
+		// negative values (e.g. temperatures)
+		stats.reset();
+
+		for (int i = -100; i <= 100; i++) {
+			stats.add(i);
+		}
+
+		assertEquals(0.0f, stats.getMean(), 0.001f);
+		assertEquals(0.0f, stats.getQuantile(0.5d), 0.0f);
+		assertEquals(-90.0f, stats.getQuantile(0.05d), 3.0f);
+		assertEquals(-100.0f, stats.getQuantile(0.0d), 0.0f);
+	}
+
+	@Test
+	public void testWindowsPerSensor()
+	{
+		SensorAggregator aggregator = new SensorAggregator(WINDOW_MILLIS, 100, this.results::add);
+
+		// two sensors at 10 Hz over 2 windows, then only the first
+		for (int i = 0; i < 30; i++) {
+			long timeMillis = i * 100L;
+
+			assertTrue(aggregator.addSample(createData("TempSensor", "room1", i % 10), timeMillis));
+
+			if (i < 20) {
+				assertTrue(aggregator.addSample(createData("TempSensor", "room2", 20.0f), timeMillis));
+			}
+		}
+
+		assertEquals(2, aggregator.getSensorCount());
+
+		// the second sensor's last window is closed without new readings
+		assertEquals(4, this.results.size());
+
+		for (SystemStateData result : this.results) {
+			Map<String, Float> stats = getStats(result);
+
+			assertEquals("TempSensor", result.getName());
+			assertEquals(8, stats.size());
+			assertEquals(10.0f, stats.get(ConfigConst.COUNT_STAT), 0.0f);
+
+			if ("room1".equals(result.getLocationID())) {
+				assertEquals(4.5f, stats.get(ConfigConst.MEAN_STAT), 0.001f);
+				assertEquals(9.0f, stats.get(ConfigConst.MAX_STAT), 0.0f);
+			} else {
+				assertEquals(20.0f, stats.get(ConfigConst.P95_STAT), 0.0f);
+				assertEquals(0.0f, stats.get(ConfigConst.STDDEV_STAT), 0.0f);
+			}
+		}
+
+		// the idle sensor is dropped after a window without readings
+		aggregator.addSample(createData("TempSensor", "room1", 1.0f), 4000L);
+		assertEquals(1, aggregator.getSensorCount());
+
+		aggregator.flush();
+		assertEquals(6, this.results.size());
+		assertEquals(0, aggregator.getSensorCount());
+	}
+
+	@Test
+	public void testMaxSensors()
+	{
+		SensorAggregator aggregator = new SensorAggregator(WINDOW_MILLIS, 2, this.results::add);
+
+		assertTrue(aggregator.addSample(createData("Sensor1", "room1", 1.0f), 0L));
+		assertTrue(aggregator.addSample(createData("Sensor2", "room1", 1.0f), 0L));
+		assertFalse(aggregator.addSample(createData("Sensor3", "room1", 1.0f), 0L));
+		assertTrue(aggregator.addSample(createData("Sensor1", "room1", 2.0f), 100L));
+	}
+
+	@Test
+	public void testNoAllocationPerReading()
+	{
+		com.sun.management.ThreadMXBean threadMxBean =
+			(com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+		SensorAggregator aggregator = new SensorAggregator(Long.MAX_VALUE / 2, 100, this.results::add);
+		SensorData data = createData("TempSensor", "room1", 21.5f);
+
+		for (int i = 0; i < MAX_TEST_RUNS; i++) {
+			aggregator.addSample(data, i);
+		}
+
+		long threadID   = Thread.currentThread().getId();
+		long startBytes = threadMxBean.getThreadAllocatedBytes(threadID);
+
+		for (int i = 0; i < MAX_TEST_RUNS; i++) {
+			aggregator.addSample(data, i);
+		}
+
+		long bytesPerMsg = (threadMxBean.getThreadAllocatedBytes(threadID) - startBytes) / MAX_TEST_RUNS;
+
+		assertEquals(0L, bytesPerMsg);
+	}
+
+
+	// private methods
+
+	private SensorData createData(String name, String locationID, float value)
+	{
+		SensorData data = new SensorData();
+		data.setTypeID(ConfigConst.TEMP_SENSOR_TYPE);
+		data.setName(name);
+		data.setLocationID(locationID);
+		data.setValue(value);
+
+		return data;
+	}
+
+	private Map<String, Float> getStats(SystemStateData result)
+	{
+		Map<String, Float> stats = new HashMap<>();
+
+		for (SensorData data : result.getSensorDataList()) {
+			assertEquals(ConfigConst.TEMP_SENSOR_TYPE, data.getTypeID());
+
+			stats.put(data.getName().substring(result.getName().length() + 1), data.getValue());
+		}
+
+		return stats;
+	}
+
+}
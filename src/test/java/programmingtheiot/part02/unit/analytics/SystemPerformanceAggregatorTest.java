@@ -0,0 +1,210 @@
+/**
+ * This class is part of the Programming the Internet of Things
+ * project, and is available via the MIT License, which can be
+ * found in the LICENSE file at the top level of this repository.
+ *
+ * Copyright (c) 2020 by Andrew D. King
+ */
+
+package programmingtheiot.part02.unit.analytics;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import programmingtheiot.common.ConfigConst;
+import programmingtheiot.data.SystemPerformanceData;
+import programmingtheiot.gda.analytics.MetricWindow;
+import programmingtheiot.gda.analytics.SystemPerformanceAggregator;
+import programmingtheiot.gda.analytics.WindowStats;
+
+/**
+ * This test case class contains very basic unit tests for
+ * SystemPerformanceAggregator and MetricWindow. It should not be
+ * considered complete, but serve as a starting point for the student
+ * implementing additional functionality within their Programming the
+ * IoT environment.
+ *
+ */
+public class SystemPerformanceAggregatorTest
+{
+	// static
+
+	public static final long WINDOW_MILLIS = 10000L;
+
+
+	// member var's
+
+	private List<SystemPerformanceData> summaries = null;
+
+
+	// test setup methods
+
+	@Before
+	public void setUp() throws Exception
+	{
+		this.summaries = new CopyOnWriteArrayList<>();
+	}
+
+
+	// test methods
+
+	@Test
+	public void testMetricWindowStats()
+	{
+		MetricWindow window = new MetricWindow(20);
+		WindowStats stats = new WindowStats();
+
+		for (int i = 1; i <= 20; i++) {
+			window.add(i * 100L, i);
+		}
+
+		assertEquals(20, window.computeStats(0L, 10000L, stats));
+		assertEquals(1.0f, stats.getMin(), 0.0f);
+		assertEquals(20.0f, stats.getMax(), 0.0f);
+		assertEquals(10.5f, stats.getMean(), 0.001f);
+		assertEquals(19.0f, stats.getP95(), 0.0f);
+		assertEquals(20.0f, stats.getLast(), 0.0f);
+
+		// only the samples within the window
+		assertEquals(5, window.computeStats(1100L, 1600L, stats));
+		assertEquals(11.0f, stats.getMin(), 0.0f);
+		assertEquals(15.0f, stats.getLast(), 0.0f);
+
+		// when full, the oldest are replaced
+		window.add(2100L, 21.0f);
+		assertEquals(20, window.size());
+		assertEquals(20, window.computeStats(0L, 10000L, stats));
+		assertEquals(2.0f, stats.getMin(), 0.0f);
+
+		window.evictBefore(2000L);
+		assertEquals(2, window.size());
+		assertEquals(0, window.computeStats(0L, 2000L, stats));
+		assertTrue(Float.isNaN(stats.getMean()));
+	}
+
+	@Test
+	public void testTumblingWindows()
+	{
+		SystemPerformanceAggregator aggregator =
+			new SystemPerformanceAggregator(WINDOW_MILLIS, 0L, 64, this.summaries::add);
+
+		// 10 samples per window, over 3 windows
+		for (int i = 0; i < 30; i++) {
+			SystemPerformanceData data = createData(i, i % 10);
+			aggregator.addSample(data, i * 1000L);
+		}
+
+		// the third window is closed by the first later sample, or a flush
+		assertEquals(2, this.summaries.size());
+
+		aggregator.flush();
+		assertEquals(3, this.summaries.size());
+
+		for (SystemPerformanceData summary : this.summaries) {
+			assertEquals(10.0f, summary.getMetric(ConfigConst.SAMPLE_COUNT_PROP), 0.0f);
+			assertEquals(0.0f, summary.getMetric(ConfigConst.THREAD_COUNT_PROP + "." + ConfigConst.MIN_STAT), 0.0f);
+			assertEquals(9.0f, summary.getMetric(ConfigConst.THREAD_COUNT_PROP + "." + ConfigConst.MAX_STAT), 0.0f);
+			assertEquals(9.0f, summary.getMetric(ConfigConst.THREAD_COUNT_PROP + "." + ConfigConst.P95_STAT), 0.0f);
+		}
+
+		SystemPerformanceData second = this.summaries.get(1);
+
+		// the utilizations are the means; the last value is kept
+		assertEquals(14.5f, second.getCpuUtilization(), 0.001f);
+		assertEquals(14.5f, second.getMetric(ConfigConst.CPU_UTIL_PROP + "." + ConfigConst.MEAN_STAT), 0.001f);
+		assertEquals(19.0f, second.getMetric(ConfigConst.CPU_UTIL_PROP + "." + ConfigConst.LAST_STAT), 0.0f);
+		assertEquals("test", second.getLocationID());
+	}
+
+	@Test
+	public void testSlidingWindows()
+	{
+		SystemPerformanceAggregator aggregator =
+			new SystemPerformanceAggregator(WINDOW_MILLIS, WINDOW_MILLIS / 2, 64, this.summaries::add);
+
+		for (int i = 0; i < 30; i++) {
+			aggregator.addSample(createData(i, 0), i * 1000L);
+		}
+
+		// one summary per hop; each over the last (full) window
+		assertEquals(5, this.summaries.size());
+		assertEquals(5.0f, this.summaries.get(0).getMetric(ConfigConst.SAMPLE_COUNT_PROP), 0.0f);
+
+		for (int i = 1; i < this.summaries.size(); i++) {
+			SystemPerformanceData summary = this.summaries.get(i);
+
+			assertEquals(10.0f, summary.getMetric(ConfigConst.SAMPLE_COUNT_PROP), 0.0f);
+			assertEquals(i * 5.0f - 5.0f, summary.getMetric(ConfigConst.CPU_UTIL_PROP + "." + ConfigConst.MIN_STAT), 0.0f);
+		}
+
+		// a gap: the hops without new samples are skipped
+		aggregator.addSample(createData(100, 0), 100000L);
+		aggregator.addSample(createData(101, 0), 106000L);
+
+		assertEquals(7, this.summaries.size());
+		assertEquals(1.0f, this.summaries.get(6).getMetric(ConfigConst.SAMPLE_COUNT_PROP), 0.0f);
+	}
+
+	@Test
+	public void testWindowsPerLocation()
+	{
+		SystemPerformanceAggregator aggregator =
+			new SystemPerformanceAggregator(WINDOW_MILLIS, 0L, 64, this.summaries::add);
+
+		// two devices, with the second's clock 5 seconds behind
+		for (int i = 0; i < 20; i++) {
+			aggregator.addSample(createData("gateway", 10.0f, 0), i * 1000L);
+			aggregator.addSample(createData("cda1", 90.0f + i % 10, 0), i * 1000L - 5000L);
+		}
+
+		aggregator.flush();
+
+		Map<String, List<SystemPerformanceData>> byLocation = new HashMap<>();
+
+		for (SystemPerformanceData summary : this.summaries) {
+			byLocation.computeIfAbsent(summary.getLocationID(), key -> new ArrayList<>()).add(summary);
+		}
+
+		assertEquals(2, byLocation.size());
+		assertEquals(2, byLocation.get("gateway").size());
+		assertEquals(3, byLocation.get("cda1").size());
+
+		for (SystemPerformanceData summary : byLocation.get("gateway")) {
+			assertEquals(10.0f, summary.getCpuUtilization(), 0.0f);
+			assertEquals(10.0f, summary.getMetric(ConfigConst.CPU_UTIL_PROP + "." + ConfigConst.MAX_STAT), 0.0f);
+			assertEquals(10.0f, summary.getMetric(ConfigConst.SAMPLE_COUNT_PROP), 0.0f);
+		}
+
+		for (SystemPerformanceData summary : byLocation.get("cda1")) {
+			assertTrue(summary.getMetric(ConfigConst.CPU_UTIL_PROP + "." + ConfigConst.MIN_STAT) >= 90.0f);
+		}
+	}
+
+
+	// private methods
+
+	private SystemPerformanceData createData(float cpuUtil, float threadCount)
+	{
+		return createData("test", cpuUtil, threadCount);
+	}
+
+	private SystemPerformanceData createData(String locationID, float cpuUtil, float threadCount)
+	{
+		SystemPerformanceData data = new SystemPerformanceData();
+		data.setLocationID(locationID);
+		data.setCpuUtilization(cpuUtil);
+		data.setMemoryUtilization(50.0f);
+		data.setMetric(ConfigConst.THREAD_COUNT_PROP, threadCount);
+
+		return data;
+	}
+
+}
@@ -10,10 +10,16 @@ package programmingtheiot.part02.unit.data;
 
 import static org.junit.Assert.*;
 
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 import java.util.logging.Logger;
 
 import org.junit.Test;
 
+import com.google.gson.Gson;
+
+import programmingtheiot.common.ConfigConst;
+import programmingtheiot.common.PayloadFormatEnum;
 import programmingtheiot.data.*;
 
 /**
@@ -151,4 +157,169 @@ public class DataUtilTest
 		assertTrue(data.getCommand() == data2.getCommand());
 	}
 	
+	@Test
+	public void testReflectiveJsonCompatibility()
+	{
+		DataUtil dataUtil = DataUtil.getInstance();
+		Gson reflectiveGson = new Gson();
+		
+		SensorData data = new SensorData();
+		data.setName(DEFAULT_NAME);
+		data.setLocationID(DEFAULT_LOCATION);
+		data.setStatusCode(DEFAULT_STATUS);
+		data.setLatitude(DEFAULT_VAL);
+		data.setValue(DEFAULT_VAL);
+		
+		// the cached adapters must emit the same JSON as Gson's reflective adapter;
+		// the reflective adapter reads the (lazily formatted) timestamp field directly
+		data.getTimeStamp();
+		
+		String jsonData = dataUtil.sensorDataToJson(data);
+		_Logger.info("SensorData: " + jsonData);
+		
+		assertEquals(reflectiveGson.toJson(data), jsonData);
+		
+		// ... and read JSON produced by the reflective adapter (e.g. older GDA / CDA)
+		SensorData data2 = dataUtil.jsonToSensorData(reflectiveGson.toJson(data));
+		
+		assertEquals(data.getName(), data2.getName());
+		assertEquals(data.getLocationID(), data2.getLocationID());
+		assertEquals(data.getTimeStamp(), data2.getTimeStamp());
+		assertEquals(data.getTimeStampMillis(), data2.getTimeStampMillis());
+		assertTrue(data.getLatitude() == data2.getLatitude());
+		assertTrue(data.getValue() == data2.getValue());
+	}
+	
+	@Test
+	public void testSystemStateDataWithListsToJsonAndBack()
+	{
+		DataUtil dataUtil = DataUtil.getInstance();
+		
+		SensorData sensorData = new SensorData();
+		sensorData.setName(DEFAULT_NAME);
+		sensorData.setValue(DEFAULT_VAL);
+		
+		SystemPerformanceData sysPerfData = new SystemPerformanceData();
+		sysPerfData.setCpuUtilization(DEFAULT_VAL);
+		
+		SystemStateData data = new SystemStateData();
+		data.setCommand(DEFAULT_CMD);
+		data.addSensorData(sensorData);
+		data.addSystemPerformanceData(sysPerfData);
+		
+		String jsonData = dataUtil.systemStateDataToJson(data);
+		_Logger.info("SystemStateData: " + jsonData);
+		
+		// see above: timestamps are now formatted, so reflective output is comparable
+		assertEquals(new Gson().toJson(data), jsonData);
+		
+		SystemStateData data2 = dataUtil.jsonToSystemStateData(jsonData);
+		
+		assertEquals(1, data2.getSensorDataList().size());
+		assertEquals(1, data2.getSystemPerformanceDataList().size());
+		assertTrue(data2.getSensorDataList().get(0).getValue() == DEFAULT_VAL);
+		assertTrue(data2.getSystemPerformanceDataList().get(0).getCpuUtilization() == DEFAULT_VAL);
+	}
+	
+	@Test
+	public void testSensorDataToBinaryAndBack()
+	{
+		DataUtil dataUtil = DataUtil.getInstance();
+		
+		SensorData data = new SensorData();
+		data.setName(DEFAULT_NAME);
+		data.setStatusCode(-DEFAULT_STATUS);
+		data.setElevation(DEFAULT_VAL);
+		data.setValue(DEFAULT_VAL);
+		
+		byte[] binaryData = dataUtil.sensorDataToBinary(data);
+		String jsonData   = dataUtil.sensorDataToJson(data);
+		
+		_Logger.info("SensorData binary size: " + binaryData.length + ", JSON size: " + jsonData.length());
+		
+		assertTrue(binaryData.length * 3 <= jsonData.length());
+		
+		SensorData data2 = dataUtil.binaryToSensorData(binaryData);
+		
+		assertEquals(data.getName(), data2.getName());
+		assertEquals(data.getLocationID(), data2.getLocationID());
+		assertEquals(data.getTimeStampMillis(), data2.getTimeStampMillis());
+		assertTrue(data.getStatusCode() == data2.getStatusCode());
+		assertTrue(data.getElevation() == data2.getElevation());
+		assertTrue(data.getValue() == data2.getValue());
+	}
+	
+	@Test
+	public void testActuatorDataPayloadFormats()
+	{
+		DataUtil dataUtil = DataUtil.getInstance();
+		
+		ActuatorData data = new ActuatorData();
+		data.setName(DEFAULT_NAME);
+		data.setCommand(-DEFAULT_CMD);
+		data.setValue(DEFAULT_VAL);
+		data.setStateData("\u00e9tat \ud83d\ude00");
+		data.setAsResponse();
+		
+		for (PayloadFormatEnum format : PayloadFormatEnum.values()) {
+			byte[] payload = dataUtil.dataToPayload(format, data);
+			
+			assertEquals(format, PayloadFormatEnum.getEnumFromContentFormat(format.getContentFormat()));
+			assertEquals(format, PayloadFormatEnum.getEnumFromContentType(format.getContentType()));
+			
+			ActuatorData data2 = dataUtil.payloadToData(format, payload, ActuatorData.class);
+			
+			assertEquals(data.getName(), data2.getName());
+			assertEquals(data.getStateData(), data2.getStateData());
+			assertTrue(data.getCommand() == data2.getCommand());
+			assertTrue(data.getValue() == data2.getValue());
+			assertTrue(data2.isResponseFlagEnabled());
+			
+			// a payload can't be decoded as a different type
+			if (format == PayloadFormatEnum.BINARY) {
+				assertNull(dataUtil.payloadToData(format, payload, SensorData.class));
+			}
+		}
+	}
+	
+	@Test
+	public void testMalformedPayloads()
+	{
+		DataUtil dataUtil = DataUtil.getInstance();
+		
+		byte[] binaryPayload = dataUtil.dataToPayload(PayloadFormatEnum.BINARY, new SensorData());
+		byte[] truncated = Arrays.copyOf(binaryPayload, binaryPayload.length / 2);
+		byte[] badJson = "{ not json".getBytes(StandardCharsets.UTF_8);
+		
+		// decode failures are returned as null, never thrown
+		assertNull(dataUtil.payloadToData(PayloadFormatEnum.BINARY, truncated, SensorData.class));
+		assertNull(dataUtil.payloadToData(PayloadFormatEnum.BINARY, badJson, SensorData.class));
+		assertNull(dataUtil.payloadToData(PayloadFormatEnum.JSON, badJson, SensorData.class));
+		assertNull(dataUtil.payloadToObject(PayloadFormatEnum.JSON, badJson, SensorData.class));
+		
+		assertEquals("{ not json", dataUtil.payloadToObject(PayloadFormatEnum.JSON, badJson, String.class));
+	}
+	
+	@Test
+	public void testSystemPerformanceDataMetricsPayloadFormats()
+	{
+		DataUtil dataUtil = DataUtil.getInstance();
+		
+		SystemPerformanceData data = new SystemPerformanceData();
+		data.setCpuUtilization(DEFAULT_VAL);
+		data.setMetric(ConfigConst.THREAD_COUNT_PROP, 42.0f);
+		data.setMetric(ConfigConst.NET_RX_BYTES_RATE_PROP + ".eth0", 1024.5f);
+		
+		for (PayloadFormatEnum format : PayloadFormatEnum.values()) {
+			byte[] payload = dataUtil.dataToPayload(format, data);
+			
+			SystemPerformanceData data2 = dataUtil.payloadToData(format, payload, SystemPerformanceData.class);
+			_Logger.info("SystemPerformanceData (" + format + "): " + data2);
+			
+			assertTrue(data2.getCpuUtilization() == DEFAULT_VAL);
+			assertEquals(data.getMetrics(), data2.getMetrics());
+			assertTrue(data2.getMetric(ConfigConst.GC_PAUSE_MILLIS_PROP) == ConfigConst.DEFAULT_VAL);
+		}
+	}
+	
 }
@@ -10,6 +10,7 @@ package programmingtheiot.part02.unit.data;
 
 import static org.junit.Assert.*;
 
+import java.time.Instant;
 import java.util.logging.Logger;
 
 import org.junit.After;
@@ -117,6 +118,19 @@ public class SensorDataTest
 		_Logger.info(spd.toString());
 	}
 	
+	@Test
+	public void testTimeStampDerivedFromMillis()
+	{
+		SensorData ssd = createTestData();
+		
+		String timeStamp = ssd.getTimeStamp();
+		
+		assertEquals(Instant.parse(timeStamp).toEpochMilli(), ssd.getTimeStampMillis());
+		assertSame(timeStamp, ssd.getTimeStamp());
+		
+		_Logger.info("SensorData timestamp: " + timeStamp);
+	}
+	
 	
 	// private
 	
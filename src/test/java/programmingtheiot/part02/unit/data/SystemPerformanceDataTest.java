@@ -116,6 +116,31 @@ public class SystemPerformanceDataTest
 	}
 	
 	
+	@Test
+	public void testMetrics()
+	{
+		SystemPerformanceData spd = new SystemPerformanceData();
+		
+		assertTrue(spd.getMetrics().isEmpty());
+		assertFalse(spd.hasMetric(ConfigConst.THREAD_COUNT_PROP));
+		assertTrue(spd.getMetric(ConfigConst.THREAD_COUNT_PROP) == ConfigConst.DEFAULT_VAL);
+		
+		SystemPerformanceData spd2 = createTestData();
+		spd2.setMetric(ConfigConst.THREAD_COUNT_PROP, 20.0f);
+		spd2.setMetric(ConfigConst.GC_PAUSE_MILLIS_PROP, 5.0f);
+		
+		spd.updateData(spd2);
+		_Logger.info("Updated data obj: " + spd.toString());
+		
+		assertEquals(spd2.getMetrics(), spd.getMetrics());
+		assertTrue(spd.getMetric(ConfigConst.THREAD_COUNT_PROP) == 20.0f);
+		
+		// the copy is independent
+		spd2.clearMetrics();
+		assertEquals(2, spd.getMetrics().size());
+	}
+	
+	
 	// private
 	
 	private SystemPerformanceData createTestData()
@@ -0,0 +1,153 @@
+/**
+ * This class is part of the Programming the Internet of Things
+ * project, and is available via the MIT License, which can be
+ * found in the LICENSE file at the top level of this repository.
+ *
+ * Copyright (c) 2020 by Andrew D. King
+ */
+
+package programmingtheiot.part02.unit.pipeline;
+
+import static org.junit.Assert.*;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import programmingtheiot.gda.pipeline.BackpressurePolicyEnum;
+import programmingtheiot.gda.pipeline.PipelineStage;
+
+/**
+ * This test case class contains very basic unit tests for
+ * PipelineStage and its backpressure policies. It should not
+ * be considered complete, but serve as a starting point for
+ * the student implementing additional functionality within
+ * their Programming the IoT environment.
+ *
+ */
+public class PipelineStageTest
+{
+	// static
+
+	private static final Logger _Logger =
+		Logger.getLogger(PipelineStageTest.class.getName());
+
+	public static final int QUEUE_SIZE = 4;
+
+
+	// member var's
+
+	private List<Integer> handledItems = null;
+
+
+	// test setup methods
+
+	@Before
+	public void setUp() throws Exception
+	{
+		this.handledItems = new CopyOnWriteArrayList<>();
+	}
+
+
+	// test methods
+
+	@Test
+	public void testDropOldestPolicy()
+	{
+		PipelineStage<Integer> stage = createStage(BackpressurePolicyEnum.DROP_OLDEST, 1);
+
+		// not started, so nothing is drained
+		for (int i = 0; i < 10; i++) {
+			assertTrue(stage.submit(i));
+		}
+
+		assertEquals(QUEUE_SIZE, stage.getQueueSize());
+		assertEquals(10 - QUEUE_SIZE, stage.getDroppedCount());
+
+		drain(stage, QUEUE_SIZE);
+
+		// only the most recent items remain
+		assertEquals(List.of(6, 7, 8, 9), this.handledItems);
+	}
+
+	@Test
+	public void testSamplePolicy()
+	{
+		PipelineStage<Integer> stage = createStage(BackpressurePolicyEnum.SAMPLE, 3);
+
+		int acceptedCount = 0;
+
+		for (int i = 0; i < QUEUE_SIZE + 9; i++) {
+			if (stage.submit(i)) {
+				acceptedCount++;
+			}
+		}
+
+		// 4 fill the queue; 1 in 3 of the remaining 9 are accepted
+		assertEquals(QUEUE_SIZE + 3, acceptedCount);
+		assertEquals(QUEUE_SIZE, stage.getQueueSize());
+
+		_Logger.info("Sampled: accepted = " + stage.getAcceptedCount() + ", dropped = " + stage.getDroppedCount());
+	}
+
+	@Test
+	public void testBlockPolicy() throws Exception
+	{
+		PipelineStage<Integer> stage = createStage(BackpressurePolicyEnum.BLOCK, 1);
+
+		for (int i = 0; i < QUEUE_SIZE; i++) {
+			assertTrue(stage.submit(i));
+		}
+
+		Thread producer = new Thread(() -> stage.submit(QUEUE_SIZE));
+		producer.start();
+		producer.join(200L);
+
+		// queue is full and nothing is draining it, so the producer waits
+		assertTrue(producer.isAlive());
+
+		stage.start();
+		producer.join(2000L);
+
+		assertFalse(producer.isAlive());
+
+		waitForCount(QUEUE_SIZE + 1);
+		stage.stop();
+
+		assertEquals(0L, stage.getDroppedCount());
+		assertEquals(QUEUE_SIZE + 1, this.handledItems.size());
+	}
+
+
+	// private methods
+
+	private PipelineStage<Integer> createStage(BackpressurePolicyEnum policy, int sampleRate)
+	{
+		return new PipelineStage<>("test", QUEUE_SIZE, 1, policy, sampleRate, this.handledItems::add);
+	}
+
+	private void drain(PipelineStage<Integer> stage, int expectedCount)
+	{
+		stage.start();
+		waitForCount(expectedCount);
+		stage.stop();
+	}
+
+	private void waitForCount(int expectedCount)
+	{
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5L);
+
+		while (this.handledItems.size() < expectedCount && System.nanoTime() < deadline) {
+			try {
+				Thread.sleep(5L);
+			} catch (InterruptedException e) {
+				fail("Interrupted waiting for stage.");
+			}
+		}
+	}
+
+}
@@ -0,0 +1,193 @@
+/**
+ * This class is part of the Programming the Internet of Things
+ * project, and is available via the MIT License, which can be
+ * found in the LICENSE file at the top level of this repository.
+ *
+ * Copyright (c) 2020 by Andrew D. King
+ */
+
+package programmingtheiot.part02.unit.pipeline;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import programmingtheiot.common.IDataMessageListener;
+import programmingtheiot.common.ResourceNameEnum;
+import programmingtheiot.data.ActuatorData;
+import programmingtheiot.data.SensorData;
+import programmingtheiot.data.SystemPerformanceData;
+import programmingtheiot.gda.connection.IPubSubClient;
+import programmingtheiot.gda.pipeline.PipelineMessage;
+import programmingtheiot.gda.pipeline.PubSubBatchSender;
+
+/**
+ * This test case class contains very basic unit tests for
+ * PubSubBatchSender. It should not be considered complete, but
+ * serve as a starting point for the student implementing
+ * additional functionality within their Programming the IoT
+ * environment.
+ *
+ */
+public class PubSubBatchSenderTest
+{
+	// static
+
+	// the topics the GDA's MQTT client subscribes to on the local broker
+	private static final Set<ResourceNameEnum> SUBSCRIBED_RESOURCES =
+		EnumSet.of(
+			ResourceNameEnum.CDA_SENSOR_MSG_RESOURCE,
+			ResourceNameEnum.CDA_SYSTEM_PERF_MSG_RESOURCE,
+			ResourceNameEnum.CDA_ACTUATOR_RESPONSE_RESOURCE);
+
+	public static final int MAX_DELIVERIES = 100;
+
+
+	// member var's
+
+	private List<ResourceNameEnum> publishedTopics = null;
+	private List<String> publishedMessages = null;
+	private PubSubBatchSender sender = null;
+
+
+	// test setup methods
+
+	@Before
+	public void setUp() throws Exception
+	{
+		this.publishedTopics = new ArrayList<>();
+		this.publishedMessages = new ArrayList<>();
+		this.sender = new PubSubBatchSender(new LoopbackClient(), 0);
+	}
+
+
+	// test methods
+
+	@Test
+	public void testNoRepublishLoop()
+	{
+		List<PipelineMessage> batch =
+			new ArrayList<>(Arrays.asList(
+				new PipelineMessage(ResourceNameEnum.CDA_SENSOR_MSG_RESOURCE, new SensorData()),
+				new PipelineMessage(ResourceNameEnum.CDA_SYSTEM_PERF_MSG_RESOURCE, new SystemPerformanceData()),
+				new PipelineMessage(ResourceNameEnum.CDA_ACTUATOR_RESPONSE_RESOURCE, new ActuatorData())));
+
+		assertTrue(this.sender.sendBatch(batch));
+
+		// each message is published once, and none is received again
+		assertEquals(
+			Arrays.asList(ResourceNameEnum.GDA_SENSOR_MSG_RESOURCE, ResourceNameEnum.GDA_SYSTEM_PERF_MSG_RESOURCE),
+			this.publishedTopics);
+	}
+
+	@Test
+	public void testOnePublishPerResource()
+	{
+		List<PipelineMessage> batch = new ArrayList<>();
+
+		for (int i = 0; i < 3; i++) {
+			batch.add(createMessage(ResourceNameEnum.CDA_SENSOR_MSG_RESOURCE, "{\"value\":" + i + "}"));
+		}
+
+		batch.add(createMessage(ResourceNameEnum.CDA_SYSTEM_PERF_MSG_RESOURCE, "{\"cpuUtil\":1}"));
+
+		assertTrue(this.sender.sendBatch(batch));
+		assertTrue(batch.isEmpty());
+
+		// the already transformed payloads are sent as is, one array per resource
+		assertEquals(
+			Arrays.asList(ResourceNameEnum.GDA_SENSOR_MSG_RESOURCE, ResourceNameEnum.GDA_SYSTEM_PERF_MSG_RESOURCE),
+			this.publishedTopics);
+		assertEquals(
+			Arrays.asList("[{\"value\":0},{\"value\":1},{\"value\":2}]", "[{\"cpuUtil\":1}]"),
+			this.publishedMessages);
+	}
+
+	@Test
+	public void testGdaResourcesUnchanged()
+	{
+		assertEquals(
+			ResourceNameEnum.GDA_SYSTEM_PERF_MSG_RESOURCE,
+			PubSubBatchSender.getUpstreamResource(ResourceNameEnum.GDA_SYSTEM_PERF_MSG_RESOURCE));
+
+		for (ResourceNameEnum resource : ResourceNameEnum.values()) {
+			assertFalse(SUBSCRIBED_RESOURCES.contains(PubSubBatchSender.getUpstreamResource(resource)));
+		}
+	}
+
+
+	// private methods
+
+	private PipelineMessage createMessage(ResourceNameEnum resource, String jsonData)
+	{
+		PipelineMessage msg = new PipelineMessage(resource, new SensorData());
+		msg.setJsonData(jsonData);
+
+		return msg;
+	}
+
+
+	/**
+	 * A client that, like the local broker, delivers messages published to
+	 * a subscribed topic back to the sender, as the GDA re-transmits them.
+	 *
+	 */
+	private class LoopbackClient implements IPubSubClient
+	{
+		@Override
+		public boolean connectClient()
+		{
+			return true;
+		}
+
+		@Override
+		public boolean disconnectClient()
+		{
+			return true;
+		}
+
+		@Override
+		public boolean publishMessage(ResourceNameEnum topicName, String msg, int qos)
+		{
+			publishedTopics.add(topicName);
+			publishedMessages.add(msg);
+
+			assertTrue("Republish loop on " + topicName, publishedTopics.size() <= MAX_DELIVERIES);
+
+			if (SUBSCRIBED_RESOURCES.contains(topicName)) {
+				List<PipelineMessage> batch = new ArrayList<>();
+				batch.add(new PipelineMessage(topicName, new SensorData()));
+
+				sender.sendBatch(batch);
+			}
+
+			return true;
+		}
+
+		@Override
+		public boolean subscribeToTopic(ResourceNameEnum topicName, int qos)
+		{
+			return true;
+		}
+
+		@Override
+		public boolean unsubscribeFromTopic(ResourceNameEnum topicName)
+		{
+			return true;
+		}
+
+		@Override
+		public boolean setDataMessageListener(IDataMessageListener listener)
+		{
+			return true;
+		}
+	}
+
+}
@@ -0,0 +1,254 @@
+/**
+ * This class is part of the Programming the Internet of Things
+ * project, and is available via the MIT License, which can be
+ * found in the LICENSE file at the top level of this repository.
+ *
+ * Copyright (c) 2020 by Andrew D. King
+ */
+
+package programmingtheiot.part02.unit.pipeline;
+
+import static org.junit.Assert.*;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.logging.Logger;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import programmingtheiot.common.ResourceNameEnum;
+import programmingtheiot.data.SensorData;
+import programmingtheiot.gda.pipeline.PipelineMessage;
+import programmingtheiot.gda.pipeline.UpstreamBatcher;
+
+/**
+ * This test case class contains very basic unit tests for
+ * UpstreamBatcher and its flush triggers. It should not
+ * be considered complete, but serve as a starting point for
+ * the student implementing additional functionality within
+ * their Programming the IoT environment.
+ *
+ */
+public class UpstreamBatcherTest
+{
+	// static
+
+	private static final Logger _Logger =
+		Logger.getLogger(UpstreamBatcherTest.class.getName());
+
+	public static final int  QUEUE_SIZE   = 100;
+	public static final long LONG_LINGER  = 10000L;
+	public static final long SHORT_LINGER = 50L;
+
+
+	// member var's
+
+	private List<List<PipelineMessage>> sentBatches = null;
+
+
+	// test setup methods
+
+	@Before
+	public void setUp() throws Exception
+	{
+		this.sentBatches = new CopyOnWriteArrayList<>();
+	}
+
+
+	// test methods
+
+	@Test
+	public void testFlushOnMaxCount()
+	{
+		UpstreamBatcher batcher = createBatcher(5, 0, LONG_LINGER);
+		batcher.start();
+
+		submit(batcher, 10);
+
+		// linger is far longer than the wait, so only count can trigger these
+		waitFor(() -> this.sentBatches.size() >= 2);
+		batcher.stop();
+
+		assertEquals(5, this.sentBatches.get(0).size());
+		assertEquals(5, this.sentBatches.get(1).size());
+	}
+
+	@Test
+	public void testFlushOnMaxBytes()
+	{
+		PipelineMessage sample = createMessage(0);
+		int msgBytes = sample.getJsonData().length();
+
+		// two full messages, plus one more byte
+		UpstreamBatcher batcher = createBatcher(100, msgBytes * 2 + 1, LONG_LINGER);
+		batcher.start();
+
+		submit(batcher, 6);
+
+		waitFor(() -> this.sentBatches.size() >= 2);
+		batcher.stop();
+
+		assertEquals(3, this.sentBatches.get(0).size());
+		assertEquals(3, this.sentBatches.get(1).size());
+	}
+
+	@Test
+	public void testFlushOnMaxUtf8Bytes()
+	{
+		PipelineMessage sample = createMessage(0);
+
+		// a degree sign is 1 char, but 2 bytes
+		sample.setJsonData("{\"unit\":\"\u00b0\u00b0\u00b0\"}");
+
+		int msgBytes = sample.getJsonData().getBytes(StandardCharsets.UTF_8).length;
+
+		assertTrue(msgBytes > sample.getJsonData().length());
+
+		UpstreamBatcher batcher = createBatcher(100, msgBytes * 2, LONG_LINGER);
+		batcher.start();
+
+		for (int i = 0; i < 4; i++) {
+			PipelineMessage msg = createMessage(i);
+			msg.setJsonData(sample.getJsonData());
+
+			batcher.submit(msg);
+		}
+
+		waitFor(() -> this.sentBatches.size() >= 2);
+		batcher.stop();
+
+		// measured in chars, a third message would have fit in each batch
+		assertEquals(2, this.sentBatches.get(0).size());
+		assertEquals(2, this.sentBatches.get(1).size());
+	}
+
+	@Test
+	public void testFlushOnLinger()
+	{
+		UpstreamBatcher batcher = createBatcher(100, 0, SHORT_LINGER);
+		batcher.start();
+
+		submit(batcher, 3);
+
+		waitFor(() -> this.sentBatches.size() >= 1);
+
+		assertEquals(3, this.sentBatches.get(0).size());
+
+		batcher.stop();
+	}
+
+	@Test
+	public void testRetryOnlyFailedMessages()
+	{
+		AtomicInteger attempts = new AtomicInteger(0);
+
+		// first attempt only sends the first message in the batch
+		UpstreamBatcher batcher =
+			new UpstreamBatcher("test", QUEUE_SIZE, 3, 0, LONG_LINGER, 2, 1L, (batch) -> {
+				this.sentBatches.add(new ArrayList<>(batch));
+
+				if (attempts.getAndIncrement() == 0) {
+					batch.remove(0);
+
+					return false;
+				}
+
+				return true;
+			}, null);
+
+		batcher.start();
+
+		submit(batcher, 3);
+
+		waitFor(() -> this.sentBatches.size() >= 2);
+		batcher.stop();
+
+		assertEquals(3, this.sentBatches.get(0).size());
+		assertEquals(2, this.sentBatches.get(1).size());
+		assertEquals(3L, batcher.getSentCount());
+		assertEquals(0L, batcher.getFailedCount());
+	}
+
+	@Test
+	public void testFailingDestinationIsIsolated()
+	{
+		List<PipelineMessage> healthySent = new CopyOnWriteArrayList<>();
+
+		UpstreamBatcher failing =
+			new UpstreamBatcher("failing", QUEUE_SIZE, 1, 0, 0L, 3, 200L, (batch) -> false, null);
+
+		UpstreamBatcher healthy =
+			new UpstreamBatcher("healthy", QUEUE_SIZE, 1, 0, 0L, 3, 200L, (batch) -> healthySent.addAll(batch), null);
+
+		failing.start();
+		healthy.start();
+
+		for (int i = 0; i < 10; i++) {
+			PipelineMessage msg = createMessage(i);
+
+			failing.submit(msg);
+			healthy.submit(msg);
+		}
+
+		// the failing destination is still retrying its first message
+		waitFor(() -> healthySent.size() >= 10);
+
+		assertEquals(10, healthySent.size());
+		assertEquals(0L, failing.getSentCount());
+
+		_Logger.info("Failing destination: failed = " + failing.getFailedCount() + ", sent = " + failing.getSentCount());
+
+		healthy.stop();
+		failing.stop();
+	}
+
+
+	// private methods
+
+	private UpstreamBatcher createBatcher(int maxCount, int maxBytes, long lingerMillis)
+	{
+		return new UpstreamBatcher(
+			"test", QUEUE_SIZE, maxCount, maxBytes, lingerMillis, 0, 1L,
+			(batch) -> this.sentBatches.add(new ArrayList<>(batch)), null);
+	}
+
+	private PipelineMessage createMessage(int val)
+	{
+		SensorData data = new SensorData();
+		data.setName("BatchTestSensor");
+
+		PipelineMessage msg = new PipelineMessage(ResourceNameEnum.CDA_SENSOR_MSG_RESOURCE, data);
+
+		// fixed length payload, so byte limits are predictable
+		msg.setJsonData(String.format("{\"value\":%04d}", val));
+
+		return msg;
+	}
+
+	private void submit(UpstreamBatcher batcher, int count)
+	{
+		for (int i = 0; i < count; i++) {
+			assertTrue(batcher.submit(createMessage(i)));
+		}
+	}
+
+	private void waitFor(BooleanSupplier condition)
+	{
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5L);
+
+		while (! condition.getAsBoolean() && System.nanoTime() < deadline) {
+			try {
+				Thread.sleep(5L);
+			} catch (InterruptedException e) {
+				fail("Interrupted waiting for batcher.");
+			}
+		}
+	}
+
+}
@@ -0,0 +1,190 @@
+/**
+ * This class is part of the Programming the Internet of Things
+ * project, and is available via the MIT License, which can be
+ * found in the LICENSE file at the top level of this repository.
+ *
+ * Copyright (c) 2020 by Andrew D. King
+ */
+
+package programmingtheiot.part03.unit.connection;
+
+import static org.junit.Assert.*;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.eclipse.paho.client.mqttv3.MqttMessage;
+import org.junit.Before;
+import org.junit.Test;
+
+import programmingtheiot.common.IActuatorDataListener;
+import programmingtheiot.common.IDataMessageListener;
+import programmingtheiot.common.ResourceNameEnum;
+import programmingtheiot.data.ActuatorData;
+import programmingtheiot.data.DataUtil;
+import programmingtheiot.data.SensorData;
+import programmingtheiot.data.SystemPerformanceData;
+import programmingtheiot.gda.connection.MqttClientConnector;
+
+/**
+ * This test case class contains very basic unit tests for
+ * MqttClientConnector that don't require a broker: decoding
+ * and dispatch of incoming messages, and publishing while
+ * disconnected. It should not be considered complete,
+ * but serve as a starting point for the student implementing
+ * additional functionality within their Programming the IoT
+ * environment.
+ *
+ */
+public class MqttClientConnectorDispatchTest
+{
+	// member var's
+
+	private MqttClientConnector mqttClient = null;
+	private List<Object> receivedData = null;
+
+
+	// test setup methods
+
+	@Before
+	public void setUp() throws Exception
+	{
+		this.receivedData = new CopyOnWriteArrayList<>();
+		this.mqttClient = new MqttClientConnector();
+		this.mqttClient.setDataMessageListener(new CapturingListener());
+	}
+
+
+	// test methods
+
+	@Test
+	public void testSensorMessageDispatch() throws Exception
+	{
+		SensorData data = new SensorData();
+		data.setName("DispatchTestSensor");
+		data.setValue(12.5f);
+
+		String json = DataUtil.getInstance().sensorDataToJson(data);
+
+		this.mqttClient.messageArrived(
+			ResourceNameEnum.CDA_SENSOR_MSG_RESOURCE.getResourceName(),
+			new MqttMessage(json.getBytes(StandardCharsets.UTF_8)));
+
+		assertEquals(1, this.receivedData.size());
+
+		SensorData received = (SensorData) this.receivedData.get(0);
+
+		assertEquals("DispatchTestSensor", received.getName());
+		assertEquals(12.5f, received.getValue(), 0.001f);
+	}
+
+	@Test
+	public void testRegisteredHandlerDispatch() throws Exception
+	{
+		List<SensorData> handled = new CopyOnWriteArrayList<>();
+
+		// an additional subscriber, alongside the data message listener
+		this.mqttClient.getDataHandlerRegistry().addHandler(
+			ResourceNameEnum.CDA_SENSOR_MSG_RESOURCE, SensorData.class, (resource, data) -> handled.add(data));
+
+		SensorData data = new SensorData();
+		data.setName("DispatchTestSensor");
+
+		this.mqttClient.messageArrived(
+			ResourceNameEnum.CDA_SENSOR_MSG_RESOURCE.getResourceName(),
+			new MqttMessage(DataUtil.getInstance().sensorDataToJson(data).getBytes(StandardCharsets.UTF_8)));
+
+		assertEquals(1, this.receivedData.size());
+		assertEquals(1, handled.size());
+		assertSame(this.receivedData.get(0), handled.get(0));
+	}
+
+	@Test
+	public void testMixedHandlerTypesDispatch() throws Exception
+	{
+		List<String> handled = new CopyOnWriteArrayList<>();
+
+		// a raw String handler, registered ahead of the (re-registered)
+		// data message listener - both must still receive the message
+		this.mqttClient.getDataHandlerRegistry().addHandler(
+			ResourceNameEnum.CDA_SENSOR_MSG_RESOURCE, String.class, (resource, data) -> handled.add(data));
+		this.mqttClient.setDataMessageListener(new CapturingListener());
+
+		SensorData data = new SensorData();
+		data.setName("DispatchTestSensor");
+
+		String json = DataUtil.getInstance().sensorDataToJson(data);
+
+		this.mqttClient.messageArrived(
+			ResourceNameEnum.CDA_SENSOR_MSG_RESOURCE.getResourceName(),
+			new MqttMessage(json.getBytes(StandardCharsets.UTF_8)));
+
+		assertEquals(List.of(json), handled);
+		assertEquals(1, this.receivedData.size());
+		assertEquals("DispatchTestSensor", ((SensorData) this.receivedData.get(0)).getName());
+	}
+
+	@Test
+	public void testUnknownTopicIgnored() throws Exception
+	{
+		this.mqttClient.messageArrived("Not/A/Known/Topic", new MqttMessage("test".getBytes(StandardCharsets.UTF_8)));
+
+		assertTrue(this.receivedData.isEmpty());
+	}
+
+	@Test
+	public void testMalformedPayloadDoesNotThrow() throws Exception
+	{
+		// must not throw, or Paho would drop the connection
+		this.mqttClient.messageArrived(
+			ResourceNameEnum.CDA_SENSOR_MSG_RESOURCE.getResourceName(),
+			new MqttMessage("{ not json".getBytes(StandardCharsets.UTF_8)));
+
+		assertTrue(this.receivedData.isEmpty());
+	}
+
+	@Test
+	public void testPublishWhenDisconnected()
+	{
+		assertFalse(this.mqttClient.isConnected());
+		assertFalse(this.mqttClient.publishMessage(ResourceNameEnum.GDA_MGMT_STATUS_MSG_RESOURCE, "test", 1));
+		assertEquals(0, this.mqttClient.getInflightCount());
+	}
+
+
+	// private methods
+
+	private class CapturingListener implements IDataMessageListener
+	{
+		@Override
+		public boolean handleActuatorCommandResponse(ResourceNameEnum resourceName, ActuatorData data)
+		{
+			return receivedData.add(data);
+		}
+
+		@Override
+		public boolean handleIncomingMessage(ResourceNameEnum resourceName, String msg)
+		{
+			return receivedData.add(msg);
+		}
+
+		@Override
+		public boolean handleSensorMessage(ResourceNameEnum resourceName, SensorData data)
+		{
+			return receivedData.add(data);
+		}
+
+		@Override
+		public boolean handleSystemPerformanceMessage(ResourceNameEnum resourceName, SystemPerformanceData data)
+		{
+			return receivedData.add(data);
+		}
+
+		@Override
+		public void setActuatorDataListener(String name, IActuatorDataListener listener)
+		{
+		}
+	}
+
+}
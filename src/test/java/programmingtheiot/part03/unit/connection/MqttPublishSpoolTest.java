@@ -0,0 +1,240 @@
+/**
+ * This class is part of the Programming the Internet of Things
+ * project, and is available via the MIT License, which can be
+ * found in the LICENSE file at the top level of this repository.
+ *
+ * Copyright (c) 2020 by Andrew D. King
+ */
+
+package programmingtheiot.part03.unit.connection;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import programmingtheiot.gda.connection.MqttPublishSpool;
+
+/**
+ * This test case class contains very basic unit tests for
+ * MqttPublishSpool: replay order, recovery after re-opening,
+ * compaction of replayed segments, and the size cap. It should
+ * not be considered complete, but serve as a starting point for
+ * the student implementing additional functionality within their
+ * Programming the IoT environment.
+ *
+ */
+public class MqttPublishSpoolTest
+{
+	// static
+
+	private static final String TEST_TOPIC   = "PIOT/Test/SpoolMsg";
+	private static final int    SEGMENT_SIZE = 1024;
+
+	// member var's
+
+	private File spoolDir = null;
+	private MqttPublishSpool spool = null;
+
+
+	// test setup methods
+
+	@Before
+	public void setUp() throws Exception
+	{
+		this.spoolDir = Files.createTempDirectory("piot-spool").toFile();
+		this.spool = new MqttPublishSpool(this.spoolDir.getPath(), SEGMENT_SIZE, SEGMENT_SIZE * 4);
+	}
+
+	@After
+	public void tearDown() throws Exception
+	{
+		this.spool.close();
+
+		for (File file : this.spoolDir.listFiles()) {
+			file.delete();
+		}
+
+		this.spoolDir.delete();
+	}
+
+
+	// test methods
+
+	@Test
+	public void testReplayOrder()
+	{
+		for (int i = 0; i < 50; i++) {
+			assertTrue(this.spool.append(TEST_TOPIC + i, payload(i), i % 3));
+		}
+
+		assertEquals(50L, this.spool.getPendingCount());
+		assertTrue(this.spool.getSegmentCount() > 1);
+
+		for (int i = 0; i < 50; i++) {
+			MqttPublishSpool.SpooledMessage msg = this.spool.peek();
+
+			assertEquals(TEST_TOPIC + i, msg.getTopic());
+			assertArrayEquals(payload(i), msg.getPayload());
+			assertEquals(i % 3, msg.getQos());
+
+			// not removed until committed
+			assertSame(msg, this.spool.peek());
+
+			this.spool.commit();
+		}
+
+		assertNull(this.spool.peek());
+		assertTrue(this.spool.isEmpty());
+	}
+
+	@Test
+	public void testRecoveryAfterReopen() throws Exception
+	{
+		for (int i = 0; i < 30; i++) {
+			this.spool.append(TEST_TOPIC, payload(i), 1);
+		}
+
+		for (int i = 0; i < 10; i++) {
+			this.spool.peek();
+			this.spool.commit();
+		}
+
+		this.spool.close();
+		this.spool = new MqttPublishSpool(this.spoolDir.getPath(), SEGMENT_SIZE, SEGMENT_SIZE * 4);
+
+		assertEquals(20L, this.spool.getPendingCount());
+		assertArrayEquals(payload(10), this.spool.peek().getPayload());
+
+		// appends continue after the recovered messages
+		this.spool.append(TEST_TOPIC, payload(30), 1);
+
+		for (int i = 10; i <= 30; i++) {
+			assertArrayEquals(payload(i), this.spool.peek().getPayload());
+			this.spool.commit();
+		}
+
+		assertTrue(this.spool.isEmpty());
+	}
+
+	@Test
+	public void testCompaction()
+	{
+		while (this.spool.getSegmentCount() < 3) {
+			this.spool.append(TEST_TOPIC, payload(0), 0);
+		}
+
+		while (this.spool.peek() != null) {
+			this.spool.commit();
+		}
+
+		// replayed segments are deleted; the write segment is kept for re-use
+		assertEquals(1, this.spool.getSegmentCount());
+		assertEquals(1, this.spoolDir.listFiles().length);
+	}
+
+	@Test
+	public void testSizeCapDropsOldest()
+	{
+		int count = 0;
+
+		while (this.spool.getDroppedCount() == 0L) {
+			assertTrue(this.spool.append(TEST_TOPIC, payload(count++), 0));
+		}
+
+		assertEquals(4, this.spool.getSegmentCount());
+		assertEquals(count, this.spool.getPendingCount() + this.spool.getDroppedCount());
+
+		// the newest messages are kept
+		long firstKept = this.spool.getDroppedCount();
+
+		assertArrayEquals(payload((int) firstKept), this.spool.peek().getPayload());
+	}
+
+	@Test
+	public void testOversizedMessageRejected()
+	{
+		assertFalse(this.spool.append(TEST_TOPIC, new byte[SEGMENT_SIZE], 0));
+		assertTrue(this.spool.isEmpty());
+	}
+
+	@Test
+	public void testCorruptRecordLengthTruncated() throws Exception
+	{
+		// a length walking back onto itself
+		corruptRecord(2, 0, -4);
+
+		assertRecoveredBeforeCorruptRecord(2);
+	}
+
+	@Test
+	public void testCorruptTopicLengthTruncated() throws Exception
+	{
+		// a topic longer than its record
+		corruptRecord(3, 5, 0x7fff0000);
+
+		assertRecoveredBeforeCorruptRecord(3);
+	}
+
+
+	// private methods
+
+	private void assertRecoveredBeforeCorruptRecord(int index)
+	{
+		assertEquals(index, this.spool.getPendingCount());
+
+		for (int i = 0; i < index; i++) {
+			assertArrayEquals(payload(i), this.spool.peek().getPayload());
+			this.spool.commit();
+		}
+
+		assertNull(this.spool.peek());
+
+		// the truncated segment is usable again
+		assertTrue(this.spool.append(TEST_TOPIC, payload(100), 0));
+		assertArrayEquals(payload(100), this.spool.peek().getPayload());
+	}
+
+	/**
+	 * Spools five messages to a single segment, then overwrites the int at
+	 * 'offset' in the given record, and re-opens the spool.
+	 *
+	 */
+	private void corruptRecord(int index, int offset, int value) throws Exception
+	{
+		int pos = 16;
+
+		for (int i = 0; i < 5; i++) {
+			if (i == index) {
+				pos += offset;
+			} else if (i < index) {
+				pos += 7 + TEST_TOPIC.length() + payload(i).length;
+			}
+
+			this.spool.append(TEST_TOPIC, payload(i), 0);
+		}
+
+		assertEquals(1, this.spool.getSegmentCount());
+
+		this.spool.close();
+
+		try (RandomAccessFile raf = new RandomAccessFile(this.spoolDir.listFiles()[0], "rw")) {
+			raf.seek(pos);
+			raf.writeInt(value);
+		}
+
+		this.spool = new MqttPublishSpool(this.spoolDir.getPath(), SEGMENT_SIZE, SEGMENT_SIZE * 4);
+	}
+
+	private byte[] payload(int i)
+	{
+		return ("{\"value\": " + i + "}").getBytes(StandardCharsets.UTF_8);
+	}
+
+}
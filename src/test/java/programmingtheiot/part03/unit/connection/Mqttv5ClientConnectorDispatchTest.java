@@ -0,0 +1,104 @@
+/**
+ * This class is part of the Programming the Internet of Things
+ * project, and is available via the MIT License, which can be
+ * found in the LICENSE file at the top level of this repository.
+ *
+ * Copyright (c) 2020 by Andrew D. King
+ */
+
+package programmingtheiot.part03.unit.connection;
+
+import static org.junit.Assert.*;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.eclipse.paho.mqttv5.common.MqttMessage;
+import org.eclipse.paho.mqttv5.common.packet.MqttProperties;
+import org.junit.Before;
+import org.junit.Test;
+
+import programmingtheiot.common.DefaultDataMessageListener;
+import programmingtheiot.common.PayloadFormatEnum;
+import programmingtheiot.common.ResourceNameEnum;
+import programmingtheiot.data.DataUtil;
+import programmingtheiot.data.SensorData;
+import programmingtheiot.gda.connection.Mqttv5ClientConnector;
+
+/**
+ * This test case class contains very basic unit tests for
+ * Mqttv5ClientConnector that don't require a broker: content
+ * type based decoding of incoming messages, and the message
+ * expiry configuration. It should not be considered complete,
+ * but serve as a starting point for the student implementing
+ * additional functionality within their Programming the IoT
+ * environment.
+ *
+ */
+public class Mqttv5ClientConnectorDispatchTest
+{
+	// member var's
+
+	private Mqttv5ClientConnector mqttClient = null;
+	private List<SensorData> receivedData = null;
+
+
+	// test setup methods
+
+	@Before
+	public void setUp() throws Exception
+	{
+		this.receivedData = new CopyOnWriteArrayList<>();
+		this.mqttClient = new Mqttv5ClientConnector();
+
+		this.mqttClient.setDataMessageListener(new DefaultDataMessageListener() {
+			@Override
+			public boolean handleSensorMessage(ResourceNameEnum resourceName, SensorData data)
+			{
+				return receivedData.add(data);
+			}
+		});
+	}
+
+
+	// test methods
+
+	@Test
+	public void testBinaryContentTypeDispatch() throws Exception
+	{
+		SensorData data = new SensorData();
+		data.setName("DispatchTestSensor");
+		data.setValue(42.0f);
+
+		// the topic isn't configured for binary; the content type decides
+		MqttProperties props = new MqttProperties();
+		props.setContentType(PayloadFormatEnum.BINARY.getContentType());
+
+		byte[] payload = DataUtil.getInstance().dataToPayload(PayloadFormatEnum.BINARY, data);
+
+		this.mqttClient.messageArrived(
+			ResourceNameEnum.CDA_SENSOR_MSG_RESOURCE.getResourceName(), new MqttMessage(payload, 0, false, props));
+
+		assertEquals(1, this.receivedData.size());
+		assertEquals("DispatchTestSensor", this.receivedData.get(0).getName());
+		assertEquals(42.0f, this.receivedData.get(0).getValue(), 0.001f);
+	}
+
+	@Test
+	public void testMessageExpiry()
+	{
+		// see 'messageExpiryResources' in PiotConfig.props
+		assertEquals(60L, this.mqttClient.getMessageExpirySecs(ResourceNameEnum.CDA_SENSOR_MSG_RESOURCE));
+		assertEquals(60L, this.mqttClient.getMessageExpirySecs(ResourceNameEnum.GDA_SYSTEM_PERF_MSG_RESOURCE));
+		assertEquals(0L, this.mqttClient.getMessageExpirySecs(ResourceNameEnum.CDA_ACTUATOR_CMD_RESOURCE));
+	}
+
+	@Test
+	public void testPublishWhenDisconnected()
+	{
+		assertFalse(this.mqttClient.isConnected());
+		assertEquals(0, this.mqttClient.getInflightWindow());
+		assertFalse(this.mqttClient.publishMessage(ResourceNameEnum.GDA_MGMT_STATUS_MSG_RESOURCE, "test", 1));
+	}
+
+}
@@ -0,0 +1,167 @@
+/**
+ * This class is part of the Programming the Internet of Things
+ * project, and is available via the MIT License, which can be
+ * found in the LICENSE file at the top level of this repository.
+ *
+ * Copyright (c) 2020 by Andrew D. King
+ */
+
+package programmingtheiot.part03.unit.connection;
+
+import static org.junit.Assert.*;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import org.junit.Test;
+
+import programmingtheiot.gda.connection.CircuitStateEnum;
+import programmingtheiot.gda.connection.ReconnectScheduler;
+
+/**
+ * This test case class contains very basic unit tests for
+ * ReconnectScheduler: backoff until a successful attempt, the
+ * circuit breaker, and disabling (also during an attempt). It
+ * should not be considered complete, but serve as a starting
+ * point for the student implementing additional functionality
+ * within their Programming the IoT environment.
+ *
+ */
+public class ReconnectSchedulerTest
+{
+	// static
+
+	private static final long BASE_DELAY_MILLIS = 5L;
+	private static final long MAX_DELAY_MILLIS  = 20L;
+	private static final long OPEN_MILLIS       = 300L;
+	private static final long WAIT_MILLIS       = 5000L;
+
+
+	// test methods
+
+	@Test
+	public void testReconnectAfterFailures() throws Exception
+	{
+		AtomicInteger calls = new AtomicInteger(0);
+
+		// fails twice, then connects
+		ReconnectScheduler scheduler =
+			new ReconnectScheduler("Test", BASE_DELAY_MILLIS, MAX_DELAY_MILLIS, 5, OPEN_MILLIS, () -> calls.incrementAndGet() > 2);
+
+		scheduler.enable();
+
+		assertTrue(scheduler.scheduleReconnect());
+		assertTrue(waitFor(() -> scheduler.getSuccessCount() == 1L));
+
+		assertEquals(3L, scheduler.getAttemptCount());
+		assertEquals(2L, scheduler.getFailureCount());
+		assertEquals(0, scheduler.getConsecutiveFailures());
+		assertEquals(CircuitStateEnum.CLOSED, scheduler.getCircuitState());
+		assertFalse(scheduler.isReconnectPending());
+
+		// full jitter: never more than the cap
+		assertTrue(scheduler.getLastDelayMillis() <= MAX_DELAY_MILLIS);
+	}
+
+	@Test
+	public void testCircuitBreaker() throws Exception
+	{
+		AtomicInteger calls = new AtomicInteger(0);
+
+		// fails until the half-open trial attempt
+		ReconnectScheduler scheduler =
+			new ReconnectScheduler("Test", BASE_DELAY_MILLIS, MAX_DELAY_MILLIS, 3, OPEN_MILLIS, () -> calls.incrementAndGet() > 3);
+
+		scheduler.enable();
+		scheduler.scheduleReconnect();
+
+		assertTrue(waitFor(() -> scheduler.getCircuitState() == CircuitStateEnum.OPEN));
+		assertEquals(1L, scheduler.getCircuitOpenCount());
+		assertTrue(scheduler.getLastDelayMillis() >= OPEN_MILLIS);
+
+		// no attempts while open
+		Thread.sleep(OPEN_MILLIS / 2);
+		assertEquals(3, calls.get());
+
+		assertTrue(waitFor(() -> scheduler.getSuccessCount() == 1L));
+		assertEquals(4L, scheduler.getAttemptCount());
+		assertEquals(CircuitStateEnum.CLOSED, scheduler.getCircuitState());
+	}
+
+	@Test
+	public void testDisable() throws Exception
+	{
+		AtomicInteger calls = new AtomicInteger(0);
+
+		ReconnectScheduler scheduler =
+			new ReconnectScheduler("Test", 200L, 200L, 5, OPEN_MILLIS, () -> calls.incrementAndGet() > 0);
+
+		// not enabled yet
+		assertFalse(scheduler.scheduleReconnect());
+
+		scheduler.enable();
+		scheduler.scheduleReconnect();
+		scheduler.disable();
+
+		Thread.sleep(300L);
+
+		assertEquals(0, calls.get());
+		assertFalse(scheduler.isReconnectPending());
+	}
+
+	@Test
+	public void testDisableDuringAttempt() throws Exception
+	{
+		CountDownLatch attemptStarted = new CountDownLatch(1);
+		CountDownLatch disabled = new CountDownLatch(1);
+		AtomicInteger disconnects = new AtomicInteger(0);
+
+		// connects, but only once disabled
+		ReconnectScheduler scheduler =
+			new ReconnectScheduler(
+				"Test", BASE_DELAY_MILLIS, MAX_DELAY_MILLIS, 5, OPEN_MILLIS,
+				() -> {
+					attemptStarted.countDown();
+
+					try {
+						return disabled.await(WAIT_MILLIS, TimeUnit.MILLISECONDS);
+					} catch (InterruptedException e) {
+						return false;
+					}
+				},
+				disconnects::incrementAndGet);
+
+		scheduler.enable();
+		scheduler.scheduleReconnect();
+
+		assertTrue(attemptStarted.await(WAIT_MILLIS, TimeUnit.MILLISECONDS));
+
+		scheduler.disable();
+		disabled.countDown();
+
+		assertTrue(waitFor(() -> disconnects.get() == 1));
+		assertEquals(1L, scheduler.getSuccessCount());
+		assertFalse(scheduler.isReconnectPending());
+	}
+
+
+	// private methods
+
+	private boolean waitFor(BooleanSupplier condition) throws InterruptedException
+	{
+		long endMillis = System.currentTimeMillis() + WAIT_MILLIS;
+
+		while (! condition.getAsBoolean()) {
+			if (System.currentTimeMillis() > endMillis) {
+				return false;
+			}
+
+			Thread.sleep(5L);
+		}
+
+		return true;
+	}
+
+}